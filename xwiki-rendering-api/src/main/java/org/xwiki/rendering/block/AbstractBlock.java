@@ -20,11 +20,12 @@
 package org.xwiki.rendering.block;
 
 import java.security.InvalidParameterException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
@@ -32,6 +33,7 @@
 import org.xwiki.rendering.block.match.BlockNavigator;
 import org.xwiki.rendering.block.match.CounterBlockMatcher;
 import org.xwiki.rendering.listener.Listener;
+import org.xwiki.stability.Unstable;
 
 /**
  * Implementation for Block operations. All blocks should extend this class. Supports the notion of generic parameters
@@ -45,7 +47,7 @@ public abstract class AbstractBlock implements Block
     /**
      * Store parameters, see {@link #getParameter(String)} for more explanations on what parameters are.
      */
-    private Map<String, String> parameters;
+    private BlockParameters parameters;
 
     /**
      * The Blocks this Block contains.
@@ -67,6 +69,93 @@ public abstract class AbstractBlock implements Block
      */
     private Block previousSiblingBlock;
 
+    /**
+     * The cached hash code of the parameters and children of this block, 0 when it needs to be computed.
+     */
+    private int hashCode;
+
+    /**
+     * True when this block and its descendants cannot be modified anymore, see {@link #freeze()}.
+     */
+    private boolean frozen;
+
+    /**
+     * The frozen block whose children have not been copied yet in this copy-on-write clone.
+     */
+    private AbstractBlock lazyChildrenSource;
+
+    /**
+     * The children of this block when they have been compacted, see {@link #compact()}.
+     */
+    private PackedInlineBlocks packedChildren;
+
+    /**
+     * The list of children of a block, which forgets the cached hash code of the block when modified.
+     */
+    private final class ChildrenList extends AbstractList<Block> implements RandomAccess
+    {
+        private final List<Block> blocks;
+
+        ChildrenList(int initialCapacity)
+        {
+            this(new ArrayList<>(initialCapacity));
+        }
+
+        ChildrenList(List<Block> blocks)
+        {
+            this.blocks = blocks;
+        }
+
+        @Override
+        public Block get(int index)
+        {
+            return this.blocks.get(index);
+        }
+
+        @Override
+        public int size()
+        {
+            return this.blocks.size();
+        }
+
+        @Override
+        public Block set(int index, Block element)
+        {
+            Block previous = this.blocks.set(index, element);
+            invalidateHashCode();
+
+            return previous;
+        }
+
+        @Override
+        public void add(int index, Block element)
+        {
+            this.blocks.add(index, element);
+            this.modCount++;
+            invalidateHashCode();
+        }
+
+        @Override
+        public Block remove(int index)
+        {
+            Block removed = this.blocks.remove(index);
+            this.modCount++;
+            invalidateHashCode();
+
+            return removed;
+        }
+
+        @Override
+        public void clear()
+        {
+            if (!this.blocks.isEmpty()) {
+                this.blocks.clear();
+                this.modCount++;
+                invalidateHashCode();
+            }
+        }
+    }
+
     /**
      * Empty constructor to construct an empty block.
      */
@@ -170,9 +259,12 @@ public void addChild(Block blockToAdd)
     public void addChildren(List<? extends Block> blocksToAdd)
     {
         if (!blocksToAdd.isEmpty()) {
+            checkNotFrozen();
+            materializeChildren();
+
             if (this.childrenBlocks == null) {
                 // Create the list with just the exact required size
-                this.childrenBlocks = new ArrayList<>(blocksToAdd.size());
+                this.childrenBlocks = new ChildrenList(blocksToAdd.size());
             }
 
             for (Block blockToAdd : blocksToAdd) {
@@ -184,10 +276,15 @@ public void addChildren(List<? extends Block> blocksToAdd)
     @Override
     public void setChildren(List<? extends Block> children)
     {
+        checkNotFrozen();
+        this.lazyChildrenSource = null;
+        this.packedChildren = null;
+
         if (children.isEmpty()) {
             if (this.childrenBlocks != null) {
                 this.childrenBlocks.clear();
             }
+            invalidateHashCode();
         } else {
             if (this.childrenBlocks != null) {
                 this.childrenBlocks.clear();
@@ -200,18 +297,25 @@ public void setChildren(List<? extends Block> children)
     @Override
     public void setNextSiblingBlock(Block nextSiblingBlock)
     {
+        checkNotFrozen();
+
         this.nextSiblingBlock = nextSiblingBlock;
     }
 
     @Override
     public void setPreviousSiblingBlock(Block previousSiblingBlock)
     {
+        checkNotFrozen();
+
         this.previousSiblingBlock = previousSiblingBlock;
     }
 
     @Override
     public void insertChildBefore(Block blockToInsert, Block nextBlock)
     {
+        checkNotFrozen();
+        materializeChildren();
+
         blockToInsert.setParent(this);
 
         if (nextBlock == null) {
@@ -224,7 +328,7 @@ public void insertChildBefore(Block blockToInsert, Block nextBlock)
                 blockToInsert.setPreviousSiblingBlock(null);
 
                 if (this.childrenBlocks == null) {
-                    this.childrenBlocks = new ArrayList<>(1);
+                    this.childrenBlocks = new ChildrenList(1);
                 }
             }
             blockToInsert.setNextSiblingBlock(null);
@@ -241,7 +345,7 @@ public void insertChildBefore(Block blockToInsert, Block nextBlock)
             blockToInsert.setNextSiblingBlock(nextBlock);
             nextBlock.setPreviousSiblingBlock(blockToInsert);
             if (this.childrenBlocks == null || this.childrenBlocks.isEmpty()) {
-                this.childrenBlocks = new ArrayList<>(1);
+                this.childrenBlocks = new ChildrenList(1);
                 this.childrenBlocks.add(blockToInsert);
             } else {
                 this.childrenBlocks.add(indexOfChild(nextBlock), blockToInsert);
@@ -252,6 +356,9 @@ public void insertChildBefore(Block blockToInsert, Block nextBlock)
     @Override
     public void insertChildAfter(Block blockToInsert, Block previousBlock)
     {
+        checkNotFrozen();
+        materializeChildren();
+
         if (previousBlock == null) {
             insertChildBefore(blockToInsert, null);
         } else {
@@ -266,7 +373,7 @@ public void insertChildAfter(Block blockToInsert, Block previousBlock)
             blockToInsert.setPreviousSiblingBlock(previousBlock);
             previousBlock.setNextSiblingBlock(blockToInsert);
             if (this.childrenBlocks == null) {
-                this.childrenBlocks = new ArrayList<>(1);
+                this.childrenBlocks = new ChildrenList(1);
             }
             this.childrenBlocks.add(indexOfChild(previousBlock) + 1, blockToInsert);
         }
@@ -281,6 +388,8 @@ public void replaceChild(Block newBlock, Block oldBlock)
     @Override
     public void replaceChild(List<Block> newBlocks, Block oldBlock)
     {
+        checkNotFrozen();
+
         int position = indexOfChild(oldBlock);
 
         if (position == -1) {
@@ -356,6 +465,8 @@ public long indexOf(Block child)
     @Override
     public List<Block> getChildren()
     {
+        materializeChildren();
+
         return this.childrenBlocks == null ? Collections.emptyList() : this.childrenBlocks;
     }
 
@@ -368,8 +479,14 @@ public Block getParent()
     @Override
     public Map<String, String> getParameters()
     {
-        return this.parameters == null ? Collections.emptyMap()
-            : Collections.unmodifiableMap(this.parameters);
+        return new BlockParameters.View()
+        {
+            @Override
+            BlockParameters getBlockParameters()
+            {
+                return parameters;
+            }
+        };
     }
 
     @Override
@@ -381,27 +498,28 @@ public String getParameter(String name)
     @Override
     public void setParameter(String name, String value)
     {
-        if (this.parameters == null) {
-            this.parameters = new LinkedHashMap<>(1);
-        }
+        checkNotFrozen();
+
+        this.parameters = BlockParameters.with(this.parameters, name, value);
 
-        this.parameters.put(name, value);
+        invalidateHashCode();
     }
 
     @Override
     public void setParameters(Map<String, String> parameters)
     {
-        if (this.parameters == null) {
-            this.parameters = new LinkedHashMap<>(parameters);
-        } else {
-            this.parameters.clear();
-            this.parameters.putAll(parameters);
-        }
+        checkNotFrozen();
+
+        this.parameters = BlockParameters.of(parameters);
+
+        invalidateHashCode();
     }
 
     @Override
     public void setParent(Block parentBlock)
     {
+        checkNotFrozen();
+
         this.parentBlock = parentBlock;
     }
 
@@ -432,6 +550,8 @@ public Block getPreviousSibling()
     @Override
     public void removeBlock(Block childBlockToRemove)
     {
+        checkNotFrozen();
+
         // Remove block
         List<Block> children = getChildren();
         int position = indexOfBlock(childBlockToRemove, children);
@@ -463,10 +583,19 @@ public boolean equals(Object obj)
         }
 
         if (obj instanceof Block) {
+            // Blocks of different types or with different cached hash codes cannot be equal
+            if (obj.getClass() != getClass()) {
+                return false;
+            }
+            AbstractBlock other = (AbstractBlock) obj;
+            if (this.hashCode != 0 && other.hashCode != 0 && this.hashCode != other.hashCode) {
+                return false;
+            }
+
             EqualsBuilder builder = new EqualsBuilder();
 
-            builder.append(getChildren(), ((Block) obj).getChildren());
-            builder.append(getParameters(), ((Block) obj).getParameters());
+            builder.append(readChildren(), other.readChildren());
+            builder.append(BlockParameters.toMap(this.parameters), BlockParameters.toMap(other.parameters));
 
             return builder.isEquals();
         }
@@ -474,15 +603,213 @@ public boolean equals(Object obj)
         return false;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The hash code of the type, parameters and children is computed once and cached until this block or one of its
+     * descendants is modified through the methods of {@link Block}, the list returned by {@link #getChildren()} or a
+     * setter calling {@link #invalidateHashCode()}. Modifying the objects held by a block (a resource reference, some
+     * metadata, etc.) is not detected.
+     */
     @Override
     public int hashCode()
     {
-        HashCodeBuilder builder = new HashCodeBuilder();
+        int result = this.hashCode;
+
+        if (result == 0) {
+            HashCodeBuilder builder = new HashCodeBuilder();
 
-        builder.append(this.childrenBlocks);
-        builder.append(this.parameters);
+            builder.append(getClass());
+            if (this.packedChildren != null) {
+                builder.append(this.packedChildren.unpack());
+            } else {
+                builder.append(
+                    this.lazyChildrenSource != null ? this.lazyChildrenSource.childrenBlocks : this.childrenBlocks);
+            }
+            builder.append(this.parameters);
 
-        return builder.toHashCode();
+            result = builder.toHashCode();
+            if (result == 0) {
+                // 0 means that the hash code is not computed
+                result = 1;
+            }
+            this.hashCode = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Forget the cached hash code of this block and of its ancestors. Must be called by the extending blocks when
+     * modifying a field taken into account in their {@link #hashCode()}.
+     *
+     * @since 15.0RC1
+     */
+    @Unstable
+    protected void invalidateHashCode()
+    {
+        Block block = this;
+        while (block != null) {
+            if (block instanceof AbstractBlock) {
+                AbstractBlock abstractBlock = (AbstractBlock) block;
+                if (abstractBlock.hashCode == 0 || abstractBlock.frozen) {
+                    // The ancestors cannot have a cached hash code computed from this block's one: the descendants of
+                    // a block with a cached hash code always have one
+                    break;
+                }
+                abstractBlock.hashCode = 0;
+            }
+            block = block.getParent();
+        }
+    }
+
+    /**
+     * Make this block and all its descendants immutable: any modification will throw an
+     * {@link UnsupportedOperationException}. A frozen tree can then be shared between threads and its clones are
+     * copy-on-write: the children of a cloned block are only copied when they are accessed through
+     * {@link #getChildren()} (traversing the clone to render it doesn't copy anything).
+     * <p>
+     * Since a block knows its parent and siblings, a frozen block cannot be added to another block: add a clone
+     * instead. This should thus be called on the root of a tree, usually an {@link XDOM}. The objects held by the
+     * blocks (resource references, metadata, id generator, etc.) are not frozen and must not be modified.
+     *
+     * @since 15.0RC1
+     */
+    @Unstable
+    public void freeze()
+    {
+        if (!this.frozen) {
+            materializeChildren();
+
+            if (this.childrenBlocks != null) {
+                for (Block child : this.childrenBlocks) {
+                    if (child instanceof AbstractBlock) {
+                        ((AbstractBlock) child).freeze();
+                    }
+                }
+                this.childrenBlocks = Collections.unmodifiableList(this.childrenBlocks);
+            }
+
+            this.frozen = true;
+        }
+    }
+
+    /**
+     * @return true if this block cannot be modified anymore
+     * @see #freeze()
+     * @since 15.0RC1
+     */
+    @Unstable
+    public boolean isFrozen()
+    {
+        return this.frozen;
+    }
+
+    /**
+     * Must be called by the extending blocks before modifying one of their fields.
+     *
+     * @throws UnsupportedOperationException if this block is frozen
+     * @see #freeze()
+     * @since 15.0RC1
+     */
+    @Unstable
+    protected void checkNotFrozen()
+    {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("A frozen block cannot be modified");
+        }
+    }
+
+    /**
+     * Reduce the memory used by the tree: the lists of children only made of {@link WordBlock}s, {@link SpaceBlock}s,
+     * {@link NewLineBlock}s and {@link SpecialSymbolBlock}s without parameters are replaced by a compact
+     * representation. The compacted blocks are recreated the first time the children of their parent are accessed
+     * through {@link #getChildren()} or modified, so references to them kept before the compaction are not valid
+     * anymore. Traversing or cloning a compacted tree doesn't recreate them.
+     * <p>
+     * Useful for trees which are kept for a while, for example in a cache. This cannot be combined with
+     * {@link #freeze()}.
+     *
+     * @throws UnsupportedOperationException if this block is frozen
+     * @since 15.0RC1
+     */
+    @Unstable
+    public void compact()
+    {
+        checkNotFrozen();
+
+        if (this.childrenBlocks != null) {
+            PackedInlineBlocks packed =
+                this.childrenBlocks.size() > 1 ? PackedInlineBlocks.pack(this.childrenBlocks) : null;
+            if (packed != null) {
+                this.packedChildren = packed;
+                this.childrenBlocks = null;
+            } else {
+                for (Block child : this.childrenBlocks) {
+                    if (child instanceof AbstractBlock) {
+                        ((AbstractBlock) child).compact();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the children of this block, without copying the ones of a copy-on-write clone or recreating the
+     *         compacted ones
+     */
+    private List<Block> readChildren()
+    {
+        if (this.packedChildren != null) {
+            return this.packedChildren.unpack();
+        }
+
+        return this.lazyChildrenSource != null ? this.lazyChildrenSource.getChildren() : getChildren();
+    }
+
+    /**
+     * Copy the children of the frozen block this block has been cloned from, or recreate the compacted children, if
+     * not already done.
+     */
+    private void materializeChildren()
+    {
+        if (this.packedChildren != null) {
+            List<Block> children = this.packedChildren.unpack();
+            this.packedChildren = null;
+
+            Block previousBlock = null;
+            for (Block child : children) {
+                child.setParent(this);
+                child.setPreviousSiblingBlock(previousBlock);
+                if (previousBlock != null) {
+                    previousBlock.setNextSiblingBlock(child);
+                }
+                previousBlock = child;
+                if (this.hashCode != 0) {
+                    // The descendants of a block with a cached hash code must have one, see invalidateHashCode()
+                    child.hashCode();
+                }
+            }
+            this.childrenBlocks = new ChildrenList(children);
+        } else if (this.lazyChildrenSource != null) {
+            List<Block> sourceChildren = this.lazyChildrenSource.getChildren();
+            this.lazyChildrenSource = null;
+
+            List<Block> children = new ArrayList<>(sourceChildren.size());
+            Block previousBlock = null;
+            for (Block sourceChild : sourceChildren) {
+                Block child = sourceChild.clone();
+                child.setParent(this);
+                child.setPreviousSiblingBlock(previousBlock);
+                child.setNextSiblingBlock(null);
+                if (previousBlock != null) {
+                    previousBlock.setNextSiblingBlock(child);
+                }
+                children.add(child);
+                previousBlock = child;
+            }
+            this.childrenBlocks = new ChildrenList(children);
+        }
     }
 
     @Override
@@ -507,13 +834,30 @@ public Block clone(BlockFilter blockFilter)
             throw new RuntimeException("Failed to clone object", e);
         }
 
-        if (this.parameters != null) {
-            ((AbstractBlock) block).parameters = new LinkedHashMap<>(this.parameters);
-        }
+        AbstractBlock abstractBlock = (AbstractBlock) block;
+        abstractBlock.frozen = false;
 
-        if (this.childrenBlocks != null) {
-            ((AbstractBlock) block).childrenBlocks = new ArrayList<>(this.childrenBlocks.size());
-            for (Block childBlock : this.childrenBlocks) {
+        List<Block> children;
+        if (this.lazyChildrenSource != null) {
+            children = this.lazyChildrenSource.childrenBlocks;
+        } else if (this.packedChildren != null) {
+            // The compacted children are immutable and thus shared with the clone, unless they have to be filtered
+            children = blockFilter != null ? this.packedChildren.unpack() : null;
+        } else {
+            children = this.childrenBlocks;
+        }
+        if (blockFilter == null && (this.frozen || this.lazyChildrenSource != null)) {
+            // Copy the children of the frozen tree only when needed
+            abstractBlock.childrenBlocks = null;
+            abstractBlock.lazyChildrenSource = this.frozen && children != null ? this : this.lazyChildrenSource;
+        } else if (children != null) {
+            // The children might be filtered
+            abstractBlock.hashCode = 0;
+            abstractBlock.lazyChildrenSource = null;
+            abstractBlock.packedChildren = null;
+
+            abstractBlock.childrenBlocks = new ChildrenList(children.size());
+            for (Block childBlock : children) {
                 if (blockFilter != null) {
                     Block clonedChildBlocks = childBlock.clone(blockFilter);
 
@@ -538,8 +882,15 @@ public void traverse(Listener listener)
     {
         before(listener);
 
-        for (Block block : getChildren()) {
-            block.traverse(listener);
+        if (!(listener instanceof SubtreeSkippingListener)
+            || !((SubtreeSkippingListener) listener).skipChildren(this)) {
+            if (this.packedChildren != null) {
+                this.packedChildren.traverse(listener);
+            } else {
+                for (Block block : readChildren()) {
+                    block.traverse(listener);
+                }
+            }
         }
 
         after(listener);
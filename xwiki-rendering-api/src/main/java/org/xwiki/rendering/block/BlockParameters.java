@@ -0,0 +1,292 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.block;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Immutable and insertion ordered parameters of a block, stored in a single array since blocks usually have very few
+ * parameters. Being immutable, the same instance is shared by the clones of a block and identical parameters are
+ * shared between blocks. The blocks expose them through a {@link View} so that the map returned by
+ * {@link Block#getParameters()} reflects the parameters set afterwards.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+final class BlockParameters extends AbstractMap<String, String>
+{
+    /**
+     * The maximum number of distinct parameters to share. New parameters replace the ones stored in the same slot so
+     * that parameters which are always different (ids, etc.) don't prevent sharing the common ones.
+     */
+    private static final int MAX_INTERNED = 4096;
+
+    /**
+     * The maximum total length of the names and values of the parameters to share, to not keep large values (e.g.
+     * data URIs or inline styles) in memory after the blocks using them are gone.
+     */
+    private static final int MAX_INTERNED_LENGTH = 256;
+
+    /**
+     * The shared parameters, indexed by the hash code of their entries since the order of the parameters matters. This
+     * is lock free since blocks with parameters are created concurrently by the parsers and the transformations.
+     */
+    private static final AtomicReferenceArray<BlockParameters> INTERNED = new AtomicReferenceArray<>(MAX_INTERNED);
+
+    /**
+     * The keys and values, alternated.
+     */
+    private final String[] entries;
+
+    private int hashCode;
+
+    private BlockParameters(String[] entries)
+    {
+        this.entries = entries;
+    }
+
+    /**
+     * @param parameters the parameters to copy
+     * @return the immutable parameters or {@code null} if there isn't any parameter
+     */
+    static BlockParameters of(Map<String, String> parameters)
+    {
+        if (parameters instanceof BlockParameters) {
+            return (BlockParameters) parameters;
+        } else if (parameters instanceof View) {
+            return ((View) parameters).getBlockParameters();
+        }
+
+        if (parameters.isEmpty()) {
+            return null;
+        }
+
+        String[] entries = new String[parameters.size() * 2];
+        int index = 0;
+        for (Map.Entry<String, String> entry : parameters.entrySet()) {
+            entries[index++] = entry.getKey();
+            entries[index++] = entry.getValue();
+        }
+
+        return intern(entries);
+    }
+
+    private static BlockParameters intern(String[] entries)
+    {
+        if (!isInternable(entries)) {
+            return new BlockParameters(entries);
+        }
+
+        int hash = Arrays.hashCode(entries);
+        int slot = (hash ^ (hash >>> 16)) & (MAX_INTERNED - 1);
+        BlockParameters interned = INTERNED.get(slot);
+        if (interned == null || !Arrays.equals(interned.entries, entries)) {
+            interned = new BlockParameters(entries);
+            INTERNED.set(slot, interned);
+        }
+
+        return interned;
+    }
+
+    private static boolean isInternable(String[] entries)
+    {
+        int length = 0;
+        for (String entry : entries) {
+            if (entry != null) {
+                length += entry.length();
+                if (length > MAX_INTERNED_LENGTH) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param parameters the parameters to modify, {@code null} if there isn't any
+     * @param name the name of the parameter to set
+     * @param value the value of the parameter
+     * @return new parameters with the passed parameter set, keeping its position if it already exists
+     */
+    static BlockParameters with(BlockParameters parameters, String name, String value)
+    {
+        String[] entries;
+
+        int index = parameters != null ? parameters.indexOfKey(name) : -1;
+        if (index >= 0) {
+            entries = parameters.entries.clone();
+            entries[index + 1] = value;
+        } else if (parameters != null) {
+            entries = Arrays.copyOf(parameters.entries, parameters.entries.length + 2);
+            entries[entries.length - 2] = name;
+            entries[entries.length - 1] = value;
+        } else {
+            entries = new String[] { name, value };
+        }
+
+        return new BlockParameters(entries);
+    }
+
+    /**
+     * @param parameters the parameters, {@code null} if there isn't any
+     * @return the passed parameters as a map
+     */
+    static Map<String, String> toMap(BlockParameters parameters)
+    {
+        return parameters != null ? parameters : Collections.emptyMap();
+    }
+
+    private int indexOfKey(Object key)
+    {
+        for (int i = 0; i < this.entries.length; i += 2) {
+            if (Objects.equals(key, this.entries[i])) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public int size()
+    {
+        return this.entries.length / 2;
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return indexOfKey(key) >= 0;
+    }
+
+    @Override
+    public String get(Object key)
+    {
+        int index = indexOfKey(key);
+
+        return index >= 0 ? this.entries[index + 1] : null;
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet()
+    {
+        return new AbstractSet<Map.Entry<String, String>>()
+        {
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator()
+            {
+                return new Iterator<Map.Entry<String, String>>()
+                {
+                    private int index;
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return this.index < entries.length;
+                    }
+
+                    @Override
+                    public Map.Entry<String, String> next()
+                    {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+
+                        Map.Entry<String, String> entry =
+                            new AbstractMap.SimpleImmutableEntry<>(entries[this.index], entries[this.index + 1]);
+                        this.index += 2;
+
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size()
+            {
+                return BlockParameters.this.size();
+            }
+        };
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int result = this.hashCode;
+
+        if (result == 0) {
+            result = super.hashCode();
+            this.hashCode = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Unmodifiable view of the current parameters of a block.
+     */
+    abstract static class View extends AbstractMap<String, String>
+    {
+        /**
+         * @return the current parameters of the block, {@code null} if there isn't any
+         */
+        abstract BlockParameters getBlockParameters();
+
+        @Override
+        public int size()
+        {
+            return toMap(getBlockParameters()).size();
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            return toMap(getBlockParameters()).containsKey(key);
+        }
+
+        @Override
+        public String get(Object key)
+        {
+            return toMap(getBlockParameters()).get(key);
+        }
+
+        @Override
+        public Set<Map.Entry<String, String>> entrySet()
+        {
+            return toMap(getBlockParameters()).entrySet();
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return toMap(getBlockParameters()).hashCode();
+        }
+    }
+}
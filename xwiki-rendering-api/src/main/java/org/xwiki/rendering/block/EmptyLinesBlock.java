@@ -58,7 +58,11 @@ public int getEmptyLinesCount()
      */
     public void setEmptyLinesCount(int count)
     {
+        checkNotFrozen();
+
         this.count = count;
+
+        invalidateHashCode();
     }
 
     @Override
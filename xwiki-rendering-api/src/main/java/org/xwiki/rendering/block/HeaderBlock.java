@@ -115,7 +115,11 @@ public String getId()
     @Unstable
     public void setId(String id)
     {
+        checkNotFrozen();
+
         this.id = id;
+
+        invalidateHashCode();
     }
 
     /**
@@ -120,7 +120,11 @@ public boolean isFreeStandingURI()
     @Unstable
     public void setId(String id)
     {
+        checkNotFrozen();
+
         this.id = id;
+
+        invalidateHashCode();
     }
 
     /**
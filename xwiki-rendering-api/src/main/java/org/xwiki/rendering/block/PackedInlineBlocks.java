@@ -0,0 +1,159 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.block;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xwiki.rendering.listener.Listener;
+
+/**
+ * Compact representation of a list of {@link WordBlock}, {@link SpaceBlock}, {@link NewLineBlock} and
+ * {@link SpecialSymbolBlock} without parameters, used by {@link AbstractBlock#compact()}. The text of the words and
+ * special symbols is stored in a single string.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+final class PackedInlineBlocks
+{
+    private static final byte WORD = 0;
+
+    private static final byte SPACE = 1;
+
+    private static final byte NEWLINE = 2;
+
+    private static final byte SPECIAL_SYMBOL = 3;
+
+    private final String text;
+
+    private final byte[] types;
+
+    /**
+     * The end offset in {@link #text} of each word.
+     */
+    private final int[] ends;
+
+    private PackedInlineBlocks(String text, byte[] types, int[] ends)
+    {
+        this.text = text;
+        this.types = types;
+        this.ends = ends;
+    }
+
+    /**
+     * @param blocks the blocks to pack
+     * @return the packed blocks or {@code null} if some of the blocks cannot be packed
+     */
+    static PackedInlineBlocks pack(List<Block> blocks)
+    {
+        StringBuilder text = new StringBuilder();
+        byte[] types = new byte[blocks.size()];
+        int[] ends = new int[blocks.size()];
+
+        for (int i = 0; i < types.length; i++) {
+            Block block = blocks.get(i);
+
+            // Only the exact classes since extending blocks can have other fields
+            Class<?> blockClass = block.getClass();
+            if (!isPackable(blockClass) || !block.getParameters().isEmpty() || !block.getChildren().isEmpty()) {
+                return null;
+            }
+
+            if (blockClass == WordBlock.class) {
+                types[i] = WORD;
+                text.append(((WordBlock) block).getWord());
+            } else if (blockClass == SpaceBlock.class) {
+                types[i] = SPACE;
+            } else if (blockClass == NewLineBlock.class) {
+                types[i] = NEWLINE;
+            } else {
+                types[i] = SPECIAL_SYMBOL;
+                text.append(((SpecialSymbolBlock) block).getSymbol());
+            }
+            ends[i] = text.length();
+        }
+
+        return new PackedInlineBlocks(text.toString(), types, ends);
+    }
+
+    private static boolean isPackable(Class<?> blockClass)
+    {
+        return blockClass == WordBlock.class || blockClass == SpaceBlock.class || blockClass == NewLineBlock.class
+            || blockClass == SpecialSymbolBlock.class;
+    }
+
+    /**
+     * @return new blocks corresponding to the packed ones, without parent and siblings
+     */
+    List<Block> unpack()
+    {
+        List<Block> blocks = new ArrayList<>(this.types.length);
+        for (int i = 0; i < this.types.length; i++) {
+            blocks.add(createBlock(i));
+        }
+
+        return blocks;
+    }
+
+    private Block createBlock(int index)
+    {
+        switch (this.types[index]) {
+            case WORD:
+                return new WordBlock(this.text.substring(getStart(index), this.ends[index]));
+            case SPACE:
+                return new SpaceBlock();
+            case NEWLINE:
+                return new NewLineBlock();
+            default:
+                return new SpecialSymbolBlock(this.text.charAt(getStart(index)));
+        }
+    }
+
+    private int getStart(int index)
+    {
+        return index > 0 ? this.ends[index - 1] : 0;
+    }
+
+    /**
+     * Send the events of the packed blocks, without creating them.
+     *
+     * @param listener the listener to send the events to
+     */
+    void traverse(Listener listener)
+    {
+        for (int i = 0; i < this.types.length; i++) {
+            switch (this.types[i]) {
+                case WORD:
+                    listener.onWord(this.text.substring(getStart(i), this.ends[i]));
+                    break;
+                case SPACE:
+                    listener.onSpace();
+                    break;
+                case NEWLINE:
+                    listener.onNewLine();
+                    break;
+                default:
+                    listener.onSpecialSymbol(this.text.charAt(getStart(i)));
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.block;
+
+import org.xwiki.rendering.listener.Listener;
+import org.xwiki.stability.Unstable;
+
+/**
+ * A {@link Listener} which can ask {@link Block#traverse(Listener)} not to send the events of the children of a
+ * block, for example because it would discard them anyway. The begin and end events of the block itself are always
+ * sent.
+ * <p>
+ * Only the listener passed to {@link Block#traverse(Listener)} is asked, so a listener wrapped by another one won't
+ * skip anything unless the wrapping listener forwards the question.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public interface SubtreeSkippingListener extends Listener
+{
+    /**
+     * Called after the begin events of the passed block have been sent and before traversing its children.
+     *
+     * @param block the block being traversed
+     * @return {@code true} if the events of the children of the passed block should not be sent
+     */
+    boolean skipChildren(Block block);
+}
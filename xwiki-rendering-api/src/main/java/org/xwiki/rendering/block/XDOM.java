@@ -101,6 +101,8 @@ public IdGenerator getIdGenerator()
      */
     public void setIdGenerator(IdGenerator idGenerator)
     {
+        checkNotFrozen();
+
         this.idGenerator = idGenerator;
     }
 
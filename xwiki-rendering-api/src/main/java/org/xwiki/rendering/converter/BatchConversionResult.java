@@ -0,0 +1,88 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.converter;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * The outcome of a batch conversion.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public class BatchConversionResult
+{
+    private final long convertedCount;
+
+    private final Map<String, Exception> failures;
+
+    private final Duration duration;
+
+    /**
+     * @param convertedCount the number of documents converted successfully
+     * @param failures the errors of the documents which could not be converted, indexed by document identifier
+     * @param duration the time taken by the whole batch
+     */
+    public BatchConversionResult(long convertedCount, Map<String, Exception> failures, Duration duration)
+    {
+        this.convertedCount = convertedCount;
+        this.failures = Collections.unmodifiableMap(failures);
+        this.duration = duration;
+    }
+
+    /**
+     * @return the number of documents converted successfully
+     */
+    public long getConvertedCount()
+    {
+        return this.convertedCount;
+    }
+
+    /**
+     * @return the errors of the documents which could not be converted, indexed by document identifier
+     */
+    public Map<String, Exception> getFailures()
+    {
+        return this.failures;
+    }
+
+    /**
+     * @return the time taken by the whole batch
+     */
+    public Duration getDuration()
+    {
+        return this.duration;
+    }
+
+    /**
+     * @return the number of documents (converted or failed) processed per second
+     */
+    public double getThroughput()
+    {
+        long nanos = this.duration.toNanos();
+
+        return nanos > 0 ? (this.convertedCount + this.failures.size()) * 1_000_000_000D / nanos : 0;
+    }
+}
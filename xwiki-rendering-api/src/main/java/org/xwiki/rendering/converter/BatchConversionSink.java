@@ -0,0 +1,45 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.converter;
+
+import java.io.IOException;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Receives the results of a batch conversion.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+@FunctionalInterface
+public interface BatchConversionSink
+{
+    /**
+     * Called once for each document which has been converted successfully. It can be called concurrently from
+     * several threads.
+     *
+     * @param id the identifier of the converted document
+     * @param result the result of the conversion
+     * @throws IOException when failing to write the result, the document is then reported as failed
+     */
+    void write(String id, String result) throws IOException;
+}
@@ -0,0 +1,77 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.converter;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Convert a large number of documents from a Syntax to another concurrently, for example to migrate a whole wiki.
+ * Each document is converted as with {@link Converter} and a failing document doesn't stop the batch.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Role
+@Unstable
+public interface BatchConverter
+{
+    /**
+     * Converts the passed documents on the passed executor and waits for all of them to be processed.
+     *
+     * @param inputs the documents to convert, consumed lazily
+     * @param sourceSyntax the Syntax in which the documents are represented
+     * @param targetSyntax the Syntax to which to convert to
+     * @param sink receives the result of each document converted successfully
+     * @param executor runs the conversions, for example a {@link ForkJoinPool} or a virtual thread executor; it is
+     *            not shut down
+     * @return the outcome of the batch
+     * @throws InterruptedException when interrupted while waiting for the conversions
+     */
+    BatchConversionResult convert(Stream<BatchConversionInput> inputs, Syntax sourceSyntax, Syntax targetSyntax,
+        BatchConversionSink sink, Executor executor) throws InterruptedException;
+
+    /**
+     * Converts the passed documents on a dedicated {@link ForkJoinPool} and waits for all of them to be processed.
+     *
+     * @param inputs the documents to convert, consumed lazily
+     * @param sourceSyntax the Syntax in which the documents are represented
+     * @param targetSyntax the Syntax to which to convert to
+     * @param sink receives the result of each document converted successfully
+     * @param parallelism the number of documents to convert concurrently
+     * @return the outcome of the batch
+     * @throws InterruptedException when interrupted while waiting for the conversions
+     */
+    default BatchConversionResult convert(Stream<BatchConversionInput> inputs, Syntax sourceSyntax,
+        Syntax targetSyntax, BatchConversionSink sink, int parallelism) throws InterruptedException
+    {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return convert(inputs, sourceSyntax, targetSyntax, sink, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -25,6 +25,7 @@
 import org.xwiki.rendering.block.Block;
 import org.xwiki.rendering.block.BlockFilter;
 import org.xwiki.rendering.block.MacroMarkerBlock;
+import org.xwiki.stability.Unstable;
 
 /**
  * Used to manipulate Blocks but by filtering out protected blocks.
@@ -100,8 +101,10 @@ public <T extends Block> List<T> getChildrenByType(Block block, Class<T> blockCl
     /**
      * @param block the block to test
      * @return true if the passed block is a protected block or false otherwise
+     * @since 15.0RC1
      */
-    private boolean isProtectedBlock(Block block)
+    @Unstable
+    public boolean isProtectedBlock(Block block)
     {
         return (block instanceof MacroMarkerBlock)
             && "code".equals(((MacroMarkerBlock) block).getId());
@@ -0,0 +1,129 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.converter;
+
+import java.io.Reader;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.rendering.converter.BatchConversionInput;
+import org.xwiki.rendering.converter.BatchConversionResult;
+import org.xwiki.rendering.converter.BatchConversionSink;
+import org.xwiki.rendering.converter.BatchConverter;
+import org.xwiki.rendering.converter.Converter;
+import org.xwiki.rendering.renderer.printer.DefaultWikiPrinter;
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
+import org.xwiki.rendering.syntax.Syntax;
+
+/**
+ * Default implementation for {@link BatchConverter}, delegating each document to the {@link Converter}.
+ * <p>
+ * Parsers are stateless and the {@link Converter} creates a new renderer for each document so the conversions don't
+ * share any state, except for the rendering context which is isolated by giving each conversion its own execution
+ * context.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Component
+@Singleton
+public class DefaultBatchConverter implements BatchConverter
+{
+    /**
+     * The maximum number of documents submitted to the executor and not yet converted, to avoid opening all the
+     * sources upfront when the executor queues the tasks.
+     */
+    private static final int MAX_PENDING = 256;
+
+    @Inject
+    private Converter converter;
+
+    @Inject
+    private Execution execution;
+
+    @Inject
+    private Logger logger;
+
+    @Override
+    public BatchConversionResult convert(Stream<BatchConversionInput> inputs, Syntax sourceSyntax,
+        Syntax targetSyntax, BatchConversionSink sink, Executor executor) throws InterruptedException
+    {
+        long start = System.nanoTime();
+        AtomicLong convertedCount = new AtomicLong();
+        Map<String, Exception> failures = new ConcurrentHashMap<>();
+        Semaphore pending = new Semaphore(MAX_PENDING);
+
+        Iterator<BatchConversionInput> iterator = inputs.iterator();
+        while (iterator.hasNext()) {
+            BatchConversionInput input = iterator.next();
+            pending.acquire();
+            try {
+                executor.execute(() -> {
+                    try {
+                        convert(input, sourceSyntax, targetSyntax, sink);
+                        convertedCount.incrementAndGet();
+                    } catch (Exception e) {
+                        failures.put(input.getId(), e);
+                        this.logger.warn("Failed to convert document [{}]", input.getId(), e);
+                    } finally {
+                        pending.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                pending.release();
+                failures.put(input.getId(), e);
+            }
+        }
+
+        // Wait for the pending conversions
+        pending.acquire(MAX_PENDING);
+        pending.release(MAX_PENDING);
+
+        return new BatchConversionResult(convertedCount.get(), failures,
+            Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private void convert(BatchConversionInput input, Syntax sourceSyntax, Syntax targetSyntax,
+        BatchConversionSink sink) throws Exception
+    {
+        this.execution.pushContext(new ExecutionContext());
+        try (Reader source = input.openSource()) {
+            WikiPrinter printer = new DefaultWikiPrinter();
+            this.converter.convert(source, sourceSyntax, targetSyntax, printer);
+            sink.write(input.getId(), printer.toString());
+        } finally {
+            this.execution.popContext();
+        }
+    }
+}
@@ -20,29 +20,49 @@
 package org.xwiki.rendering.internal.converter;
 
 import java.io.Reader;
+import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
-import javax.inject.Named;
-import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.manager.ComponentLookupException;
-import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.configuration.RenderingConfiguration;
 import org.xwiki.rendering.converter.ConversionException;
 import org.xwiki.rendering.converter.Converter;
+import org.xwiki.rendering.internal.metrics.CountingWikiPrinter;
+import org.xwiki.rendering.internal.parser.XDOMGeneratorListener;
+import org.xwiki.rendering.internal.syntax.SyntaxRuntime;
+import org.xwiki.rendering.internal.syntax.SyntaxRuntimeManager;
+import org.xwiki.rendering.listener.QueueListener;
+import org.xwiki.rendering.listener.WrappingListener;
+import org.xwiki.rendering.metrics.RenderingMetrics;
+import org.xwiki.rendering.metrics.RenderingPhase;
+import org.xwiki.rendering.metrics.RenderingTimer;
 import org.xwiki.rendering.parser.ParseException;
 import org.xwiki.rendering.parser.Parser;
+import org.xwiki.rendering.parser.StreamParser;
 import org.xwiki.rendering.renderer.BlockRenderer;
+import org.xwiki.rendering.renderer.PrintRenderer;
+import org.xwiki.rendering.renderer.PrintRendererFactory;
 import org.xwiki.rendering.renderer.printer.WikiPrinter;
 import org.xwiki.rendering.syntax.Syntax;
 import org.xwiki.rendering.transformation.TransformationContext;
 import org.xwiki.rendering.transformation.TransformationException;
 import org.xwiki.rendering.transformation.TransformationManager;
+import org.xwiki.rendering.util.IdGenerator;
 
 /**
  * Default implementation for {@link Converter}.
+ * <p>
+ * When no transformation would modify the content, the source is streamed from the parser directly to the print
+ * renderer without building an intermediate {@link XDOM}. This is the case when no transformation is configured.
+ * When only the macro transformation is configured, the parsing events are recorded and replayed to the print renderer
+ * if the source does not contain any macro; as soon as a macro is found, the recorded events and the following ones
+ * are used to build the {@link XDOM} instead, so that the source is parsed only once. In all other cases the source is
+ * parsed into an {@link XDOM}, transformed and then rendered.
  *
  * @version $Id$
  */
@@ -50,12 +70,18 @@
 @Singleton
 public class DefaultConverter implements Converter
 {
+    /**
+     * The hint of the macro transformation, which is a no-op for content without any macro.
+     */
+    private static final String MACRO_TRANSFORMATION = "macro";
+
+    private static final String PARSE_ERROR = "Failed to parse input source";
+
     /**
      * Used to lookup parser and renderer.
      */
     @Inject
-    @Named("context")
-    private Provider<ComponentManager> componentManagerProvider;
+    private SyntaxRuntimeManager syntaxRuntimeManager;
 
     /**
      * Used to execute transformations.
@@ -63,22 +89,218 @@ public class DefaultConverter implements Converter
     @Inject
     private TransformationManager transformationManager;
 
+    /**
+     * Used to know which transformations are going to be executed.
+     */
+    @Inject
+    private RenderingConfiguration configuration;
+
+    /**
+     * Used to measure the streamed conversions, the other ones being measured by the parser and the renderer.
+     */
+    @Inject
+    private RenderingMetrics renderingMetrics;
+
+    /**
+     * Record the events until a macro is found, then build a {@link XDOM} from the recorded events and the next ones.
+     */
+    private static final class MacroSwitchingListener extends WrappingListener
+    {
+        private final QueueListener events = new QueueListener();
+
+        private XDOMGeneratorListener xdomGenerator;
+
+        MacroSwitchingListener()
+        {
+            setWrappedListener(this.events);
+        }
+
+        @Override
+        public void onMacro(String id, Map<String, String> parameters, String content, boolean inline)
+        {
+            if (this.xdomGenerator == null) {
+                this.xdomGenerator = new XDOMGeneratorListener();
+                this.events.consumeEvents(this.xdomGenerator);
+                setWrappedListener(this.xdomGenerator);
+            }
+
+            super.onMacro(id, parameters, content, inline);
+        }
+    }
+
+    private enum StreamingMode
+    {
+        /**
+         * Always go through the XDOM.
+         */
+        NONE,
+
+        /**
+         * Stream the content as long as no macro is found.
+         */
+        UNLESS_MACRO,
+
+        /**
+         * Always stream the content.
+         */
+        ALWAYS
+    }
+
     @Override
     public void convert(Reader source, Syntax sourceSyntax, Syntax targetSyntax, WikiPrinter printer)
         throws ConversionException
     {
-        // Step 1: Find the parser and generate a XDOM
+        StreamingMode mode = getStreamingMode();
+        if (mode != StreamingMode.NONE) {
+            StreamParser streamParser = getStreamParser(sourceSyntax);
+            PrintRendererFactory rendererFactory = getPrintRendererFactory(targetSyntax);
+            if (streamParser != null && rendererFactory != null) {
+                if (mode == StreamingMode.ALWAYS) {
+                    stream(source, sourceSyntax, streamParser, rendererFactory, printer);
+                } else {
+                    convertUnlessMacro(source, sourceSyntax, targetSyntax, streamParser, rendererFactory, printer);
+                }
+
+                return;
+            }
+        }
+
+        Parser parser;
+        try {
+            parser = this.syntaxRuntimeManager.getRuntime(sourceSyntax).getParser();
+        } catch (ComponentLookupException e) {
+            throw new ConversionException("Failed to locate Parser for syntax [" + sourceSyntax + "]", e);
+        }
         XDOM xdom;
         try {
-            Parser parser = this.componentManagerProvider.get().getInstance(Parser.class, sourceSyntax.toIdString());
             xdom = parser.parse(source);
+        } catch (ParseException e) {
+            throw new ConversionException(PARSE_ERROR, e);
+        }
+
+        transformAndRender(xdom, sourceSyntax, targetSyntax, printer);
+    }
+
+    private StreamingMode getStreamingMode()
+    {
+        List<String> transformationNames = this.configuration.getTransformationNames();
+
+        StreamingMode mode;
+        if (transformationNames == null || transformationNames.isEmpty()) {
+            mode = StreamingMode.ALWAYS;
+        } else if (transformationNames.stream().allMatch(MACRO_TRANSFORMATION::equals)) {
+            mode = StreamingMode.UNLESS_MACRO;
+        } else {
+            mode = StreamingMode.NONE;
+        }
+
+        return mode;
+    }
+
+    private StreamParser getStreamParser(Syntax syntax)
+    {
+        try {
+            return getRuntime(syntax).getStreamParser();
         } catch (ComponentLookupException e) {
-            throw new ConversionException("Failed to locate Parser for syntax [" + sourceSyntax + "]", e);
+            // Fallback on the XDOM based conversion which reports a proper error if the parser is missing too
+            return null;
+        }
+    }
+
+    private PrintRendererFactory getPrintRendererFactory(Syntax syntax)
+    {
+        try {
+            return getRuntime(syntax).getPrintRendererFactory();
+        } catch (ComponentLookupException e) {
+            // Fallback on the XDOM based conversion which may find a block renderer anyway
+            return null;
+        }
+    }
+
+    private SyntaxRuntime getRuntime(Syntax syntax) throws ComponentLookupException
+    {
+        SyntaxRuntime runtime = this.syntaxRuntimeManager.getRuntime(syntax);
+        if (runtime == null) {
+            throw new ComponentLookupException("No runtime for syntax [" + syntax + "]");
+        }
+
+        return runtime;
+    }
+
+    private RenderingTimer startTimer(RenderingPhase phase, String id)
+    {
+        // The metrics are not injected when the converter is not created by the Component Manager
+        if (this.renderingMetrics != null) {
+            return this.renderingMetrics.start(phase, id);
+        }
+
+        return RenderingTimer.NOOP;
+    }
+
+    private void stream(Reader source, Syntax sourceSyntax, StreamParser streamParser,
+        PrintRendererFactory rendererFactory, WikiPrinter printer) throws ConversionException
+    {
+        // The parsing and the rendering are interleaved so they are measured together, as a parsing producing output
+        RenderingTimer timer = startTimer(RenderingPhase.PARSE, sourceSyntax.toIdString());
+        CountingWikiPrinter countingPrinter = new CountingWikiPrinter(printer);
+        try {
+            streamParser.parse(source, rendererFactory.createRenderer(countingPrinter));
+        } catch (ParseException e) {
+            timer.setFailed();
+            throw new ConversionException(PARSE_ERROR, e);
+        } catch (RuntimeException e) {
+            timer.setFailed();
+            throw e;
+        } finally {
+            timer.setOutputLength(countingPrinter.getLength());
+            timer.stop();
+        }
+    }
+
+    private void convertUnlessMacro(Reader source, Syntax sourceSyntax, Syntax targetSyntax, StreamParser streamParser,
+        PrintRendererFactory rendererFactory, WikiPrinter printer) throws ConversionException
+    {
+        // Nothing reaches the printer before the end of the parsing since the content has to be transformed if it
+        // contains a macro.
+        IdGenerator idGenerator = new IdGenerator();
+        MacroSwitchingListener listener = new MacroSwitchingListener();
+        RenderingTimer timer = startTimer(RenderingPhase.PARSE, sourceSyntax.toIdString());
+        try {
+            streamParser.parse(source, listener, idGenerator);
         } catch (ParseException e) {
-            throw new ConversionException("Failed to parse input source", e);
+            timer.setFailed();
+            throw new ConversionException(PARSE_ERROR, e);
+        } catch (RuntimeException e) {
+            timer.setFailed();
+            throw e;
+        } finally {
+            timer.stop();
         }
 
-        // Step 2: Run transformations
+        if (listener.xdomGenerator != null) {
+            XDOM xdom = listener.xdomGenerator.getXDOM();
+            xdom.setIdGenerator(idGenerator);
+            transformAndRender(xdom, sourceSyntax, targetSyntax, printer);
+        } else {
+            CountingWikiPrinter countingPrinter = new CountingWikiPrinter(printer);
+            PrintRenderer renderer = rendererFactory.createRenderer(countingPrinter);
+            timer = startTimer(RenderingPhase.RENDER, renderer.getClass().getName());
+            try {
+                listener.events.consumeEvents(renderer);
+            } catch (RuntimeException e) {
+                timer.setFailed();
+                throw e;
+            } finally {
+                timer.setOutputLength(countingPrinter.getLength());
+                timer.stop();
+            }
+        }
+    }
+
+    private void transformAndRender(XDOM xdom, Syntax sourceSyntax, Syntax targetSyntax, WikiPrinter printer)
+        throws ConversionException
+    {
+        // Run transformations
         try {
             TransformationContext context = new TransformationContext(xdom, sourceSyntax);
             context.setTargetSyntax(targetSyntax);
@@ -87,10 +309,10 @@ public void convert(Reader source, Syntax sourceSyntax, Syntax targetSyntax, Wik
             throw new ConversionException("Failed to execute some transformations", e);
         }
 
-        // Step 3: Locate the Renderer and render the content in the passed printer
+        // Locate the Renderer and render the content in the passed printer
         BlockRenderer renderer;
         try {
-            renderer = this.componentManagerProvider.get().getInstance(BlockRenderer.class, targetSyntax.toIdString());
+            renderer = this.syntaxRuntimeManager.getRuntime(targetSyntax).getBlockRenderer();
         } catch (ComponentLookupException e) {
             throw new ConversionException("Failed to locate Renderer for syntax [" + targetSyntax + "]", e);
         }
@@ -0,0 +1,65 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.metrics;
+
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
+import org.xwiki.rendering.renderer.printer.WrappingWikiPrinter;
+
+/**
+ * Count the characters printed in the wrapped printer.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+public class CountingWikiPrinter extends WrappingWikiPrinter
+{
+    private long length;
+
+    /**
+     * @param printer the printer to wrap
+     */
+    public CountingWikiPrinter(WikiPrinter printer)
+    {
+        super(printer);
+    }
+
+    @Override
+    public void print(String text)
+    {
+        this.length += text.length();
+        super.print(text);
+    }
+
+    @Override
+    public void println(String text)
+    {
+        // Count the new line as one character whatever the platform
+        this.length += text.length() + 1;
+        super.println(text);
+    }
+
+    /**
+     * @return the number of characters printed so far
+     */
+    public long getLength()
+    {
+        return this.length;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.metrics;
+
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.rendering.metrics.RenderingMeasure;
+import org.xwiki.rendering.metrics.RenderingMetrics;
+import org.xwiki.rendering.metrics.RenderingMetricsListener;
+import org.xwiki.rendering.metrics.RenderingPhase;
+import org.xwiki.rendering.metrics.RenderingTimer;
+
+/**
+ * Default implementation of {@link RenderingMetrics}, forwarding the measures to all the
+ * {@link RenderingMetricsListener}s registered in the root Component Manager.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Component
+@Singleton
+public class DefaultRenderingMetrics implements RenderingMetrics
+{
+    private static final RenderingMetricsListener[] NO_LISTENERS = new RenderingMetricsListener[0];
+
+    @Inject
+    private ComponentManager componentManager;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * The registered listeners, {@code null} when they need to be looked up again.
+     */
+    private volatile RenderingMetricsListener[] listeners;
+
+    @Override
+    public boolean isEnabled()
+    {
+        return getListeners().length > 0;
+    }
+
+    @Override
+    public RenderingTimer start(RenderingPhase phase, String id)
+    {
+        return isEnabled() ? new RenderingTimer(this, phase, id) : RenderingTimer.NOOP;
+    }
+
+    @Override
+    public void report(RenderingMeasure measure)
+    {
+        for (RenderingMetricsListener listener : getListeners()) {
+            try {
+                listener.onMeasure(measure);
+            } catch (Exception e) {
+                this.logger.warn("Failed to send rendering measure [{}] to listener [{}]", measure, listener, e);
+            }
+        }
+    }
+
+    /**
+     * Look up the listeners again on next measure.
+     */
+    public void invalidate()
+    {
+        this.listeners = null;
+    }
+
+    private RenderingMetricsListener[] getListeners()
+    {
+        RenderingMetricsListener[] result = this.listeners;
+        if (result == null) {
+            try {
+                List<RenderingMetricsListener> instances =
+                    this.componentManager.getInstanceList(RenderingMetricsListener.class);
+                result = instances.toArray(NO_LISTENERS);
+            } catch (ComponentLookupException e) {
+                this.logger.warn("Failed to look up the rendering metrics listeners", e);
+                result = NO_LISTENERS;
+            }
+            this.listeners = result;
+        }
+
+        return result;
+    }
+}
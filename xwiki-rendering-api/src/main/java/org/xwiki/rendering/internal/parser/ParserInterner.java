@@ -0,0 +1,167 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.xwiki.rendering.listener.reference.ResourceReference;
+
+/**
+ * Bounded table used to share the identical strings (words, parameter names and values, macro ids, references)
+ * produced while parsing, to reduce the memory used by the XDOMs which are kept for a while (in a cache for example).
+ * A new value replaces the one stored in the same slot of the table, so that values which are not used anymore are
+ * eventually evicted, and strings longer than {@value #MAX_LENGTH} characters are not shared.
+ * <p>
+ * Interning is disabled by default since it slows down the parsing a bit, use the
+ * {@value #SIZE_PROPERTY} system property to set the size of the default table.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+public final class ParserInterner
+{
+    /**
+     * The system property indicating the maximum number of values of the default table, 0 (the default) to disable
+     * interning.
+     */
+    public static final String SIZE_PROPERTY = "xwiki.rendering.parser.internerSize";
+
+    /**
+     * The maximum length of the strings to share, to not keep large values (e.g. data URIs or verbatim content) in
+     * memory after the XDOMs using them are gone.
+     */
+    public static final int MAX_LENGTH = 256;
+
+    private static volatile ParserInterner defaultInterner = create(Integer.getInteger(SIZE_PROPERTY, 0));
+
+    /**
+     * The shared values, indexed by their hash code. This is lock free since the parsers run concurrently.
+     */
+    private final AtomicReferenceArray<Object> values;
+
+    /**
+     * @param maxSize the maximum number of values to share
+     */
+    public ParserInterner(int maxSize)
+    {
+        this.values = new AtomicReferenceArray<>(maxSize);
+    }
+
+    private static ParserInterner create(int maxSize)
+    {
+        return maxSize > 0 ? new ParserInterner(maxSize) : null;
+    }
+
+    /**
+     * @return the table used by the parsers, {@code null} if interning is disabled
+     */
+    public static ParserInterner getDefault()
+    {
+        return defaultInterner;
+    }
+
+    /**
+     * @param interner the table to use in the parsers, {@code null} to disable interning
+     */
+    public static void setDefault(ParserInterner interner)
+    {
+        defaultInterner = interner;
+    }
+
+    /**
+     * @param <T> the type of the value
+     * @param value the value to share, must be immutable
+     * @return the shared instance equal to the passed value, or the passed value
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T intern(T value)
+    {
+        if (value == null || this.values.length() == 0
+            || (value instanceof String && ((String) value).length() > MAX_LENGTH)) {
+            return value;
+        }
+
+        int hash = value.hashCode();
+        int slot = ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % this.values.length();
+        Object interned = this.values.get(slot);
+        if (!value.equals(interned)) {
+            interned = value;
+            this.values.set(slot, interned);
+        }
+
+        return (T) interned;
+    }
+
+    /**
+     * @param parameters the parameters to share the names and values of
+     * @return new parameters made of shared strings
+     */
+    public Map<String, String> internParameters(Map<String, String> parameters)
+    {
+        if (parameters.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, String> result = new LinkedHashMap<>(parameters.size());
+        for (Map.Entry<String, String> entry : parameters.entrySet()) {
+            result.put(intern(entry.getKey()), intern(entry.getValue()));
+        }
+
+        return result;
+    }
+
+    /**
+     * Replace the reference and parameter values of the passed resource reference by shared strings. The resource
+     * reference itself is not shared since it's modifiable.
+     *
+     * @param reference the resource reference to modify
+     * @return the passed resource reference
+     */
+    public ResourceReference internReference(ResourceReference reference)
+    {
+        if (reference != null) {
+            reference.setReference(intern(reference.getReference()));
+            for (String name : new ArrayList<>(reference.getParameters().keySet())) {
+                reference.setParameter(name, intern(reference.getParameter(name)));
+            }
+        }
+
+        return reference;
+    }
+
+    /**
+     * @return the number of shared values
+     */
+    public int size()
+    {
+        int size = 0;
+        for (int i = 0; i < this.values.length(); i++) {
+            if (this.values.get(i) != null) {
+                size++;
+            }
+        }
+
+        return size;
+    }
+}
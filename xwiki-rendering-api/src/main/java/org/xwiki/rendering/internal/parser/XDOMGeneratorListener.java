@@ -73,6 +73,25 @@ public class XDOMGeneratorListener implements Listener
 {
     private XDOMBuilder builder = new XDOMBuilder();
 
+    private final ParserInterner interner;
+
+    /**
+     * Use the default {@link ParserInterner}.
+     */
+    public XDOMGeneratorListener()
+    {
+        this(ParserInterner.getDefault());
+    }
+
+    /**
+     * @param interner used to share the identical strings of the generated blocks, {@code null} to not share them
+     * @since 15.0RC1
+     */
+    public XDOMGeneratorListener(ParserInterner interner)
+    {
+        this.interner = interner;
+    }
+
     /**
      * @return the generated {@link XDOM}.
      */
@@ -81,6 +100,25 @@ public XDOM getXDOM()
         return this.builder.getXDOM();
     }
 
+    private Map<String, String> parameters(Map<String, String> parameters)
+    {
+        if (parameters == null) {
+            return Listener.EMPTY_PARAMETERS;
+        }
+
+        return this.interner != null ? this.interner.internParameters(parameters) : parameters;
+    }
+
+    private String intern(String value)
+    {
+        return this.interner != null ? this.interner.intern(value) : value;
+    }
+
+    private ResourceReference intern(ResourceReference reference)
+    {
+        return this.interner != null ? this.interner.internReference(reference) : reference;
+    }
+
     @Override
     public void beginDefinitionDescription()
     {
@@ -238,8 +276,7 @@ public void endDefinitionDescription()
     @Override
     public void endDefinitionList(Map<String, String> parameters)
     {
-        this.builder.addBlock(new DefinitionListBlock(this.builder.endBlockList(),
-            parameters != null ? parameters : Listener.EMPTY_PARAMETERS));
+        this.builder.addBlock(new DefinitionListBlock(this.builder.endBlockList(), parameters(parameters)));
     }
 
     @Override
@@ -275,32 +312,28 @@ public void endFigureCaption(Map<String, String> parameters)
     public void endFormat(Format format, Map<String, String> parameters)
     {
         this.builder.addBlock(new FormatBlock(this.builder.endBlockList(), format != null ? format : Format.NONE,
-            parameters != null ? parameters : Listener.EMPTY_PARAMETERS));
+            parameters(parameters)));
     }
 
     @Override
     public void endGroup(Map<String, String> parameters)
     {
-        this.builder.addBlock(
-            new GroupBlock(this.builder.endBlockList(), parameters != null ? parameters : Listener.EMPTY_PARAMETERS));
+        this.builder.addBlock(new GroupBlock(this.builder.endBlockList(), parameters(parameters)));
     }
 
     @Override
     public void endHeader(HeaderLevel level, String id, Map<String, String> parameters)
     {
-        this.builder.addBlock(new HeaderBlock(this.builder.endBlockList(), level,
-            parameters != null ? parameters : Listener.EMPTY_PARAMETERS, id));
+        this.builder.addBlock(new HeaderBlock(this.builder.endBlockList(), level, parameters(parameters), id));
     }
 
     @Override
     public void endList(ListType type, Map<String, String> parameters)
     {
         if (type == ListType.BULLETED) {
-            this.builder.addBlock(new BulletedListBlock(this.builder.endBlockList(),
-                parameters != null ? parameters : Listener.EMPTY_PARAMETERS));
+            this.builder.addBlock(new BulletedListBlock(this.builder.endBlockList(), parameters(parameters)));
         } else {
-            this.builder.addBlock(new NumberedListBlock(this.builder.endBlockList(),
-                parameters != null ? parameters : Listener.EMPTY_PARAMETERS));
+            this.builder.addBlock(new NumberedListBlock(this.builder.endBlockList(), parameters(parameters)));
         }
     }
 
@@ -319,23 +352,20 @@ public void endListItem(Map<String, String> parameters)
     @Override
     public void endMacroMarker(String name, Map<String, String> macroParameters, String content, boolean isInline)
     {
-        this.builder
-            .addBlock(new MacroMarkerBlock(name, macroParameters != null ? macroParameters : Listener.EMPTY_PARAMETERS,
-                content, this.builder.endBlockList(), isInline));
+        this.builder.addBlock(new MacroMarkerBlock(intern(name), parameters(macroParameters), content,
+            this.builder.endBlockList(), isInline));
     }
 
     @Override
     public void endParagraph(Map<String, String> parameters)
     {
-        this.builder.addBlock(new ParagraphBlock(this.builder.endBlockList(),
-            parameters != null ? parameters : Listener.EMPTY_PARAMETERS));
+        this.builder.addBlock(new ParagraphBlock(this.builder.endBlockList(), parameters(parameters)));
     }
 
     @Override
     public void endQuotation(Map<String, String> parameters)
     {
-        this.builder.addBlock(new QuotationBlock(this.builder.endBlockList(),
-            parameters != null ? parameters : Listener.EMPTY_PARAMETERS));
+        this.builder.addBlock(new QuotationBlock(this.builder.endBlockList(), parameters(parameters)));
     }
 
     @Override
@@ -347,43 +377,38 @@ public void endQuotationLine()
     @Override
     public void endSection(Map<String, String> parameters)
     {
-        this.builder.addBlock(
-            new SectionBlock(this.builder.endBlockList(), parameters != null ? parameters : Listener.EMPTY_PARAMETERS));
+        this.builder.addBlock(new SectionBlock(this.builder.endBlockList(), parameters(parameters)));
     }
 
     @Override
     public void endTable(Map<String, String> parameters)
     {
-        this.builder.addBlock(
-            new TableBlock(this.builder.endBlockList(), parameters != null ? parameters : Listener.EMPTY_PARAMETERS));
+        this.builder.addBlock(new TableBlock(this.builder.endBlockList(), parameters(parameters)));
     }
 
     @Override
     public void endTableCell(Map<String, String> parameters)
     {
-        this.builder.addBlock(new TableCellBlock(this.builder.endBlockList(),
-            parameters != null ? parameters : Listener.EMPTY_PARAMETERS));
+        this.builder.addBlock(new TableCellBlock(this.builder.endBlockList(), parameters(parameters)));
     }
 
     @Override
     public void endTableHeadCell(Map<String, String> parameters)
     {
-        this.builder.addBlock(new TableHeadCellBlock(this.builder.endBlockList(),
-            parameters != null ? parameters : Listener.EMPTY_PARAMETERS));
+        this.builder.addBlock(new TableHeadCellBlock(this.builder.endBlockList(), parameters(parameters)));
     }
 
     @Override
     public void endTableRow(Map<String, String> parameters)
     {
-        this.builder.addBlock(new TableRowBlock(this.builder.endBlockList(),
-            parameters != null ? parameters : Listener.EMPTY_PARAMETERS));
+        this.builder.addBlock(new TableRowBlock(this.builder.endBlockList(), parameters(parameters)));
     }
 
     @Override
     public void endLink(ResourceReference reference, boolean freestanding, Map<String, String> parameters)
     {
-        this.builder.addBlock(new LinkBlock(this.builder.endBlockList(), reference, freestanding,
-            parameters != null ? parameters : Listener.EMPTY_PARAMETERS));
+        this.builder.addBlock(new LinkBlock(this.builder.endBlockList(), intern(reference), freestanding,
+            parameters(parameters)));
     }
 
     /**
@@ -406,7 +431,7 @@ public void onEmptyLines(int count)
     @Override
     public void onHorizontalLine(Map<String, String> parameters)
     {
-        this.builder.addBlock(new HorizontalLineBlock(parameters != null ? parameters : Listener.EMPTY_PARAMETERS));
+        this.builder.addBlock(new HorizontalLineBlock(parameters(parameters)));
     }
 
     @Override
@@ -418,8 +443,7 @@ public void onId(String name)
     @Override
     public void onMacro(String id, Map<String, String> parameters, String content, boolean inline)
     {
-        this.builder
-            .addBlock(new MacroBlock(id, parameters != null ? parameters : Listener.EMPTY_PARAMETERS, content, inline));
+        this.builder.addBlock(new MacroBlock(intern(id), parameters(parameters), content, inline));
     }
 
     @Override
@@ -449,27 +473,24 @@ public void onSpecialSymbol(char symbol)
     @Override
     public void onVerbatim(String content, boolean inline, Map<String, String> parameters)
     {
-        this.builder
-            .addBlock(new VerbatimBlock(content, parameters != null ? parameters : Listener.EMPTY_PARAMETERS, inline));
+        this.builder.addBlock(new VerbatimBlock(content, parameters(parameters), inline));
     }
 
     @Override
     public void onWord(String word)
     {
-        this.builder.addBlock(new WordBlock(word));
+        this.builder.addBlock(new WordBlock(intern(word)));
     }
 
     @Override
     public void onImage(ResourceReference reference, boolean freestanding, Map<String, String> parameters)
     {
-        this.builder.addBlock(
-            new ImageBlock(reference, freestanding, parameters != null ? parameters : Listener.EMPTY_PARAMETERS));
+        this.builder.addBlock(new ImageBlock(intern(reference), freestanding, parameters(parameters)));
     }
 
     @Override
     public void onImage(ResourceReference reference, boolean freestanding, String id, Map<String, String> parameters)
     {
-        this.builder.addBlock(
-            new ImageBlock(reference, freestanding, id, parameters != null ? parameters : Listener.EMPTY_PARAMETERS));
+        this.builder.addBlock(new ImageBlock(intern(reference), freestanding, id, parameters(parameters)));
     }
 }
@@ -28,6 +28,10 @@
 
 import org.slf4j.Logger;
 import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.internal.metrics.CountingWikiPrinter;
+import org.xwiki.rendering.metrics.RenderingMetrics;
+import org.xwiki.rendering.metrics.RenderingPhase;
+import org.xwiki.rendering.metrics.RenderingTimer;
 import org.xwiki.rendering.renderer.BlockRenderer;
 import org.xwiki.rendering.renderer.PrintRenderer;
 import org.xwiki.rendering.renderer.PrintRendererFactory;
@@ -44,6 +48,12 @@ public abstract class AbstractBlockRenderer implements BlockRenderer
     @Inject
     protected Logger logger;
 
+    /**
+     * Used to measure the rendering.
+     */
+    @Inject
+    protected RenderingMetrics renderingMetrics;
+
     /**
      * @return provide the factory to use to create a new {@link PrintRenderer}.
      */
@@ -58,7 +68,32 @@ public void render(Block block, WikiPrinter printer)
     @Override
     public void render(Collection<Block> blocks, WikiPrinter printer)
     {
-        PrintRenderer renderer = getPrintRendererFactory().createRenderer(printer);
+        // The metrics are not injected when the renderer is not created by the Component Manager
+        RenderingTimer timer = RenderingTimer.NOOP;
+        if (this.renderingMetrics != null) {
+            timer = this.renderingMetrics.start(RenderingPhase.RENDER, getClass().getName());
+        }
+
+        if (!timer.isEnabled()) {
+            render(blocks, printer, getPrintRendererFactory());
+        } else {
+            CountingWikiPrinter countingPrinter = new CountingWikiPrinter(printer);
+            try {
+                render(blocks, countingPrinter, getPrintRendererFactory());
+            } catch (RuntimeException e) {
+                timer.setFailed();
+                throw e;
+            } finally {
+                timer.setBlocks(blocks);
+                timer.setOutputLength(countingPrinter.getLength());
+                timer.stop();
+            }
+        }
+    }
+
+    private void render(Collection<Block> blocks, WikiPrinter printer, PrintRendererFactory factory)
+    {
+        PrintRenderer renderer = factory.createRenderer(printer);
         for (Block block : blocks) {
             block.traverse(renderer);
         }
@@ -0,0 +1,188 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.renderer;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.SectionBlock;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.configuration.RenderingConfiguration;
+import org.xwiki.rendering.listener.MetaData;
+import org.xwiki.rendering.renderer.FragmentCachingBlockRenderer;
+import org.xwiki.rendering.renderer.PrintRenderer;
+import org.xwiki.rendering.renderer.PrintRendererFactory;
+import org.xwiki.rendering.renderer.RenderedFragmentCache;
+import org.xwiki.rendering.renderer.printer.DefaultWikiPrinter;
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
+
+/**
+ * Base class for the {@link FragmentCachingBlockRenderer}s. Each fragment is rendered on its own, inside a document
+ * carrying the metadata of the rendered {@link XDOM}, so it must only be used for target syntaxes which don't output
+ * anything for documents and sections and whose output for a block doesn't depend on its siblings.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+public abstract class AbstractFragmentCachingBlockRenderer implements FragmentCachingBlockRenderer
+{
+    @Inject
+    protected Logger logger;
+
+    /**
+     * Used to take into account the configuration affecting the output of the blocks.
+     */
+    @Inject
+    protected RenderingConfiguration configuration;
+
+    /**
+     * Identify a fragment.
+     */
+    private static final class FragmentKey
+    {
+        private final Block block;
+
+        private final MetaData metaData;
+
+        private final List<Object> configuration;
+
+        private final int hashCode;
+
+        FragmentKey(Block block, MetaData metaData, List<Object> configuration)
+        {
+            this.block = block;
+            this.metaData = metaData;
+            this.configuration = configuration;
+            // The structure of a block doesn't always include its type (e.g. bulleted and numbered lists)
+            this.hashCode = Objects.hash(block.getClass(), block, metaData, configuration);
+        }
+
+        FragmentKey detach()
+        {
+            // Don't keep a reference to the rendered tree, which can be modified after the rendering
+            Block detachedBlock = this.block.clone();
+            detachedBlock.setParent(null);
+            detachedBlock.setPreviousSiblingBlock(null);
+            detachedBlock.setNextSiblingBlock(null);
+
+            return new FragmentKey(detachedBlock, this.metaData, this.configuration);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (obj == this) {
+                return true;
+            }
+
+            if (obj instanceof FragmentKey) {
+                FragmentKey other = (FragmentKey) obj;
+
+                return this.hashCode == other.hashCode && this.block.getClass() == other.block.getClass()
+                    && this.block.equals(other.block)
+                    && this.metaData.equals(other.metaData) && this.configuration.equals(other.configuration);
+            }
+
+            return false;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.hashCode;
+        }
+    }
+
+    /**
+     * @return provide the factory to use to create a new {@link PrintRenderer}
+     */
+    protected abstract PrintRendererFactory getPrintRendererFactory();
+
+    @Override
+    public void render(Collection<Block> blocks, WikiPrinter printer, RenderedFragmentCache cache)
+    {
+        cache.startRendering();
+
+        Properties interWikiDefinitions = this.configuration.getInterWikiDefinitions();
+        List<Object> configurationKey = Arrays.asList(this.configuration.getLinkLabelFormat(),
+            interWikiDefinitions != null ? new HashMap<>(interWikiDefinitions) : null);
+        for (Block block : blocks) {
+            if (block instanceof XDOM) {
+                render(block.getChildren(), ((XDOM) block).getMetaData(), configurationKey, printer, cache);
+            } else {
+                render(Collections.singletonList(block), null, configurationKey, printer, cache);
+            }
+        }
+    }
+
+    private void render(List<Block> blocks, MetaData metaData, List<Object> configurationKey, WikiPrinter printer,
+        RenderedFragmentCache cache)
+    {
+        for (Block block : blocks) {
+            if (block instanceof SectionBlock) {
+                render(block.getChildren(), metaData, configurationKey, printer, cache);
+            } else {
+                FragmentKey key =
+                    new FragmentKey(block, metaData != null ? metaData : MetaData.EMPTY, configurationKey);
+                String output = cache.get(key);
+                if (output == null) {
+                    output = render(block, metaData);
+                    cache.put(key.detach(), output);
+                }
+                printer.print(output);
+            }
+        }
+    }
+
+    private String render(Block block, MetaData metaData)
+    {
+        DefaultWikiPrinter printer = new DefaultWikiPrinter();
+        PrintRenderer renderer = getPrintRendererFactory().createRenderer(printer);
+
+        if (metaData != null) {
+            renderer.beginDocument(metaData);
+        }
+        block.traverse(renderer);
+        if (metaData != null) {
+            renderer.endDocument(metaData);
+        }
+
+        if (renderer instanceof Flushable) {
+            try {
+                ((Flushable) renderer).flush();
+            } catch (IOException e) {
+                this.logger.error("Failed to flush renderer [{}]", renderer, e);
+            }
+        }
+
+        return printer.toString();
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.renderer;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.DefinitionListBlock;
+import org.xwiki.rendering.block.FigureBlock;
+import org.xwiki.rendering.block.GroupBlock;
+import org.xwiki.rendering.block.HeaderBlock;
+import org.xwiki.rendering.block.HorizontalLineBlock;
+import org.xwiki.rendering.block.ListBLock;
+import org.xwiki.rendering.block.MacroMarkerBlock;
+import org.xwiki.rendering.block.MetaDataBlock;
+import org.xwiki.rendering.block.ParagraphBlock;
+import org.xwiki.rendering.block.QuotationBlock;
+import org.xwiki.rendering.block.SectionBlock;
+import org.xwiki.rendering.block.TableBlock;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.listener.MetaData;
+import org.xwiki.rendering.renderer.ParallelBlockRenderer;
+import org.xwiki.rendering.renderer.PrintRenderer;
+import org.xwiki.rendering.renderer.PrintRendererFactory;
+import org.xwiki.rendering.renderer.printer.DefaultWikiPrinter;
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
+
+/**
+ * Base class for the {@link ParallelBlockRenderer}s. The fragments of an {@link XDOM} (top level blocks and blocks
+ * directly in sections) are split in ranges, each range being rendered on its own, inside a document carrying the
+ * metadata of the {@link XDOM}, and the outputs of the ranges are printed in order.
+ * <p>
+ * Ranges are only split between fragments which are standalone blocks (paragraphs, headers, lists, tables, etc.),
+ * since the renderer keeps some state between inline events, so it must only be used for target syntaxes which don't
+ * output anything for documents and sections and whose output for a standalone block doesn't depend on its siblings.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+public abstract class AbstractParallelBlockRenderer implements ParallelBlockRenderer
+{
+    /**
+     * Having more ranges than processors balances the load when some ranges are slower to render than others.
+     */
+    private static final int RANGES_PER_PROCESSOR = 4;
+
+    private static final List<Class<? extends Block>> STANDALONE_BLOCKS = Arrays.asList(ParagraphBlock.class,
+        HeaderBlock.class, ListBLock.class, DefinitionListBlock.class, TableBlock.class, QuotationBlock.class,
+        HorizontalLineBlock.class, GroupBlock.class, FigureBlock.class);
+
+    @Inject
+    protected Logger logger;
+
+    /**
+     * @return provide the factory to use to create a new {@link PrintRenderer}
+     */
+    protected abstract PrintRendererFactory getPrintRendererFactory();
+
+    @Override
+    public void render(Collection<Block> blocks, WikiPrinter printer, Executor executor)
+    {
+        List<List<Block>> ranges = null;
+        if (blocks.size() == 1 && blocks.iterator().next() instanceof XDOM) {
+            ranges = split(flatten(blocks.iterator().next().getChildren(), new ArrayList<>()));
+        }
+
+        if (ranges == null || ranges.size() < 2) {
+            PrintRenderer renderer = getPrintRendererFactory().createRenderer(printer);
+            for (Block block : blocks) {
+                block.traverse(renderer);
+            }
+            flush(renderer);
+        } else {
+            MetaData metaData = ((XDOM) blocks.iterator().next()).getMetaData();
+            List<CompletableFuture<String>> outputs = new ArrayList<>(ranges.size());
+            for (List<Block> range : ranges) {
+                outputs.add(CompletableFuture.supplyAsync(() -> render(range, metaData), executor));
+            }
+
+            try {
+                for (CompletableFuture<String> output : outputs) {
+                    printer.print(output.join());
+                }
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            } finally {
+                // Stop rendering the remaining ranges after a failure
+                outputs.forEach(output -> output.cancel(false));
+            }
+        }
+    }
+
+    private List<Block> flatten(List<Block> blocks, List<Block> flattened)
+    {
+        for (Block block : blocks) {
+            if (block instanceof SectionBlock) {
+                flatten(block.getChildren(), flattened);
+            } else {
+                flattened.add(block);
+            }
+        }
+
+        return flattened;
+    }
+
+    private List<List<Block>> split(List<Block> fragments)
+    {
+        int maxRanges = RANGES_PER_PROCESSOR * Runtime.getRuntime().availableProcessors();
+        int rangeSize = (fragments.size() + maxRanges - 1) / maxRanges;
+
+        List<List<Block>> ranges = new ArrayList<>();
+        int rangeStart = 0;
+        for (int index = 1; index < fragments.size(); index++) {
+            if (index - rangeStart >= rangeSize && isStandalone(fragments.get(index - 1))
+                && isStandalone(fragments.get(index)))
+            {
+                ranges.add(fragments.subList(rangeStart, index));
+                rangeStart = index;
+            }
+        }
+        ranges.add(fragments.subList(rangeStart, fragments.size()));
+
+        return ranges;
+    }
+
+    /**
+     * @return {@code true} if the passed block doesn't print anything outside of the elements it opens and closes
+     */
+    private boolean isStandalone(Block block)
+    {
+        if (block instanceof MacroMarkerBlock || block instanceof MetaDataBlock) {
+            return !block.getChildren().isEmpty() && block.getChildren().stream().allMatch(this::isStandalone);
+        }
+
+        return STANDALONE_BLOCKS.stream().anyMatch(type -> type.isInstance(block));
+    }
+
+    private String render(List<Block> range, MetaData metaData)
+    {
+        DefaultWikiPrinter printer = new DefaultWikiPrinter();
+        PrintRenderer renderer = getPrintRendererFactory().createRenderer(printer);
+
+        renderer.beginDocument(metaData);
+        for (Block block : range) {
+            block.traverse(renderer);
+        }
+        renderer.endDocument(metaData);
+        flush(renderer);
+
+        return printer.toString();
+    }
+
+    private void flush(PrintRenderer renderer)
+    {
+        if (renderer instanceof Flushable) {
+            try {
+                ((Flushable) renderer).flush();
+            } catch (IOException e) {
+                this.logger.error("Failed to flush renderer [{}]", renderer, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.syntax;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.descriptor.ComponentDescriptor;
+import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.transformation.Transformation;
+
+/**
+ * Default implementation of {@link SyntaxRuntimeManager}.
+ * <p>
+ * Components are always looked up in the context Component Manager but only the singletons coming from the root
+ * Component Manager are kept, since the components registered in a more specific Component Manager (e.g. for a given
+ * wiki or user) depend on the context of the call. For the same reason, a kept component is only reused when the
+ * context Component Manager of the call still resolves it from the same descriptor, i.e. when the context doesn't
+ * override it.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Component
+@Singleton
+public class DefaultSyntaxRuntimeManager implements SyntaxRuntimeManager
+{
+    @Inject
+    @Named("context")
+    private Provider<ComponentManager> componentManagerProvider;
+
+    @Inject
+    private ComponentManager rootComponentManager;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * The runtimes, replaced as a whole when invalidated so that a lookup running concurrently with the invalidation
+     * cannot store an outdated component in the new cache.
+     */
+    private volatile Map<Syntax, SyntaxRuntime> runtimes = new ConcurrentHashMap<>();
+
+    /**
+     * The sorted transformations, indexed by the list of transformation hints they were resolved from.
+     */
+    private volatile Map<List<String>, CachedComponent<List<Transformation>>> transformations =
+        new ConcurrentHashMap<>();
+
+    /**
+     * A cached value along with the descriptors of the components it was resolved from.
+     *
+     * @param <T> the type of the cached value
+     */
+    static final class CachedComponent<T>
+    {
+        private final ComponentDescriptor<?>[] descriptors;
+
+        private final T value;
+
+        CachedComponent(ComponentDescriptor<?>[] descriptors, T value)
+        {
+            this.descriptors = descriptors;
+            this.value = value;
+        }
+    }
+
+    @Override
+    public SyntaxRuntime getRuntime(Syntax syntax)
+    {
+        return this.runtimes.computeIfAbsent(syntax, key -> new SyntaxRuntime(key, this));
+    }
+
+    @Override
+    public List<Transformation> getTransformations(List<String> transformationNames)
+    {
+        if (transformationNames.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<List<String>, CachedComponent<List<Transformation>>> currentTransformations = this.transformations;
+        ComponentManager componentManager = this.componentManagerProvider.get();
+        ComponentDescriptor<?>[] descriptors = new ComponentDescriptor<?>[transformationNames.size()];
+        for (int i = 0; i < descriptors.length; i++) {
+            descriptors[i] = componentManager.getComponentDescriptor(Transformation.class, transformationNames.get(i));
+        }
+
+        CachedComponent<List<Transformation>> cached = currentTransformations.get(transformationNames);
+        if (cached != null && isSameDescriptors(cached, descriptors)) {
+            return cached.value;
+        }
+
+        List<Transformation> resolvedTransformations = new ArrayList<>(transformationNames.size());
+        boolean cacheable = true;
+        for (int i = 0; i < descriptors.length; i++) {
+            String hint = transformationNames.get(i);
+            try {
+                resolvedTransformations.add(componentManager.getInstance(Transformation.class, hint));
+                cacheable &= isCacheable(descriptors[i], Transformation.class, hint);
+            } catch (ComponentLookupException e) {
+                this.logger.warn("Failed to locate transformation with hint [{}], ignoring it. "
+                    + "Root reason [{}]", hint, ExceptionUtils.getRootCauseMessage(e));
+                // Try again next time, the transformation might have been registered in the meantime
+                cacheable = false;
+            }
+        }
+        Collections.sort(resolvedTransformations);
+        List<Transformation> result = Collections.unmodifiableList(resolvedTransformations);
+        if (cacheable) {
+            currentTransformations.put(List.copyOf(transformationNames), new CachedComponent<>(descriptors, result));
+        }
+
+        return result;
+    }
+
+    @Override
+    public void invalidate()
+    {
+        this.runtimes = new ConcurrentHashMap<>();
+        this.transformations = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get a component from the passed cache when the context Component Manager resolves it from the same descriptor,
+     * otherwise look it up and remember it in the cache when it can be reused for any later call.
+     *
+     * @param role the role of the component
+     * @param hint the hint of the component
+     * @param cache where to store the component when it can be reused
+     * @return the component
+     * @throws ComponentLookupException when the component cannot be found
+     */
+    Object getInstance(Type role, String hint, Map<Pair<Type, String>, CachedComponent<Object>> cache)
+        throws ComponentLookupException
+    {
+        ComponentManager componentManager = this.componentManagerProvider.get();
+        ComponentDescriptor<?>[] descriptors = { componentManager.getComponentDescriptor(role, hint) };
+
+        Pair<Type, String> key = Pair.of(role, hint);
+        CachedComponent<Object> cached = cache.get(key);
+        if (cached != null && isSameDescriptors(cached, descriptors)) {
+            return cached.value;
+        }
+
+        Object component = componentManager.getInstance(role, hint);
+        if (isCacheable(descriptors[0], role, hint)) {
+            cache.put(key, new CachedComponent<>(descriptors, component));
+        }
+
+        return component;
+    }
+
+    private boolean isSameDescriptors(CachedComponent<?> cached, ComponentDescriptor<?>[] descriptors)
+    {
+        for (int i = 0; i < descriptors.length; i++) {
+            if (cached.descriptors[i] != descriptors[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isCacheable(ComponentDescriptor<?> descriptor, Type role, String hint)
+    {
+        return descriptor != null && descriptor.getInstantiationStrategy() == ComponentInstantiationStrategy.SINGLETON
+            && descriptor == this.rootComponentManager.getComponentDescriptor(role, hint);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.syntax;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.rendering.parser.Parser;
+import org.xwiki.rendering.parser.StreamParser;
+import org.xwiki.rendering.renderer.BlockRenderer;
+import org.xwiki.rendering.renderer.PrintRendererFactory;
+import org.xwiki.rendering.syntax.Syntax;
+
+/**
+ * Gives access to the rendering components associated with a given {@link Syntax}, resolving each of them only once
+ * when possible.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+public class SyntaxRuntime
+{
+    private final Syntax syntax;
+
+    private final String hint;
+
+    private final DefaultSyntaxRuntimeManager manager;
+
+    /**
+     * The components already resolved, indexed by role and hint.
+     */
+    private final Map<Pair<Type, String>, DefaultSyntaxRuntimeManager.CachedComponent<Object>> components =
+        new ConcurrentHashMap<>();
+
+    /**
+     * @param syntax the syntax of the runtime
+     * @param manager the manager used to resolve the components
+     */
+    SyntaxRuntime(Syntax syntax, DefaultSyntaxRuntimeManager manager)
+    {
+        this.syntax = syntax;
+        this.hint = syntax.toIdString();
+        this.manager = manager;
+    }
+
+    /**
+     * @return the syntax of the runtime
+     */
+    public Syntax getSyntax()
+    {
+        return this.syntax;
+    }
+
+    /**
+     * @return the parser for the syntax
+     * @throws ComponentLookupException when no parser can be found for the syntax
+     */
+    public Parser getParser() throws ComponentLookupException
+    {
+        return getComponent(Parser.class);
+    }
+
+    /**
+     * @return the streaming parser for the syntax
+     * @throws ComponentLookupException when no streaming parser can be found for the syntax
+     */
+    public StreamParser getStreamParser() throws ComponentLookupException
+    {
+        return getComponent(StreamParser.class);
+    }
+
+    /**
+     * @return the block renderer for the syntax
+     * @throws ComponentLookupException when no block renderer can be found for the syntax
+     */
+    public BlockRenderer getBlockRenderer() throws ComponentLookupException
+    {
+        return getComponent(BlockRenderer.class);
+    }
+
+    /**
+     * @return the print renderer factory for the syntax
+     * @throws ComponentLookupException when no print renderer factory can be found for the syntax
+     */
+    public PrintRendererFactory getPrintRendererFactory() throws ComponentLookupException
+    {
+        return getComponent(PrintRendererFactory.class);
+    }
+
+    /**
+     * Give access to the components whose hint is derived from the syntax identifier, such as the print renderer
+     * factories of the HTML macro ({@code htmlmacro+xhtml/1.0}).
+     *
+     * @param <T> the type of the component
+     * @param role the role of the component
+     * @param hintPrefix the prefix to add before the syntax identifier to get the hint of the component
+     * @return the component
+     * @throws ComponentLookupException when the component cannot be found
+     */
+    public <T> T getComponent(Class<T> role, String hintPrefix) throws ComponentLookupException
+    {
+        return getComponent(role, hintPrefix + this.hint);
+    }
+
+    private <T> T getComponent(Class<T> role) throws ComponentLookupException
+    {
+        return getComponent(role, this.hint);
+    }
+
+    private <T> T getComponent(Class<T> role, String componentHint) throws ComponentLookupException
+    {
+        return role.cast(this.manager.getInstance(role, componentHint, this.components));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.syntax;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.event.ComponentDescriptorAddedEvent;
+import org.xwiki.component.event.ComponentDescriptorRemovedEvent;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.event.Event;
+import org.xwiki.rendering.parser.Parser;
+import org.xwiki.rendering.parser.StreamParser;
+import org.xwiki.rendering.renderer.BlockRenderer;
+import org.xwiki.rendering.renderer.PrintRendererFactory;
+import org.xwiki.rendering.transformation.Transformation;
+
+/**
+ * Invalidate the components kept by the {@link SyntaxRuntimeManager} when a parser, a renderer or a transformation
+ * is registered or unregistered.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Component
+@Singleton
+@Named(SyntaxRuntimeListener.NAME)
+public class SyntaxRuntimeListener implements EventListener
+{
+    /**
+     * The name of the listener.
+     */
+    public static final String NAME = "syntaxruntime";
+
+    private static final Class<?>[] ROLES = new Class<?>[] {
+        Parser.class,
+        StreamParser.class,
+        BlockRenderer.class,
+        PrintRendererFactory.class,
+        Transformation.class
+    };
+
+    /**
+     * Lazily loaded since the manager is not needed before some component is actually registered.
+     */
+    @Inject
+    private Provider<SyntaxRuntimeManager> syntaxRuntimeManagerProvider;
+
+    @Override
+    public String getName()
+    {
+        return NAME;
+    }
+
+    @Override
+    public List<Event> getEvents()
+    {
+        List<Event> events = new ArrayList<>(ROLES.length * 2);
+        for (Class<?> role : ROLES) {
+            events.add(new ComponentDescriptorAddedEvent(role));
+            events.add(new ComponentDescriptorRemovedEvent(role));
+        }
+
+        return events;
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        this.syntaxRuntimeManagerProvider.get().invalidate();
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.syntax;
+
+import java.util.List;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.transformation.Transformation;
+
+/**
+ * Keeps pre-resolved rendering components (parser, renderers, transformations) so that the rendering hot paths don't
+ * need to look them up in the Component Manager for each call. The cached components are dropped as soon as a
+ * matching component is registered or unregistered.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Role
+public interface SyntaxRuntimeManager
+{
+    /**
+     * @param syntax the syntax for which to get the runtime
+     * @return the runtime giving access to the components associated with the passed syntax
+     */
+    SyntaxRuntime getRuntime(Syntax syntax);
+
+    /**
+     * @param transformationNames the hints of the transformations to resolve
+     * @return the transformations sorted by priority, the ones which cannot be found are ignored
+     */
+    List<Transformation> getTransformations(List<String> transformationNames);
+
+    /**
+     * Forget all the resolved components so that they are looked up again on next access.
+     */
+    void invalidate();
+}
@@ -20,32 +20,33 @@
 package org.xwiki.rendering.internal.transformation;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
-import javax.inject.Named;
-import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
-import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
-import org.xwiki.component.manager.ComponentLookupException;
-import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.rendering.block.Block;
 import org.xwiki.rendering.configuration.RenderingConfiguration;
+import org.xwiki.rendering.internal.syntax.SyntaxRuntimeManager;
+import org.xwiki.rendering.metrics.RenderingMetrics;
+import org.xwiki.rendering.metrics.RenderingPhase;
+import org.xwiki.rendering.metrics.RenderingTimer;
 import org.xwiki.rendering.transformation.RenderingContext;
 import org.xwiki.rendering.transformation.Transformation;
 import org.xwiki.rendering.transformation.TransformationContext;
 import org.xwiki.rendering.transformation.TransformationException;
 import org.xwiki.rendering.transformation.TransformationManager;
+import org.xwiki.rendering.transformation.TransformationVisitor;
+import org.xwiki.rendering.transformation.VisitorTransformation;
 
 /**
  * Calls all existing transformations (executed by priority) on an existing XDOM object to generate a new transformed
- * XDOM.
+ * XDOM. Consecutive {@link VisitorTransformation}s are performed in a single traversal of the XDOM.
  *
  * @version $Id$
  * @since 1.5M2
@@ -67,32 +68,51 @@ public class DefaultTransformationManager implements TransformationManager
     private RenderingContext renderingContext;
 
     /**
-     * The logger to log.
+     * Used to look up transformations at runtime.
      */
     @Inject
-    private Logger logger;
+    private SyntaxRuntimeManager syntaxRuntimeManager;
 
     /**
-     * Used to look up transformations at runtime.
+     * Used to measure the transformations.
      */
     @Inject
-    @Named("context")
-    private Provider<ComponentManager> componentManagerProvider;
+    private RenderingMetrics renderingMetrics;
 
     @Override
     public void performTransformations(Block block, TransformationContext context) throws TransformationException
     {
         Map<String, String> transformationsInError = null;
-        for (Transformation transformation : getTransformations()) {
-            try {
-                ((MutableRenderingContext) this.renderingContext).transformInContext(transformation, context, block);
-            } catch (Exception e) {
-                // Continue running the other transformations
-                if (transformationsInError == null) {
-                    transformationsInError = new HashMap<>();
+        List<Transformation> transformations = getTransformations();
+        int index = 0;
+        while (index < transformations.size()) {
+            // Consecutive transformations supporting it share the same traversal of the tree
+            int end = index;
+            while (end < transformations.size() && end - index < TransformationTraversal.MAX_VISITORS
+                && transformations.get(end) instanceof VisitorTransformation)
+            {
+                end++;
+            }
+
+            if (end - index > 1) {
+                transformationsInError = performVisitorTransformations(transformations.subList(index, end), context,
+                    block, transformationsInError);
+                index = end;
+            } else {
+                Transformation transformation = transformations.get(index);
+                RenderingTimer timer =
+                    this.renderingMetrics.start(RenderingPhase.TRANSFORMATION, transformation.getClass().getName());
+                try {
+                    ((MutableRenderingContext) this.renderingContext).transformInContext(transformation, context,
+                        block);
+                } catch (Exception e) {
+                    timer.setFailed();
+                    // Continue running the other transformations
+                    transformationsInError = addError(transformationsInError, transformation, e);
+                } finally {
+                    timer.stop();
                 }
-                transformationsInError.put(transformation.getClass().getName(),
-                    ExceptionUtils.getStackTrace(e));
+                index++;
             }
         }
         if (transformationsInError != null) {
@@ -106,6 +126,77 @@ public void performTransformations(Block block, TransformationContext context) t
         }
     }
 
+    /**
+     * Perform several {@link VisitorTransformation}s in a single traversal of the passed block.
+     *
+     * @param transformations the transformations to perform
+     * @param context the context of the transformation process
+     * @param block the block to transform
+     * @param transformationsInError the transformations which failed so far, can be {@code null}
+     * @return the transformations which failed, can be {@code null}
+     */
+    private Map<String, String> performVisitorTransformations(List<Transformation> transformations,
+        TransformationContext context, Block block, Map<String, String> transformationsInError)
+    {
+        MutableRenderingContext mutableRenderingContext = (MutableRenderingContext) this.renderingContext;
+        Map<String, String> result = transformationsInError;
+
+        List<Transformation> visitorTransformations = new ArrayList<>(transformations.size());
+        List<TransformationVisitor> visitors = new ArrayList<>(transformations.size());
+        for (Transformation transformation : transformations) {
+            mutableRenderingContext.push(transformation, context);
+            try {
+                TransformationVisitor visitor =
+                    ((VisitorTransformation) transformation).createVisitor(block, context);
+                if (visitor != null) {
+                    visitorTransformations.add(transformation);
+                    visitors.add(visitor);
+                }
+            } catch (Exception e) {
+                // Continue running the other transformations
+                result = addError(result, transformation, e);
+            } finally {
+                mutableRenderingContext.pop();
+            }
+        }
+
+        if (!visitors.isEmpty()) {
+            // The transformations sharing the traversal cannot be measured separately
+            RenderingTimer timer = RenderingTimer.NOOP;
+            if (this.renderingMetrics.isEnabled()) {
+                timer = this.renderingMetrics.start(RenderingPhase.TRANSFORMATION, visitorTransformations.stream()
+                    .map(transformation -> transformation.getClass().getName()).collect(Collectors.joining("+")));
+            }
+            TransformationTraversal traversal = new TransformationTraversal(visitors);
+            mutableRenderingContext.push(visitorTransformations.get(0), context);
+            try {
+                traversal.traverse(block);
+            } finally {
+                mutableRenderingContext.pop();
+                timer.stop();
+            }
+            for (int i = 0; i < visitors.size(); i++) {
+                Exception error = traversal.getError(i);
+                if (error != null) {
+                    result = addError(result, visitorTransformations.get(i), error);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private Map<String, String> addError(Map<String, String> transformationsInError, Transformation transformation,
+        Exception error)
+    {
+        Map<String, String> result = transformationsInError;
+        if (result == null) {
+            result = new HashMap<>();
+        }
+        result.put(transformation.getClass().getName(), ExceptionUtils.getStackTrace(error));
+        return result;
+    }
+
     /**
      * @return the ordered list of Transformations to execute
      */
@@ -119,16 +210,6 @@ public List<Transformation> getTransformations()
      */
     protected List<Transformation> getTransformations(List<String> transformationNames)
     {
-        List<Transformation> transformations = new ArrayList<>();
-        for (String hint : transformationNames) {
-            try {
-                transformations.add(this.componentManagerProvider.get().getInstance(Transformation.class, hint));
-            } catch (ComponentLookupException e) {
-                this.logger.warn("Failed to locate transformation with hint [{}], ignoring it. "
-                    + "Root reason [{}]", hint, ExceptionUtils.getRootCauseMessage(e));
-            }
-        }
-        Collections.sort(transformations);
-        return transformations;
+        return this.syntaxRuntimeManager.getTransformations(transformationNames);
     }
 }
@@ -0,0 +1,157 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.transformation;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.transformation.TransformationContext;
+import org.xwiki.rendering.transformation.TransformationException;
+import org.xwiki.rendering.transformation.TransformationVisitor;
+import org.xwiki.rendering.transformation.VisitorTransformation;
+
+/**
+ * Traverses a tree of blocks once, calling several {@link TransformationVisitor}s for each block. A visitor failing
+ * for a block is not called anymore for the rest of the traversal, but the other visitors continue.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+public class TransformationTraversal
+{
+    /**
+     * Maximum number of visitors supported by a traversal since we use the bits of a long to track active visitors.
+     */
+    public static final int MAX_VISITORS = Long.SIZE;
+
+    private final List<TransformationVisitor> visitors;
+
+    private final Exception[] errors;
+
+    /**
+     * The visitors which failed.
+     */
+    private long failedMask;
+
+    /**
+     * @param visitors the visitors to call for each block, in order
+     */
+    public TransformationTraversal(List<TransformationVisitor> visitors)
+    {
+        if (visitors.size() > MAX_VISITORS) {
+            throw new IllegalArgumentException(
+                String.format("A traversal supports at most [%s] visitors", MAX_VISITORS));
+        }
+
+        this.visitors = visitors;
+        this.errors = new Exception[visitors.size()];
+    }
+
+    /**
+     * Perform a single {@link VisitorTransformation} on its own, which is how visitor transformations implement
+     * {@link VisitorTransformation#transform(Block, TransformationContext)}.
+     *
+     * @param transformation the transformation to perform
+     * @param block the block to transform
+     * @param context the context of the transformation process
+     * @throws TransformationException if the transformation fails
+     */
+    public static void transform(VisitorTransformation transformation, Block block, TransformationContext context)
+        throws TransformationException
+    {
+        TransformationVisitor visitor = transformation.createVisitor(block, context);
+        if (visitor != null) {
+            TransformationTraversal traversal = new TransformationTraversal(Collections.singletonList(visitor));
+            traversal.traverse(block);
+            Exception error = traversal.getError(0);
+            if (error instanceof TransformationException) {
+                throw (TransformationException) error;
+            } else if (error != null) {
+                throw new TransformationException("Failed to transform block", error);
+            }
+        }
+    }
+
+    /**
+     * Visit the passed block and its descendants.
+     *
+     * @param block the block to traverse
+     */
+    public void traverse(Block block)
+    {
+        long allMask = this.visitors.size() == MAX_VISITORS ? -1L : (1L << this.visitors.size()) - 1;
+        traverse(block, allMask);
+    }
+
+    /**
+     * @param index the index of the visitor
+     * @return the error thrown by the visitor during the traversal, or {@code null} if it didn't fail
+     */
+    public Exception getError(int index)
+    {
+        return this.errors[index];
+    }
+
+    private void traverse(Block block, long activeMask)
+    {
+        long childrenMask = 0;
+        for (int i = 0; i < this.visitors.size(); i++) {
+            long bit = 1L << i;
+            if ((activeMask & bit) != 0 && (this.failedMask & bit) == 0) {
+                try {
+                    if (this.visitors.get(i).beginBlock(block)) {
+                        childrenMask |= bit;
+                    }
+                } catch (Exception e) {
+                    fail(i, e);
+                }
+            }
+        }
+
+        if (childrenMask != 0) {
+            // Visitors can only modify the children of the visited block, so the children list is stable from here.
+            for (Block child : block.getChildren()) {
+                long mask = childrenMask & ~this.failedMask;
+                if (mask == 0) {
+                    break;
+                }
+                traverse(child, mask);
+            }
+        }
+
+        for (int i = 0; i < this.visitors.size(); i++) {
+            long bit = 1L << i;
+            if ((activeMask & bit) != 0 && (this.failedMask & bit) == 0) {
+                try {
+                    this.visitors.get(i).endBlock(block);
+                } catch (Exception e) {
+                    fail(i, e);
+                }
+            }
+        }
+    }
+
+    private void fail(int index, Exception e)
+    {
+        this.errors[index] = e;
+        this.failedMask |= 1L << index;
+    }
+}
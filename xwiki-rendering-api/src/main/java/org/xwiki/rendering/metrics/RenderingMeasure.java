@@ -0,0 +1,135 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.metrics;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * The measure of one execution of a {@link RenderingPhase}. Durations are inclusive: the execution of a macro located
+ * in the content of another macro is also counted in the duration of the enclosing macro.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public class RenderingMeasure
+{
+    /**
+     * The value used for the metrics which are not available.
+     */
+    public static final long UNKNOWN = -1;
+
+    private final RenderingPhase phase;
+
+    private final String id;
+
+    private final long duration;
+
+    private final long allocatedBytes;
+
+    private final long blockCount;
+
+    private final long outputLength;
+
+    private final boolean failed;
+
+    /**
+     * @param phase the measured phase
+     * @param id the identifier of the measured element (syntax, transformation, macro, etc.)
+     * @param duration the duration in nanoseconds
+     * @param allocatedBytes the number of bytes allocated by the current thread or {@link #UNKNOWN}
+     * @param blockCount the number of blocks produced or consumed or {@link #UNKNOWN}
+     * @param outputLength the number of characters printed or {@link #UNKNOWN}
+     * @param failed {@code true} if the execution failed
+     */
+    public RenderingMeasure(RenderingPhase phase, String id, long duration, long allocatedBytes, long blockCount,
+        long outputLength, boolean failed)
+    {
+        this.phase = phase;
+        this.id = id;
+        this.duration = duration;
+        this.allocatedBytes = allocatedBytes;
+        this.blockCount = blockCount;
+        this.outputLength = outputLength;
+        this.failed = failed;
+    }
+
+    /**
+     * @return the measured phase
+     */
+    public RenderingPhase getPhase()
+    {
+        return this.phase;
+    }
+
+    /**
+     * @return the identifier of the measured element (syntax, transformation, macro, etc.)
+     */
+    public String getId()
+    {
+        return this.id;
+    }
+
+    /**
+     * @return the duration in nanoseconds
+     */
+    public long getDuration()
+    {
+        return this.duration;
+    }
+
+    /**
+     * @return the number of bytes allocated by the current thread or {@link #UNKNOWN} if the JVM does not support it
+     */
+    public long getAllocatedBytes()
+    {
+        return this.allocatedBytes;
+    }
+
+    /**
+     * @return the number of blocks produced (parsing, macros) or consumed (rendering) or {@link #UNKNOWN}
+     */
+    public long getBlockCount()
+    {
+        return this.blockCount;
+    }
+
+    /**
+     * @return the number of characters printed or {@link #UNKNOWN}
+     */
+    public long getOutputLength()
+    {
+        return this.outputLength;
+    }
+
+    /**
+     * @return {@code true} if the execution failed
+     */
+    public boolean isFailed()
+    {
+        return this.failed;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s [%s]: %d ns", this.phase, this.id, this.duration);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.metrics;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Entry point used by the rendering code to measure its phases and forward the measures to the registered
+ * {@link RenderingMetricsListener}s.
+ *
+ * <pre>{@code
+ * RenderingTimer timer = this.renderingMetrics.start(RenderingPhase.PARSE, syntaxId);
+ * try {
+ *     ...
+ * } finally {
+ *     timer.stop();
+ * }
+ * }</pre>
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Role
+@Unstable
+public interface RenderingMetrics
+{
+    /**
+     * @return {@code true} if someone listens to the measures, useful to avoid computing the identifier of the measured
+     *         element when it's expensive
+     */
+    boolean isEnabled();
+
+    /**
+     * @param phase the phase to measure
+     * @param id the identifier of the measured element (syntax, transformation, macro, etc.)
+     * @return the started timer, or {@link RenderingTimer#NOOP} when nobody listens to the measures
+     */
+    RenderingTimer start(RenderingPhase phase, String id);
+
+    /**
+     * @param measure the measure to send to the listeners
+     */
+    void report(RenderingMeasure measure);
+}
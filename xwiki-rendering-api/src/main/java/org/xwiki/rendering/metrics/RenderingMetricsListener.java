@@ -0,0 +1,43 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.metrics;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Receive the measures of the rendering phases. Implement and register this role to collect metrics; when no listener
+ * is registered the rendering code doesn't measure anything.
+ * <p>
+ * Listeners are called synchronously from the rendering threads so they should be fast and thread safe.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ * @see StatisticsRenderingMetricsListener
+ */
+@Role
+@Unstable
+public interface RenderingMetricsListener
+{
+    /**
+     * @param measure the measure of a phase which just ended
+     */
+    void onMeasure(RenderingMeasure measure);
+}
@@ -0,0 +1,53 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.metrics;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * The phases of the rendering process which are measured.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public enum RenderingPhase
+{
+    /**
+     * Parsing of some content, identified by the syntax of the parser.
+     */
+    PARSE,
+
+    /**
+     * Execution of a transformation, identified by the class of the transformation.
+     */
+    TRANSFORMATION,
+
+    /**
+     * Execution of a macro (including the binding of its parameters and the generation of its errors), identified by
+     * the macro id.
+     */
+    MACRO,
+
+    /**
+     * Rendering of blocks, identified by the class of the renderer.
+     */
+    RENDER
+}
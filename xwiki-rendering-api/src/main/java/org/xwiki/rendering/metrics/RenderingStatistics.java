@@ -0,0 +1,144 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Thread safe aggregation of the {@link RenderingMeasure}s of a given phase and element. All the values are monotonic
+ * (except the max) which makes them easy to expose as counters in a metrics registry.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public class RenderingStatistics implements RenderingStatisticsMXBean
+{
+    /**
+     * The number of buckets of the duration histogram, the last one gathering all the executions longer than
+     * {@code 2^(HISTOGRAM_SIZE - 2)} microseconds (about 9 minutes).
+     */
+    public static final int HISTOGRAM_SIZE = 32;
+
+    private static final long NANOS_PER_MICRO = 1000L;
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder failedCount = new LongAdder();
+
+    private final LongAdder totalTime = new LongAdder();
+
+    private final LongAccumulator maxTime = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder totalAllocatedBytes = new LongAdder();
+
+    private final LongAdder totalBlockCount = new LongAdder();
+
+    private final LongAdder totalOutputLength = new LongAdder();
+
+    private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_SIZE);
+
+    /**
+     * @param measure the measure to add to the statistics
+     */
+    public void record(RenderingMeasure measure)
+    {
+        this.count.increment();
+        if (measure.isFailed()) {
+            this.failedCount.increment();
+        }
+        this.totalTime.add(measure.getDuration());
+        this.maxTime.accumulate(measure.getDuration());
+        if (measure.getAllocatedBytes() > 0) {
+            this.totalAllocatedBytes.add(measure.getAllocatedBytes());
+        }
+        if (measure.getBlockCount() > 0) {
+            this.totalBlockCount.add(measure.getBlockCount());
+        }
+        if (measure.getOutputLength() > 0) {
+            this.totalOutputLength.add(measure.getOutputLength());
+        }
+        this.histogram.incrementAndGet(getBucket(measure.getDuration()));
+    }
+
+    private static int getBucket(long duration)
+    {
+        long micros = duration / NANOS_PER_MICRO;
+
+        return micros <= 0 ? 0 : Math.min(Long.SIZE - Long.numberOfLeadingZeros(micros), HISTOGRAM_SIZE - 1);
+    }
+
+    @Override
+    public long getCount()
+    {
+        return this.count.sum();
+    }
+
+    @Override
+    public long getFailedCount()
+    {
+        return this.failedCount.sum();
+    }
+
+    @Override
+    public long getTotalTime()
+    {
+        return this.totalTime.sum();
+    }
+
+    @Override
+    public long getMaxTime()
+    {
+        return this.maxTime.get();
+    }
+
+    @Override
+    public long getTotalAllocatedBytes()
+    {
+        return this.totalAllocatedBytes.sum();
+    }
+
+    @Override
+    public long getTotalBlockCount()
+    {
+        return this.totalBlockCount.sum();
+    }
+
+    @Override
+    public long getTotalOutputLength()
+    {
+        return this.totalOutputLength.sum();
+    }
+
+    @Override
+    public long[] getHistogram()
+    {
+        long[] result = new long[HISTOGRAM_SIZE];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = this.histogram.get(i);
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.metrics;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * JMX view of the {@link RenderingStatistics} of a given phase and element.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public interface RenderingStatisticsMXBean
+{
+    /**
+     * @return the number of measured executions
+     */
+    long getCount();
+
+    /**
+     * @return the number of failed executions
+     */
+    long getFailedCount();
+
+    /**
+     * @return the total duration of the executions, in nanoseconds
+     */
+    long getTotalTime();
+
+    /**
+     * @return the longest duration of an execution, in nanoseconds
+     */
+    long getMaxTime();
+
+    /**
+     * @return the total number of bytes allocated by the executions, when supported by the JVM
+     */
+    long getTotalAllocatedBytes();
+
+    /**
+     * @return the total number of blocks produced or consumed by the executions
+     */
+    long getTotalBlockCount();
+
+    /**
+     * @return the total number of characters printed by the executions
+     */
+    long getTotalOutputLength();
+
+    /**
+     * @return the number of executions per duration bucket: the bucket {@code i} counts the executions which lasted
+     *         less than {@code 2^i} microseconds (and at least {@code 2^(i-1)}), the last bucket counts all the longer
+     *         ones
+     */
+    long[] getHistogram();
+}
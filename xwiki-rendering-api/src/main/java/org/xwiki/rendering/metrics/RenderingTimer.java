@@ -0,0 +1,184 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collection;
+
+import org.xwiki.rendering.block.Block;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Measure one execution of a {@link RenderingPhase} and report it when stopped. A timer is meant to be used by a single
+ * thread, except {@link #NOOP} which doesn't measure anything and can be shared.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public class RenderingTimer
+{
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+    private static final boolean ALLOCATION_SUPPORTED = isAllocationSupported();
+
+    /**
+     * The timer to use when nobody listens to the measures: it doesn't measure or report anything.
+     */
+    public static final RenderingTimer NOOP = new RenderingTimer();
+
+    private final RenderingMetrics metrics;
+
+    private final RenderingPhase phase;
+
+    private final String id;
+
+    private final long startTime;
+
+    private final long startAllocatedBytes;
+
+    private Collection<? extends Block> blocks;
+
+    private long outputLength = RenderingMeasure.UNKNOWN;
+
+    private boolean failed;
+
+    /**
+     * Start a new timer.
+     *
+     * @param metrics the metrics to report the measure to
+     * @param phase the measured phase
+     * @param id the identifier of the measured element
+     */
+    public RenderingTimer(RenderingMetrics metrics, RenderingPhase phase, String id)
+    {
+        this.metrics = metrics;
+        this.phase = phase;
+        this.id = id;
+        this.startAllocatedBytes = getAllocatedBytes();
+        this.startTime = System.nanoTime();
+    }
+
+    private RenderingTimer()
+    {
+        this.metrics = null;
+        this.phase = null;
+        this.id = null;
+        this.startAllocatedBytes = RenderingMeasure.UNKNOWN;
+        this.startTime = 0;
+    }
+
+    /**
+     * @return {@code false} if this timer doesn't measure anything, useful to avoid collecting expensive information
+     *         which would not be reported
+     */
+    public boolean isEnabled()
+    {
+        return this.metrics != null;
+    }
+
+    /**
+     * @param blocks the blocks produced or consumed by the phase, counted (with their descendants) only when the timer
+     *            is stopped
+     */
+    public void setBlocks(Collection<? extends Block> blocks)
+    {
+        if (isEnabled()) {
+            this.blocks = blocks;
+        }
+    }
+
+    /**
+     * @param outputLength the number of characters printed by the phase
+     */
+    public void setOutputLength(long outputLength)
+    {
+        if (isEnabled()) {
+            this.outputLength = outputLength;
+        }
+    }
+
+    /**
+     * Indicate that the measured execution failed.
+     */
+    public void setFailed()
+    {
+        if (isEnabled()) {
+            this.failed = true;
+        }
+    }
+
+    /**
+     * Stop the timer and report the measure.
+     */
+    public void stop()
+    {
+        if (!isEnabled()) {
+            return;
+        }
+
+        long duration = System.nanoTime() - this.startTime;
+        long allocatedBytes = this.startAllocatedBytes == RenderingMeasure.UNKNOWN ? RenderingMeasure.UNKNOWN
+            : getAllocatedBytes() - this.startAllocatedBytes;
+        long blockCount = RenderingMeasure.UNKNOWN;
+        if (this.blocks != null) {
+            blockCount = 0;
+            for (Block block : this.blocks) {
+                blockCount += countBlocks(block);
+            }
+        }
+
+        this.metrics.report(new RenderingMeasure(this.phase, this.id, duration, allocatedBytes, blockCount,
+            this.outputLength, this.failed));
+    }
+
+    private static long countBlocks(Block block)
+    {
+        long count = 1;
+        for (Block child : block.getChildren()) {
+            count += countBlocks(child);
+        }
+
+        return count;
+    }
+
+    private static boolean isAllocationSupported()
+    {
+        try {
+            return THREAD_BEAN instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) THREAD_BEAN).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) THREAD_BEAN).isThreadAllocatedMemoryEnabled();
+        } catch (LinkageError e) {
+            // The com.sun.management API is not available on this JVM
+            return false;
+        }
+    }
+
+    private static long getAllocatedBytes()
+    {
+        if (ALLOCATION_SUPPORTED) {
+            return ((com.sun.management.ThreadMXBean) THREAD_BEAN)
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        return RenderingMeasure.UNKNOWN;
+    }
+}
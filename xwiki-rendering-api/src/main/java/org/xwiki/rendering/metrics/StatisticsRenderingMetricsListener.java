@@ -0,0 +1,124 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xwiki.stability.Unstable;
+
+/**
+ * {@link RenderingMetricsListener} aggregating the measures in {@link RenderingStatistics} per phase and element. It's
+ * not registered by default: register it as a component (or wrap it in a component) to start collecting, and either
+ * read {@link #getStatistics(RenderingPhase)} to bind the values to a metrics registry (e.g. as function counters and
+ * gauges) or call {@link #setMBeanServer(MBeanServer)} to expose them through JMX.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public class StatisticsRenderingMetricsListener implements RenderingMetricsListener
+{
+    /**
+     * The JMX domain under which the statistics are exposed.
+     */
+    public static final String JMX_DOMAIN = "org.xwiki.rendering";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatisticsRenderingMetricsListener.class);
+
+    private final Map<RenderingPhase, Map<String, RenderingStatistics>> statistics =
+        new EnumMap<>(RenderingPhase.class);
+
+    private volatile MBeanServer mbeanServer;
+
+    /**
+     * Default constructor.
+     */
+    public StatisticsRenderingMetricsListener()
+    {
+        for (RenderingPhase phase : RenderingPhase.values()) {
+            this.statistics.put(phase, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public void onMeasure(RenderingMeasure measure)
+    {
+        Map<String, RenderingStatistics> phaseStatistics = this.statistics.get(measure.getPhase());
+        RenderingStatistics elementStatistics = phaseStatistics.get(measure.getId());
+        if (elementStatistics == null) {
+            elementStatistics = phaseStatistics.computeIfAbsent(measure.getId(), id -> {
+                RenderingStatistics newStatistics = new RenderingStatistics();
+                register(measure.getPhase(), id, newStatistics);
+                return newStatistics;
+            });
+        }
+        elementStatistics.record(measure);
+    }
+
+    /**
+     * @param phase the phase
+     * @return the statistics of the passed phase, indexed by element id
+     */
+    public Map<String, RenderingStatistics> getStatistics(RenderingPhase phase)
+    {
+        return Collections.unmodifiableMap(this.statistics.get(phase));
+    }
+
+    /**
+     * Expose the current and future statistics as MXBeans named
+     * {@code org.xwiki.rendering:type=RenderingStatistics,phase=<phase>,id=<id>}.
+     *
+     * @param mbeanServer the server where to register the statistics
+     */
+    public void setMBeanServer(MBeanServer mbeanServer)
+    {
+        this.mbeanServer = mbeanServer;
+        for (Map.Entry<RenderingPhase, Map<String, RenderingStatistics>> phaseEntry : this.statistics.entrySet()) {
+            for (Map.Entry<String, RenderingStatistics> entry : phaseEntry.getValue().entrySet()) {
+                register(phaseEntry.getKey(), entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void register(RenderingPhase phase, String id, RenderingStatistics elementStatistics)
+    {
+        MBeanServer server = this.mbeanServer;
+        if (server != null) {
+            try {
+                ObjectName name = new ObjectName(String.format("%s:type=RenderingStatistics,phase=%s,id=%s",
+                    JMX_DOMAIN, phase, ObjectName.quote(id)));
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(elementStatistics, name);
+                }
+            } catch (JMException e) {
+                LOGGER.warn("Failed to register the rendering statistics of [{}] [{}]", phase, id, e);
+            }
+        }
+    }
+}
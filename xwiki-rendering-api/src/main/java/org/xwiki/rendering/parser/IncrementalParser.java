@@ -0,0 +1,58 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.parser;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Parse content which is being edited, re-parsing only the part of the content affected by each edit instead of the
+ * whole content. Implementations are registered with the syntax id as hint, like {@link Parser}.
+ * <p>
+ * The result of a re-parse is the same as the one of a full parse of the edited source.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Role
+@Unstable
+public interface IncrementalParser
+{
+    /**
+     * Parse the whole source.
+     *
+     * @param source the content to parse
+     * @return the parsed content, to pass to {@link #parse(IncrementalXDOM, TextEdit)} when the content is edited
+     * @throws ParseException if an unexpected error happens during the parsing
+     */
+    IncrementalXDOM parse(String source) throws ParseException;
+
+    /**
+     * Update previously parsed content after an edit of its source. The {@link XDOM} of the previous result may be
+     * modified in place and shared by the new result so the previous result must not be used anymore.
+     *
+     * @param previous the result of the parsing of the source before the edit
+     * @param edit the modification of the source
+     * @return the parsed edited content
+     * @throws ParseException if an unexpected error happens during the parsing
+     */
+    IncrementalXDOM parse(IncrementalXDOM previous, TextEdit edit) throws ParseException;
+}
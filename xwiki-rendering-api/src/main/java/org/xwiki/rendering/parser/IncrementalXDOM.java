@@ -0,0 +1,44 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.parser;
+
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.stability.Unstable;
+
+/**
+ * The result of an {@link IncrementalParser}: the parsed {@link XDOM} along with the source it has been parsed from
+ * and whatever the parser needs to update it when the source is edited.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public interface IncrementalXDOM
+{
+    /**
+     * @return the source which has been parsed
+     */
+    String getSource();
+
+    /**
+     * @return the tree representation of the source
+     */
+    XDOM getXDOM();
+}
@@ -0,0 +1,64 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.parser;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Parse large content using several threads, for example when importing big documents. Implementations are
+ * registered with the syntax id as hint, like {@link Parser}.
+ * <p>
+ * The result is the same as the one of {@link Parser#parse(java.io.Reader)}, generated ids included. Small content is
+ * parsed on the calling thread.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Role
+@Unstable
+public interface ParallelParser
+{
+    /**
+     * Parse the passed source, running parts of the parsing on the passed executor.
+     *
+     * @param source the content to parse
+     * @param executor runs the parsing of the parts of the source; it is not shut down
+     * @return the parsed content
+     * @throws ParseException if an unexpected error happens during the parsing
+     */
+    XDOM parse(String source, Executor executor) throws ParseException;
+
+    /**
+     * Parse the passed source, running parts of the parsing on the {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @param source the content to parse
+     * @return the parsed content
+     * @throws ParseException if an unexpected error happens during the parsing
+     */
+    default XDOM parse(String source) throws ParseException
+    {
+        return parse(source, ForkJoinPool.commonPool());
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.parser;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * A modification of a source: some characters removed at a given offset and replaced by some other text.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public final class TextEdit
+{
+    private final int offset;
+
+    private final int removedLength;
+
+    private final String insertedText;
+
+    /**
+     * @param offset the offset of the modification in the source before the edit
+     * @param removedLength the number of characters removed at the offset
+     * @param insertedText the text inserted at the offset, in place of the removed characters
+     */
+    public TextEdit(int offset, int removedLength, String insertedText)
+    {
+        if (offset < 0 || removedLength < 0) {
+            throw new IllegalArgumentException(
+                String.format("Invalid edit offset [%d] and removed length [%d]", offset, removedLength));
+        }
+
+        this.offset = offset;
+        this.removedLength = removedLength;
+        this.insertedText = insertedText != null ? insertedText : "";
+    }
+
+    /**
+     * @return the offset of the modification in the source before the edit
+     */
+    public int getOffset()
+    {
+        return this.offset;
+    }
+
+    /**
+     * @return the number of characters removed at the offset
+     */
+    public int getRemovedLength()
+    {
+        return this.removedLength;
+    }
+
+    /**
+     * @return the text inserted at the offset, in place of the removed characters
+     */
+    public String getInsertedText()
+    {
+        return this.insertedText;
+    }
+
+    /**
+     * @param source the source before the edit
+     * @return the source after the edit
+     */
+    public String apply(String source)
+    {
+        if (this.offset + this.removedLength > source.length()) {
+            throw new IllegalArgumentException(
+                String.format("The edit [%d, %d] is outside of the source of length [%d]", this.offset,
+                    this.removedLength, source.length()));
+        }
+
+        return source.substring(0, this.offset) + this.insertedText
+            + source.substring(this.offset + this.removedLength);
+    }
+}
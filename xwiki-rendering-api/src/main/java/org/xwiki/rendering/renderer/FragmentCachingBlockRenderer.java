@@ -0,0 +1,52 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.renderer;
+
+import java.util.Collection;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Renders {@link Block}s in some target syntax, reusing the output of the fragments (top level blocks and blocks
+ * directly in sections) which have already been rendered with the same {@link RenderedFragmentCache}. Useful to render
+ * again a document after a small edit. Implementations are registered with the target syntax id as hint, like
+ * {@link BlockRenderer}.
+ * <p>
+ * A fragment is identified by its content, so this must only be used when the output of a block only depends on its
+ * content and on the rendering configuration (for example not when it depends on the existence of the linked pages).
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Role
+@Unstable
+public interface FragmentCachingBlockRenderer
+{
+    /**
+     * @param blocks the list of blocks to render in the target syntax
+     * @param printer the object where to output the result of the rendering
+     * @param cache the output of the fragments rendered in the previous rendering of the same document, updated with
+     *            the fragments of this rendering
+     */
+    void render(Collection<Block> blocks, WikiPrinter printer, RenderedFragmentCache cache);
+}
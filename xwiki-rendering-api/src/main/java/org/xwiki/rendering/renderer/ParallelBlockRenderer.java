@@ -0,0 +1,53 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.renderer;
+
+import java.util.Collection;
+import java.util.concurrent.Executor;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Renders {@link Block}s in some target syntax using several threads, for example to export large documents.
+ * Implementations are registered with the target syntax id as hint, like {@link BlockRenderer}, and produce the same
+ * output as the {@link BlockRenderer} of the same syntax.
+ * <p>
+ * Parts of the document are rendered on the threads of the executor, so this must only be used when the rendering
+ * doesn't depend on the context of the calling thread, or with an executor propagating this context. There is no
+ * default executor: the caller decides which threads can be used, and passing {@code Runnable::run} renders on the
+ * calling thread.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Role
+@Unstable
+public interface ParallelBlockRenderer
+{
+    /**
+     * @param blocks the list of blocks to render in the target syntax
+     * @param printer the object where to output the result of the rendering, only called from the calling thread
+     * @param executor renders the parts of the blocks; it is not shut down
+     */
+    void render(Collection<Block> blocks, WikiPrinter printer, Executor executor);
+}
@@ -0,0 +1,113 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.renderer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * The output of the fragments of a document rendered by a {@link FragmentCachingBlockRenderer}. One cache should be
+ * used per document and target syntax. Only the fragments of the latest rendering are kept, so the size of the cache
+ * is bounded by the size of the document.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public class RenderedFragmentCache
+{
+    private Map<Object, String> previous = new HashMap<>();
+
+    private Map<Object, String> current = new HashMap<>();
+
+    private long hitCount;
+
+    private long missCount;
+
+    /**
+     * Start a new rendering: the fragments which are not reused by this rendering will be forgotten at the start of
+     * the next one.
+     */
+    public synchronized void startRendering()
+    {
+        this.previous = this.current;
+        this.current = new HashMap<>();
+    }
+
+    /**
+     * @param key the identifier of the fragment
+     * @return the output of the fragment if it has been rendered by the previous or the current rendering
+     */
+    public synchronized String get(Object key)
+    {
+        String output = this.current.get(key);
+        if (output == null) {
+            output = this.previous.remove(key);
+            if (output != null) {
+                this.current.put(key, output);
+            }
+        }
+
+        if (output != null) {
+            this.hitCount++;
+        } else {
+            this.missCount++;
+        }
+
+        return output;
+    }
+
+    /**
+     * @param key the identifier of the fragment, which must not change after being put in the cache
+     * @param output the output of the fragment
+     */
+    public synchronized void put(Object key, String output)
+    {
+        this.current.put(key, output);
+    }
+
+    /**
+     * Forget all the fragments, for example when the rendering configuration changes in a way which is not part of
+     * the fragment identifiers.
+     */
+    public synchronized void clear()
+    {
+        this.previous.clear();
+        this.current.clear();
+    }
+
+    /**
+     * @return the number of fragments whose output has been reused
+     */
+    public synchronized long getHitCount()
+    {
+        return this.hitCount;
+    }
+
+    /**
+     * @return the number of fragments which had to be rendered
+     */
+    public synchronized long getMissCount()
+    {
+        return this.missCount;
+    }
+}
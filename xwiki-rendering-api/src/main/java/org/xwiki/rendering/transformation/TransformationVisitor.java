@@ -0,0 +1,61 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.transformation;
+
+import org.xwiki.rendering.block.Block;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Performs a transformation block by block, see {@link VisitorTransformation}.
+ * <p>
+ * In order for several visitors to be able to share the same traversal of the tree, a visitor is only allowed to
+ * modify the children of the block it's visiting (i.e. replace, add or remove children). It must not modify the visited
+ * block itself, its parent or its siblings. Visitors sharing the same traversal are called in the order of execution of
+ * their transformations for each block, so a visitor sees the modifications done on the children of the visited block
+ * by the visitors called before it.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public interface TransformationVisitor
+{
+    /**
+     * Called for each block of the tree, before the children of the block are visited.
+     *
+     * @param block the block being visited
+     * @return {@code true} if the children of the block should be visited, {@code false} to skip them (for example
+     *         because the block is protected)
+     * @throws TransformationException if the transformation of the block fails
+     */
+    boolean beginBlock(Block block) throws TransformationException;
+
+    /**
+     * Called for each block for which {@link #beginBlock(Block)} has been called, after its children have been visited
+     * (or skipped).
+     *
+     * @param block the block being visited
+     * @throws TransformationException if the transformation of the block fails
+     */
+    default void endBlock(Block block) throws TransformationException
+    {
+        // Nothing to do by default
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.transformation;
+
+import org.xwiki.rendering.block.Block;
+import org.xwiki.stability.Unstable;
+
+/**
+ * A {@link Transformation} which works block by block through a {@link TransformationVisitor}. This allows the
+ * {@link TransformationManager} to perform several of these transformations in a single traversal of the tree instead
+ * of one traversal per transformation. {@link #transform(Block, TransformationContext)} must still be implemented and
+ * have the same effect as visiting the block and its descendants with the visitor.
+ * <p>
+ * Note that when several transformations share the same traversal, {@link RenderingContext#getTransformation()} is not
+ * guaranteed to return the transformation owning the visitor while the blocks are visited.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public interface VisitorTransformation extends Transformation
+{
+    /**
+     * @param block the block to transform (can be an {@link org.xwiki.rendering.block.XDOM})
+     * @param context the context of the transformation process (syntax, transformation id, etc)
+     * @return the visitor in charge of transforming the passed block and its descendants, or {@code null} if there's
+     *         nothing to do
+     * @throws TransformationException if the transformation fails for any reason
+     */
+    TransformationVisitor createVisitor(Block block, TransformationContext context) throws TransformationException;
+}
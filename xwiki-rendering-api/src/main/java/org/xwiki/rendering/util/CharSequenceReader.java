@@ -0,0 +1,168 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * A {@link Reader} over an in-memory {@link CharSequence}. Contrary to {@link java.io.StringReader} it gives access
+ * to the characters that were not read yet through {@link #getRemaining()}, which allows parsers that need the whole
+ * input in memory to use it directly instead of copying it into their own buffers.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public class CharSequenceReader extends Reader
+{
+    private CharSequence sequence;
+
+    private int position;
+
+    private int mark;
+
+    /**
+     * @param sequence the characters to read
+     */
+    public CharSequenceReader(CharSequence sequence)
+    {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Gives access to the characters that were not read yet, without consuming them. The returned sequence is a view
+     * of the wrapped sequence, it should not be modified while it's being used.
+     *
+     * @return the characters that were not read yet
+     * @throws IOException if the reader is closed
+     */
+    public CharSequence getRemaining() throws IOException
+    {
+        ensureOpen();
+
+        if (this.position == 0) {
+            return this.sequence;
+        }
+
+        return CharBuffer.wrap(this.sequence, this.position, this.sequence.length());
+    }
+
+    private void ensureOpen() throws IOException
+    {
+        if (this.sequence == null) {
+            throw new IOException("Reader closed");
+        }
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        ensureOpen();
+
+        if (this.position >= this.sequence.length()) {
+            return -1;
+        }
+
+        return this.sequence.charAt(this.position++);
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException
+    {
+        ensureOpen();
+
+        if (off < 0 || len < 0 || len > cbuf.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+
+        int length = this.sequence.length();
+        if (this.position >= length) {
+            return -1;
+        }
+
+        int count = Math.min(len, length - this.position);
+        if (this.sequence instanceof String) {
+            ((String) this.sequence).getChars(this.position, this.position + count, cbuf, off);
+        } else {
+            for (int i = 0; i < count; i++) {
+                cbuf[off + i] = this.sequence.charAt(this.position + i);
+            }
+        }
+        this.position += count;
+
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException
+    {
+        ensureOpen();
+
+        int count = (int) Math.max(0, Math.min(n, this.sequence.length() - (long) this.position));
+        this.position += count;
+
+        return count;
+    }
+
+    @Override
+    public boolean ready() throws IOException
+    {
+        ensureOpen();
+
+        return true;
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return true;
+    }
+
+    @Override
+    public void mark(int readAheadLimit) throws IOException
+    {
+        ensureOpen();
+
+        this.mark = this.position;
+    }
+
+    @Override
+    public void reset() throws IOException
+    {
+        ensureOpen();
+
+        this.position = this.mark;
+    }
+
+    @Override
+    public void close()
+    {
+        this.sequence = null;
+    }
+}
@@ -24,12 +24,17 @@
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.Test;
 import org.xwiki.rendering.block.match.AnyBlockMatcher;
 import org.xwiki.rendering.block.match.BlockNavigatorTest;
+import org.xwiki.rendering.listener.Format;
+import org.xwiki.rendering.listener.HeaderLevel;
+import org.xwiki.rendering.listener.Listener;
 import org.xwiki.rendering.listener.reference.DocumentResourceReference;
 import org.xwiki.rendering.listener.reference.ResourceReference;
 import org.xwiki.rendering.listener.reference.ResourceType;
@@ -37,10 +42,18 @@
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Unit tests for Block manipulation, testing {@link AbstractBlock}.
@@ -281,6 +294,56 @@ public void setAndGetParameters()
         assertEquals(parameters2, wordBlock.getParameters());
     }
 
+    @Test
+    void sharedParameters()
+    {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        parameters.put("class", "wikimodel-emptyline");
+        parameters.put("style", "color:red");
+
+        WordBlock wordBlock = new WordBlock("word");
+        wordBlock.setParameters(parameters);
+        ParagraphBlock paragraphBlock = new ParagraphBlock(Collections.emptyList(), parameters);
+
+        // Identical parameters are shared
+        assertSame(BlockParameters.of(wordBlock.getParameters()), BlockParameters.of(paragraphBlock.getParameters()));
+        assertSame(BlockParameters.of(wordBlock.getParameters()),
+            BlockParameters.of(wordBlock.clone().getParameters()));
+        assertThrows(UnsupportedOperationException.class, () -> wordBlock.getParameters().put("name", "value"));
+
+        // Modifying the parameters of a block doesn't affect the others and keeps the order
+        Map<String, String> view = wordBlock.getParameters();
+        wordBlock.setParameter("class", "other");
+        wordBlock.setParameter("name", "value");
+        assertEquals(Arrays.asList("class", "style", "name"), new ArrayList<>(wordBlock.getParameters().keySet()));
+        assertEquals(Arrays.asList("other", "color:red", "value"),
+            new ArrayList<>(wordBlock.getParameters().values()));
+        assertEquals(parameters, paragraphBlock.getParameters());
+        assertEquals(parameters.hashCode(), paragraphBlock.getParameters().hashCode());
+        // The parameters returned before the modification are a view
+        assertEquals(wordBlock.getParameters(), view);
+        assertEquals("value", view.get("name"));
+
+        wordBlock.setParameters(Collections.emptyMap());
+        assertEquals(Collections.emptyMap(), wordBlock.getParameters());
+        assertNull(wordBlock.getParameter("class"));
+    }
+
+    @Test
+    void largeParametersAreNotShared()
+    {
+        Map<String, String> parameters =
+            Collections.singletonMap("src", "data:image/png;base64," + StringUtils.repeat('A', 1024));
+
+        ImageBlock imageBlock = new ImageBlock(new ResourceReference("image.png", ResourceType.URL), true);
+        imageBlock.setParameters(parameters);
+        WordBlock wordBlock = new WordBlock("word");
+        wordBlock.setParameters(parameters);
+
+        assertEquals(wordBlock.getParameters(), imageBlock.getParameters());
+        assertNotSame(BlockParameters.of(wordBlock.getParameters()), BlockParameters.of(imageBlock.getParameters()));
+    }
+
     @Test
     public void getRoot()
     {
@@ -369,4 +432,204 @@ public void indexOf()
         assertEquals(2, pb.indexOf(wb2));
         assertEquals(-1, pb.indexOf(new WordBlock("block1")));
     }
+
+    @Test
+    public void traverseSkippingChildren()
+    {
+        ParagraphBlock skippedParagraph = new ParagraphBlock(Arrays.asList(new WordBlock("skipped")));
+        ParagraphBlock paragraph = new ParagraphBlock(Arrays.asList(new WordBlock("word")));
+        XDOM xdom = new XDOM(Arrays.asList(skippedParagraph, paragraph));
+
+        SubtreeSkippingListener listener = mock(SubtreeSkippingListener.class);
+        when(listener.skipChildren(skippedParagraph)).thenReturn(true);
+
+        xdom.traverse(listener);
+
+        // The begin and end events of the skipped block are still sent
+        verify(listener, times(2)).beginParagraph(any());
+        verify(listener, times(2)).endParagraph(any());
+        verify(listener).onWord("word");
+        verify(listener, never()).onWord("skipped");
+    }
+
+    @Test
+    void hashCodeIsInvalidatedByMutations()
+    {
+        WordBlock word = new WordBlock("word");
+        HeaderBlock header = new HeaderBlock(Arrays.asList(word), HeaderLevel.LEVEL1, "Hword");
+        ParagraphBlock paragraph = new ParagraphBlock(Arrays.asList(new WordBlock("text")));
+        XDOM xdom = new XDOM(Arrays.asList(new SectionBlock(Arrays.asList(header, paragraph))));
+        XDOM copy = (XDOM) xdom.clone();
+
+        assertEquals(xdom.hashCode(), copy.hashCode());
+        assertEquals(xdom, copy);
+
+        // Modify a leaf
+        header.setId("Hother");
+        assertNotEquals(xdom, copy);
+        assertEquals(xdom.clone().hashCode(), xdom.hashCode());
+        header.setId("Hword");
+        assertEquals(copy.hashCode(), xdom.hashCode());
+        assertEquals(xdom, copy);
+
+        // Modify the children
+        paragraph.addChild(new SpaceBlock());
+        assertNotEquals(xdom, copy);
+        assertEquals(xdom.clone().hashCode(), xdom.hashCode());
+        paragraph.removeBlock(paragraph.getChildren().get(1));
+        assertEquals(copy.hashCode(), xdom.hashCode());
+        paragraph.replaceChild(new WordBlock("other"), paragraph.getChildren().get(0));
+        assertNotEquals(xdom, copy);
+        assertEquals(xdom.clone().hashCode(), xdom.hashCode());
+
+        // Modify the parameters
+        paragraph.replaceChild(new WordBlock("text"), paragraph.getChildren().get(0));
+        assertEquals(xdom, copy);
+        word.setParameter("name", "value");
+        assertNotEquals(xdom, copy);
+        assertEquals(xdom.clone().hashCode(), xdom.hashCode());
+    }
+
+    @Test
+    void hashCodeIsInvalidatedByChildrenListMutations()
+    {
+        ParagraphBlock paragraph = new ParagraphBlock(Arrays.asList(new WordBlock("word"), new SpaceBlock()));
+        XDOM xdom = new XDOM(Arrays.asList(paragraph));
+        XDOM copy = xdom.clone();
+
+        assertEquals(copy.hashCode(), xdom.hashCode());
+
+        paragraph.getChildren().remove(1);
+        assertNotEquals(xdom, copy);
+        assertEquals(xdom.clone().hashCode(), xdom.hashCode());
+
+        paragraph.getChildren().clear();
+        assertEquals(xdom.clone().hashCode(), xdom.hashCode());
+        assertEquals(new XDOM(Arrays.asList(new ParagraphBlock(Collections.emptyList()))), xdom);
+    }
+
+    @Test
+    void hashCodeIsInvalidatedByMutationsOfRecreatedCompactedBlocks()
+    {
+        ParagraphBlock paragraph = new ParagraphBlock(Arrays.asList(new WordBlock("word"), new SpaceBlock()));
+        XDOM xdom = new XDOM(Arrays.asList(paragraph));
+        XDOM copy = xdom.clone();
+
+        xdom.compact();
+        assertEquals(copy.hashCode(), xdom.hashCode());
+
+        paragraph.getChildren().get(0).setParameter("name", "value");
+        assertNotEquals(copy, xdom);
+        assertEquals(xdom.clone().hashCode(), xdom.hashCode());
+    }
+
+    @Test
+    void equalsAndHashCodeTakeTheTypeIntoAccount()
+    {
+        BulletedListBlock bulletedList =
+            new BulletedListBlock(Arrays.asList(new ListItemBlock(Arrays.asList(new WordBlock("item")))));
+        NumberedListBlock numberedList =
+            new NumberedListBlock(Arrays.asList(new ListItemBlock(Arrays.asList(new WordBlock("item")))));
+
+        assertNotEquals(bulletedList, numberedList);
+        assertNotEquals(numberedList, bulletedList);
+        assertNotEquals(bulletedList.hashCode(), numberedList.hashCode());
+        assertEquals(bulletedList, bulletedList.clone());
+        assertEquals(bulletedList.hashCode(), bulletedList.clone().hashCode());
+    }
+
+    @Test
+    void freezeAndClone()
+    {
+        WordBlock word = new WordBlock("word");
+        ParagraphBlock paragraph = new ParagraphBlock(Arrays.asList(word, new SpaceBlock()));
+        ParagraphBlock otherParagraph = new ParagraphBlock(Arrays.asList(new WordBlock("other")));
+        XDOM xdom = new XDOM(Arrays.asList(paragraph, otherParagraph));
+        XDOM expected = xdom.clone();
+
+        xdom.freeze();
+
+        assertTrue(xdom.isFrozen());
+        assertTrue(word.isFrozen());
+        assertThrows(UnsupportedOperationException.class, () -> paragraph.addChild(new WordBlock("new")));
+        assertThrows(UnsupportedOperationException.class, () -> xdom.getChildren().remove(0));
+        assertThrows(UnsupportedOperationException.class, () -> word.setParameter("name", "value"));
+        assertThrows(UnsupportedOperationException.class,
+            () -> new ParagraphBlock(Collections.emptyList()).addChild(word));
+
+        XDOM clone = xdom.clone();
+        assertFalse(clone.isFrozen());
+        assertEquals(expected, clone);
+        assertEquals(expected.hashCode(), clone.hashCode());
+
+        // Rendering the clone sends the same events
+        Listener listener = mock(Listener.class);
+        clone.traverse(listener);
+        verify(listener).onWord("word");
+        verify(listener).onSpace();
+        verify(listener).onWord("other");
+
+        // Modify the clone
+        Block clonedParagraph = clone.getChildren().get(0);
+        assertNotSame(paragraph, clonedParagraph);
+        assertSame(clone, clonedParagraph.getParent());
+        assertSame(clone.getChildren().get(1), clonedParagraph.getNextSibling());
+        clonedParagraph.addChild(new WordBlock("new"));
+        clonedParagraph.getChildren().get(0).setParameter("name", "value");
+
+        assertEquals(expected, xdom);
+        assertEquals(expected.hashCode(), xdom.hashCode());
+        assertNotEquals(expected, clone);
+        assertSame(paragraph, word.getParent());
+        assertEquals(2, paragraph.getChildren().size());
+
+        // A clone of a clone still shares the children which have not been copied
+        XDOM secondClone = clone.clone();
+        assertEquals(clone, secondClone);
+        secondClone.getChildren().get(1).addChild(new SpaceBlock());
+        assertNotEquals(clone, secondClone);
+        assertEquals(1, otherParagraph.getChildren().size());
+    }
+
+    @Test
+    void compact()
+    {
+        WordBlock word = new WordBlock("word");
+        ParagraphBlock paragraph = new ParagraphBlock(Arrays.asList(word, new SpaceBlock(), new SpecialSymbolBlock('!'),
+            new NewLineBlock(), new WordBlock("other")));
+        ParagraphBlock mixedParagraph =
+            new ParagraphBlock(Arrays.asList(new FormatBlock(Arrays.asList(new WordBlock("bold"), new SpaceBlock()),
+                Format.BOLD), new SpaceBlock()));
+        XDOM xdom = new XDOM(Arrays.asList(paragraph, mixedParagraph));
+        XDOM expected = xdom.clone();
+
+        xdom.compact();
+
+        // Compacted blocks send the same events
+        Listener listener = mock(Listener.class);
+        xdom.clone().traverse(listener);
+        xdom.traverse(listener);
+        verify(listener, times(2)).onWord("word");
+        verify(listener, times(2)).onSpecialSymbol('!');
+        verify(listener, times(2)).onNewLine();
+        verify(listener, times(2)).onWord("other");
+        verify(listener, times(2)).onWord("bold");
+        verify(listener, times(6)).onSpace();
+
+        assertEquals(expected.hashCode(), xdom.hashCode());
+        assertEquals(expected, xdom);
+
+        // The compacted blocks are recreated when navigating
+        List<Block> children = paragraph.getChildren();
+        assertEquals(expected.getChildren().get(0).getChildren(), children);
+        assertNotSame(word, children.get(0));
+        assertSame(paragraph, children.get(0).getParent());
+        assertSame(children.get(1), children.get(0).getNextSibling());
+        assertSame(children.get(3), children.get(4).getPreviousSibling());
+        assertEquals(expected, xdom);
+
+        Block format = mixedParagraph.getChildren().get(0);
+        assertEquals(Arrays.asList(new WordBlock("bold"), new SpaceBlock()), format.getChildren());
+        assertSame(format, format.getChildren().get(0).getParent());
+    }
 }
@@ -0,0 +1,134 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.converter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.xwiki.context.Execution;
+import org.xwiki.rendering.converter.BatchConversionInput;
+import org.xwiki.rendering.converter.BatchConversionResult;
+import org.xwiki.rendering.converter.ConversionException;
+import org.xwiki.rendering.converter.Converter;
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link DefaultBatchConverter}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class DefaultBatchConverterTest
+{
+    @RegisterExtension
+    LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @InjectMockComponents
+    private DefaultBatchConverter batchConverter;
+
+    @MockComponent
+    private Converter converter;
+
+    @MockComponent
+    private Execution execution;
+
+    @Test
+    void convert() throws Exception
+    {
+        // Upper case the content, and fail for the content "error"
+        doAnswer(invocation -> {
+            Reader reader = invocation.getArgument(0);
+            char[] buffer = new char[100];
+            String content = new String(buffer, 0, reader.read(buffer));
+            if (content.equals("error")) {
+                throw new ConversionException("error");
+            }
+            invocation.<WikiPrinter>getArgument(3).print(content.toUpperCase());
+            return null;
+        }).when(this.converter).convert(any(), eq(Syntax.XWIKI_2_1), eq(Syntax.PLAIN_1_0), any());
+
+        Map<String, String> results = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        BatchConversionResult result;
+        try {
+            result = this.batchConverter.convert(IntStream.range(0, 500).mapToObj(i -> {
+                String content = i == 42 ? "error" : "doc" + i;
+                return new BatchConversionInput("id" + i, () -> new StringReader(content));
+            }), Syntax.XWIKI_2_1, Syntax.PLAIN_1_0, results::put, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(499, result.getConvertedCount());
+        assertEquals(499, results.size());
+        assertEquals("DOC7", results.get("id7"));
+        assertEquals(1, result.getFailures().size());
+        assertInstanceOf(ConversionException.class, result.getFailures().get("id42"));
+        assertTrue(result.getThroughput() > 0);
+        assertEquals("Failed to convert document [id42]", this.logCapture.getMessage(0));
+
+        // Each conversion gets its own execution context
+        verify(this.execution, times(500)).pushContext(any());
+        verify(this.execution, times(500)).popContext();
+    }
+
+    @Test
+    void convertWhenSinkAndSourceFail() throws Exception
+    {
+        BatchConversionResult result = this.batchConverter.convert(IntStream.range(0, 2).mapToObj(i -> {
+            return new BatchConversionInput("id" + i, () -> {
+                if (i == 0) {
+                    throw new IOException("source");
+                }
+                return new StringReader("");
+            });
+        }), Syntax.XWIKI_2_1, Syntax.PLAIN_1_0, (id, output) -> {
+            throw new IOException("sink");
+        }, 2);
+
+        assertEquals(0, result.getConvertedCount());
+        assertEquals("source", result.getFailures().get("id0").getMessage());
+        assertEquals("sink", result.getFailures().get("id1").getMessage());
+        assertEquals(2, this.logCapture.size());
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.converter;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.stubbing.Answer;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.MacroBlock;
+import org.xwiki.rendering.block.WordBlock;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.block.match.ClassBlockMatcher;
+import org.xwiki.rendering.configuration.RenderingConfiguration;
+import org.xwiki.rendering.converter.ConversionException;
+import org.xwiki.rendering.internal.syntax.SyntaxRuntime;
+import org.xwiki.rendering.internal.syntax.SyntaxRuntimeManager;
+import org.xwiki.rendering.listener.Listener;
+import org.xwiki.rendering.metrics.RenderingMetrics;
+import org.xwiki.rendering.metrics.RenderingPhase;
+import org.xwiki.rendering.metrics.RenderingTimer;
+import org.xwiki.rendering.parser.ParseException;
+import org.xwiki.rendering.parser.Parser;
+import org.xwiki.rendering.parser.StreamParser;
+import org.xwiki.rendering.renderer.BlockRenderer;
+import org.xwiki.rendering.renderer.PrintRenderer;
+import org.xwiki.rendering.renderer.PrintRendererFactory;
+import org.xwiki.rendering.renderer.printer.DefaultWikiPrinter;
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.transformation.TransformationContext;
+import org.xwiki.rendering.transformation.TransformationManager;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DefaultConverter}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class DefaultConverterTest
+{
+    @InjectMockComponents
+    private DefaultConverter converter;
+
+    @MockComponent
+    private SyntaxRuntimeManager syntaxRuntimeManager;
+
+    @MockComponent
+    private TransformationManager transformationManager;
+
+    @MockComponent
+    private RenderingConfiguration configuration;
+
+    @MockComponent
+    private RenderingMetrics renderingMetrics;
+
+    private Parser parser;
+
+    private StreamParser streamParser;
+
+    private BlockRenderer blockRenderer;
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        when(this.renderingMetrics.start(any(), any())).thenReturn(RenderingTimer.NOOP);
+
+        SyntaxRuntime sourceRuntime = mock(SyntaxRuntime.class);
+        when(this.syntaxRuntimeManager.getRuntime(Syntax.XWIKI_2_1)).thenReturn(sourceRuntime);
+        this.parser = mock(Parser.class);
+        when(sourceRuntime.getParser()).thenReturn(this.parser);
+        this.streamParser = mock(StreamParser.class);
+        when(sourceRuntime.getStreamParser()).thenReturn(this.streamParser);
+
+        SyntaxRuntime targetRuntime = mock(SyntaxRuntime.class);
+        when(this.syntaxRuntimeManager.getRuntime(Syntax.PLAIN_1_0)).thenReturn(targetRuntime);
+        this.blockRenderer = mock(BlockRenderer.class);
+        when(targetRuntime.getBlockRenderer()).thenReturn(this.blockRenderer);
+
+        // A print renderer which outputs the words it receives
+        PrintRendererFactory rendererFactory = mock(PrintRendererFactory.class);
+        when(targetRuntime.getPrintRendererFactory()).thenReturn(rendererFactory);
+        when(rendererFactory.createRenderer(any())).then(invocation -> {
+            WikiPrinter printer = invocation.getArgument(0);
+            PrintRenderer renderer = mock(PrintRenderer.class);
+            doAnswer(wordInvocation -> {
+                printer.print(wordInvocation.getArgument(0));
+                return null;
+            }).when(renderer).onWord(any());
+            return renderer;
+        });
+
+        // The stream parser emits "word", a macro if the source contains one, and "end"
+        Answer<Void> parse = invocation -> {
+            Reader reader = invocation.getArgument(0);
+            char[] buffer = new char[100];
+            int length = reader.read(buffer);
+            String source = length == -1 ? "" : new String(buffer, 0, length);
+            Listener listener = invocation.getArgument(1);
+            listener.onWord("word");
+            if (source.contains("{{")) {
+                listener.onMacro("macro", Collections.emptyMap(), null, false);
+            }
+            listener.onWord("end");
+            return null;
+        };
+        doAnswer(parse).when(this.streamParser).parse(any(), any());
+        doAnswer(parse).when(this.streamParser).parse(any(), any(), any());
+    }
+
+    private String convert(String source) throws ConversionException
+    {
+        WikiPrinter printer = new DefaultWikiPrinter();
+        this.converter.convert(new StringReader(source), Syntax.XWIKI_2_1, Syntax.PLAIN_1_0, printer);
+        return printer.toString();
+    }
+
+    private void setTransformations(List<String> transformationNames)
+    {
+        when(this.configuration.getTransformationNames()).thenReturn(transformationNames);
+    }
+
+    @Test
+    void convertWithoutTransformationIsStreamed() throws Exception
+    {
+        setTransformations(Collections.emptyList());
+
+        assertEquals("wordend", convert("{{macro/}}"));
+
+        verify(this.parser, never()).parse(any());
+        verify(this.transformationManager, never()).performTransformations(any(), any());
+        verify(this.renderingMetrics).start(RenderingPhase.PARSE, Syntax.XWIKI_2_1.toIdString());
+    }
+
+    @Test
+    void convertWithMacroTransformationAndNoMacroIsStreamed() throws Exception
+    {
+        setTransformations(List.of("macro"));
+
+        assertEquals("wordend", convert("content"));
+
+        verify(this.parser, never()).parse(any());
+        verify(this.transformationManager, never()).performTransformations(any(), any());
+        verify(this.renderingMetrics).start(RenderingPhase.PARSE, Syntax.XWIKI_2_1.toIdString());
+        verify(this.renderingMetrics).start(same(RenderingPhase.RENDER), any());
+    }
+
+    @Test
+    void convertWithMacroTransformationAndMacroGoesThroughXDOM() throws Exception
+    {
+        setTransformations(List.of("macro"));
+        doAnswer(invocation -> {
+            invocation.<WikiPrinter>getArgument(1).print("tree");
+            return null;
+        }).when(this.blockRenderer).render(any(XDOM.class), any(WikiPrinter.class));
+
+        // Nothing from the recorded events should reach the printer
+        assertEquals("tree", convert("{{macro/}}"));
+
+        // The source is parsed only once, the XDOM being built from the events recorded before the macro and the
+        // next ones
+        verify(this.parser, never()).parse(any());
+        verify(this.streamParser).parse(any(), any(), any());
+        ArgumentCaptor<Block> xdomCaptor = ArgumentCaptor.forClass(Block.class);
+        verify(this.transformationManager).performTransformations(xdomCaptor.capture(),
+            any(TransformationContext.class));
+        XDOM xdom = (XDOM) xdomCaptor.getValue();
+        assertEquals(2, xdom.getBlocks(new ClassBlockMatcher(WordBlock.class), Block.Axes.DESCENDANT).size());
+        assertEquals(1, xdom.getBlocks(new ClassBlockMatcher(MacroBlock.class), Block.Axes.DESCENDANT).size());
+        assertNotNull(xdom.getIdGenerator());
+    }
+
+    @Test
+    void convertWithOtherTransformationGoesThroughXDOM() throws Exception
+    {
+        setTransformations(List.of("macro", "icon"));
+        XDOM xdom = new XDOM(Collections.emptyList());
+        when(this.parser.parse(any())).thenReturn(xdom);
+
+        assertEquals("", convert("content"));
+
+        verify(this.streamParser, never()).parse(any(), any());
+        verify(this.streamParser, never()).parse(any(), any(), any());
+        verify(this.transformationManager).performTransformations(same(xdom), any(TransformationContext.class));
+        verify(this.blockRenderer).render(same(xdom), any(WikiPrinter.class));
+    }
+
+    @Test
+    void convertWhenStreamParserFails() throws Exception
+    {
+        setTransformations(Collections.emptyList());
+        doThrow(new ParseException("error")).when(this.streamParser).parse(any(), any());
+
+        assertThrows(ConversionException.class, () -> convert("content"));
+    }
+}
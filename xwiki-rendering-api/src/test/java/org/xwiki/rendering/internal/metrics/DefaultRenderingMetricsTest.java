@@ -0,0 +1,111 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.metrics;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xwiki.rendering.block.ParagraphBlock;
+import org.xwiki.rendering.block.WordBlock;
+import org.xwiki.rendering.metrics.RenderingMeasure;
+import org.xwiki.rendering.metrics.RenderingMetricsListener;
+import org.xwiki.rendering.metrics.RenderingPhase;
+import org.xwiki.rendering.metrics.RenderingStatistics;
+import org.xwiki.rendering.metrics.RenderingTimer;
+import org.xwiki.rendering.metrics.StatisticsRenderingMetricsListener;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectComponentManager;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link DefaultRenderingMetrics}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class DefaultRenderingMetricsTest
+{
+    @InjectMockComponents
+    private DefaultRenderingMetrics renderingMetrics;
+
+    @InjectComponentManager
+    private MockitoComponentManager componentManager;
+
+    @Test
+    void startWithoutListener()
+    {
+        assertFalse(this.renderingMetrics.isEnabled());
+        assertSame(RenderingTimer.NOOP, this.renderingMetrics.start(RenderingPhase.PARSE, "xwiki/2.1"));
+    }
+
+    @Test
+    void startWithListener() throws Exception
+    {
+        assertFalse(this.renderingMetrics.isEnabled());
+
+        RenderingMetricsListener listener = this.componentManager.registerMockComponent(RenderingMetricsListener.class);
+        this.renderingMetrics.invalidate();
+        assertTrue(this.renderingMetrics.isEnabled());
+
+        RenderingTimer timer = this.renderingMetrics.start(RenderingPhase.MACRO, "id");
+        timer.setBlocks(Arrays.asList(new ParagraphBlock(Arrays.asList(new WordBlock("a"), new WordBlock("b")))));
+        timer.setFailed();
+        timer.stop();
+
+        ArgumentCaptor<RenderingMeasure> captor = ArgumentCaptor.forClass(RenderingMeasure.class);
+        verify(listener).onMeasure(captor.capture());
+        RenderingMeasure measure = captor.getValue();
+        assertEquals(RenderingPhase.MACRO, measure.getPhase());
+        assertEquals("id", measure.getId());
+        assertEquals(3, measure.getBlockCount());
+        assertEquals(RenderingMeasure.UNKNOWN, measure.getOutputLength());
+        assertTrue(measure.isFailed());
+        assertTrue(measure.getDuration() >= 0);
+    }
+
+    @Test
+    void statistics()
+    {
+        StatisticsRenderingMetricsListener listener = new StatisticsRenderingMetricsListener();
+        listener.onMeasure(new RenderingMeasure(RenderingPhase.MACRO, "id", 500, 10, 2, -1, false));
+        listener.onMeasure(new RenderingMeasure(RenderingPhase.MACRO, "id", 3000, 20, 3, -1, true));
+
+        RenderingStatistics statistics = listener.getStatistics(RenderingPhase.MACRO).get("id");
+        assertEquals(2, statistics.getCount());
+        assertEquals(1, statistics.getFailedCount());
+        assertEquals(3500, statistics.getTotalTime());
+        assertEquals(3000, statistics.getMaxTime());
+        assertEquals(30, statistics.getTotalAllocatedBytes());
+        assertEquals(5, statistics.getTotalBlockCount());
+        assertEquals(0, statistics.getTotalOutputLength());
+        // 500ns is below 1 microsecond and 3000ns is between 2 and 4 microseconds
+        assertEquals(1, statistics.getHistogram()[0]);
+        assertEquals(1, statistics.getHistogram()[2]);
+        assertTrue(listener.getStatistics(RenderingPhase.PARSE).isEmpty());
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.parser;
+
+import java.util.Collections;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+import org.xwiki.rendering.block.LinkBlock;
+import org.xwiki.rendering.block.MacroBlock;
+import org.xwiki.rendering.block.WordBlock;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.listener.MetaData;
+import org.xwiki.rendering.listener.reference.ResourceReference;
+import org.xwiki.rendering.listener.reference.ResourceType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit tests for {@link ParserInterner}.
+ *
+ * @version $Id$
+ */
+class ParserInternerTest
+{
+    private XDOM generate(ParserInterner interner, String word, String macroId, String reference)
+    {
+        XDOMGeneratorListener listener = new XDOMGeneratorListener(interner);
+
+        listener.beginDocument(MetaData.EMPTY);
+        listener.onWord(word);
+        listener.onMacro(macroId, Collections.singletonMap(new String("class"), new String("value")), null, true);
+        ResourceReference resourceReference = new ResourceReference(reference, ResourceType.DOCUMENT);
+        resourceReference.setParameter("queryString", new String("a=b"));
+        listener.beginLink(resourceReference, false, null);
+        listener.endLink(resourceReference, false, null);
+        listener.endDocument(MetaData.EMPTY);
+
+        return listener.getXDOM();
+    }
+
+    @Test
+    void generateWithInterner()
+    {
+        ParserInterner interner = new ParserInterner(100);
+
+        XDOM first = generate(interner, new String("word"), new String("macro"), new String("Space.Page"));
+        XDOM second = generate(interner, new String("word"), new String("macro"), new String("Space.Page"));
+
+        assertEquals(first, second);
+        assertSame(getWord(first), getWord(second));
+        MacroBlock firstMacro = (MacroBlock) first.getChildren().get(1);
+        MacroBlock secondMacro = (MacroBlock) second.getChildren().get(1);
+        assertSame(firstMacro.getId(), secondMacro.getId());
+        assertSame(firstMacro.getParameters().keySet().iterator().next(),
+            secondMacro.getParameters().keySet().iterator().next());
+        assertSame(firstMacro.getParameter("class"), secondMacro.getParameter("class"));
+        ResourceReference firstReference = getReference(first);
+        ResourceReference secondReference = getReference(second);
+        assertNotSame(firstReference, secondReference);
+        assertSame(firstReference.getReference(), secondReference.getReference());
+        assertSame(firstReference.getParameter("queryString"), secondReference.getParameter("queryString"));
+    }
+
+    @Test
+    void generateWithoutInterner()
+    {
+        XDOM first = generate(null, new String("word"), "macro", "Space.Page");
+        XDOM second = generate(null, new String("word"), "macro", "Space.Page");
+
+        assertEquals(first, second);
+        assertNotSame(getWord(first), getWord(second));
+    }
+
+    @Test
+    void internIsBounded()
+    {
+        ParserInterner interner = new ParserInterner(1);
+
+        String first = new String("first");
+        assertSame(first, interner.intern(first));
+        assertSame(first, interner.intern(new String("first")));
+
+        // The new value evicts the previous one
+        String second = new String("second");
+        assertSame(second, interner.intern(second));
+        assertSame(second, interner.intern(new String("second")));
+        assertNotSame(first, interner.intern(new String("first")));
+        assertEquals(1, interner.size());
+    }
+
+    @Test
+    void internIgnoresLongStrings()
+    {
+        ParserInterner interner = new ParserInterner(100);
+
+        String value = StringUtils.repeat('a', ParserInterner.MAX_LENGTH + 1);
+        assertSame(value, interner.intern(value));
+        assertNotSame(value, interner.intern(new String(value)));
+        assertEquals(0, interner.size());
+    }
+
+    private String getWord(XDOM xdom)
+    {
+        return ((WordBlock) xdom.getChildren().get(0)).getWord();
+    }
+
+    private ResourceReference getReference(XDOM xdom)
+    {
+        return ((LinkBlock) xdom.getChildren().get(2)).getReference();
+    }
+}
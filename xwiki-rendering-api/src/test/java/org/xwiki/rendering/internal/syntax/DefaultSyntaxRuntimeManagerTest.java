@@ -0,0 +1,183 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.syntax;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.component.descriptor.ComponentDescriptor;
+import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.rendering.parser.Parser;
+import org.xwiki.rendering.renderer.PrintRendererFactory;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.transformation.Transformation;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectComponentManager;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DefaultSyntaxRuntimeManager}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class DefaultSyntaxRuntimeManagerTest
+{
+    @InjectMockComponents
+    private DefaultSyntaxRuntimeManager runtimeManager;
+
+    @InjectComponentManager
+    private MockitoComponentManager componentManager;
+
+    @MockComponent
+    @Named("context")
+    private Provider<ComponentManager> componentManagerProvider;
+
+    @BeforeEach
+    void beforeEach()
+    {
+        when(this.componentManagerProvider.get()).thenReturn(this.componentManager);
+    }
+
+    @Test
+    void getParserIsResolvedOnce() throws Exception
+    {
+        Parser parser = this.componentManager.registerMockComponent(Parser.class, Syntax.XWIKI_2_1.toIdString());
+
+        assertSame(parser, this.runtimeManager.getRuntime(Syntax.XWIKI_2_1).getParser());
+        assertSame(parser, this.runtimeManager.getRuntime(Syntax.XWIKI_2_1).getParser());
+
+        // A component replaced without invalidating the cache is used right away since its descriptor is different
+        Parser newParser = mock(Parser.class);
+        this.componentManager.registerComponent(Parser.class, Syntax.XWIKI_2_1.toIdString(), newParser);
+        assertSame(newParser, this.runtimeManager.getRuntime(Syntax.XWIKI_2_1).getParser());
+
+        this.runtimeManager.invalidate();
+        assertSame(newParser, this.runtimeManager.getRuntime(Syntax.XWIKI_2_1).getParser());
+    }
+
+    @Test
+    void getParserWhenOverriddenInContext() throws Exception
+    {
+        String hint = Syntax.XWIKI_2_1.toIdString();
+        Parser parser = this.componentManager.registerMockComponent(Parser.class, hint);
+
+        // A Component Manager (e.g. of a wiki) overriding the parser
+        Parser overridingParser = mock(Parser.class);
+        ComponentDescriptor<Parser> overridingDescriptor = mock(ComponentDescriptor.class);
+        when(overridingDescriptor.getInstantiationStrategy()).thenReturn(ComponentInstantiationStrategy.SINGLETON);
+        ComponentManager overridingComponentManager = mock(ComponentManager.class);
+        when(overridingComponentManager.<Parser>getComponentDescriptor(Parser.class, hint))
+            .thenReturn(overridingDescriptor);
+        when(overridingComponentManager.<Parser>getInstance(Parser.class, hint)).thenReturn(overridingParser);
+
+        // The parser of the root Component Manager is cached by a call without override
+        assertSame(parser, this.runtimeManager.getRuntime(Syntax.XWIKI_2_1).getParser());
+
+        // But not used for a call with an override
+        when(this.componentManagerProvider.get()).thenReturn(overridingComponentManager);
+        assertSame(overridingParser, this.runtimeManager.getRuntime(Syntax.XWIKI_2_1).getParser());
+
+        // And the overriding parser is not cached for the calls without override
+        when(this.componentManagerProvider.get()).thenReturn(this.componentManager);
+        assertSame(parser, this.runtimeManager.getRuntime(Syntax.XWIKI_2_1).getParser());
+    }
+
+    @Test
+    void getParserWhenMissing()
+    {
+        assertThrows(ComponentLookupException.class,
+            () -> this.runtimeManager.getRuntime(Syntax.XWIKI_2_1).getParser());
+    }
+
+    @Test
+    void getComponentWithHintPrefix() throws Exception
+    {
+        PrintRendererFactory factory =
+            this.componentManager.registerMockComponent(PrintRendererFactory.class, "prefix+xhtml/1.0");
+
+        SyntaxRuntime runtime = this.runtimeManager.getRuntime(Syntax.XHTML_1_0);
+        assertSame(factory, runtime.getComponent(PrintRendererFactory.class, "prefix+"));
+        assertThrows(ComponentLookupException.class, () -> runtime.getPrintRendererFactory());
+    }
+
+    @Test
+    void getTransformations() throws Exception
+    {
+        Transformation tx1 = this.componentManager.registerMockComponent(Transformation.class, "tx1");
+        Transformation tx2 = this.componentManager.registerMockComponent(Transformation.class, "tx2");
+        when(tx1.compareTo(tx2)).thenReturn(1);
+        when(tx2.compareTo(tx1)).thenReturn(-1);
+
+        List<Transformation> transformations = this.runtimeManager.getTransformations(Arrays.asList("tx1", "tx2"));
+        assertEquals(Arrays.asList(tx2, tx1), transformations);
+        assertSame(transformations, this.runtimeManager.getTransformations(Arrays.asList("tx1", "tx2")));
+    }
+
+    @Test
+    void getTransformationsWhenOverriddenInContext() throws Exception
+    {
+        Transformation tx1 = this.componentManager.registerMockComponent(Transformation.class, "tx1");
+
+        Transformation overridingTx1 = mock(Transformation.class);
+        ComponentDescriptor<Transformation> overridingDescriptor = mock(ComponentDescriptor.class);
+        ComponentManager overridingComponentManager = mock(ComponentManager.class);
+        when(overridingComponentManager.<Transformation>getComponentDescriptor(Transformation.class, "tx1"))
+            .thenReturn(overridingDescriptor);
+        when(overridingComponentManager.<Transformation>getInstance(Transformation.class, "tx1"))
+            .thenReturn(overridingTx1);
+
+        assertEquals(Arrays.asList(tx1), this.runtimeManager.getTransformations(Arrays.asList("tx1")));
+
+        when(this.componentManagerProvider.get()).thenReturn(overridingComponentManager);
+        assertEquals(Arrays.asList(overridingTx1), this.runtimeManager.getTransformations(Arrays.asList("tx1")));
+
+        when(this.componentManagerProvider.get()).thenReturn(this.componentManager);
+        assertEquals(Arrays.asList(tx1), this.runtimeManager.getTransformations(Arrays.asList("tx1")));
+    }
+
+    @Test
+    void getTransformationsWhenMissing() throws Exception
+    {
+        Transformation tx1 = this.componentManager.registerMockComponent(Transformation.class, "tx1");
+
+        assertEquals(Arrays.asList(tx1), this.runtimeManager.getTransformations(Arrays.asList("tx1", "missing")));
+
+        // Missing transformations are looked up again
+        Transformation missing = this.componentManager.registerMockComponent(Transformation.class, "missing");
+        assertEquals(Arrays.asList(tx1, missing),
+            this.runtimeManager.getTransformations(Arrays.asList("tx1", "missing")));
+    }
+}
@@ -19,7 +19,9 @@
  */
 package org.xwiki.rendering.internal.transformation;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import javax.inject.Named;
 import javax.inject.Provider;
@@ -27,15 +29,21 @@
 import org.junit.jupiter.api.Test;
 import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.ParagraphBlock;
+import org.xwiki.rendering.block.WordBlock;
 import org.xwiki.rendering.block.XDOM;
 import org.xwiki.rendering.configuration.RenderingConfiguration;
+import org.xwiki.rendering.internal.syntax.DefaultSyntaxRuntimeManager;
 import org.xwiki.rendering.syntax.Syntax;
 import org.xwiki.rendering.transformation.AbstractTransformation;
 import org.xwiki.rendering.transformation.RenderingContext;
 import org.xwiki.rendering.transformation.Transformation;
 import org.xwiki.rendering.transformation.TransformationContext;
 import org.xwiki.rendering.transformation.TransformationException;
+import org.xwiki.rendering.transformation.TransformationVisitor;
+import org.xwiki.rendering.transformation.VisitorTransformation;
 import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.annotation.ComponentList;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectComponentManager;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
@@ -44,6 +52,7 @@
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.matchesPattern;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
@@ -56,6 +65,7 @@
  * @version $Id$
  */
 @ComponentTest
+@ComponentList(DefaultSyntaxRuntimeManager.class)
 class DefaultTransformationManagerTest
 {
     @InjectMockComponents
@@ -89,6 +99,51 @@ public void transform(Block block, TransformationContext context)
         }
     }
 
+    public class RecordingVisitorTransformation extends AbstractTransformation implements VisitorTransformation
+    {
+        private final String name;
+
+        private final List<String> events;
+
+        private final Class<? extends Block> failingBlockClass;
+
+        RecordingVisitorTransformation(String name, List<String> events, Class<? extends Block> failingBlockClass)
+        {
+            this.name = name;
+            this.events = events;
+            this.failingBlockClass = failingBlockClass;
+        }
+
+        @Override
+        public void transform(Block block, TransformationContext context) throws TransformationException
+        {
+            TransformationTraversal.transform(this, block, context);
+        }
+
+        @Override
+        public TransformationVisitor createVisitor(Block block, TransformationContext context)
+        {
+            return new TransformationVisitor()
+            {
+                @Override
+                public boolean beginBlock(Block block) throws TransformationException
+                {
+                    if (block.getClass() == failingBlockClass) {
+                        throw new TransformationException("error");
+                    }
+                    events.add(name + ":begin:" + block.getClass().getSimpleName());
+                    return true;
+                }
+
+                @Override
+                public void endBlock(Block block)
+                {
+                    events.add(name + ":end:" + block.getClass().getSimpleName());
+                }
+            };
+        }
+    }
+
     @Test
     void performTransformationsWhenNoTransformation() throws Exception
     {
@@ -132,4 +187,68 @@ void performTransformationsWhenErrorsInTransformations() throws Exception
             + "]";
         assertThat(exception.getMessage(), matchesPattern(expected));
     }
+
+    @BeforeComponent("performVisitorTransformationsInSingleTraversal")
+    void beforePerformVisitorTransformationsInSingleTraversal() throws Exception
+    {
+        this.componentManager.registerComponent(RenderingContext.class, mock(MutableRenderingContext.class));
+    }
+
+    @Test
+    void performVisitorTransformationsInSingleTraversal() throws Exception
+    {
+        List<String> events = new ArrayList<>();
+        when(this.renderingConfiguration.getTransformationNames()).thenReturn(Arrays.asList("tx1", "tx2"));
+        this.componentManager.registerComponent(Transformation.class, "tx1",
+            new RecordingVisitorTransformation("tx1", events, null));
+        this.componentManager.registerComponent(Transformation.class, "tx2",
+            new RecordingVisitorTransformation("tx2", events, null));
+        when(this.componentManagerProvider.get()).thenReturn(this.componentManager);
+
+        XDOM xdom = new XDOM(Arrays.asList(new ParagraphBlock(Arrays.asList(new WordBlock("word")))));
+        this.transformationManager.performTransformations(xdom, new TransformationContext(xdom, Syntax.XWIKI_2_0));
+
+        assertEquals(Arrays.asList(
+            "tx1:begin:XDOM", "tx2:begin:XDOM",
+            "tx1:begin:ParagraphBlock", "tx2:begin:ParagraphBlock",
+            "tx1:begin:WordBlock", "tx2:begin:WordBlock",
+            "tx1:end:WordBlock", "tx2:end:WordBlock",
+            "tx1:end:ParagraphBlock", "tx2:end:ParagraphBlock",
+            "tx1:end:XDOM", "tx2:end:XDOM"), events);
+    }
+
+    @BeforeComponent("performVisitorTransformationsWhenVisitorFails")
+    void beforePerformVisitorTransformationsWhenVisitorFails() throws Exception
+    {
+        this.componentManager.registerComponent(RenderingContext.class, mock(MutableRenderingContext.class));
+    }
+
+    @Test
+    void performVisitorTransformationsWhenVisitorFails() throws Exception
+    {
+        List<String> events = new ArrayList<>();
+        when(this.renderingConfiguration.getTransformationNames()).thenReturn(Arrays.asList("tx1", "tx2"));
+        this.componentManager.registerComponent(Transformation.class, "tx1",
+            new RecordingVisitorTransformation("tx1", events, ParagraphBlock.class));
+        this.componentManager.registerComponent(Transformation.class, "tx2",
+            new RecordingVisitorTransformation("tx2", events, null));
+        when(this.componentManagerProvider.get()).thenReturn(this.componentManager);
+
+        XDOM xdom = new XDOM(Arrays.asList(new ParagraphBlock(Arrays.asList(new WordBlock("word")))));
+        Throwable exception = assertThrows(TransformationException.class, () -> {
+            this.transformationManager.performTransformations(xdom,
+                new TransformationContext(xdom, Syntax.XWIKI_2_0));
+        });
+
+        assertThat(exception.getMessage(), matchesPattern("(?s).*\\Q- Transformation: [org.xwiki.rendering.internal."
+            + "transformation.DefaultTransformationManagerTest$RecordingVisitorTransformation]\\E.*"));
+        // The failing visitor is not called anymore but the other one continues
+        assertEquals(Arrays.asList(
+            "tx1:begin:XDOM", "tx2:begin:XDOM",
+            "tx2:begin:ParagraphBlock",
+            "tx2:begin:WordBlock",
+            "tx2:end:WordBlock",
+            "tx2:end:ParagraphBlock",
+            "tx2:end:XDOM"), events);
+    }
 }
@@ -0,0 +1,74 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xwiki.component.embed.EmbeddableComponentManager;
+import org.xwiki.component.manager.ComponentManager;
+
+/**
+ * Common configuration of the rendering benchmarks: each benchmark class works with its own
+ * {@link EmbeddableComponentManager} holding all the rendering components found in the classpath.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class AbstractRenderingBenchmark
+{
+    private EmbeddableComponentManager componentManager;
+
+    /**
+     * @return the Component Manager holding the rendering components, initialized on first call
+     */
+    protected ComponentManager getComponentManager()
+    {
+        if (this.componentManager == null) {
+            this.componentManager = new EmbeddableComponentManager();
+            this.componentManager.initialize(getClass().getClassLoader());
+        }
+
+        return this.componentManager;
+    }
+
+    /**
+     * Release the components.
+     */
+    @TearDown
+    public void disposeComponentManager()
+    {
+        if (this.componentManager != null) {
+            this.componentManager.dispose();
+            this.componentManager = null;
+        }
+    }
+}
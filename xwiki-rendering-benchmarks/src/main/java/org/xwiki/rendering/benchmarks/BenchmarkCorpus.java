@@ -0,0 +1,239 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.xwiki.rendering.test.integration.TestData;
+import org.xwiki.rendering.test.integration.TestDataParser;
+
+/**
+ * Provides the documents used by the benchmarks, either generated synthetically or taken from the {@code .test} files
+ * of the rendering modules.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+public final class BenchmarkCorpus
+{
+    /**
+     * Corpus generated from the {@code size} and {@code depth} parameters.
+     */
+    public static final String SYNTHETIC = "synthetic";
+
+    /**
+     * Corpus made of the inputs of the {@code .test} files found in the sources, the {@code size} and {@code depth}
+     * parameters are ignored.
+     */
+    public static final String TESTS = "tests";
+
+    /**
+     * The system property indicating where to look for {@code .test} files. Defaults to the parent directory, i.e. the
+     * root of the sources when the benchmarks are executed from their module.
+     */
+    public static final String SOURCES_PROPERTY = "xwiki.rendering.benchmarks.sources";
+
+    private static final String TEST_EXTENSION = ".test";
+
+    private static final String NL = "\n";
+
+    private static final String SPACE = " ";
+
+    private static final String TEXT =
+        "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor incididunt ut labore.";
+
+    private BenchmarkCorpus()
+    {
+        // Utility class
+    }
+
+    /**
+     * @param syntaxId the syntax of the documents
+     * @param source either {@link #SYNTHETIC} or {@link #TESTS}
+     * @param size the number of sections of the synthetic document
+     * @param depth the nesting depth of the lists, groups and formatting of the synthetic document
+     * @return the documents
+     * @throws IOException when failing to read the {@code .test} files
+     */
+    public static List<String> getDocuments(String syntaxId, String source, int size, int depth) throws IOException
+    {
+        if (TESTS.equals(source)) {
+            return loadTestInputs(syntaxId);
+        }
+
+        return Collections.singletonList(generate(syntaxId, size, depth));
+    }
+
+    /**
+     * @param syntaxId the syntax of the document, one of xwiki/2.0, xwiki/2.1, xhtml/1.0, html/5.0, creole/1.0,
+     *            jspwiki/1.0 or plain/1.0
+     * @param size the number of sections
+     * @param depth the nesting depth of the lists, groups and formatting
+     * @return a document exercising the common features of the syntax
+     */
+    public static String generate(String syntaxId, int size, int depth)
+    {
+        StringBuilder builder = new StringBuilder();
+        String type = StringUtils.substringBefore(syntaxId, "/");
+        for (int i = 0; i < size; i++) {
+            switch (type) {
+                case "xwiki":
+                    generateXWikiSection(builder, i, depth);
+                    break;
+                case "xhtml":
+                case "html":
+                    generateHTMLSection(builder, i, depth);
+                    break;
+                case "creole":
+                    generateCreoleSection(builder, i, depth);
+                    break;
+                case "jspwiki":
+                    generateJSPWikiSection(builder, i, depth);
+                    break;
+                default:
+                    builder.append("Section ").append(i).append(NL).append(TEXT).append(NL).append(NL);
+            }
+        }
+
+        if ("xhtml".equals(type) || "html".equals(type)) {
+            return "<html><body>" + builder + "</body></html>";
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * @param size the number of sections
+     * @param depth the nesting depth of the macros
+     * @return a xwiki/2.1 document with a lot of macros, some of them having wiki content
+     */
+    public static String generateMacros(int size, int depth)
+    {
+        StringBuilder builder = new StringBuilder("{{toc/}}\n\n");
+        for (int i = 0; i < size; i++) {
+            builder.append("= Section ").append(i).append(" =\n\n");
+            builder.append("{{id name=\"anchor").append(i).append("\"/}}").append(TEXT);
+            builder.append("{{footnote}}Note ").append(i).append("{{/footnote}}\n\n");
+            builder.append("{{comment}}").append(TEXT).append("{{/comment}}\n\n");
+            builder.append(StringUtils.repeat("{{box}}\n", depth));
+            builder.append("**").append(TEXT).append("** [[link>>https://www.xwiki.org]]\n");
+            builder.append(StringUtils.repeat("{{/box}}\n", depth)).append(NL);
+        }
+        builder.append("{{putFootnotes/}}");
+
+        return builder.toString();
+    }
+
+    /**
+     * @param syntaxId the syntax of the inputs to load
+     * @return the inputs in the passed syntax found in the {@code .test} files of the sources
+     * @throws IOException when failing to read the files
+     */
+    public static List<String> loadTestInputs(String syntaxId) throws IOException
+    {
+        Path root = Paths.get(System.getProperty(SOURCES_PROPERTY, "..")).toAbsolutePath().normalize();
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(root)) {
+            files = stream.filter(path -> path.toString().endsWith(TEST_EXTENSION)
+                && path.toString().contains("src" + root.getFileSystem().getSeparator() + "test"))
+                .sorted().collect(Collectors.toList());
+        }
+
+        TestDataParser parser = new TestDataParser();
+        List<String> inputs = new ArrayList<>();
+        for (Path file : files) {
+            try (InputStream stream = Files.newInputStream(file)) {
+                TestData data = parser.parse(stream, file.toString());
+                String input = data.inputs.get(syntaxId);
+                if (input != null) {
+                    inputs.add(input);
+                }
+            }
+        }
+
+        if (inputs.isEmpty()) {
+            throw new IllegalStateException(String.format("No [%s] input found in the .test files located in [%s]. "
+                + "Use the [%s] system property to indicate where the sources are.", syntaxId, root,
+                SOURCES_PROPERTY));
+        }
+
+        return inputs;
+    }
+
+    private static void generateXWikiSection(StringBuilder builder, int index, int depth)
+    {
+        builder.append("= Section ").append(index).append(" =\n\n");
+        builder.append(StringUtils.repeat("(((\n", depth));
+        builder.append(StringUtils.repeat("**//", depth)).append(TEXT).append(StringUtils.repeat("//**", depth));
+        builder.append(" [[label>>https://www.xwiki.org/page").append(index).append("]] ");
+        builder.append("[[image:image.png]] {{id name=\"i").append(index).append("\"/}}\n\n");
+        for (int level = 1; level <= depth; level++) {
+            builder.append(StringUtils.repeat('*', level)).append(SPACE).append(TEXT).append(NL);
+        }
+        builder.append("\n|=Header|=Other\n|").append(TEXT).append("|##monospace##\n\n");
+        builder.append(StringUtils.repeat(")))\n", depth)).append(NL);
+    }
+
+    private static void generateHTMLSection(StringBuilder builder, int index, int depth)
+    {
+        builder.append("<h1>Section ").append(index).append("</h1>");
+        builder.append(StringUtils.repeat("<div>", depth));
+        builder.append("<p>").append(StringUtils.repeat("<strong><em>", depth)).append(TEXT);
+        builder.append(StringUtils.repeat("</em></strong>", depth));
+        builder.append(" <a href=\"https://www.xwiki.org/page").append(index).append("\">label</a>");
+        builder.append(" <img src=\"image.png\" alt=\"image\"/></p>");
+        builder.append(StringUtils.repeat("<ul><li>" + TEXT, depth)).append(StringUtils.repeat("</li></ul>", depth));
+        builder.append("<table><tr><th>Header</th><th>Other</th></tr><tr><td>").append(TEXT);
+        builder.append("</td><td><tt>monospace</tt></td></tr></table>");
+        builder.append(StringUtils.repeat("</div>", depth));
+    }
+
+    private static void generateCreoleSection(StringBuilder builder, int index, int depth)
+    {
+        builder.append("= Section ").append(index).append(" =\n\n");
+        builder.append(StringUtils.repeat("**//", depth)).append(TEXT).append(StringUtils.repeat("//**", depth));
+        builder.append(" [[https://www.xwiki.org/page").append(index).append("|label]] {{image.png}}\n\n");
+        for (int level = 1; level <= depth; level++) {
+            builder.append(StringUtils.repeat('*', level)).append(SPACE).append(TEXT).append(NL);
+        }
+        builder.append("\n|=Header|=Other|\n|").append(TEXT).append("|{{{verbatim}}}|\n\n");
+    }
+
+    private static void generateJSPWikiSection(StringBuilder builder, int index, int depth)
+    {
+        builder.append("!!! Section ").append(index).append("\n\n");
+        builder.append(StringUtils.repeat("__''", depth)).append(TEXT).append(StringUtils.repeat("''__", depth));
+        builder.append(" [label|https://www.xwiki.org/page").append(index).append("]\n\n");
+        for (int level = 1; level <= depth; level++) {
+            builder.append(StringUtils.repeat('*', level)).append(SPACE).append(TEXT).append(NL);
+        }
+        builder.append("\n|| Header || Other\n| ").append(TEXT).append(" | {{monospace}}\n\n");
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xwiki.rendering.util.IdGenerator;
+
+/**
+ * Measure the generation of unique ids from heading texts, including the handling of the collisions.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@State(Scope.Benchmark)
+public class IdGeneratorBenchmark
+{
+    /**
+     * The number of ids to generate.
+     */
+    @Param({ "100", "10000" })
+    public int size;
+
+    /**
+     * The number of distinct texts, the other ones collide.
+     */
+    @Param({ "10", "100" })
+    public int distinct;
+
+    private String[] texts;
+
+    /**
+     * Prepare the texts.
+     */
+    @Setup
+    public void setUp()
+    {
+        this.texts = new String[this.size];
+        for (int i = 0; i < this.size; i++) {
+            this.texts[i] = "Section " + (i % this.distinct) + " with some accentuated chàractèrs & symbols!";
+        }
+    }
+
+    /**
+     * @param blackhole used to consume the generated ids
+     */
+    @Benchmark
+    public void generateUniqueId(Blackhole blackhole)
+    {
+        IdGenerator generator = new IdGenerator();
+        for (String text : this.texts) {
+            blackhole.consume(generator.generateUniqueId("H", text));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.benchmarks;
+
+import java.io.StringReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.internal.transformation.MutableRenderingContext;
+import org.xwiki.rendering.parser.Parser;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.transformation.RenderingContext;
+import org.xwiki.rendering.transformation.Transformation;
+import org.xwiki.rendering.transformation.TransformationContext;
+
+/**
+ * Measure the macro transformation on macro heavy documents. Since the transformation modifies the XDOM, each
+ * invocation works on a clone: the {@link #cloneOnly()} benchmark gives the cost of the cloning to subtract.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@State(Scope.Benchmark)
+public class MacroTransformationBenchmark extends AbstractRenderingBenchmark
+{
+    /**
+     * The number of sections of the synthetic document.
+     */
+    @Param({ "10", "100" })
+    public int size;
+
+    /**
+     * The nesting depth of the box macros.
+     */
+    @Param({ "1", "5" })
+    public int depth;
+
+    private Transformation transformation;
+
+    private MutableRenderingContext renderingContext;
+
+    private XDOM xdom;
+
+    /**
+     * @throws Exception when failing to prepare the benchmark
+     */
+    @Setup
+    public void setUp() throws Exception
+    {
+        this.transformation = getComponentManager().getInstance(Transformation.class, "macro");
+        this.renderingContext = getComponentManager().getInstance(RenderingContext.class);
+
+        Parser parser = getComponentManager().getInstance(Parser.class, Syntax.XWIKI_2_1.toIdString());
+        this.xdom = parser.parse(new StringReader(BenchmarkCorpus.generateMacros(this.size, this.depth)));
+    }
+
+    /**
+     * @return the transformed XDOM
+     * @throws Exception when failing to transform
+     */
+    @Benchmark
+    public XDOM transform() throws Exception
+    {
+        XDOM clone = this.xdom.clone();
+        TransformationContext context = new TransformationContext(clone, Syntax.XWIKI_2_1);
+        this.renderingContext.transformInContext(this.transformation, context, clone);
+
+        return clone;
+    }
+
+    /**
+     * @return the cloned XDOM
+     */
+    @Benchmark
+    public XDOM cloneOnly()
+    {
+        return this.xdom.clone();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.benchmarks;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xwiki.component.embed.EmbeddableComponentManager;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.internal.parser.ParserInterner;
+import org.xwiki.rendering.parser.Parser;
+
+/**
+ * Report the heap retained by parsed XDOMs, as a cache would keep them, with and without sharing the identical
+ * strings produced while parsing (see {@link ParserInterner}) and compacting the text (see {@link XDOM#compact()}).
+ * Not a JMH benchmark since it measures memory and not time.
+ * <p>
+ * Arguments (all optional): {@code syntax source size depth copies}, defaulting to
+ * {@code xwiki/2.1 synthetic 100 5 1000}.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+public final class MemoryFootprintReport
+{
+    private static final int INTERNER_SIZE = 100000;
+
+    private MemoryFootprintReport()
+    {
+        // Utility class
+    }
+
+    /**
+     * @param args the syntax, source, size, depth and number of copies of each document to keep
+     * @throws Exception when failing to parse
+     */
+    public static void main(String[] args) throws Exception
+    {
+        String syntax = args.length > 0 ? args[0] : "xwiki/2.1";
+        String source = args.length > 1 ? args[1] : BenchmarkCorpus.SYNTHETIC;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int depth = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        int copies = args.length > 4 ? Integer.parseInt(args[4]) : 1000;
+
+        EmbeddableComponentManager componentManager = new EmbeddableComponentManager();
+        componentManager.initialize(MemoryFootprintReport.class.getClassLoader());
+        try {
+            Parser parser = componentManager.getInstance(Parser.class, syntax);
+            List<String> documents = BenchmarkCorpus.getDocuments(syntax, source, size, depth);
+
+            System.out.printf("%d %s documents (%s) kept %d times%n", documents.size(), syntax, source, copies);
+
+            long reference = measure(parser, documents, copies, null, false);
+            report("default", reference, reference);
+            report("interned", measure(parser, documents, copies, new ParserInterner(INTERNER_SIZE), false),
+                reference);
+            report("interned and compacted",
+                measure(parser, documents, copies, new ParserInterner(INTERNER_SIZE), true), reference);
+        } finally {
+            ParserInterner.setDefault(null);
+            componentManager.dispose();
+        }
+    }
+
+    private static long measure(Parser parser, List<String> documents, int copies, ParserInterner interner,
+        boolean compact) throws Exception
+    {
+        ParserInterner.setDefault(interner);
+
+        long before = getUsedHeap();
+
+        List<XDOM> xdoms = new ArrayList<>(documents.size() * copies);
+        for (int i = 0; i < copies; i++) {
+            for (String document : documents) {
+                XDOM xdom = parser.parse(new StringReader(document));
+                if (compact) {
+                    xdom.compact();
+                }
+                xdoms.add(xdom);
+            }
+        }
+
+        // The XDOMs are still used after the measure, and the interner is the default one, so they are reachable
+        long retained = getUsedHeap() - before;
+
+        return retained / xdoms.size();
+    }
+
+    private static void report(String name, long bytesPerXDOM, long reference)
+    {
+        System.out.printf("%-25s %12d bytes per XDOM %6.1f%%%n", name, bytesPerXDOM,
+            100.0 * bytesPerXDOM / reference);
+    }
+
+    private static long getUsedHeap() throws InterruptedException
+    {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.benchmarks;
+
+import java.io.StringReader;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xwiki.rendering.parser.Parser;
+
+/**
+ * Measure the parsing throughput of each syntax.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@State(Scope.Benchmark)
+public class ParserBenchmark extends AbstractRenderingBenchmark
+{
+    /**
+     * The syntax to parse.
+     */
+    @Param({ "xwiki/2.0", "xwiki/2.1", "xhtml/1.0", "html/5.0", "creole/1.0", "jspwiki/1.0", "plain/1.0" })
+    public String syntax;
+
+    /**
+     * Where the documents come from.
+     */
+    @Param({ BenchmarkCorpus.SYNTHETIC, BenchmarkCorpus.TESTS })
+    public String source;
+
+    /**
+     * The number of sections of the synthetic document.
+     */
+    @Param({ "10", "100" })
+    public int size;
+
+    /**
+     * The nesting depth of the synthetic document.
+     */
+    @Param({ "1", "5" })
+    public int depth;
+
+    private Parser parser;
+
+    private List<String> documents;
+
+    /**
+     * @throws Exception when failing to prepare the benchmark
+     */
+    @Setup
+    public void setUp() throws Exception
+    {
+        this.parser = getComponentManager().getInstance(Parser.class, this.syntax);
+        this.documents = BenchmarkCorpus.getDocuments(this.syntax, this.source, this.size, this.depth);
+    }
+
+    /**
+     * @param blackhole used to consume the produced XDOMs
+     * @throws Exception when failing to parse
+     */
+    @Benchmark
+    public void parse(Blackhole blackhole) throws Exception
+    {
+        for (String document : this.documents) {
+            blackhole.consume(this.parser.parse(new StringReader(document)));
+        }
+    }
+}
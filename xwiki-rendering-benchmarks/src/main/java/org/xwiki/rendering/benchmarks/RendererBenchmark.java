@@ -0,0 +1,104 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.benchmarks;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.parser.Parser;
+import org.xwiki.rendering.renderer.BlockRenderer;
+import org.xwiki.rendering.renderer.printer.DefaultWikiPrinter;
+import org.xwiki.rendering.syntax.Syntax;
+
+/**
+ * Measure the rendering throughput of each target syntax, for XDOMs parsed from xwiki/2.1 content.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@State(Scope.Benchmark)
+public class RendererBenchmark extends AbstractRenderingBenchmark
+{
+    /**
+     * The syntax to render.
+     */
+    @Param({ "xhtml/1.0", "html/5.0", "annotatedxhtml/1.0", "annotatedhtml/5.0", "xwiki/2.1", "plain/1.0",
+        "event/1.0" })
+    public String target;
+
+    /**
+     * Where the documents come from.
+     */
+    @Param({ BenchmarkCorpus.SYNTHETIC, BenchmarkCorpus.TESTS })
+    public String source;
+
+    /**
+     * The number of sections of the synthetic document.
+     */
+    @Param({ "10", "100" })
+    public int size;
+
+    /**
+     * The nesting depth of the synthetic document.
+     */
+    @Param({ "1", "5" })
+    public int depth;
+
+    private BlockRenderer renderer;
+
+    private List<XDOM> xdoms;
+
+    /**
+     * @throws Exception when failing to prepare the benchmark
+     */
+    @Setup
+    public void setUp() throws Exception
+    {
+        this.renderer = getComponentManager().getInstance(BlockRenderer.class, this.target);
+
+        Parser parser = getComponentManager().getInstance(Parser.class, Syntax.XWIKI_2_1.toIdString());
+        this.xdoms = new ArrayList<>();
+        for (String document : BenchmarkCorpus.getDocuments(Syntax.XWIKI_2_1.toIdString(), this.source, this.size,
+            this.depth)) {
+            this.xdoms.add(parser.parse(new StringReader(document)));
+        }
+    }
+
+    /**
+     * @param blackhole used to consume the produced output
+     */
+    @Benchmark
+    public void render(Blackhole blackhole)
+    {
+        for (XDOM xdom : this.xdoms) {
+            DefaultWikiPrinter printer = new DefaultWikiPrinter();
+            this.renderer.render(xdom, printer);
+            blackhole.consume(printer.getBuffer());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xwiki.rendering.parser.ResourceReferenceParser;
+
+/**
+ * Measure the parsing of link and image references.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@State(Scope.Benchmark)
+public class ResourceReferenceParserBenchmark extends AbstractRenderingBenchmark
+{
+    private static final String[] REFERENCES = new String[] {
+        "Page",
+        "Space.Page",
+        "wiki:Space.Page",
+        "doc:Space.Page",
+        "page:Parent/Child",
+        "space:Space",
+        "https://www.xwiki.org/xwiki/bin/view/Main/?param=value#anchor",
+        "mailto:john@example.org",
+        "attach:Space.Page@file.png",
+        "pageAttach:Parent/Child/file.png",
+        "data:image/png;base64,iVBORw0KGgo=",
+        "unc:\\\\server\\share",
+        "path:/some/path",
+        "interwiki:wikipedia:XWiki",
+        "icon:accept",
+        "image.png",
+        "not a reference with spaces"
+    };
+
+    /**
+     * The type of reference to parse.
+     */
+    @Param({ "link", "image" })
+    public String type;
+
+    private ResourceReferenceParser parser;
+
+    /**
+     * @throws Exception when failing to prepare the benchmark
+     */
+    @Setup
+    public void setUp() throws Exception
+    {
+        this.parser = getComponentManager().getInstance(ResourceReferenceParser.class, this.type);
+    }
+
+    /**
+     * @param blackhole used to consume the parsed references
+     */
+    @Benchmark
+    public void parse(Blackhole blackhole)
+    {
+        for (String reference : REFERENCES) {
+            blackhole.consume(this.parser.parse(reference));
+        }
+    }
+}
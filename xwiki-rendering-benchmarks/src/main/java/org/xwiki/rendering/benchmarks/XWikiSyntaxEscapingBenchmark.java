@@ -0,0 +1,83 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.benchmarks;
+
+import java.io.StringReader;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.parser.Parser;
+import org.xwiki.rendering.renderer.BlockRenderer;
+import org.xwiki.rendering.renderer.printer.DefaultWikiPrinter;
+import org.xwiki.rendering.syntax.Syntax;
+
+/**
+ * Measure the escaping performed by the XWiki Syntax renderers ({@code XWikiSyntaxEscapeHandler}). The escape handler
+ * works on the state of the renderer listener chain so it's measured by rendering, in xwiki/2.1, plain text full of
+ * characters which would otherwise be interpreted as wiki syntax.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@State(Scope.Benchmark)
+public class XWikiSyntaxEscapingBenchmark extends AbstractRenderingBenchmark
+{
+    private static final String ESCAPED_LINE = "* not a list ~ **not bold** //not italic// {{notmacro}} [[notlink]] "
+        + "(% notparameters %) ((( not a group ))) image:notimage mailto:notmail |not|a|table| == not a heading ==";
+
+    /**
+     * The number of lines to escape.
+     */
+    @Param({ "10", "1000" })
+    public int size;
+
+    private BlockRenderer renderer;
+
+    private XDOM xdom;
+
+    /**
+     * @throws Exception when failing to prepare the benchmark
+     */
+    @Setup
+    public void setUp() throws Exception
+    {
+        this.renderer = getComponentManager().getInstance(BlockRenderer.class, Syntax.XWIKI_2_1.toIdString());
+
+        Parser parser = getComponentManager().getInstance(Parser.class, Syntax.PLAIN_1_0.toIdString());
+        this.xdom = parser.parse(new StringReader(StringUtils.repeat(ESCAPED_LINE, "\n", this.size)));
+    }
+
+    /**
+     * @return the escaped content
+     */
+    @Benchmark
+    public String escape()
+    {
+        DefaultWikiPrinter printer = new DefaultWikiPrinter();
+        this.renderer.render(this.xdom, printer);
+
+        return printer.toString();
+    }
+}
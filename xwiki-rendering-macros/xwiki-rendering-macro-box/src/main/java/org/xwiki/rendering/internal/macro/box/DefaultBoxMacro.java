@@ -65,6 +65,8 @@ public DefaultBoxMacro()
         super("Box", DESCRIPTION, new DefaultContentDescriptor(CONTENT_DESCRIPTION, false,
             Block.LIST_BLOCK_TYPE), BoxMacroParameters.class);
         setDefaultCategories(Set.of(DEFAULT_CATEGORY_FORMATTING));
+        // The content is parsed but not transformed so the output only depends on the macro inputs
+        setCacheable(true);
     }
 
     @Override
@@ -76,6 +76,9 @@ public FigureMacro()
         super("Figure", DESCRIPTION, new DefaultContentDescriptor(CONTENT_DESCRIPTION, false, Block.LIST_BLOCK_TYPE),
             FigureMacroParameters.class);
         setDefaultCategories(Set.of(DEFAULT_CATEGORY_DEVELOPMENT));
+        // The content is parsed but not transformed so the output only depends on the macro inputs (the type
+        // recognition is done by a generated macro which is still executed)
+        setCacheable(true);
     }
 
     @Override
@@ -25,13 +25,11 @@
 
 import javax.inject.Inject;
 import javax.inject.Named;
-import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import org.apache.commons.lang3.StringUtils;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.manager.ComponentLookupException;
-import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.rendering.block.Block;
 import org.xwiki.rendering.block.Block.Axes;
 import org.xwiki.rendering.block.MacroBlock;
@@ -39,6 +37,7 @@
 import org.xwiki.rendering.block.RawBlock;
 import org.xwiki.rendering.block.XDOM;
 import org.xwiki.rendering.block.match.ClassBlockMatcher;
+import org.xwiki.rendering.internal.syntax.SyntaxRuntimeManager;
 import org.xwiki.rendering.internal.transformation.macro.RawBlockFilterUtils;
 import org.xwiki.rendering.internal.transformation.MutableRenderingContext;
 import org.xwiki.rendering.macro.AbstractMacro;
@@ -105,9 +104,11 @@ public class HTMLMacro extends AbstractMacro<HTMLMacroParameters>
     @Inject
     private RenderingContext renderingContext;
 
+    /**
+     * Used to get the renderer factory for the target syntax without looking it up for each call.
+     */
     @Inject
-    @Named("context")
-    private Provider<ComponentManager> componentManagerProvider;
+    private SyntaxRuntimeManager syntaxRuntimeManager;
 
     @Inject
     private RawBlockFilterUtils rawBlockFilterUtils;
@@ -245,9 +246,9 @@ private PrintRendererFactory getRendererFactory(Syntax targetSyntax)
         PrintRendererFactory result = this.defaultHTMLRendererFactory;
 
         if (targetSyntax != null) {
-            String hint = HTMLMacroXHTMLRendererFactory.PREFIX_SYNTAX + targetSyntax.toIdString();
             try {
-                result = this.componentManagerProvider.get().getInstance(PrintRendererFactory.class, hint);
+                result = this.syntaxRuntimeManager.getRuntime(targetSyntax).getComponent(PrintRendererFactory.class,
+                    HTMLMacroXHTMLRendererFactory.PREFIX_SYNTAX);
             } catch (ComponentLookupException ignored) {
                 // Unsupported syntax - keep default.
             }
@@ -49,6 +49,8 @@ public AbstractMessageMacro(String macroName, String macroDescription)
         super(macroName, macroDescription,
             new DefaultContentDescriptor("Content of the message", true, Block.LIST_BLOCK_TYPE),
             BoxMacroParameters.class);
+        // The content is parsed but not transformed so the output only depends on the macro inputs
+        setCacheable(true);
     }
 
     @Override
@@ -0,0 +1,112 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.standalone;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xwiki.component.embed.EmbeddableComponentManager;
+import org.xwiki.rendering.converter.BatchConversionInput;
+import org.xwiki.rendering.converter.BatchConversionResult;
+import org.xwiki.rendering.converter.BatchConverter;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.syntax.SyntaxRegistry;
+
+/**
+ * Command line entry point converting all the files of a directory from a Syntax to another, writing the results
+ * with the same relative paths in a target directory. For example:
+ * <pre>{@code
+ * java -jar xwiki-rendering-standalone-<version>-cli.jar pages/ converted/ xwiki/2.1 xhtml/1.0 8
+ * }</pre>
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+public final class BatchConvert
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchConvert.class);
+
+    private BatchConvert()
+    {
+        // Command line entry point
+    }
+
+    /**
+     * @param args the source directory, the target directory, the source Syntax, the target Syntax and optionally
+     *            the number of documents to convert concurrently (the number of processors by default)
+     * @throws Exception when the conversion cannot be started
+     */
+    public static void main(String[] args) throws Exception
+    {
+        if (args.length < 4 || args.length > 5) {
+            LOGGER.error("Usage: BatchConvert <sourceDirectory> <targetDirectory> <sourceSyntax> <targetSyntax> "
+                + "[parallelism]");
+            System.exit(1);
+        }
+
+        Path sourceDirectory = Paths.get(args[0]);
+        Path targetDirectory = Paths.get(args[1]);
+        int parallelism = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        BatchConversionResult result;
+        EmbeddableComponentManager componentManager = new EmbeddableComponentManager();
+        componentManager.initialize(BatchConvert.class.getClassLoader());
+        try {
+            SyntaxRegistry syntaxRegistry = componentManager.getInstance(SyntaxRegistry.class);
+            Syntax sourceSyntax = syntaxRegistry.resolveSyntax(args[2]);
+            Syntax targetSyntax = syntaxRegistry.resolveSyntax(args[3]);
+            BatchConverter batchConverter = componentManager.getInstance(BatchConverter.class);
+
+            try (Stream<Path> files = Files.walk(sourceDirectory)) {
+                Stream<BatchConversionInput> inputs = files.filter(Files::isRegularFile)
+                    .map(file -> new BatchConversionInput(sourceDirectory.relativize(file).toString(),
+                        () -> Files.newBufferedReader(file, StandardCharsets.UTF_8)));
+                result = batchConverter.convert(inputs, sourceSyntax, targetSyntax,
+                    (id, output) -> write(targetDirectory.resolve(id), output), parallelism);
+            }
+
+            LOGGER.info("Converted [{}] documents in [{}] ms ([{}] documents/s), [{}] failures",
+                result.getConvertedCount(), result.getDuration().toMillis(),
+                String.format("%.1f", result.getThroughput()), result.getFailures().size());
+            for (Map.Entry<String, Exception> failure : result.getFailures().entrySet()) {
+                LOGGER.error("Failed to convert [{}]: {}", failure.getKey(), failure.getValue().getMessage());
+            }
+        } finally {
+            componentManager.dispose();
+        }
+
+        if (!result.getFailures().isEmpty()) {
+            System.exit(2);
+        }
+    }
+
+    private static void write(Path file, String content) throws IOException
+    {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
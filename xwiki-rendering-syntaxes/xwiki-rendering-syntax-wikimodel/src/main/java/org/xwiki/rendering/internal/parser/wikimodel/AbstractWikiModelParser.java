@@ -20,6 +20,7 @@
 package org.xwiki.rendering.internal.parser.wikimodel;
 
 import java.io.Reader;
+import java.util.Collections;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -27,6 +28,9 @@
 import org.xwiki.rendering.block.XDOM;
 import org.xwiki.rendering.internal.parser.XDOMGeneratorListener;
 import org.xwiki.rendering.listener.Listener;
+import org.xwiki.rendering.metrics.RenderingMetrics;
+import org.xwiki.rendering.metrics.RenderingPhase;
+import org.xwiki.rendering.metrics.RenderingTimer;
 import org.xwiki.rendering.parser.ParseException;
 import org.xwiki.rendering.parser.Parser;
 import org.xwiki.rendering.parser.ResourceReferenceParser;
@@ -50,6 +54,12 @@ public abstract class AbstractWikiModelParser implements Parser, WikiModelStream
     @Named("plain/1.0")
     protected PrintRendererFactory plainRendererFactory;
 
+    /**
+     * Used to measure the parsing.
+     */
+    @Inject
+    protected RenderingMetrics renderingMetrics;
+
     /**
      * @return the WikiModel parser instance to use to parse input content.
      * @throws ParseException when there's a problem creating an instance of the parser to use
@@ -97,13 +107,23 @@ public XDOM parse(Reader source) throws ParseException
     @Override
     public XDOM parse(Reader source, IdGenerator idGenerator) throws ParseException
     {
-        XDOMGeneratorListener listener = new XDOMGeneratorListener();
-        parse(source, listener, idGenerator);
+        RenderingTimer timer = startTimer();
+        try {
+            XDOMGeneratorListener listener = new XDOMGeneratorListener();
+            parse(source, listener, idGenerator);
+
+            XDOM xdom = listener.getXDOM();
+            xdom.setIdGenerator(idGenerator);
 
-        XDOM xdom = listener.getXDOM();
-        xdom.setIdGenerator(idGenerator);
+            timer.setBlocks(Collections.singletonList(xdom));
 
-        return xdom;
+            return xdom;
+        } catch (ParseException | RuntimeException e) {
+            timer.setFailed();
+            throw e;
+        } finally {
+            timer.stop();
+        }
     }
 
     @Override
@@ -129,13 +149,32 @@ public XWikiGeneratorListener createXWikiGeneratorListener(Listener listener, Id
     @Override
     public void parse(Reader source, Listener listener, IdGenerator idGenerator) throws ParseException
     {
-        IWikiParser parser = createWikiModelParser();
+        // When generating a XDOM the parsing is already measured (with the produced blocks) by the caller
+        RenderingTimer timer = listener instanceof XDOMGeneratorListener ? RenderingTimer.NOOP : startTimer();
         try {
-            parser.parse(source, createXWikiGeneratorListener(listener, idGenerator));
-        } catch (Exception | StackOverflowError e) {
-            // Stack overflow errors are caught in addition to exceptions because they can be thrown by javacc based
-            // implementations in case of too deeply nested contents (e.g., too many nested groups).   
-            throw new ParseException("Failed to parse input source", e);
+            IWikiParser parser = createWikiModelParser();
+            try {
+                parser.parse(source, createXWikiGeneratorListener(listener, idGenerator));
+            } catch (Exception | StackOverflowError e) {
+                // Stack overflow errors are caught in addition to exceptions because they can be thrown by javacc
+                // based implementations in case of too deeply nested contents (e.g., too many nested groups).
+                throw new ParseException("Failed to parse input source", e);
+            }
+        } catch (ParseException e) {
+            timer.setFailed();
+            throw e;
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private RenderingTimer startTimer()
+    {
+        // The metrics are not injected when the parser is not created by the Component Manager
+        if (this.renderingMetrics != null) {
+            return this.renderingMetrics.start(RenderingPhase.PARSE, getSyntax().toIdString());
         }
+
+        return RenderingTimer.NOOP;
     }
 }
@@ -19,7 +19,6 @@
  */
 package org.xwiki.rendering.internal.parser.wikimodel;
 
-import java.io.StringReader;
 import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Collections;
@@ -52,6 +51,7 @@
 import org.xwiki.rendering.renderer.PrintRendererFactory;
 import org.xwiki.rendering.renderer.printer.DefaultWikiPrinter;
 import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.util.CharSequenceReader;
 import org.xwiki.rendering.util.IdGenerator;
 import org.xwiki.rendering.wikimodel.IWemConstants;
 import org.xwiki.rendering.wikimodel.WikiFormat;
@@ -760,7 +760,7 @@ public void endDocument(MetaData metadata)
                     }
                 };
                 wrapper.setWrappedListener(getListener());
-                this.parser.parse(new StringReader(this.imageLabel), wrapper, this.idGenerator);
+                this.parser.parse(new CharSequenceReader(this.imageLabel), wrapper, this.idGenerator);
             } catch (ParseException e) {
                 // TODO what should we do here ?
             }
@@ -19,13 +19,12 @@
  */
 package org.xwiki.rendering.internal.parser.wikimodel;
 
-import java.io.StringReader;
-
 import org.xwiki.rendering.listener.InlineFilterListener;
 import org.xwiki.rendering.listener.Listener;
 import org.xwiki.rendering.listener.WrappingListener;
 import org.xwiki.rendering.parser.ParseException;
 import org.xwiki.rendering.parser.StreamParser;
+import org.xwiki.rendering.util.CharSequenceReader;
 import org.xwiki.rendering.util.IdGenerator;
 import org.xwiki.rendering.util.ParserUtils;
 
@@ -94,9 +93,9 @@ public void parseInline(StreamParser parser, String content, Listener listener,
         inlineFilterListener.setWrappedListener(listener);
 
         if (idGenerator != null) {
-            parser.parse(new StringReader(contentToParse), inlineFilterListener, idGenerator);
+            parser.parse(new CharSequenceReader(contentToParse), inlineFilterListener, idGenerator);
         } else {
-            parser.parse(new StringReader(contentToParse), inlineFilterListener);
+            parser.parse(new CharSequenceReader(contentToParse), inlineFilterListener);
         }
     }
 }
@@ -141,10 +141,8 @@ protected HTMLElementSanitizer getHtmlElementSanitizer()
     @Override
     public void beginGroup(Map<String, String> parameters)
     {
-        Map<String, String> clonedParameters = new LinkedHashMap<String, String>();
-        clonedParameters.putAll(parameters);
         getXHTMLWikiPrinter().setStandalone();
-        getXHTMLWikiPrinter().printXMLStartElement("div", clonedParameters);
+        getXHTMLWikiPrinter().printXMLStartElement("div", parameters);
     }
 
     @Override
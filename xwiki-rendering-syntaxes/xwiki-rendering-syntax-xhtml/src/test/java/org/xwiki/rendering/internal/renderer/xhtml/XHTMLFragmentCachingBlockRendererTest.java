@@ -0,0 +1,127 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.renderer.xhtml;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.BulletedListBlock;
+import org.xwiki.rendering.block.HeaderBlock;
+import org.xwiki.rendering.block.ListItemBlock;
+import org.xwiki.rendering.block.NumberedListBlock;
+import org.xwiki.rendering.block.ParagraphBlock;
+import org.xwiki.rendering.block.SectionBlock;
+import org.xwiki.rendering.block.WordBlock;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.listener.HeaderLevel;
+import org.xwiki.rendering.renderer.BlockRenderer;
+import org.xwiki.rendering.renderer.FragmentCachingBlockRenderer;
+import org.xwiki.rendering.renderer.RenderedFragmentCache;
+import org.xwiki.rendering.renderer.printer.DefaultWikiPrinter;
+import org.xwiki.test.annotation.AllComponents;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link XHTMLFragmentCachingBlockRenderer}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+@AllComponents
+class XHTMLFragmentCachingBlockRendererTest
+{
+    private FragmentCachingBlockRenderer cachingRenderer;
+
+    private BlockRenderer renderer;
+
+    @BeforeEach
+    void beforeEach(ComponentManager componentManager) throws Exception
+    {
+        this.cachingRenderer = componentManager.getInstance(FragmentCachingBlockRenderer.class, "xhtml/1.0");
+        this.renderer = componentManager.getInstance(BlockRenderer.class, "xhtml/1.0");
+    }
+
+    private XDOM createXDOM(String secondParagraph)
+    {
+        HeaderBlock header = new HeaderBlock(Arrays.asList(new WordBlock("title")), HeaderLevel.LEVEL1,
+            Collections.emptyMap(), "Htitle");
+        ParagraphBlock first = new ParagraphBlock(Arrays.asList(new WordBlock("first")));
+        ParagraphBlock second = new ParagraphBlock(Arrays.asList(new WordBlock(secondParagraph)));
+
+        return new XDOM(Arrays.asList(new ParagraphBlock(Arrays.asList(new WordBlock("intro"))),
+            new SectionBlock(Arrays.asList(header, first, second))));
+    }
+
+    private String render(XDOM xdom, RenderedFragmentCache cache)
+    {
+        DefaultWikiPrinter printer = new DefaultWikiPrinter();
+        this.cachingRenderer.render(Collections.singletonList(xdom), printer, cache);
+
+        // The output must be the same as without cache
+        DefaultWikiPrinter expected = new DefaultWikiPrinter();
+        this.renderer.render(xdom, expected);
+        assertEquals(expected.toString(), printer.toString());
+
+        return printer.toString();
+    }
+
+    @Test
+    void renderReusesUnchangedFragments()
+    {
+        RenderedFragmentCache cache = new RenderedFragmentCache();
+
+        assertEquals("<p>intro</p><h1 id=\"Htitle\" class=\"wikigeneratedid\"><span>title</span></h1>"
+            + "<p>first</p><p>second</p>", render(createXDOM("second"), cache));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+
+        render(createXDOM("changed"), cache);
+        assertEquals(3, cache.getHitCount());
+        assertEquals(5, cache.getMissCount());
+
+        // The fragment which has not been reused by the previous rendering has been forgotten
+        render(createXDOM("second"), cache);
+        assertEquals(6, cache.getHitCount());
+        assertEquals(6, cache.getMissCount());
+    }
+
+    @Test
+    void renderDoesNotReuseFragmentsOfOtherBlockTypes()
+    {
+        RenderedFragmentCache cache = new RenderedFragmentCache();
+
+        List<Block> items = Arrays.asList(new ListItemBlock(Arrays.asList(new WordBlock("item"))));
+        assertEquals("<ul><li>item</li></ul>",
+            render(new XDOM(Arrays.asList(new BulletedListBlock(items))), cache));
+
+        items = Arrays.asList(new ListItemBlock(Arrays.asList(new WordBlock("item"))));
+        assertEquals("<ol><li>item</li></ol>",
+            render(new XDOM(Arrays.asList(new NumberedListBlock(items))), cache));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.renderer.xhtml;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.BoldBlock;
+import org.xwiki.rendering.block.HeaderBlock;
+import org.xwiki.rendering.block.ParagraphBlock;
+import org.xwiki.rendering.block.SectionBlock;
+import org.xwiki.rendering.block.SpaceBlock;
+import org.xwiki.rendering.block.WordBlock;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.listener.HeaderLevel;
+import org.xwiki.rendering.renderer.BlockRenderer;
+import org.xwiki.rendering.renderer.ParallelBlockRenderer;
+import org.xwiki.rendering.renderer.printer.DefaultWikiPrinter;
+import org.xwiki.test.annotation.AllComponents;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link XHTMLParallelBlockRenderer}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+@AllComponents
+class XHTMLParallelBlockRendererTest
+{
+    private ParallelBlockRenderer parallelRenderer;
+
+    private BlockRenderer renderer;
+
+    private final ForkJoinPool executor = new ForkJoinPool(4);
+
+    @BeforeEach
+    void beforeEach(ComponentManager componentManager) throws Exception
+    {
+        this.parallelRenderer = componentManager.getInstance(ParallelBlockRenderer.class, "xhtml/1.0");
+        this.renderer = componentManager.getInstance(BlockRenderer.class, "xhtml/1.0");
+    }
+
+    @AfterEach
+    void afterEach()
+    {
+        this.executor.shutdown();
+    }
+
+    private String render(XDOM xdom)
+    {
+        DefaultWikiPrinter printer = new DefaultWikiPrinter();
+        this.parallelRenderer.render(Collections.singletonList(xdom), printer, this.executor);
+
+        // The output must be the same as the serial rendering
+        DefaultWikiPrinter expected = new DefaultWikiPrinter();
+        this.renderer.render(xdom, expected);
+        assertEquals(expected.toString(), printer.toString());
+
+        return printer.toString();
+    }
+
+    private ParagraphBlock createParagraph(int index)
+    {
+        return new ParagraphBlock(Arrays.asList(new WordBlock("paragraph"), new SpaceBlock(),
+            new BoldBlock(Arrays.asList(new WordBlock(String.valueOf(index))))));
+    }
+
+    @Test
+    void renderSmallDocument()
+    {
+        assertEquals("<p>paragraph <strong>0</strong></p>", render(new XDOM(Arrays.asList(createParagraph(0)))));
+    }
+
+    @Test
+    void renderLargeDocument()
+    {
+        List<Block> blocks = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            blocks.add(createParagraph(i));
+
+            List<Block> sectionBlocks = new ArrayList<>();
+            sectionBlocks.add(new HeaderBlock(Arrays.asList(new WordBlock("title" + i)), HeaderLevel.LEVEL1,
+                Collections.emptyMap(), "Htitle" + i));
+            sectionBlocks.add(createParagraph(i));
+            sectionBlocks.add(new SpaceBlock());
+            sectionBlocks.add(createParagraph(i));
+            blocks.add(new SectionBlock(sectionBlocks));
+        }
+
+        String result = render(new XDOM(blocks));
+
+        assertTrue(result.startsWith("<p>paragraph <strong>0</strong></p><h1 id=\"Htitle0\" class=\"wikigeneratedid\">"
+            + "<span>title0</span></h1><p>paragraph <strong>0</strong></p>"));
+    }
+}
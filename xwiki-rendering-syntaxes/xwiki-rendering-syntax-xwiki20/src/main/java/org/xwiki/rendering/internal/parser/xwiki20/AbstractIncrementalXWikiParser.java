@@ -0,0 +1,241 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.parser.xwiki20;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.HeaderBlock;
+import org.xwiki.rendering.block.ImageBlock;
+import org.xwiki.rendering.block.SectionBlock;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.parser.IncrementalParser;
+import org.xwiki.rendering.parser.IncrementalXDOM;
+import org.xwiki.rendering.parser.ParseException;
+import org.xwiki.rendering.parser.Parser;
+import org.xwiki.rendering.parser.TextEdit;
+import org.xwiki.rendering.util.IdGenerator;
+
+/**
+ * Base class for the XWiki 2.x incremental parsers.
+ * <p>
+ * The source is split in chunks with {@link XWikiSyntaxChunkScanner} and the top level blocks produced by each chunk
+ * are remembered. When the source is edited, only the chunks around the edit are parsed again and their blocks
+ * replace the previous ones in the {@link XDOM}. The whole source is parsed again when the edit involves blocks with
+ * generated ids (headings and images) or sections, since they depend on the rest of the document.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+public abstract class AbstractIncrementalXWikiParser implements IncrementalParser
+{
+    private static final int SEPARATOR_LENGTH = 2;
+
+    /**
+     * @return the parser to use to parse the whole source or a chunk
+     */
+    protected abstract Parser getParser();
+
+    @Override
+    public IncrementalXDOM parse(String source) throws ParseException
+    {
+        XDOM xdom = getParser().parse(new StringReader(source));
+
+        List<Integer> boundaries = new ArrayList<>();
+        XWikiSyntaxChunkScanner.scan(source, 0, boundary -> false, boundaries);
+        if (boundaries.isEmpty()) {
+            // A single chunk, nothing to gain
+            return new IncrementalXWikiXDOM(source, xdom);
+        }
+
+        int[] chunkStarts = new int[boundaries.size() + 1];
+        for (int i = 0; i < boundaries.size(); i++) {
+            chunkStarts[i + 1] = boundaries.get(i);
+        }
+
+        // Parse each chunk on its own to know which blocks it produces, and make sure that it's the same as when
+        // parsing the whole source. The same id generator is used to produce the same ids.
+        List<Block> blocks = flatten(xdom.getChildren(), new ArrayList<>());
+        List<List<Block>> chunkBlocks = new ArrayList<>(chunkStarts.length);
+        IdGenerator idGenerator = new IdGenerator();
+        int index = 0;
+        for (int chunk = 0; chunk < chunkStarts.length; chunk++) {
+            String chunkSource = getChunkSource(source, chunkStarts, chunk, source.length());
+            List<Block> parsedBlocks =
+                flatten(getParser().parse(new StringReader(chunkSource), idGenerator).getChildren(), new ArrayList<>());
+            int end = index + parsedBlocks.size();
+            if (end > blocks.size() || !parsedBlocks.equals(blocks.subList(index, end))) {
+                // The source cannot be split safely
+                return new IncrementalXWikiXDOM(source, xdom);
+            }
+            chunkBlocks.add(new ArrayList<>(blocks.subList(index, end)));
+            index = end;
+        }
+
+        if (index != blocks.size()) {
+            return new IncrementalXWikiXDOM(source, xdom);
+        }
+
+        return new IncrementalXWikiXDOM(source, xdom, chunkStarts, chunkBlocks);
+    }
+
+    @Override
+    public IncrementalXDOM parse(IncrementalXDOM previous, TextEdit edit) throws ParseException
+    {
+        String source = edit.apply(previous.getSource());
+        if (!(previous instanceof IncrementalXWikiXDOM) || !((IncrementalXWikiXDOM) previous).isTracked()) {
+            return parse(source);
+        }
+
+        IncrementalXWikiXDOM document = (IncrementalXWikiXDOM) previous;
+        int[] chunkStarts = document.getChunkStarts();
+        int chunkCount = chunkStarts.length;
+        int delta = source.length() - previous.getSource().length();
+
+        // Parse again the chunks touched by the edit plus one chunk on each side, since the edit can add or remove
+        // a boundary at the end of a touched chunk
+        int first = Math.max(findChunk(chunkStarts, edit.getOffset()) - 1, 0);
+        int last = Math.min(findChunk(chunkStarts, edit.getOffset() + edit.getRemovedLength()) + 1, chunkCount - 1);
+        int windowStart = chunkStarts[first];
+        int windowEnd = last + 1 < chunkCount ? chunkStarts[last + 1] + delta : source.length();
+
+        // Find the new boundaries until reaching the start of an unchanged chunk
+        List<Integer> boundaries = new ArrayList<>();
+        int stop = XWikiSyntaxChunkScanner.scan(source, windowStart, boundary -> boundary >= windowEnd
+            && Arrays.binarySearch(chunkStarts, last + 1, chunkCount, boundary - delta) >= 0, boundaries);
+        int next =
+            stop < source.length() ? Arrays.binarySearch(chunkStarts, last + 1, chunkCount, stop - delta) : chunkCount;
+
+        List<Block> oldBlocks = new ArrayList<>();
+        for (int chunk = first; chunk < next; chunk++) {
+            oldBlocks.addAll(document.getChunkBlocks().get(chunk));
+        }
+        if (oldBlocks.isEmpty() || hasDocumentDependentBlocks(oldBlocks)) {
+            return parse(source);
+        }
+        Block parent = oldBlocks.get(0).getParent();
+        if (oldBlocks.stream().anyMatch(block -> block.getParent() != parent)) {
+            return parse(source);
+        }
+
+        // Parse the new chunks
+        int[] newChunkStarts = new int[boundaries.size() + 1];
+        newChunkStarts[0] = windowStart;
+        for (int i = 0; i < boundaries.size(); i++) {
+            newChunkStarts[i + 1] = boundaries.get(i);
+        }
+        List<List<Block>> newChunkBlocks = new ArrayList<>(newChunkStarts.length);
+        List<Block> newBlocks = new ArrayList<>();
+        for (int chunk = 0; chunk < newChunkStarts.length; chunk++) {
+            String chunkSource = getChunkSource(source, newChunkStarts, chunk, stop);
+            List<Block> parsedBlocks = getParser().parse(new StringReader(chunkSource)).getChildren();
+            if (hasDocumentDependentBlocks(parsedBlocks)) {
+                return parse(source);
+            }
+            newChunkBlocks.add(new ArrayList<>(parsedBlocks));
+            newBlocks.addAll(parsedBlocks);
+        }
+
+        // Splice the new blocks in place of the old ones
+        for (Block oldBlock : oldBlocks.subList(1, oldBlocks.size())) {
+            parent.removeBlock(oldBlock);
+        }
+        parent.replaceChild(newBlocks, oldBlocks.get(0));
+
+        return new IncrementalXWikiXDOM(source, document.getXDOM(),
+            mergeChunkStarts(chunkStarts, first, next, newChunkStarts, delta),
+            mergeChunkBlocks(document.getChunkBlocks(), first, next, newChunkBlocks));
+    }
+
+    private String getChunkSource(String source, int[] chunkStarts, int chunk, int end)
+    {
+        int chunkEnd = chunk + 1 < chunkStarts.length ? chunkStarts[chunk + 1] - SEPARATOR_LENGTH
+            : (end < source.length() ? end - SEPARATOR_LENGTH : end);
+
+        return source.substring(chunkStarts[chunk], chunkEnd);
+    }
+
+    private int[] mergeChunkStarts(int[] chunkStarts, int first, int next, int[] newChunkStarts, int delta)
+    {
+        int[] merged = new int[first + newChunkStarts.length + chunkStarts.length - next];
+        System.arraycopy(chunkStarts, 0, merged, 0, first);
+        System.arraycopy(newChunkStarts, 0, merged, first, newChunkStarts.length);
+        for (int chunk = next; chunk < chunkStarts.length; chunk++) {
+            merged[first + newChunkStarts.length + chunk - next] = chunkStarts[chunk] + delta;
+        }
+
+        return merged;
+    }
+
+    private List<List<Block>> mergeChunkBlocks(List<List<Block>> chunkBlocks, int first, int next,
+        List<List<Block>> newChunkBlocks)
+    {
+        List<List<Block>> merged = new ArrayList<>(chunkBlocks.size() - (next - first) + newChunkBlocks.size());
+        merged.addAll(chunkBlocks.subList(0, first));
+        merged.addAll(newChunkBlocks);
+        merged.addAll(chunkBlocks.subList(next, chunkBlocks.size()));
+
+        return merged;
+    }
+
+    /**
+     * @return the index of the chunk containing the passed offset, separator included
+     */
+    private int findChunk(int[] chunkStarts, int offset)
+    {
+        int index = Arrays.binarySearch(chunkStarts, offset);
+
+        return index >= 0 ? index : Math.max(-index - 2, 0);
+    }
+
+    /**
+     * Sections depend on the headings found before and after them, and the ids generated for headings and images
+     * depend on the ids generated before them.
+     */
+    private boolean hasDocumentDependentBlocks(List<Block> blocks)
+    {
+        for (Block block : blocks) {
+            Block found = block.getFirstBlock(
+                candidate -> candidate instanceof SectionBlock || candidate instanceof HeaderBlock
+                    || candidate instanceof ImageBlock, Block.Axes.DESCENDANT_OR_SELF);
+            if (found != null) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private List<Block> flatten(List<Block> blocks, List<Block> flattened)
+    {
+        for (Block block : blocks) {
+            if (block instanceof SectionBlock) {
+                flatten(block.getChildren(), flattened);
+            } else {
+                flattened.add(block);
+            }
+        }
+
+        return flattened;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.parser.xwiki20;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import javax.inject.Inject;
+
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.internal.parser.XDOMGeneratorListener;
+import org.xwiki.rendering.internal.parser.wikimodel.AbstractWikiModelParser;
+import org.xwiki.rendering.metrics.RenderingMetrics;
+import org.xwiki.rendering.metrics.RenderingPhase;
+import org.xwiki.rendering.metrics.RenderingTimer;
+import org.xwiki.rendering.parser.ParallelParser;
+import org.xwiki.rendering.parser.ParseException;
+import org.xwiki.rendering.parser.Parser;
+import org.xwiki.rendering.util.CharSequenceReader;
+import org.xwiki.rendering.util.IdGenerator;
+import org.xwiki.rendering.wikimodel.IWikiParser;
+import org.xwiki.rendering.wikimodel.WikiParserException;
+import org.xwiki.rendering.wikimodel.impl.IWikiScannerContext;
+import org.xwiki.rendering.wikimodel.impl.IWikiScannerParser;
+import org.xwiki.rendering.wikimodel.impl.WikiScannerContext;
+import org.xwiki.rendering.wikimodel.impl.WikiScannerContextRecorder;
+
+/**
+ * Base class for the XWiki 2.x parallel parsers.
+ * <p>
+ * The source is split in parts at the chunk boundaries found by {@link XWikiSyntaxChunkScanner}, and the scanner of
+ * each part runs concurrently, recording the calls it makes on its {@link IWikiScannerContext}. The recorded calls are
+ * then replayed in order on a single context, which builds the sections and generates the ids exactly as when parsing
+ * the whole source at once.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+public abstract class AbstractParallelXWikiParser implements ParallelParser
+{
+    /**
+     * Smaller parts are not worth the cost of a task.
+     */
+    private static final int MIN_PART_LENGTH = 32 * 1024;
+
+    /**
+     * Having more parts than processors balances the load when some parts are slower to parse than others.
+     */
+    private static final int PARTS_PER_PROCESSOR = 4;
+
+    private static final int SEPARATOR_LENGTH = 2;
+
+    private static final String PARSE_ERROR = "Failed to parse input source";
+
+    /**
+     * Used to measure the parsing, like the serial parser does.
+     */
+    @Inject
+    private RenderingMetrics renderingMetrics;
+
+    /**
+     * @return the parser to use to parse the whole source when it cannot be split
+     */
+    protected abstract Parser getParser();
+
+    @Override
+    public XDOM parse(String source, Executor executor) throws ParseException
+    {
+        Parser parser = getParser();
+        if (source.length() < 2 * MIN_PART_LENGTH || !(parser instanceof AbstractWikiModelParser)) {
+            return parser.parse(new CharSequenceReader(source));
+        }
+
+        AbstractWikiModelParser wikiModelParser = (AbstractWikiModelParser) parser;
+        IWikiParser wikiParser = wikiModelParser.createWikiModelParser();
+        List<Integer> partStarts = split(source);
+        if (partStarts.size() < 2 || !(wikiParser instanceof IWikiScannerParser)) {
+            return parser.parse(new CharSequenceReader(source));
+        }
+
+        RenderingTimer timer = startTimer(wikiModelParser);
+        List<CompletableFuture<WikiScannerContextRecorder>> parts = new ArrayList<>(partStarts.size());
+        for (int part = 0; part < partStarts.size(); part++) {
+            int end = part + 1 < partStarts.size() ? partStarts.get(part + 1) - SEPARATOR_LENGTH : source.length();
+            String partSource = source.substring(partStarts.get(part), end);
+            parts.add(CompletableFuture.supplyAsync(() -> record((IWikiScannerParser) wikiParser, partSource),
+                executor));
+        }
+
+        try {
+            IdGenerator idGenerator = new IdGenerator();
+            XDOMGeneratorListener listener = new XDOMGeneratorListener();
+            IWikiScannerContext context =
+                new WikiScannerContext(wikiModelParser.createXWikiGeneratorListener(listener, idGenerator));
+            context.beginDocument();
+            for (CompletableFuture<WikiScannerContextRecorder> part : parts) {
+                part.join().replay(context, false);
+            }
+            context.endDocument();
+
+            XDOM xdom = listener.getXDOM();
+            xdom.setIdGenerator(idGenerator);
+
+            timer.setBlocks(Collections.singletonList(xdom));
+
+            return xdom;
+        } catch (CompletionException e) {
+            timer.setFailed();
+            throw new ParseException(PARSE_ERROR, e.getCause());
+        } catch (Exception | StackOverflowError e) {
+            timer.setFailed();
+            throw new ParseException(PARSE_ERROR, e);
+        } finally {
+            // Stop parsing the remaining parts after a failure
+            parts.forEach(part -> part.cancel(false));
+            timer.stop();
+        }
+    }
+
+    private RenderingTimer startTimer(AbstractWikiModelParser parser)
+    {
+        // The metrics are not injected when the parser is not created by the Component Manager
+        if (this.renderingMetrics != null) {
+            return this.renderingMetrics.start(RenderingPhase.PARSE, parser.getSyntax().toIdString());
+        }
+
+        return RenderingTimer.NOOP;
+    }
+
+    /**
+     * @return the offsets where the parts start, the first one being 0
+     */
+    private List<Integer> split(String source)
+    {
+        List<Integer> boundaries = new ArrayList<>();
+        XWikiSyntaxChunkScanner.scan(source, 0, boundary -> false, boundaries);
+
+        int partLength = Math.max(MIN_PART_LENGTH,
+            source.length() / (PARTS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors()));
+        List<Integer> partStarts = new ArrayList<>();
+        int partStart = 0;
+        partStarts.add(partStart);
+        for (int boundary : boundaries) {
+            if (boundary - partStart >= partLength && source.length() - boundary >= MIN_PART_LENGTH) {
+                partStart = boundary;
+                partStarts.add(partStart);
+            }
+        }
+
+        return partStarts;
+    }
+
+    private WikiScannerContextRecorder record(IWikiScannerParser parser, String partSource)
+    {
+        WikiScannerContextRecorder recorder = new WikiScannerContextRecorder();
+        try {
+            parser.parse(new CharSequenceReader(partSource), recorder.getContext());
+        } catch (WikiParserException e) {
+            throw new CompletionException(e);
+        }
+
+        return recorder;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.parser.xwiki20;
+
+import java.util.List;
+
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.parser.IncrementalXDOM;
+
+/**
+ * The result of an {@link AbstractIncrementalXWikiParser}, remembering the top level blocks produced by each chunk
+ * of the source.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+class IncrementalXWikiXDOM implements IncrementalXDOM
+{
+    private final String source;
+
+    private final XDOM xdom;
+
+    private final int[] chunkStarts;
+
+    private final List<List<Block>> chunkBlocks;
+
+    /**
+     * Create a result which cannot be updated incrementally.
+     *
+     * @param source the parsed source
+     * @param xdom the parsed content
+     */
+    IncrementalXWikiXDOM(String source, XDOM xdom)
+    {
+        this(source, xdom, null, null);
+    }
+
+    /**
+     * @param source the parsed source
+     * @param xdom the parsed content
+     * @param chunkStarts the offsets of the chunks in the source
+     * @param chunkBlocks the top level blocks (sections excluded) produced by each chunk
+     */
+    IncrementalXWikiXDOM(String source, XDOM xdom, int[] chunkStarts, List<List<Block>> chunkBlocks)
+    {
+        this.source = source;
+        this.xdom = xdom;
+        this.chunkStarts = chunkStarts;
+        this.chunkBlocks = chunkBlocks;
+    }
+
+    @Override
+    public String getSource()
+    {
+        return this.source;
+    }
+
+    @Override
+    public XDOM getXDOM()
+    {
+        return this.xdom;
+    }
+
+    /**
+     * @return {@code true} if the chunks of the source are known
+     */
+    boolean isTracked()
+    {
+        return this.chunkStarts != null;
+    }
+
+    /**
+     * @return the offsets of the chunks in the source
+     */
+    int[] getChunkStarts()
+    {
+        return this.chunkStarts;
+    }
+
+    /**
+     * @return the top level blocks (sections excluded) produced by each chunk
+     */
+    List<List<Block>> getChunkBlocks()
+    {
+        return this.chunkBlocks;
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.parser.xwiki20;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Split an XWiki 2.x source into chunks which can be parsed independently of each other. Chunks are separated by a
+ * single blank line outside of any verbatim, macro, group or parameters construct, so that parsing the chunks one
+ * after the other produces the same top level blocks as parsing the whole source (sections aside).
+ * <p>
+ * The scanner is conservative: when unsure, it doesn't split, which only makes the chunks bigger.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+public final class XWikiSyntaxChunkScanner
+{
+    private static final String VERBATIM_OPEN = "{{{";
+
+    private static final String VERBATIM_CLOSE = "}}}";
+
+    private static final String MACRO_OPEN = "{{";
+
+    private static final String MACRO_CLOSE = "}}";
+
+    private static final String GROUP_OPEN = "(((";
+
+    private static final String GROUP_CLOSE = ")))";
+
+    private static final String PARAMETERS_OPEN = "(%";
+
+    private static final String PARAMETERS_CLOSE = "%)";
+
+    private static final char ESCAPE = '~';
+
+    private static final char NEW_LINE = '\n';
+
+    private final String source;
+
+    private final Deque<String> macros = new ArrayDeque<>();
+
+    private int verbatimDepth;
+
+    private int groupDepth;
+
+    private boolean inParameters;
+
+    private XWikiSyntaxChunkScanner(String source)
+    {
+        this.source = source;
+    }
+
+    /**
+     * Find the chunk boundaries of a source, starting from an offset which is either the start of the source or a
+     * chunk boundary.
+     *
+     * @param source the source to split
+     * @param from the offset where to start
+     * @param stop tells if the scanner should stop at a found boundary
+     * @param boundaries receives the boundaries found before stopping, each boundary being the offset of the first
+     *            character of a chunk, right after the blank line separating it from the previous chunk
+     * @return the boundary where the scanner stopped or the length of the source if it reached the end
+     */
+    public static int scan(String source, int from, IntPredicate stop, List<Integer> boundaries)
+    {
+        return new XWikiSyntaxChunkScanner(source).scan(from, stop, boundaries);
+    }
+
+    private int scan(int from, IntPredicate stop, List<Integer> boundaries)
+    {
+        int length = this.source.length();
+        int index = from;
+        while (index < length) {
+            char c = this.source.charAt(index);
+            if (c == ESCAPE && this.macros.isEmpty() && this.verbatimDepth == 0) {
+                index += 2;
+            } else if (this.source.startsWith(VERBATIM_OPEN, index)) {
+                this.verbatimDepth++;
+                index += VERBATIM_OPEN.length();
+            } else if (this.verbatimDepth > 0) {
+                index = scanVerbatim(index);
+            } else if (this.source.startsWith(MACRO_OPEN, index)) {
+                index = scanMacroTag(index);
+                if (index < 0) {
+                    // Unclosed macro tag, stay conservative
+                    return length;
+                }
+            } else if (!this.macros.isEmpty()) {
+                // The content of a macro is not parsed
+                index++;
+            } else if (c == NEW_LINE && isBoundary(index)) {
+                int boundary = index + 2;
+                if (stop.test(boundary)) {
+                    return boundary;
+                }
+                boundaries.add(boundary);
+                index = boundary;
+            } else {
+                index = scanMarkup(index);
+            }
+        }
+
+        return length;
+    }
+
+    private int scanVerbatim(int index)
+    {
+        if (this.source.startsWith(VERBATIM_CLOSE, index) && this.source.charAt(index - 1) != ESCAPE) {
+            this.verbatimDepth--;
+
+            return index + VERBATIM_CLOSE.length();
+        }
+
+        return index + 1;
+    }
+
+    private int scanMarkup(int index)
+    {
+        if (this.source.startsWith(GROUP_OPEN, index)) {
+            this.groupDepth++;
+
+            return index + GROUP_OPEN.length();
+        } else if (this.source.startsWith(GROUP_CLOSE, index) && this.groupDepth > 0) {
+            this.groupDepth--;
+
+            return index + GROUP_CLOSE.length();
+        } else if (this.source.startsWith(PARAMETERS_OPEN, index)) {
+            this.inParameters = true;
+
+            return index + PARAMETERS_OPEN.length();
+        } else if (this.source.startsWith(PARAMETERS_CLOSE, index)) {
+            this.inParameters = false;
+
+            return index + PARAMETERS_CLOSE.length();
+        }
+
+        return index + 1;
+    }
+
+    /**
+     * @return the index after the macro tag, or -1 if the tag is not closed
+     */
+    private int scanMacroTag(int index)
+    {
+        int nameStart = index + MACRO_OPEN.length();
+        boolean closing = nameStart < this.source.length() && this.source.charAt(nameStart) == '/';
+        if (closing) {
+            nameStart++;
+        }
+        if (nameStart >= this.source.length() || !Character.isLetter(this.source.charAt(nameStart))) {
+            // Not a macro
+            return nameStart;
+        }
+
+        int nameEnd = nameStart;
+        while (nameEnd < this.source.length() && isMacroNameCharacter(this.source.charAt(nameEnd))) {
+            nameEnd++;
+        }
+        String name = this.source.substring(nameStart, nameEnd);
+
+        int end = findMacroTagEnd(nameEnd);
+        if (end < 0) {
+            return -1;
+        }
+
+        if (closing) {
+            // An escaped closing tag is part of the content of the macro
+            if ((index == 0 || this.source.charAt(index - 1) != ESCAPE) && this.macros.contains(name)) {
+                // Also forget the unclosed macros found in the content of the closed macro
+                String closed;
+                do {
+                    closed = this.macros.pop();
+                } while (!name.equals(closed));
+            }
+        } else if (this.source.charAt(end - 1) != '/') {
+            this.macros.push(name);
+        }
+
+        return end + MACRO_CLOSE.length();
+    }
+
+    private int findMacroTagEnd(int from)
+    {
+        boolean inQuotes = false;
+        for (int index = from; index < this.source.length(); index++) {
+            char c = this.source.charAt(index);
+            if (c == ESCAPE || c == '\\') {
+                index++;
+            } else if (c == '"') {
+                inQuotes = !inQuotes;
+            } else if (!inQuotes && this.source.startsWith(MACRO_CLOSE, index)) {
+                return index;
+            }
+        }
+
+        return -1;
+    }
+
+    private boolean isMacroNameCharacter(char c)
+    {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.' || c == ':';
+    }
+
+    /**
+     * @return {@code true} if the new line at the passed index starts a single blank line at top level, followed by
+     *         some content
+     */
+    private boolean isBoundary(int index)
+    {
+        int length = this.source.length();
+        if (this.groupDepth > 0 || this.inParameters || index == 0 || index + 2 >= length
+            || this.source.charAt(index + 1) != NEW_LINE) {
+            return false;
+        }
+
+        // More than one blank line produces empty lines events and leading white spaces may be significant
+        char previous = this.source.charAt(index - 1);
+        char next = this.source.charAt(index + 2);
+        if (Character.isWhitespace(previous) || Character.isWhitespace(next)) {
+            return false;
+        }
+
+        // Standalone parameters apply to the next block
+        int lineStart = this.source.lastIndexOf(NEW_LINE, index - 1) + 1;
+        return !this.source.substring(lineStart, index).trim().endsWith(PARAMETERS_CLOSE);
+    }
+}
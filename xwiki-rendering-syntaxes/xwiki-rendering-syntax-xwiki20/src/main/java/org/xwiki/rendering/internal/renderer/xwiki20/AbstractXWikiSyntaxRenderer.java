@@ -24,6 +24,9 @@
 
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.MacroMarkerBlock;
+import org.xwiki.rendering.block.SubtreeSkippingListener;
 import org.xwiki.rendering.listener.MetaData;
 import org.xwiki.rendering.listener.chaining.BlockStateChainingListener;
 import org.xwiki.rendering.listener.chaining.ChainingListener;
@@ -40,8 +43,8 @@
  * @version $Id$
  * @since 2.5M2
  */
-public abstract class AbstractXWikiSyntaxRenderer extends AbstractChainingPrintRenderer implements Initializable,
-    Flushable
+public abstract class AbstractXWikiSyntaxRenderer extends AbstractChainingPrintRenderer
+    implements Initializable, Flushable, SubtreeSkippingListener
 {
     /**
      * Allows extending classes to choose which implementation to use.
@@ -69,6 +72,13 @@ public void initialize() throws InitializationException
         chain.addListener(createXWikiSyntaxChainingRenderer(chain));
     }
 
+    @Override
+    public boolean skipChildren(Block block)
+    {
+        // The content of a macro marker is ignored since the macro call is serialized from the macro marker itself
+        return block instanceof MacroMarkerBlock;
+    }
+
     @Override
     public void flush() throws IOException
     {
@@ -0,0 +1,126 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.parser.xwiki20;
+
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.metrics.RenderingMetrics;
+import org.xwiki.rendering.metrics.RenderingPhase;
+import org.xwiki.rendering.metrics.RenderingTimer;
+import org.xwiki.rendering.parser.ParallelParser;
+import org.xwiki.rendering.parser.Parser;
+import org.xwiki.test.annotation.AllComponents;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectComponentManager;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link XWiki20ParallelParser}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+@AllComponents
+class XWiki20ParallelParserTest
+{
+    private static final String PART = "= Title =\n\nParagraph with **bold** and [[link>>Page]].\n\n"
+        + "* one\n* two\n\n|=a|=b\n|c|d\n\n{{{verbatim\n\n}}}\n\n{{code}}\ncode\n\ncode\n{{/code}}\n\n"
+        + "(((\ngroup\n\ngroup\n)))\n\n== Subtitle ==\n\n[[image:image.png]]\n\n(% class=\"a\" %)\nstyled";
+
+    @InjectComponentManager
+    private MockitoComponentManager componentManager;
+
+    private RenderingMetrics renderingMetrics;
+
+    private ParallelParser parallelParser;
+
+    private Parser parser;
+
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void beforeEach() throws Exception
+    {
+        this.renderingMetrics = this.componentManager.registerMockComponent(RenderingMetrics.class);
+        when(this.renderingMetrics.start(any(), any())).thenReturn(RenderingTimer.NOOP);
+
+        this.parallelParser = this.componentManager.getInstance(ParallelParser.class, "xwiki/2.0");
+        this.parser = this.componentManager.getInstance(Parser.class, "xwiki/2.0");
+        this.pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void afterEach()
+    {
+        this.pool.shutdown();
+    }
+
+    private void assertSameAsSerial(String source) throws Exception
+    {
+        XDOM expected = this.parser.parse(new StringReader(source));
+        XDOM xdom = this.parallelParser.parse(source, this.pool);
+
+        // Generated ids are part of the equality of headers and images
+        assertEquals(expected.getChildren(), xdom.getChildren());
+    }
+
+    @Test
+    void parseSmallSource() throws Exception
+    {
+        assertSameAsSerial(PART);
+    }
+
+    @Test
+    void parseLargeSource() throws Exception
+    {
+        assertSameAsSerial(StringUtils.repeat(PART, "\n\n", 1000));
+    }
+
+    @Test
+    void parseLargeSourceWithoutBoundaries() throws Exception
+    {
+        assertSameAsSerial("{{{" + StringUtils.repeat(PART, "\n\n", 1000) + "}}}");
+    }
+
+    @Test
+    void parseLargeSourceIsMeasured() throws Exception
+    {
+        RenderingTimer timer = mock(RenderingTimer.class);
+        when(this.renderingMetrics.start(RenderingPhase.PARSE, "xwiki/2.0")).thenReturn(timer);
+
+        XDOM xdom = this.parallelParser.parse(StringUtils.repeat(PART, "\n\n", 1000), this.pool);
+
+        verify(timer).setBlocks(Collections.singletonList(xdom));
+        verify(timer).stop();
+    }
+}
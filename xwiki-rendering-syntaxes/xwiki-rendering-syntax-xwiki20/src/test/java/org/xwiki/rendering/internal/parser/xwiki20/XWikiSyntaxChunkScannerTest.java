@@ -0,0 +1,101 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.parser.xwiki20;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link XWikiSyntaxChunkScanner}.
+ *
+ * @version $Id$
+ */
+class XWikiSyntaxChunkScannerTest
+{
+    private List<Integer> scan(String source)
+    {
+        List<Integer> boundaries = new ArrayList<>();
+        assertEquals(source.length(), XWikiSyntaxChunkScanner.scan(source, 0, boundary -> false, boundaries));
+        return boundaries;
+    }
+
+    @Test
+    void scanParagraphs()
+    {
+        assertEquals(Arrays.asList(5, 10), scan("one\n\ntwo\n\nthree"));
+    }
+
+    @Test
+    void scanIgnoresSeveralBlankLinesAndWhiteSpaces()
+    {
+        assertEquals(Collections.emptyList(), scan("one\n\n\ntwo"));
+        assertEquals(Collections.emptyList(), scan("one\n\n two"));
+        assertEquals(Collections.emptyList(), scan("one \n\ntwo"));
+        assertEquals(Collections.emptyList(), scan("one\n\n"));
+    }
+
+    @Test
+    void scanIgnoresNestedBlankLines()
+    {
+        assertEquals(Collections.emptyList(), scan("{{{one\n\ntwo}}}"));
+        assertEquals(Collections.emptyList(), scan("{{code}}one\n\ntwo{{/code}}"));
+        assertEquals(Collections.emptyList(), scan("(((one\n\ntwo)))"));
+        assertEquals(Collections.emptyList(), scan("(% class=\"a\n\nb\" %)one"));
+        assertEquals(Collections.emptyList(), scan("(% class=\"a\" %)\n\none"));
+        assertEquals(Collections.emptyList(), scan("{{box}}{{box}}one{{/box}}\n\ntwo{{/box}}"));
+    }
+
+    @Test
+    void scanAfterClosedConstructs()
+    {
+        assertEquals(Collections.singletonList(13), scan("{{{one}}} a\n\ntwo"));
+        assertEquals(Collections.singletonList(24), scan("{{code}}one{{/code}} a\n\ntwo"));
+        assertEquals(Collections.singletonList(12), scan("{{toc/}} a\n\ntwo"));
+        assertEquals(Collections.singletonList(13), scan("(((one))) a\n\ntwo"));
+        assertEquals(Collections.singletonList(18), scan("{{a}}{{b}}{{/a}}\n\ntwo"));
+    }
+
+    @Test
+    void scanWithEscapes()
+    {
+        assertEquals(Collections.singletonList(8), scan("~{{{ a\n\ntwo"));
+        assertEquals(Collections.emptyList(), scan("{{code}}~{{/code}}\n\ntwo"));
+    }
+
+    @Test
+    void scanUnclosedMacroTag()
+    {
+        assertEquals(Collections.emptyList(), scan("{{code\n\ntwo"));
+    }
+
+    @Test
+    void scanStopsAtRequestedBoundary()
+    {
+        List<Integer> boundaries = new ArrayList<>();
+        assertEquals(10, XWikiSyntaxChunkScanner.scan("one\n\ntwo\n\nthree", 0, boundary -> boundary > 5, boundaries));
+        assertEquals(Collections.singletonList(5), boundaries);
+    }
+}
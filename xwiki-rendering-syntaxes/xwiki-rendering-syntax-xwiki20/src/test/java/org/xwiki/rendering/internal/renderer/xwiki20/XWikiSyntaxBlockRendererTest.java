@@ -20,6 +20,7 @@
 package org.xwiki.rendering.internal.renderer.xwiki20;
 
 import java.util.Arrays;
+import java.util.Collections;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -32,6 +33,7 @@
 import org.xwiki.rendering.block.GroupBlock;
 import org.xwiki.rendering.block.HeaderBlock;
 import org.xwiki.rendering.block.ListItemBlock;
+import org.xwiki.rendering.block.MacroMarkerBlock;
 import org.xwiki.rendering.block.NewLineBlock;
 import org.xwiki.rendering.block.ParagraphBlock;
 import org.xwiki.rendering.block.SectionBlock;
@@ -41,6 +43,7 @@
 import org.xwiki.rendering.block.TableRowBlock;
 import org.xwiki.rendering.block.WordBlock;
 import org.xwiki.rendering.listener.HeaderLevel;
+import org.xwiki.rendering.listener.Listener;
 import org.xwiki.rendering.renderer.BlockRenderer;
 import org.xwiki.rendering.renderer.printer.DefaultWikiPrinter;
 import org.xwiki.rendering.syntax.Syntax;
@@ -48,6 +51,7 @@
 import org.xwiki.test.junit5.mockito.ComponentTest;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
 
 @ComponentTest
 @AllComponents
@@ -233,4 +237,19 @@ public void listItemWithStandaloneContent()
                     Arrays.asList(new WordBlock("word")))))));
         assertEquals("* (((\nword\n)))", render(block));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void macroMarkerContentIsNotTraversed()
+    {
+        Block content = new WordBlock("content")
+        {
+            @Override
+            public void traverse(Listener listener)
+            {
+                fail("The content of the macro marker should not be traversed");
+            }
+        };
+        Block block = new MacroMarkerBlock("macro", Collections.emptyMap(), Arrays.asList(content), false);
+        assertEquals("{{macro/}}", render(block));
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.parser.xwiki21;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.rendering.internal.parser.xwiki20.AbstractParallelXWikiParser;
+import org.xwiki.rendering.parser.Parser;
+
+/**
+ * Parallel parser for XWiki Syntax 2.1.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Component
+@Named("xwiki/2.1")
+@Singleton
+public class XWiki21ParallelParser extends AbstractParallelXWikiParser
+{
+    @Inject
+    @Named("xwiki/2.1")
+    private Parser parser;
+
+    @Override
+    protected Parser getParser()
+    {
+        return this.parser;
+    }
+}
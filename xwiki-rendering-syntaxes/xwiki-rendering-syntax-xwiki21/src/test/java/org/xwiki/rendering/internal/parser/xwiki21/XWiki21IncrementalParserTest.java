@@ -0,0 +1,127 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.parser.xwiki21;
+
+import java.io.StringReader;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.ParagraphBlock;
+import org.xwiki.rendering.block.match.ClassBlockMatcher;
+import org.xwiki.rendering.parser.IncrementalParser;
+import org.xwiki.rendering.parser.IncrementalXDOM;
+import org.xwiki.rendering.parser.Parser;
+import org.xwiki.rendering.parser.TextEdit;
+import org.xwiki.test.annotation.AllComponents;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit tests for {@link XWiki21IncrementalParser}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+@AllComponents
+class XWiki21IncrementalParserTest
+{
+    private static final String SOURCE = "= Title =\n\nfirst\n\nsecond\n\nthird\n\nfourth\n\nfifth";
+
+    private IncrementalParser incrementalParser;
+
+    private Parser parser;
+
+    @BeforeEach
+    void beforeEach(ComponentManager componentManager) throws Exception
+    {
+        this.incrementalParser = componentManager.getInstance(IncrementalParser.class, "xwiki/2.1");
+        this.parser = componentManager.getInstance(Parser.class, "xwiki/2.1");
+    }
+
+    private IncrementalXDOM edit(IncrementalXDOM previous, String target, String replacement) throws Exception
+    {
+        int offset = previous.getSource().indexOf(target);
+        IncrementalXDOM result =
+            this.incrementalParser.parse(previous, new TextEdit(offset, target.length(), replacement));
+
+        // The result must be the same as a full parse
+        assertEquals(previous.getSource().substring(0, offset) + replacement
+            + previous.getSource().substring(offset + target.length()), result.getSource());
+        assertEquals(this.parser.parse(new StringReader(result.getSource())).getChildren(),
+            result.getXDOM().getChildren());
+
+        return result;
+    }
+
+    private Block getParagraph(IncrementalXDOM document, int index)
+    {
+        return document.getXDOM().<Block>getBlocks(new ClassBlockMatcher(ParagraphBlock.class), Block.Axes.DESCENDANT)
+            .get(index);
+    }
+
+    @Test
+    void parse() throws Exception
+    {
+        IncrementalXDOM document = this.incrementalParser.parse(SOURCE);
+
+        assertEquals(SOURCE, document.getSource());
+        assertEquals(this.parser.parse(new StringReader(SOURCE)).getChildren(), document.getXDOM().getChildren());
+    }
+
+    @Test
+    void editParagraph() throws Exception
+    {
+        IncrementalXDOM document = this.incrementalParser.parse(SOURCE);
+        Block first = getParagraph(document, 0);
+        Block fourth = getParagraph(document, 3);
+
+        document = edit(document, "fourth", "4th **bold**");
+
+        // Only the blocks around the edit are parsed again
+        assertSame(first, getParagraph(document, 0));
+        assertNotSame(fourth, getParagraph(document, 3));
+    }
+
+    @Test
+    void editsChangingTheStructure() throws Exception
+    {
+        IncrementalXDOM document = this.incrementalParser.parse(SOURCE);
+
+        // Merge paragraphs
+        document = edit(document, "third\n\n", "third ");
+        // Split a paragraph
+        document = edit(document, "third fourth", "third\n\n\nfourth");
+        // Open a verbatim block swallowing the end of the document, and close it
+        document = edit(document, "second", "{{{second");
+        document = edit(document, "fifth", "fifth}}}");
+        // Open a macro
+        document = edit(document, "{{{second", "{{code}}second");
+        document = edit(document, "fifth}}}", "fifth{{/code}}");
+        // Add a list and a table
+        document = edit(document, "first", "* one\n* two\n\n|a|b");
+        // Add a heading, which changes the sections
+        edit(document, "fifth", "== Subtitle ==\n\nfifth");
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.parser.xwiki21;
+
+import java.io.StringReader;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.parser.ParallelParser;
+import org.xwiki.rendering.parser.Parser;
+import org.xwiki.test.annotation.AllComponents;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link XWiki21ParallelParser}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+@AllComponents
+class XWiki21ParallelParserTest
+{
+    private static final String PART = "= Title =\n\nParagraph with **bold** and [[link>>Page]].\n\n"
+        + "* one\n* two\n\n|=a|=b\n|c|d\n\n{{{verbatim\n\n}}}\n\n{{code}}\ncode\n\ncode\n{{/code}}\n\n"
+        + "(((\ngroup\n\ngroup\n)))\n\n== Subtitle ==\n\n[[image:image.png]]\n\n(% class=\"a\" %)\nstyled";
+
+    private ParallelParser parallelParser;
+
+    private Parser parser;
+
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void beforeEach(ComponentManager componentManager) throws Exception
+    {
+        this.parallelParser = componentManager.getInstance(ParallelParser.class, "xwiki/2.1");
+        this.parser = componentManager.getInstance(Parser.class, "xwiki/2.1");
+        this.pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void afterEach()
+    {
+        this.pool.shutdown();
+    }
+
+    private void assertSameAsSerial(String source) throws Exception
+    {
+        XDOM expected = this.parser.parse(new StringReader(source));
+        XDOM xdom = this.parallelParser.parse(source, this.pool);
+
+        // Generated ids are part of the equality of headers and images
+        assertEquals(expected.getChildren(), xdom.getChildren());
+    }
+
+    @Test
+    void parseSmallSource() throws Exception
+    {
+        assertSameAsSerial(PART);
+    }
+
+    @Test
+    void parseLargeSource() throws Exception
+    {
+        assertSameAsSerial(StringUtils.repeat(PART, "\n\n", 1000));
+    }
+
+    @Test
+    void parseLargeSourceWithoutBoundaries() throws Exception
+    {
+        assertSameAsSerial("{{{" + StringUtils.repeat(PART, "\n\n", 1000) + "}}}");
+    }
+}
@@ -21,6 +21,7 @@
 
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.Collections;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -37,6 +38,7 @@
 import org.xwiki.rendering.parser.Parser;
 import org.xwiki.rendering.parser.StreamParser;
 import org.xwiki.rendering.renderer.BlockRenderer;
+import org.xwiki.rendering.renderer.ParallelBlockRenderer;
 import org.xwiki.rendering.renderer.PrintRenderer;
 import org.xwiki.rendering.renderer.PrintRendererFactory;
 import org.xwiki.rendering.renderer.printer.DefaultWikiPrinter;
@@ -44,6 +46,7 @@
 import org.xwiki.rendering.syntax.Syntax;
 import org.xwiki.rendering.syntax.SyntaxRegistry;
 import org.xwiki.rendering.test.cts.junit5.RenderingTest;
+import org.xwiki.rendering.test.performance.PerformanceChecker;
 import org.xwiki.rendering.transformation.RenderingContext;
 import org.xwiki.xml.XMLUtils;
 
@@ -204,7 +207,8 @@ private void executeTest(String inputData, String inputSyntaxId, String expected
         String evaluatedInputData = evaluateContent(fullInputData, validatedSyntax);
         String evaluatedOutputData = evaluateContent(fullExpectedOutputData, validatedSyntax);
 
-        String result = convert(evaluatedInputData, inputSyntax.toIdString(), expectedSyntax.toIdString());
+        String result =
+            convert(evaluatedInputData, inputSyntax.toIdString(), expectedSyntax.toIdString(), true);
         try {
             if (isXMLSyntax(outputSyntaxId)) {
                 assertExpectedResult(
@@ -216,6 +220,12 @@ private void executeTest(String inputData, String inputSyntaxId, String expected
         } catch (ParseException e) {
             throw new RuntimeException(String.format("Failed to compare expected result with [%s]", result), e);
         }
+
+        PerformanceChecker performanceChecker = PerformanceChecker.getInstance();
+        if (performanceChecker.isEnabled()) {
+            performanceChecker.check(getTestData().computeTestName(),
+                () -> convert(evaluatedInputData, inputSyntax.toIdString(), expectedSyntax.toIdString(), false));
+        }
     }
 
     private boolean isStreamingTest(String inputSyntaxId, String outputSyntaxId)
@@ -267,7 +277,8 @@ private boolean isXDOMXMLSyntax(String syntaxId)
         return syntaxId.startsWith("xdom+xml");
     }
 
-    private String convert(String source, String sourceSyntaxId, String targetSyntaxId) throws Exception
+    private String convert(String source, String sourceSyntaxId, String targetSyntaxId,
+        boolean verifyParallelRendering) throws Exception
     {
         String result;
 
@@ -293,6 +304,10 @@ private String convert(String source, String sourceSyntaxId, String targetSyntax
                 BlockRenderer blockRenderer = getComponentManager().getInstance(BlockRenderer.class, targetSyntaxId);
                 result = convert(source, parser, blockRenderer);
             }
+
+            if (verifyParallelRendering) {
+                verifyParallelRendering(source, sourceSyntaxId, targetSyntaxId);
+            }
         } finally {
             ((MutableRenderingContext) renderingContext).pop();
             Execution execution = getComponentManager().getInstance(Execution.class);
@@ -308,6 +323,32 @@ private String convert(String source, StreamParser parser, PrintRendererFactory
         return renderer.getPrinter().toString();
     }
 
+    /**
+     * Verify that the parallel renderer of the target syntax, if any, produces the same result as the serial one. The
+     * parts of the document are rendered on the calling thread which has the execution context.
+     */
+    private void verifyParallelRendering(String source, String sourceSyntaxId, String targetSyntaxId)
+        throws Exception
+    {
+        if (getComponentManager().hasComponent(ParallelBlockRenderer.class, targetSyntaxId)
+            && getComponentManager().hasComponent(Parser.class, sourceSyntaxId)) {
+            Parser parser = getComponentManager().getInstance(Parser.class, sourceSyntaxId);
+            XDOM xdom = parser.parse(new StringReader(source));
+
+            WikiPrinter expected = new DefaultWikiPrinter();
+            getComponentManager().<BlockRenderer>getInstance(BlockRenderer.class, targetSyntaxId)
+                .render(xdom, expected);
+            WikiPrinter result = new DefaultWikiPrinter();
+            getComponentManager().<ParallelBlockRenderer>getInstance(ParallelBlockRenderer.class, targetSyntaxId)
+                .render(Collections.singletonList(xdom), result, Runnable::run);
+
+            if (!expected.toString().equals(result.toString())) {
+                throwAssertionException("The parallel rendering doesn't match the serial rendering",
+                    expected.toString(), result.toString());
+            }
+        }
+    }
+
     private String convert(String source, Parser parser, BlockRenderer blockRenderer) throws Exception
     {
         XDOM xdom = parser.parse(new StringReader(source));
@@ -328,7 +369,7 @@ private String convert(String source, Parser parser, BlockRenderer blockRenderer
      */
     private String normalizeXMLContent(String content, String syntaxId) throws Exception
     {
-        return convert(content, syntaxId, syntaxId);
+        return convert(content, syntaxId, syntaxId, false);
     }
 
     private String insertXMLMetadata(String content, Syntax validatedSyntax)
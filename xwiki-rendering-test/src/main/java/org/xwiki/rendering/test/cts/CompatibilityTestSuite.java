@@ -82,6 +82,10 @@
  *     }
  * }
  * </code></pre>
+ * <p>
+ * The allocations and wall time of the tests can also be compared with a baseline by enabling the performance mode
+ * described in {@link org.xwiki.rendering.test.performance.PerformanceChecker}.
+ * </p>
  *
  * @version $Id$
  * @since 4.1M1
@@ -20,6 +20,7 @@
 package org.xwiki.rendering.test.integration;
 
 import java.io.StringReader;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,15 +39,18 @@
 import org.xwiki.rendering.parser.Parser;
 import org.xwiki.rendering.parser.StreamParser;
 import org.xwiki.rendering.renderer.BlockRenderer;
+import org.xwiki.rendering.renderer.ParallelBlockRenderer;
 import org.xwiki.rendering.renderer.PrintRendererFactory;
 import org.xwiki.rendering.renderer.printer.DefaultWikiPrinter;
 import org.xwiki.rendering.renderer.printer.WikiPrinter;
 import org.xwiki.rendering.syntax.Syntax;
 import org.xwiki.rendering.syntax.SyntaxRegistry;
+import org.xwiki.rendering.test.performance.PerformanceChecker;
 import org.xwiki.rendering.transformation.RenderingContext;
 import org.xwiki.rendering.transformation.Transformation;
 import org.xwiki.rendering.transformation.TransformationContext;
 import org.xwiki.rendering.transformation.TransformationManager;
+import org.xwiki.stability.Unstable;
 import org.xwiki.test.internal.MockConfigurationSource;
 
 /**
@@ -86,6 +90,8 @@
 
     private ComponentManager componentManager;
 
+    private String name;
+
     public AbstractRenderingTest(String input, String expected, String parserId, String targetSyntaxId,
         boolean streaming, List<String> transformations, Map<String, ?> configuration,
         ComponentManager componentManager)
@@ -139,7 +145,39 @@ public void execute() throws Exception
         }
     }
 
+    /**
+     * @param name the name of the test, used as the key of the test in the performance baseline
+     * @since 15.0RC1
+     */
+    @Unstable
+    public void setName(String name)
+    {
+        this.name = name;
+    }
+
+    private String getName()
+    {
+        if (this.name == null) {
+            // Fallback for tests created without a name: identify them by their configuration and input.
+            return String.format("%08x [%s, %s]", this.input.hashCode(), this.parserId, this.targetSyntaxId);
+        }
+        return this.name;
+    }
+
     private void runTestInternal() throws Exception
+    {
+        String result = render(true);
+
+        // Verify the expected result against the result we got.
+        assertExpectedResult(this.expected, result);
+
+        PerformanceChecker performanceChecker = PerformanceChecker.getInstance();
+        if (performanceChecker.isEnabled()) {
+            performanceChecker.check(getName(), () -> render(false));
+        }
+    }
+
+    private String render(boolean verifyParallelRendering) throws Exception
     {
         WikiPrinter printer = new DefaultWikiPrinter();
 
@@ -173,6 +211,10 @@ private void runTestInternal() throws Exception
                     xdom = new XDOM(xdom.getChildren(), new MetaData(metadataMap));
                 }
                 renderer.render(xdom, printer);
+
+                if (verifyParallelRendering) {
+                    verifyParallelRendering(xdom, printer.toString());
+                }
             } else {
                 PrintRendererFactory streamRendererFactory =
                     getComponentManager().getInstance(PrintRendererFactory.class, this.targetSyntaxId);
@@ -188,8 +230,26 @@ private void runTestInternal() throws Exception
             execution.removeContext();
         }
 
-        // Verify the expected result against the result we got.
-        assertExpectedResult(this.expected, printer.toString());
+        return printer.toString();
+    }
+
+    /**
+     * Verify that the parallel renderer of the target syntax, if any, produces the same result as the serial one. The
+     * parts of the document are rendered on the calling thread which has the execution context.
+     */
+    private void verifyParallelRendering(XDOM xdom, String expected) throws Exception
+    {
+        if (getComponentManager().hasComponent(ParallelBlockRenderer.class, this.targetSyntaxId)) {
+            ParallelBlockRenderer renderer =
+                getComponentManager().getInstance(ParallelBlockRenderer.class, this.targetSyntaxId);
+            WikiPrinter printer = new DefaultWikiPrinter();
+            renderer.render(Collections.singletonList(xdom), printer, Runnable::run);
+
+            if (!expected.equals(printer.toString())) {
+                throwAssertionException("The parallel rendering doesn't match the serial rendering", expected,
+                    printer.toString());
+            }
+        }
     }
 
     private void runTransformations(XDOM xdom, StreamParser streamParser) throws Exception
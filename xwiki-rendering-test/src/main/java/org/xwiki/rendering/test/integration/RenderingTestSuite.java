@@ -71,6 +71,8 @@
  * }
  * </code>
  * </pre>
+ * <p>The allocations and wall time of the tests can also be compared with a baseline by enabling the performance mode
+ * described in {@link org.xwiki.rendering.test.performance.PerformanceChecker}.</p>
  *
  * @version $Id$
  * @since 3.0RC1
@@ -126,8 +128,12 @@ private class TestClassRunnerForParameters extends
         @Override
         public Object createTest() throws Exception
         {
-            return getTestClass().getOnlyConstructor().newInstance(
+            Object test = getTestClass().getOnlyConstructor().newInstance(
                 computeParams());
+            if (test instanceof AbstractRenderingTest) {
+                ((AbstractRenderingTest) test).setName(getName());
+            }
+            return test;
         }
 
         private Object[] computeParams() throws Exception
@@ -73,6 +73,7 @@ public void execute(Object[] objects, Object testInstance) throws Exception
             RenderingTest renderingTest = new RenderingTest((String) newObjects[0], (String) newObjects[1],
                 (String) newObjects[2], (String) newObjects[3], (boolean) newObjects[4], (List<String>) newObjects[5],
                 (Map<String, ?>) newObjects[6], (ComponentManager) newObjects[7]);
+            renderingTest.setName((String) objects[0]);
             renderingTest.execute();
         } finally {
             shutdownComponentManager(testInstance);
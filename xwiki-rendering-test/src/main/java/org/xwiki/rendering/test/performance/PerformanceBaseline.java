@@ -0,0 +1,138 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.test.performance;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.xwiki.stability.Unstable;
+
+/**
+ * The reference measures of the rendering tests of a module, checked-in along with the tests. The file holds one test
+ * per line, sorted by test name so that it produces readable diffs when recorded again:
+ * <pre>
+ * <code>
+ * # allocated bytes	duration (ns)	test name
+ * 48216	41200	simple/bold/bold1.test [xwiki/2.0, xhtml/1.0]
+ * </code>
+ * </pre>
+ * Empty lines and lines starting with {@code #} are ignored.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public class PerformanceBaseline
+{
+    private static final String COMMENT = "#";
+
+    private static final char SEPARATOR = '\t';
+
+    private final Map<String, PerformanceMeasure> measures = new TreeMap<>();
+
+    /**
+     * @param file the baseline file to read
+     * @return the loaded baseline, empty if the file doesn't exist
+     * @throws IOException if the file cannot be read or has an invalid format
+     */
+    public static PerformanceBaseline load(Path file) throws IOException
+    {
+        PerformanceBaseline baseline = new PerformanceBaseline();
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!StringUtils.isBlank(line) && !line.startsWith(COMMENT)) {
+                        baseline.put(parseName(line, file), parseMeasure(line, file));
+                    }
+                }
+            }
+        }
+        return baseline;
+    }
+
+    private static String parseName(String line, Path file) throws IOException
+    {
+        int index = StringUtils.ordinalIndexOf(line, String.valueOf(SEPARATOR), 2);
+        if (index < 0) {
+            throw new IOException(String.format("Invalid line [%s] in performance baseline [%s]", line, file));
+        }
+        return line.substring(index + 1);
+    }
+
+    private static PerformanceMeasure parseMeasure(String line, Path file) throws IOException
+    {
+        String[] values = StringUtils.split(line, SEPARATOR);
+        try {
+            return new PerformanceMeasure(Long.parseLong(values[0]), Long.parseLong(values[1]));
+        } catch (NumberFormatException e) {
+            throw new IOException(String.format("Invalid line [%s] in performance baseline [%s]", line, file), e);
+        }
+    }
+
+    /**
+     * @param name the test name
+     * @return the reference measure for the passed test or {@code null} if there's none
+     */
+    public synchronized PerformanceMeasure get(String name)
+    {
+        return this.measures.get(name);
+    }
+
+    /**
+     * @param name the test name
+     * @param measure the new reference measure for the passed test
+     */
+    public synchronized void put(String name, PerformanceMeasure measure)
+    {
+        this.measures.put(name, measure);
+    }
+
+    /**
+     * @param file the file to write the baseline to, replacing its content
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void store(Path file) throws IOException
+    {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("# allocated bytes\tduration (ns)\ttest name");
+            writer.newLine();
+            for (Map.Entry<String, PerformanceMeasure> entry : this.measures.entrySet()) {
+                writer.write(String.valueOf(entry.getValue().getAllocatedBytes()));
+                writer.write(SEPARATOR);
+                writer.write(String.valueOf(entry.getValue().getDurationNanos()));
+                writer.write(SEPARATOR);
+                writer.write(entry.getKey());
+                writer.newLine();
+            }
+        }
+    }
+}
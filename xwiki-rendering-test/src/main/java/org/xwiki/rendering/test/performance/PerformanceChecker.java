@@ -0,0 +1,305 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.test.performance;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Opt-in performance mode for the rendering test frameworks
+ * ({@link org.xwiki.rendering.test.integration.RenderingTestSuite} and
+ * {@link org.xwiki.rendering.test.cts.CompatibilityTestSuite}). Once a test has passed, its pipeline is executed again
+ * several times, the allocated bytes and wall time are measured and compared with the module's baseline.
+ * <p>
+ * The mode is configured with the following system properties, so that any module having {@code .test} or CTS data
+ * gets allocation budgets without writing new test code:
+ * <ul>
+ * <li>{@code xwiki.rendering.test.performance}: {@code off} (default), {@code report}, {@code fail} or
+ * {@code record}, see {@link PerformanceMode}</li>
+ * <li>{@code xwiki.rendering.test.performance.baseline}: the baseline file, defaults to
+ * {@code src/test/resources/rendering-performance-baseline.txt}</li>
+ * <li>{@code xwiki.rendering.test.performance.iterations}: the number of measured executions, defaults to 10</li>
+ * <li>{@code xwiki.rendering.test.performance.warmup}: the number of executions before measuring, defaults to 3</li>
+ * <li>{@code xwiki.rendering.test.performance.allocationThreshold}: the tolerated relative increase of allocated
+ * bytes, defaults to 0.1 (10%)</li>
+ * <li>{@code xwiki.rendering.test.performance.timeThreshold}: the tolerated relative increase of wall time, defaults
+ * to 1.0 (100%) since time is much noisier than allocations on shared build agents</li>
+ * </ul>
+ * For example: {@code mvn test -Dxwiki.rendering.test.performance=record} to create or update the baseline and
+ * {@code mvn test -Dxwiki.rendering.test.performance=fail} to check it.
+ * <p>
+ * The syntax modules don't commit a baseline yet: the measures depend on the JVM and the machine, so they have to be
+ * recorded on the build agent which checks them. Until a module commits its baseline file, its tests are only
+ * reported as having no baseline.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public final class PerformanceChecker
+{
+    private static final String PROPERTY_PREFIX = "xwiki.rendering.test.performance";
+
+    private static final String DEFAULT_BASELINE = "src/test/resources/rendering-performance-baseline.txt";
+
+    /**
+     * Regressions smaller than this number of bytes are ignored, whatever the threshold, to avoid failing small tests
+     * on noise.
+     */
+    private static final long MINIMUM_ALLOCATION_DELTA = 1024;
+
+    /**
+     * Regressions smaller than this duration are ignored, whatever the threshold, to avoid failing small tests on
+     * noise (100 microseconds).
+     */
+    private static final long MINIMUM_DURATION_DELTA = 100_000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PerformanceChecker.class);
+
+    private static PerformanceChecker instance;
+
+    private final PerformanceMode mode;
+
+    private final Path baselineFile;
+
+    private final int iterations;
+
+    private final int warmup;
+
+    private final double allocationThreshold;
+
+    private final double timeThreshold;
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    private PerformanceBaseline baseline;
+
+    private PerformanceBaseline recorded;
+
+    private PerformanceChecker()
+    {
+        this(PerformanceMode.valueOf(
+            System.getProperty(PROPERTY_PREFIX, PerformanceMode.OFF.name()).toUpperCase(Locale.ROOT)),
+            Paths.get(System.getProperty(PROPERTY_PREFIX + ".baseline", DEFAULT_BASELINE)),
+            Integer.getInteger(PROPERTY_PREFIX + ".iterations", 10), Integer.getInteger(PROPERTY_PREFIX + ".warmup", 3),
+            Double.parseDouble(System.getProperty(PROPERTY_PREFIX + ".allocationThreshold", "0.1")),
+            Double.parseDouble(System.getProperty(PROPERTY_PREFIX + ".timeThreshold", "1.0")));
+    }
+
+    /**
+     * @param mode the performance mode
+     * @param baselineFile the baseline file
+     * @param iterations the number of measured executions
+     * @param warmup the number of executions before measuring
+     * @param allocationThreshold the tolerated relative increase of allocated bytes
+     * @param timeThreshold the tolerated relative increase of wall time
+     */
+    PerformanceChecker(PerformanceMode mode, Path baselineFile, int iterations, int warmup,
+        double allocationThreshold, double timeThreshold)
+    {
+        this.mode = mode;
+        this.baselineFile = baselineFile;
+        this.iterations = Math.max(1, iterations);
+        this.warmup = Math.max(0, warmup);
+        this.allocationThreshold = allocationThreshold;
+        this.timeThreshold = timeThreshold;
+    }
+
+    /**
+     * @return the checker configured from the system properties
+     */
+    public static synchronized PerformanceChecker getInstance()
+    {
+        if (instance == null) {
+            instance = new PerformanceChecker();
+        }
+        return instance;
+    }
+
+    /**
+     * @return {@code true} if the performance of the tests should be measured
+     */
+    public boolean isEnabled()
+    {
+        return this.mode != PerformanceMode.OFF;
+    }
+
+    /**
+     * Execute the passed pipeline several times and compare its median cost with the baseline, depending on the
+     * configured {@link PerformanceMode}.
+     *
+     * @param name the name of the test, used as key in the baseline
+     * @param pipeline the full parse, transform and render pipeline of the test
+     * @throws Exception if the pipeline fails
+     * @throws AssertionError if the test regressed beyond the thresholds and the mode is {@link PerformanceMode#FAIL}
+     */
+    public void check(String name, Callable<?> pipeline) throws Exception
+    {
+        if (!isEnabled()) {
+            return;
+        }
+
+        PerformanceMeasure measure = measure(pipeline);
+
+        if (this.mode == PerformanceMode.RECORD) {
+            getRecorded().put(name, measure);
+        } else {
+            PerformanceMeasure reference = getBaseline().get(name);
+            if (reference == null) {
+                LOGGER.info("No performance baseline for test [{}]: {}", name, measure);
+            } else {
+                String regression =
+                    getRegression(reference, measure, this.allocationThreshold, this.timeThreshold);
+                if (regression != null) {
+                    String message = String.format("Performance regression for test [%s]: %s", name, regression);
+                    if (this.mode == PerformanceMode.FAIL) {
+                        throw new AssertionError(message);
+                    }
+                    LOGGER.warn(message);
+                }
+            }
+        }
+    }
+
+    private PerformanceMeasure measure(Callable<?> pipeline) throws Exception
+    {
+        for (int i = 0; i < this.warmup; i++) {
+            pipeline.call();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long[] allocations = new long[this.iterations];
+        long[] durations = new long[this.iterations];
+        for (int i = 0; i < this.iterations; i++) {
+            long allocationStart = getAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            pipeline.call();
+            durations[i] = System.nanoTime() - start;
+            long allocationEnd = getAllocatedBytes(threadId);
+            if (allocationStart == PerformanceMeasure.UNKNOWN || allocationEnd == PerformanceMeasure.UNKNOWN) {
+                allocations[i] = PerformanceMeasure.UNKNOWN;
+            } else {
+                allocations[i] = allocationEnd - allocationStart;
+            }
+        }
+
+        // Use the median to be resilient to GC pauses and JIT compilations
+        return new PerformanceMeasure(median(allocations), median(durations));
+    }
+
+    private long getAllocatedBytes(long threadId)
+    {
+        if (this.threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) this.threadBean).getThreadAllocatedBytes(threadId);
+        }
+        return PerformanceMeasure.UNKNOWN;
+    }
+
+    private static long median(long[] values)
+    {
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+
+    /**
+     * @param reference the measure from the baseline
+     * @param measure the new measure
+     * @param allocationThreshold the tolerated relative increase of allocated bytes
+     * @param timeThreshold the tolerated relative increase of wall time
+     * @return the description of the regression, or {@code null} if the new measure is within the thresholds
+     */
+    static String getRegression(PerformanceMeasure reference, PerformanceMeasure measure,
+        double allocationThreshold, double timeThreshold)
+    {
+        StringBuilder regression = new StringBuilder();
+        if (reference.getAllocatedBytes() != PerformanceMeasure.UNKNOWN
+            && measure.getAllocatedBytes() != PerformanceMeasure.UNKNOWN
+            && isRegression(reference.getAllocatedBytes(), measure.getAllocatedBytes(), allocationThreshold,
+                MINIMUM_ALLOCATION_DELTA))
+        {
+            regression.append(String.format("allocated [%d] bytes instead of [%d]", measure.getAllocatedBytes(),
+                reference.getAllocatedBytes()));
+        }
+        if (isRegression(reference.getDurationNanos(), measure.getDurationNanos(), timeThreshold,
+            MINIMUM_DURATION_DELTA))
+        {
+            if (regression.length() > 0) {
+                regression.append(", ");
+            }
+            regression.append(String.format("took [%d] ns instead of [%d]", measure.getDurationNanos(),
+                reference.getDurationNanos()));
+        }
+        return regression.length() > 0 ? regression.toString() : null;
+    }
+
+    private static boolean isRegression(long reference, long value, double threshold, long minimumDelta)
+    {
+        long delta = value - reference;
+        return delta > minimumDelta && delta > reference * threshold;
+    }
+
+    private synchronized PerformanceBaseline getBaseline()
+    {
+        if (this.baseline == null) {
+            if (this.mode != PerformanceMode.RECORD && !Files.exists(this.baselineFile)) {
+                LOGGER.warn("No performance baseline [{}], the performance of the tests is not checked. Record it "
+                    + "with -D{}=record", this.baselineFile.toAbsolutePath(), PROPERTY_PREFIX);
+            }
+            try {
+                this.baseline = PerformanceBaseline.load(this.baselineFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException(
+                    String.format("Failed to load the performance baseline [%s]", this.baselineFile), e);
+            }
+        }
+        return this.baseline;
+    }
+
+    private synchronized PerformanceBaseline getRecorded()
+    {
+        if (this.recorded == null) {
+            // Start from the existing baseline so that running a subset of the tests only updates their entries.
+            this.recorded = getBaseline();
+            Runtime.getRuntime().addShutdownHook(new Thread(this::storeRecorded, "Rendering performance baseline"));
+        }
+        return this.recorded;
+    }
+
+    private void storeRecorded()
+    {
+        try {
+            this.recorded.store(this.baselineFile);
+        } catch (IOException e) {
+            LOGGER.error("Failed to write the performance baseline [{}]", this.baselineFile, e);
+        }
+    }
+}
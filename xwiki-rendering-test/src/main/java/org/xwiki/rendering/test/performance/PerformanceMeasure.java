@@ -0,0 +1,74 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.test.performance;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * The cost of a single execution of a rendering test pipeline (parse, transform and render), as measured by
+ * {@link PerformanceChecker}.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public class PerformanceMeasure
+{
+    /**
+     * Value used when the JVM doesn't support measuring the allocated bytes of a thread.
+     */
+    public static final long UNKNOWN = -1;
+
+    private final long allocatedBytes;
+
+    private final long durationNanos;
+
+    /**
+     * @param allocatedBytes the number of bytes allocated by the executing thread or {@link #UNKNOWN}
+     * @param durationNanos the wall time in nanoseconds
+     */
+    public PerformanceMeasure(long allocatedBytes, long durationNanos)
+    {
+        this.allocatedBytes = allocatedBytes;
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * @return the number of bytes allocated by the executing thread or {@link #UNKNOWN}
+     */
+    public long getAllocatedBytes()
+    {
+        return this.allocatedBytes;
+    }
+
+    /**
+     * @return the wall time in nanoseconds
+     */
+    public long getDurationNanos()
+    {
+        return this.durationNanos;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("allocated bytes = [%d], duration = [%d ns]", this.allocatedBytes, this.durationNanos);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.test.performance;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * What to do with the measures taken by {@link PerformanceChecker}.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public enum PerformanceMode
+{
+    /**
+     * Performance is not measured (the default).
+     */
+    OFF,
+
+    /**
+     * Log the tests which regressed beyond the threshold compared to the baseline.
+     */
+    REPORT,
+
+    /**
+     * Fail the tests which regressed beyond the threshold compared to the baseline.
+     */
+    FAIL,
+
+    /**
+     * Record the measures as the new baseline, written when the JVM exits.
+     */
+    RECORD
+}
@@ -0,0 +1,108 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.test.performance;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link PerformanceBaseline}.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+class PerformanceBaselineTest
+{
+    private static final String NAME = "simple/bold/bold1.test [xwiki/2.0, xhtml/1.0]";
+
+    @TempDir
+    Path directory;
+
+    private Path write(String... lines) throws IOException
+    {
+        Path file = this.directory.resolve("baseline.txt");
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Test
+    void loadWhenFileDoesNotExist() throws Exception
+    {
+        PerformanceBaseline baseline = PerformanceBaseline.load(this.directory.resolve("missing.txt"));
+
+        assertNull(baseline.get(NAME));
+    }
+
+    @Test
+    void load() throws Exception
+    {
+        PerformanceBaseline baseline = PerformanceBaseline.load(
+            write("# allocated bytes\tduration (ns)\ttest name", "", "48216\t41200\t" + NAME, "  ", "-1\t10\tother"));
+
+        assertEquals(48216, baseline.get(NAME).getAllocatedBytes());
+        assertEquals(41200, baseline.get(NAME).getDurationNanos());
+        assertEquals(PerformanceMeasure.UNKNOWN, baseline.get("other").getAllocatedBytes());
+        assertNull(baseline.get("missing"));
+    }
+
+    @Test
+    void loadWhenNameIsMissing() throws Exception
+    {
+        Path file = write("48216\t41200");
+
+        assertThrows(IOException.class, () -> PerformanceBaseline.load(file));
+    }
+
+    @Test
+    void loadWhenMeasureIsNotANumber() throws Exception
+    {
+        Path file = write("48216\tfast\t" + NAME);
+
+        assertThrows(IOException.class, () -> PerformanceBaseline.load(file));
+    }
+
+    @Test
+    void storeAndLoad() throws Exception
+    {
+        PerformanceBaseline baseline = new PerformanceBaseline();
+        baseline.put(NAME, new PerformanceMeasure(48216, 41200));
+        baseline.put("other", new PerformanceMeasure(PerformanceMeasure.UNKNOWN, 10));
+
+        Path file = this.directory.resolve("sub/baseline.txt");
+        baseline.store(file);
+
+        assertEquals(Arrays.asList("# allocated bytes\tduration (ns)\ttest name", "-1\t10\tother",
+            "48216\t41200\t" + NAME), Files.readAllLines(file, StandardCharsets.UTF_8));
+
+        PerformanceBaseline loaded = PerformanceBaseline.load(file);
+        assertEquals(48216, loaded.get(NAME).getAllocatedBytes());
+        assertEquals(10, loaded.get("other").getDurationNanos());
+    }
+}
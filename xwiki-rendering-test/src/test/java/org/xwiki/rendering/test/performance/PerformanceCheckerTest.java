@@ -0,0 +1,133 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.test.performance;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link PerformanceChecker}.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+class PerformanceCheckerTest
+{
+    private static final String NAME = "test";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void getRegressionWithinThresholds()
+    {
+        assertNull(PerformanceChecker.getRegression(new PerformanceMeasure(100_000, 1_000_000),
+            new PerformanceMeasure(109_000, 1_900_000), 0.1, 1.0));
+    }
+
+    @Test
+    void getRegressionWhenAllocationsIncrease()
+    {
+        assertEquals("allocated [120000] bytes instead of [100000]", PerformanceChecker.getRegression(
+            new PerformanceMeasure(100_000, 1_000_000), new PerformanceMeasure(120_000, 1_000_000), 0.1, 1.0));
+    }
+
+    @Test
+    void getRegressionWhenDurationIncreases()
+    {
+        assertEquals("allocated [120000] bytes instead of [100000], took [2100000] ns instead of [1000000]",
+            PerformanceChecker.getRegression(new PerformanceMeasure(100_000, 1_000_000),
+                new PerformanceMeasure(120_000, 2_100_000), 0.1, 1.0));
+    }
+
+    @Test
+    void getRegressionIgnoresSmallDeltas()
+    {
+        // Beyond the relative thresholds but below the minimum deltas (1KB and 100 microseconds)
+        assertNull(PerformanceChecker.getRegression(new PerformanceMeasure(100, 1_000),
+            new PerformanceMeasure(1_000, 90_000), 0.1, 1.0));
+    }
+
+    @Test
+    void getRegressionIgnoresUnknownAllocations()
+    {
+        assertNull(PerformanceChecker.getRegression(new PerformanceMeasure(PerformanceMeasure.UNKNOWN, 1_000_000),
+            new PerformanceMeasure(1_000_000, 1_000_000), 0.1, 1.0));
+        assertNull(PerformanceChecker.getRegression(new PerformanceMeasure(100_000, 1_000_000),
+            new PerformanceMeasure(PerformanceMeasure.UNKNOWN, 1_000_000), 0.1, 1.0));
+    }
+
+    @Test
+    void checkWhenOff() throws Exception
+    {
+        AtomicInteger calls = new AtomicInteger();
+        PerformanceChecker checker =
+            new PerformanceChecker(PerformanceMode.OFF, this.directory.resolve("baseline.txt"), 1, 0, 0.1, 1.0);
+
+        checker.check(NAME, calls::incrementAndGet);
+
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void checkWhenNoBaselineEntry() throws Exception
+    {
+        AtomicInteger calls = new AtomicInteger();
+        PerformanceChecker checker =
+            new PerformanceChecker(PerformanceMode.FAIL, this.directory.resolve("baseline.txt"), 2, 1, 0.1, 1.0);
+
+        checker.check(NAME, calls::incrementAndGet);
+
+        // Warmup and measured executions
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void checkWhenRegression() throws Exception
+    {
+        Path file = this.directory.resolve("baseline.txt");
+        Files.write(file, Arrays.asList("0\t0\t" + NAME), StandardCharsets.UTF_8);
+
+        PerformanceChecker checker = new PerformanceChecker(PerformanceMode.FAIL, file, 1, 0, 0.1, 1.0);
+
+        AssertionError error = assertThrows(AssertionError.class, () -> checker.check(NAME, () -> {
+            Thread.sleep(2);
+            return null;
+        }));
+        assertTrue(error.getMessage().startsWith("Performance regression for test [test]: "));
+
+        // Only reported in report mode
+        new PerformanceChecker(PerformanceMode.REPORT, file, 1, 0, 0.1, 1.0).check(NAME, () -> {
+            Thread.sleep(2);
+            return null;
+        });
+    }
+}
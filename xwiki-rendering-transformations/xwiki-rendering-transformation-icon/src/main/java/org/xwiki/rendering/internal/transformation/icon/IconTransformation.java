@@ -20,7 +20,8 @@
 package org.xwiki.rendering.internal.transformation.icon;
 
 import java.io.StringReader;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -38,6 +39,7 @@
 import org.xwiki.rendering.block.WordBlock;
 import org.xwiki.rendering.block.XDOM;
 import org.xwiki.rendering.internal.block.ProtectedBlockFilter;
+import org.xwiki.rendering.internal.transformation.TransformationTraversal;
 import org.xwiki.rendering.listener.reference.ResourceReference;
 import org.xwiki.rendering.listener.reference.ResourceType;
 import org.xwiki.rendering.parser.ParseException;
@@ -45,6 +47,8 @@
 import org.xwiki.rendering.transformation.AbstractTransformation;
 import org.xwiki.rendering.transformation.TransformationContext;
 import org.xwiki.rendering.transformation.TransformationException;
+import org.xwiki.rendering.transformation.TransformationVisitor;
+import org.xwiki.rendering.transformation.VisitorTransformation;
 import org.xwiki.rendering.transformation.icon.IconTransformationConfiguration;
 import org.xwiki.rendering.util.ParserUtils;
 import org.xwiki.text.StringUtils;
@@ -52,6 +56,11 @@
 /**
  * Transforms some special characters representing icons into images. For example transforms {@code :)} characters into
  * a smiley.
+ * <p>
+ * The icon mappings are compiled into a trie of tokens (special symbols, words, spaces, etc) so that the children of
+ * each block are scanned only once, from left to right, whatever the number of mappings. When several mappings match
+ * at the same position the longest one wins. Since the transformation only modifies the children of the visited
+ * blocks, it can share its traversal of the tree with other transformations.
  *
  * @version $Id$
  * @since 2.6RC1
@@ -59,8 +68,24 @@
 @Component
 @Named("icon")
 @Singleton
-public class IconTransformation extends AbstractTransformation implements Initializable
+public class IconTransformation extends AbstractTransformation implements VisitorTransformation, Initializable
 {
+    /**
+     * A node of the trie built from the icon mappings.
+     */
+    private static final class MappingNode
+    {
+        /**
+         * The next nodes, indexed by token (see {@link IconTransformation#getToken(Block)}).
+         */
+        private final Map<Object, MappingNode> children = new HashMap<>();
+
+        /**
+         * The name of the icon when the path leading to this node corresponds to a mapping, {@code null} otherwise.
+         */
+        private String iconName;
+    }
+
     /**
      * Used to get the icon mapping information (suite of characters mapped to an icon name).
      */
@@ -86,28 +111,40 @@ public class IconTransformation extends AbstractTransformation implements Initia
     private ParserUtils parserUtils = new ParserUtils();
 
     /**
-     * The computed tree used to perform the fast mapping.
+     * The root of the trie used to perform the fast mapping.
      */
-    private XDOM mappingTree;
+    private MappingNode mappingTree;
 
     /**
      * Used to filter protected blocks (code macro marker block, etc).
      */
     private ProtectedBlockFilter filter = new ProtectedBlockFilter();
 
+    /**
+     * Stateless so a single instance is used for all the transformations performed.
+     */
+    private final TransformationVisitor visitor = block -> {
+        // Don't look for matches in protected blocks
+        if (this.filter.isProtectedBlock(block)) {
+            return false;
+        }
+        transformChildren(block);
+        return true;
+    };
+
     @Override
     public void initialize() throws InitializationException
     {
-        this.mappingTree = new XDOM(Collections.<Block>emptyList());
+        this.mappingTree = new MappingNode();
 
-        // Transform mappings into Blocks
+        // Transform mappings into tokens
         for (Map.Entry<Object, Object> entry : this.configuration.getMappings().entrySet()) {
             if (!StringUtils.isEmpty((String) entry.getValue())) {
                 try {
                     XDOM xdom = this.plainTextParser.parse(new StringReader((String) entry.getKey()));
                     // Remove top level paragraph
                     this.parserUtils.removeTopLevelParagraph(xdom.getChildren());
-                    mergeTree(this.mappingTree, convertToDeepTree(xdom, (String) entry.getValue()));
+                    addMapping(xdom.getChildren(), (String) entry.getValue());
                 } catch (ParseException e) {
                     this.logger.warn("Failed to parse icon symbols [" + entry.getKey() + "]. Reason = ["
                         + e.getMessage() + "]");
@@ -117,148 +154,108 @@ public void initialize() throws InitializationException
     }
 
     @Override
-    public void transform(Block source, TransformationContext context) throws TransformationException
+    public void transform(Block block, TransformationContext context) throws TransformationException
     {
-        List<Block> filteredBlocks = this.filter.filter(source.getChildren());
-        if (!this.mappingTree.getChildren().isEmpty() && !filteredBlocks.isEmpty()) {
-            parseTree(filteredBlocks);
-        }
+        TransformationTraversal.transform(this, block, context);
     }
 
-    /**
-     * Converts a standard XDOM tree into a deep tree: sibling are transformed into parent/child relationships and the
-     * leaf node is an Image node referencing the passed icon name.
-     *
-     * @param sourceTree the source tree to modify
-     * @param iconName the name of the icon to display when a match is found
-     * @return the modified tree
-     */
-    private Block convertToDeepTree(Block sourceTree, String iconName)
+    @Override
+    public TransformationVisitor createVisitor(Block block, TransformationContext context)
     {
-        XDOM targetTree = new XDOM(Collections.<Block>emptyList());
-        Block pointer = targetTree;
-        for (Block block : sourceTree.getChildren()) {
-            pointer.addChild(block);
-            pointer = block;
-        }
-        // Add an image block as the last block
-        pointer.addChild(new ImageBlock(new ResourceReference(iconName, ResourceType.ICON), true));
-        return targetTree;
+        return this.mappingTree.children.isEmpty() ? null : this.visitor;
     }
 
     /**
-     * Merged two XDOM trees.
+     * Add the passed mapping to the trie.
      *
-     * @param targetTree the tree to merge into
-     * @param sourceTree the tree to merge
+     * @param blocks the blocks corresponding to the icon characters
+     * @param iconName the name of the icon to display when a match is found
      */
-    private void mergeTree(Block targetTree, Block sourceTree)
+    private void addMapping(List<Block> blocks, String iconName)
     {
-        for (Block block : sourceTree.getChildren()) {
-            // Check if the current block exists in the target tree at the same place in the tree
-            int pos = indexOf(targetTree.getChildren(), block);
-            if (pos > -1) {
-                Block foundBlock = targetTree.getChildren().get(pos);
-                mergeTree(foundBlock, block);
-            } else {
-                targetTree.addChild(block);
-            }
+        if (blocks.isEmpty()) {
+            return;
         }
-    }
 
-    /**
-     * Shallow indexOf implementation that only compares nodes based on their data and not their children data.
-     *
-     * @param targetBlocks the list of blocks to look into
-     * @param block the block to look for in the list of passed blocks
-     * @return the position of the block in the list of target blocks and -1 if not found
-     */
-    private int indexOf(List<Block> targetBlocks, Block block)
-    {
-        int pos = 0;
-        for (Block targetBlock : targetBlocks) {
-            // Test a non deep equality
-            if (blockEquals(targetBlock, block)) {
-                return pos;
+        MappingNode node = this.mappingTree;
+        for (Block block : blocks) {
+            Object token = getToken(block);
+            if (token == null) {
+                this.logger.warn("Unsupported icon symbols for icon [{}]", iconName);
+                return;
             }
-            pos++;
+            node = node.children.computeIfAbsent(token, key -> new MappingNode());
         }
-        return -1;
+        node.iconName = iconName;
     }
 
     /**
-     * Compares two nodes in a shallow manner (children data are not compared).
-     *
-     * @param target the target node to compare
-     * @param source the source node to compare
-     * @return true if the two blocks are equals in a shallow manner (children data are not compared)
+     * @param block the block for which to compute the token
+     * @return the value used to match the passed block against the mappings, or {@code null} if the block cannot be
+     *         part of a mapping
      */
-    private boolean blockEquals(Block target, Block source)
+    private Object getToken(Block block)
     {
-        boolean found = false;
-        if (source instanceof SpecialSymbolBlock && target instanceof SpecialSymbolBlock) {
-            if (((SpecialSymbolBlock) target).getSymbol() == ((SpecialSymbolBlock) source).getSymbol()) {
-                found = true;
-            }
-        } else if (source instanceof WordBlock && target instanceof WordBlock) {
-            if (((WordBlock) target).getWord().equals(((WordBlock) source).getWord())) {
-                found = true;
-            }
-        } else if (source.equals(target)) {
-            found = true;
+        Object token;
+        if (block instanceof SpecialSymbolBlock) {
+            token = ((SpecialSymbolBlock) block).getSymbol();
+        } else if (block instanceof WordBlock) {
+            token = ((WordBlock) block).getWord();
+        } else if (block.getChildren().isEmpty() && block.getParameters().isEmpty()) {
+            // Other leaf blocks (space, new line, etc) are matched on their type
+            token = block.getClass();
+        } else {
+            token = null;
         }
-        return found;
+        return token;
     }
 
     /**
-     * Parse a list of blocks and replace suite of Blocks matching the icon mapping definitions by image blocks.
+     * Replace suites of children blocks matching the icon mapping definitions by image blocks.
      *
-     * @param sourceBlocks the blocks to parse
+     * @param block the block whose children to transform
      */
-    private void parseTree(List<Block> sourceBlocks)
+    private void transformChildren(Block block)
     {
-        Block matchStartBlock = null;
-        int count = 0;
-        Block mappingCursor = this.mappingTree.getChildren().get(0);
-        Block sourceBlock = sourceBlocks.get(0);
-        while (sourceBlock != null) {
-            while (mappingCursor != null) {
-                if (blockEquals(sourceBlock, mappingCursor)) {
-                    if (matchStartBlock == null) {
-                        matchStartBlock = sourceBlock;
-                    }
-                    count++;
-                    mappingCursor = mappingCursor.getChildren().get(0);
-                    // If we reach the Image Block then we've found a match!
-                    if (mappingCursor instanceof ImageBlock) {
-                        // Replace the first source block with the image block and remove all other blocks...
-                        for (int i = 0; i < count - 1; i++) {
-                            matchStartBlock.getParent().removeBlock(matchStartBlock.getNextSibling());
-                        }
-                        sourceBlock = mappingCursor.clone();
-                        matchStartBlock.getParent().replaceChild(sourceBlock, matchStartBlock);
-                        mappingCursor = null;
-                        matchStartBlock = null;
-                        count = 0;
-                    } else {
-                        // Look for next block match
-                        break;
-                    }
-                } else {
-                    mappingCursor = mappingCursor.getNextSibling();
+        List<Block> children = block.getChildren();
+        int size = children.size();
+
+        // Only created when a first match is found
+        List<Block> newChildren = null;
+
+        int index = 0;
+        while (index < size) {
+            // Find the longest mapping starting at the current position
+            String iconName = null;
+            int matchLength = 0;
+            MappingNode node = this.mappingTree;
+            for (int i = index; i < size && node != null; i++) {
+                Object token = getToken(children.get(i));
+                node = token != null ? node.children.get(token) : null;
+                if (node != null && node.iconName != null) {
+                    iconName = node.iconName;
+                    matchLength = i - index + 1;
                 }
             }
-            // Look for a match in children of the source block
-            List<Block> filteredSourceBlocks = this.filter.filter(sourceBlock.getChildren());
-            if (!filteredSourceBlocks.isEmpty()) {
-                parseTree(filteredSourceBlocks);
-            } else if (mappingCursor == null) {
-                // No match has been found, reset state variables
-                mappingCursor = this.mappingTree.getChildren().get(0);
-                count = 0;
-                matchStartBlock = null;
+
+            if (iconName != null) {
+                if (newChildren == null) {
+                    newChildren = new ArrayList<>(size);
+                    newChildren.addAll(children.subList(0, index));
+                }
+                newChildren.add(new ImageBlock(new ResourceReference(iconName, ResourceType.ICON), true));
+                index += matchLength;
+            } else {
+                if (newChildren != null) {
+                    newChildren.add(children.get(index));
+                }
+                index++;
             }
-            sourceBlock = this.filter.getNextSibling(sourceBlock);
+        }
+
+        // Replace all the matches at once
+        if (newChildren != null) {
+            block.setChildren(newChildren);
         }
     }
 }
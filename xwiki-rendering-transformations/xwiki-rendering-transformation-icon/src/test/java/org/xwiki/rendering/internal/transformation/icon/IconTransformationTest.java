@@ -27,6 +27,7 @@
 import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.rendering.block.Block;
 import org.xwiki.rendering.block.MacroMarkerBlock;
+import org.xwiki.rendering.block.ParagraphBlock;
 import org.xwiki.rendering.block.SpecialSymbolBlock;
 import org.xwiki.rendering.block.XDOM;
 import org.xwiki.rendering.parser.Parser;
@@ -34,6 +35,7 @@
 import org.xwiki.rendering.renderer.printer.DefaultWikiPrinter;
 import org.xwiki.rendering.renderer.printer.WikiPrinter;
 import org.xwiki.rendering.transformation.TransformationContext;
+import org.xwiki.rendering.transformation.icon.IconTransformationConfiguration;
 import org.xwiki.test.annotation.AllComponents;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectComponentManager;
@@ -116,6 +118,65 @@ void transformIgnoresProtectedContent() throws Exception
         assertEquals(expected, printer.toString());
     }
 
+    @Test
+    void transformIgnoresProtectedContentNextToIcons() throws Exception
+    {
+        String expected = "beginDocument\n"
+            + "beginParagraph\n"
+            + "onSpecialSymbol [:]\n"
+            + "beginMacroMarkerInline [code] []\n"
+            + "onSpecialSymbol [)]\n"
+            + "endMacroMarkerInline [code] []\n"
+            + "onSpecialSymbol [)]\n"
+            + "onImage [Typed = [true] Type = [icon] Reference = [emoticon_smile]] [true]\n"
+            + "endParagraph\n"
+            + "endDocument";
+
+        // The protected block breaks the first sequence of symbols and its content is not transformed
+        XDOM xdom = new XDOM(Arrays.asList(new ParagraphBlock(Arrays.asList(new SpecialSymbolBlock(':'),
+            new MacroMarkerBlock("code", Collections.emptyMap(), Arrays.asList(new SpecialSymbolBlock(')')), true),
+            new SpecialSymbolBlock(')'), new SpecialSymbolBlock(':'), new SpecialSymbolBlock(')')))));
+        this.transformation.transform(xdom, new TransformationContext());
+
+        WikiPrinter printer = new DefaultWikiPrinter();
+        BlockRenderer eventBlockRenderer = this.componentManager.getInstance(BlockRenderer.class, "event/1.0");
+        eventBlockRenderer.render(xdom, printer);
+        assertEquals(expected, printer.toString());
+    }
+
+    @Test
+    void transformWithOverlappingMappings() throws Exception
+    {
+        // Add mappings which are prefixes of the default (on) and (off) mappings
+        IconTransformationConfiguration configuration =
+            this.componentManager.getInstance(IconTransformationConfiguration.class);
+        configuration.addMapping("(o", "bullet_o");
+        configuration.addMapping("(on", "bullet_on");
+        this.transformation.initialize();
+
+        String expected = "beginDocument [[syntax]=[XWiki 2.1]]\n"
+            + "beginParagraph\n"
+            + "onImage [Typed = [true] Type = [icon] Reference = [lightbulb]] [true]\n"
+            + "onImage [Typed = [true] Type = [icon] Reference = [bullet_on]] [true]\n"
+            + "onImage [Typed = [true] Type = [icon] Reference = [bullet_o]] [true]\n"
+            + "onImage [Typed = [true] Type = [icon] Reference = [lightbulb_off]] [true]\n"
+            + "onSpecialSymbol [(]\n"
+            + "onWord [of]\n"
+            + "onSpecialSymbol [)]\n"
+            + "endParagraph\n"
+            + "endDocument [[syntax]=[XWiki 2.1]]";
+
+        // The longest mapping matching at a given position wins
+        Parser parser = this.componentManager.getInstance(Parser.class, "xwiki/2.1");
+        XDOM xdom = parser.parse(new StringReader("(on)(on(o(off)(of)"));
+        this.transformation.transform(xdom, new TransformationContext());
+
+        WikiPrinter printer = new DefaultWikiPrinter();
+        BlockRenderer eventBlockRenderer = this.componentManager.getInstance(BlockRenderer.class, "event/1.0");
+        eventBlockRenderer.render(xdom, printer);
+        assertEquals(expected, printer.toString());
+    }
+
     /**
      * Fixes XWIKI-5729.
      */
@@ -19,31 +19,82 @@
  */
 package org.xwiki.rendering.internal.transformation.linkchecker;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.config.CookieSpecs;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
 
 /**
  * Default implementation using Apache Http Client.
+ * <p>
+ * In order to keep link checking cheap, a {@code HEAD} request is sent first and we only fall back to a {@code GET}
+ * request when the remote server doesn't support {@code HEAD}. In both cases the response body is never read: only
+ * the status line is used.
  *
  * @version $Id$
  * @since 3.3M1
  */
 @Component
 @Singleton
-public class DefaultHTTPChecker implements HTTPChecker, Initializable
+public class DefaultHTTPChecker implements HTTPChecker, Initializable, Disposable
 {
+    /**
+     * Maximum time (in ms) to wait for a connection to be established with the remote server.
+     */
+    static final int CONNECT_TIMEOUT = 5000;
+
+    /**
+     * Maximum time (in ms) of inactivity between two data packets when waiting for the response.
+     */
+    static final int SOCKET_TIMEOUT = 10000;
+
+    /**
+     * Maximum time (in ms) to wait for a connection from the connection pool.
+     */
+    static final int CONNECTION_REQUEST_TIMEOUT = 10000;
+
+    /**
+     * Maximum number of connections opened at the same time, whatever the remote host.
+     */
+    static final int MAX_CONNECTIONS = 20;
+
+    /**
+     * Maximum number of connections opened at the same time to a given remote host, in order to not flood it when
+     * a lot of links pointing to it are checked at once.
+     */
+    static final int MAX_CONNECTIONS_PER_ROUTE = 4;
+
+    /**
+     * Maximum number of threads used to perform the checks requested through {@link #checkAll(Collection)}.
+     */
+    static final int MAX_CHECKING_THREADS = 10;
+
     /**
      * The logger to log.
      */
@@ -52,12 +103,15 @@ public class DefaultHTTPChecker implements HTTPChecker, Initializable
 
     /**
      * The client to connect to the remote site using HTTP.
-     * <p>
-     * Note: If one day we wish to configure timeouts, here's some good documentation about it:
-     * http://brian.olore.net/wp/2009/08/apache-httpclient-timeout/
      */
     private CloseableHttpClient httpClient;
 
+    /**
+     * Used to perform the checks requested through {@link #checkAll(Collection)}. Threads are only created when
+     * needed and go away when idle.
+     */
+    private ExecutorService executor;
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -65,6 +119,8 @@ public void initialize() throws InitializationException
 
         // Make the Http Client reusable by several threads
         PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(MAX_CONNECTIONS);
+        connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
         httpClientBuilder.setConnectionManager(connectionManager);
 
         // Pre-configure with everything configured at JVM level (e.g. proxy setup).
@@ -74,12 +130,35 @@ public void initialize() throws InitializationException
         httpClientBuilder.setUserAgent("XWikiLinkChecker");
 
         // Ignore cookies since this can cause errors in logs and we don't need cookies when checking sites.
+        // Also make sure that a slow or unresponsive remote site cannot block a check forever.
         RequestConfig config = RequestConfig.custom()
             .setCookieSpec(CookieSpecs.IGNORE_COOKIES)
+            .setConnectTimeout(CONNECT_TIMEOUT)
+            .setSocketTimeout(SOCKET_TIMEOUT)
+            .setConnectionRequestTimeout(CONNECTION_REQUEST_TIMEOUT)
             .build();
         httpClientBuilder.setDefaultRequestConfig(config);
 
         this.httpClient = httpClientBuilder.build();
+
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(MAX_CHECKING_THREADS, MAX_CHECKING_THREADS,
+            60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new BasicThreadFactory.Builder()
+                .namingPattern("Link Checker HTTP Thread %d")
+                .daemon(true)
+                .build());
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        this.executor = threadPoolExecutor;
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.executor.shutdownNow();
+        try {
+            this.httpClient.close();
+        } catch (Exception e) {
+            throw new ComponentLifecycleException("Failed to close the HTTP client", e);
+        }
     }
 
     @Override
@@ -87,20 +166,45 @@ public int check(String url)
     {
         int responseCode;
 
-        CloseableHttpResponse httpResponse = null;
         try {
-            HttpGet httpGet = new HttpGet(url);
-            httpResponse = this.httpClient.execute(httpGet);
-            responseCode = httpResponse.getStatusLine().getStatusCode();
+            responseCode = execute(new HttpHead(url), url);
+            // Some servers don't support HEAD requests, try again with a GET request in this case.
+            if (responseCode == HttpStatus.SC_METHOD_NOT_ALLOWED || responseCode == HttpStatus.SC_NOT_IMPLEMENTED) {
+                responseCode = execute(new HttpGet(url), url);
+            }
             this.logger.debug("Result of pinging [{}]: code = [{}]", url, responseCode);
         } catch (Exception e) {
             // Some error in the transport or in the passed URL, use a special response code (0) which isn't in the
             // list of allowed response codes, see http://en.wikipedia.org/wiki/List_of_HTTP_status_codes
             responseCode = 0;
             this.logger.debug("Error while checking [{}]", url, e);
+        }
+
+        return responseCode;
+    }
+
+    @Override
+    public Map<String, Future<Integer>> checkAll(Collection<String> urls)
+    {
+        Map<String, Future<Integer>> results = new LinkedHashMap<>();
+        for (String url : urls) {
+            results.computeIfAbsent(url, key -> CompletableFuture.supplyAsync(() -> check(key), this.executor));
+        }
+        return results;
+    }
+
+    private int execute(HttpRequestBase request, String url) throws Exception
+    {
+        CloseableHttpResponse httpResponse = null;
+        try {
+            httpResponse = this.httpClient.execute(request);
+            return httpResponse.getStatusLine().getStatusCode();
         } finally {
             if (httpResponse != null) {
                 try {
+                    // Note: we voluntarily don't consume the response entity (if any) since we don't need it. Closing
+                    // the response without consuming it closes the underlying connection instead of downloading the
+                    // whole body in order to put the connection back in the pool.
                     httpResponse.close();
                 } catch (Exception ee) {
                     // Failed to close, ignore but log the error.
@@ -108,7 +212,5 @@ public int check(String url)
                 }
             }
         }
-
-        return responseCode;
     }
 }
@@ -23,7 +23,6 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -162,13 +161,10 @@ protected void processLinkQueue()
                 break;
             }
 
-            Map<String, LinkState> contentReferences =
-                this.linkStateManager.getLinkStates().get(queueItem.getLinkReference());
-            if (contentReferences != null) {
-                LinkState state = contentReferences.get(queueItem.getContentReference());
-                if (state != null && (System.currentTimeMillis() - state.getLastCheckedTime() <= timeout)) {
-                    shouldBeChecked = false;
-                }
+            LinkState state =
+                this.linkStateManager.getLinkState(queueItem.getLinkReference(), queueItem.getContentReference());
+            if (LinkCheckerQueue.isRecentlyChecked(state, System.currentTimeMillis(), timeout)) {
+                shouldBeChecked = false;
             }
         }
 
@@ -198,14 +194,8 @@ private void checkLink(LinkQueueItem queueItem)
     {
         int responseCode = this.httpChecker.check(queueItem.getLinkReference());
 
-        Map<String, LinkState> contentReferences =
-            this.linkStateManager.getLinkStates().get(queueItem.getLinkReference());
-        if (contentReferences == null) {
-            contentReferences = new ConcurrentHashMap<>();
-        }
         LinkState state = new LinkState(responseCode, System.currentTimeMillis(), queueItem.getContextData());
-        contentReferences.put(queueItem.getContentReference(), state);
-        this.linkStateManager.getLinkStates().put(queueItem.getLinkReference(), contentReferences);
+        this.linkStateManager.setLinkState(queueItem.getLinkReference(), queueItem.getContentReference(), state);
 
         // If there's an error, then send an Observation Event so that anyone interested can listen to it.
         if (responseCode < 200 || responseCode > 299) {
@@ -19,6 +19,7 @@
  */
 package org.xwiki.rendering.internal.transformation.linkchecker;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -132,4 +133,31 @@ public List<Pattern> getExcludedReferencePatterns()
 
         return patterns;
     }
+
+    @Override
+    public int getMaxLinkStates()
+    {
+        return this.configurationSource.getProperty(PREFIX + "maxLinkStates", DEFAULT_MAX_LINK_STATES);
+    }
+
+    @Override
+    public long getLinkStateTimeToLive()
+    {
+        return this.configurationSource.getProperty(PREFIX + "linkStateTimeToLive",
+            DEFAULT_LINK_STATE_TIME_TO_LIVE);
+    }
+
+    @Override
+    public File getLinkStateSnapshotFile()
+    {
+        String path = this.configurationSource.getProperty(PREFIX + "linkStateSnapshotFile", String.class);
+        return path != null ? new File(path) : null;
+    }
+
+    @Override
+    public long getLinkStateSnapshotInterval()
+    {
+        return this.configurationSource.getProperty(PREFIX + "linkStateSnapshotInterval",
+            DEFAULT_LINK_STATE_SNAPSHOT_INTERVAL);
+    }
 }
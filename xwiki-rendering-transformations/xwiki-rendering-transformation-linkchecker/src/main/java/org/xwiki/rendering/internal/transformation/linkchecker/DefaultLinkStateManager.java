@@ -19,33 +19,412 @@
  */
 package org.xwiki.rendering.internal.transformation.linkchecker;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.rendering.transformation.linkchecker.LinkCheckerTransformationConfiguration;
 import org.xwiki.rendering.transformation.linkchecker.LinkState;
 import org.xwiki.rendering.transformation.linkchecker.LinkStateManager;
 
 /**
  * Default implementation of {@link LinkStateManager} which supports multithreaded access to the link states.
+ * <p>
+ * In order for the memory used to stay bounded on long running instances:
+ * <ul>
+ * <li>link states expire after {@link LinkCheckerTransformationConfiguration#getLinkStateTimeToLive()}</li>
+ * <li>at most {@link LinkCheckerTransformationConfiguration#getMaxLinkStates()} links are kept, the least recently
+ * checked ones being discarded first</li>
+ * <li>at most {@link #MAX_CONTENT_REFERENCES} content references are kept for a given link</li>
+ * </ul>
+ * When {@link LinkCheckerTransformationConfiguration#getLinkStateSnapshotFile()} is configured, the link states are
+ * regularly saved in that file and loaded back at startup so that links don't all need to be checked again after a
+ * restart. The snapshots are saved in a background thread. Note that link context data are not saved.
  *
  * @version $Id$
  * @since 3.3M1
  */
 @Component
 @Singleton
-public class DefaultLinkStateManager implements LinkStateManager
+public class DefaultLinkStateManager implements LinkStateManager, Initializable, Disposable
 {
+    /**
+     * Maximum number of content references for which the state of a given link is kept.
+     */
+    static final int MAX_CONTENT_REFERENCES = 100;
+
+    /**
+     * Version of the snapshot file format, to be incremented when the format changes.
+     */
+    private static final int SNAPSHOT_VERSION = 1;
+
+    /**
+     * When evicting links because there are too many, we make room for 10% more links so that we don't need to evict
+     * again each time a new link is checked.
+     */
+    private static final double EVICTION_RATIO = 0.9;
+
+    /**
+     * The maximum amount of time (in seconds) to wait for a pending snapshot save when disposing.
+     */
+    private static final long SNAPSHOT_TIMEOUT = 30L;
+
+    /**
+     * The minimum amount of time (in milliseconds) between two removals of the expired link states when they are
+     * accessed through {@link #getLinkStates()}, so that reading the link states doesn't scan all of them each time.
+     */
+    private static final long EXPIRATION_INTERVAL = 60000L;
+
+    @Inject
+    private LinkCheckerTransformationConfiguration configuration;
+
+    @Inject
+    private Logger logger;
+
     /**
      * @see #getLinkStates() to understand the map structure
      */
-    private Map<String, Map<String, LinkState>> linkStates = new ConcurrentHashMap<String, Map<String, LinkState>>();
+    private final Map<String, Map<String, LinkState>> linkStates = new ConcurrentHashMap<>();
+
+    /**
+     * The last time the link states were saved (or loaded) in the snapshot file.
+     */
+    private final AtomicLong lastSnapshotTime = new AtomicLong();
+
+    /**
+     * The last time the expired link states were removed when reading them.
+     */
+    private final AtomicLong lastExpirationTime = new AtomicLong();
+
+    /**
+     * Serializes the writing of the snapshot file, without blocking the eviction of the link states.
+     */
+    private final Object snapshotLock = new Object();
+
+    /**
+     * Whether the link states have changed since the last snapshot.
+     */
+    private volatile boolean modified;
+
+    /**
+     * Saves the snapshots in the background so that the link checker thread is not delayed while writing them.
+     */
+    private ExecutorService snapshotExecutor;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        File snapshotFile = this.configuration.getLinkStateSnapshotFile();
+        if (snapshotFile != null && snapshotFile.isFile()) {
+            try {
+                loadSnapshot(snapshotFile);
+            } catch (Exception e) {
+                // Not a big deal, the links will simply be checked again.
+                this.logger.warn("Failed to load the link states from [{}]. Root cause: [{}]", snapshotFile,
+                    e.getMessage());
+            }
+        }
+        this.lastSnapshotTime.set(System.currentTimeMillis());
+
+        if (snapshotFile != null) {
+            this.snapshotExecutor = Executors.newSingleThreadExecutor(new BasicThreadFactory.Builder()
+                .namingPattern("Link Checker Snapshot Thread %d")
+                .daemon(true)
+                .build());
+        }
+    }
 
+    @Override
+    public void dispose()
+    {
+        if (this.snapshotExecutor != null) {
+            this.snapshotExecutor.shutdown();
+            try {
+                this.snapshotExecutor.awaitTermination(SNAPSHOT_TIMEOUT, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        File snapshotFile = this.configuration.getLinkStateSnapshotFile();
+        if (snapshotFile != null && this.modified) {
+            saveSnapshot(snapshotFile);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The expired link states are evicted at most once per minute before returning the map, so it can contain link
+     * states which expired since then. Use {@link #getLinkState(String, String)} to get only a valid state.
+     */
     @Override
     public Map<String, Map<String, LinkState>> getLinkStates()
     {
+        long now = System.currentTimeMillis();
+        long lastTime = this.lastExpirationTime.get();
+        if (now - lastTime >= EXPIRATION_INTERVAL && this.lastExpirationTime.compareAndSet(lastTime, now)) {
+            removeExpired();
+        }
+
         return this.linkStates;
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * An expired link state is removed when accessed.
+     */
+    @Override
+    public LinkState getLinkState(String linkReference, String contentReference)
+    {
+        Map<String, LinkState> contentReferences = this.linkStates.get(linkReference);
+        LinkState state = contentReferences != null ? contentReferences.get(contentReference) : null;
+        if (state != null && isExpired(state, System.currentTimeMillis(), this.configuration.getLinkStateTimeToLive()))
+        {
+            LinkState expiredState = state;
+            this.linkStates.computeIfPresent(linkReference, (key, value) -> {
+                value.remove(contentReference, expiredState);
+                // Returning null removes the link reference.
+                return value.isEmpty() ? null : value;
+            });
+            state = null;
+        }
+        return state;
+    }
+
+    @Override
+    public void setLinkState(String linkReference, String contentReference, LinkState state)
+    {
+        this.linkStates.compute(linkReference, (key, contentReferences) -> {
+            Map<String, LinkState> result = contentReferences != null ? contentReferences : new ConcurrentHashMap<>();
+            result.put(contentReference, state);
+            if (result.size() > MAX_CONTENT_REFERENCES) {
+                removeOldestContentReference(result);
+            }
+            return result;
+        });
+        this.modified = true;
+
+        if (this.linkStates.size() > this.configuration.getMaxLinkStates()) {
+            evict();
+        }
+
+        File snapshotFile = this.configuration.getLinkStateSnapshotFile();
+        if (snapshotFile != null) {
+            long now = System.currentTimeMillis();
+            long lastTime = this.lastSnapshotTime.get();
+            // Only one save is scheduled per interval.
+            if (now - lastTime >= this.configuration.getLinkStateSnapshotInterval()
+                && this.lastSnapshotTime.compareAndSet(lastTime, now) && this.snapshotExecutor != null)
+            {
+                try {
+                    this.snapshotExecutor.execute(() -> saveSnapshot(snapshotFile));
+                } catch (RejectedExecutionException e) {
+                    // The component is being disposed, which saves the snapshot anyway.
+                }
+            }
+        }
+    }
+
+    private boolean isExpired(LinkState state, long now, long timeToLive)
+    {
+        return now - state.getLastCheckedTime() > timeToLive;
+    }
+
+    private void removeOldestContentReference(Map<String, LinkState> contentReferences)
+    {
+        String oldestContentReference = null;
+        long oldestTime = Long.MAX_VALUE;
+        for (Map.Entry<String, LinkState> entry : contentReferences.entrySet()) {
+            if (entry.getValue().getLastCheckedTime() < oldestTime) {
+                oldestTime = entry.getValue().getLastCheckedTime();
+                oldestContentReference = entry.getKey();
+            }
+        }
+        if (oldestContentReference != null) {
+            contentReferences.remove(oldestContentReference);
+        }
+    }
+
+    private long getLastCheckedTime(Map<String, LinkState> contentReferences)
+    {
+        long result = 0;
+        for (LinkState state : contentReferences.values()) {
+            result = Math.max(result, state.getLastCheckedTime());
+        }
+        return result;
+    }
+
+    /**
+     * Remove the expired link states.
+     */
+    private void removeExpired()
+    {
+        long now = System.currentTimeMillis();
+        long timeToLive = this.configuration.getLinkStateTimeToLive();
+        for (String linkReference : this.linkStates.keySet()) {
+            this.linkStates.computeIfPresent(linkReference, (key, contentReferences) -> {
+                contentReferences.values().removeIf(state -> isExpired(state, now, timeToLive));
+                // Returning null removes the link reference.
+                return contentReferences.isEmpty() ? null : contentReferences;
+            });
+        }
+    }
+
+    /**
+     * Remove the expired link states and, if there are still too many links, the least recently checked links.
+     */
+    private synchronized void evict()
+    {
+        int maxLinkStates = this.configuration.getMaxLinkStates();
+        if (this.linkStates.size() <= maxLinkStates) {
+            // Another thread already did the job.
+            return;
+        }
+
+        removeExpired();
+
+        int toRemove = this.linkStates.size() - (int) (maxLinkStates * EVICTION_RATIO);
+        if (toRemove > 0) {
+            List<Map.Entry<String, Long>> lastCheckedTimes = new ArrayList<>(this.linkStates.size());
+            for (Map.Entry<String, Map<String, LinkState>> entry : this.linkStates.entrySet()) {
+                lastCheckedTimes.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(),
+                    getLastCheckedTime(entry.getValue())));
+            }
+            Collections.sort(lastCheckedTimes, Map.Entry.comparingByValue());
+            Iterator<Map.Entry<String, Long>> iterator = lastCheckedTimes.iterator();
+            for (int i = 0; i < toRemove && iterator.hasNext(); i++) {
+                this.linkStates.remove(iterator.next().getKey());
+            }
+        }
+    }
+
+    private void loadSnapshot(File snapshotFile) throws IOException
+    {
+        long now = System.currentTimeMillis();
+        long timeToLive = this.configuration.getLinkStateTimeToLive();
+
+        try (DataInputStream input = new DataInputStream(
+            new GZIPInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile.toPath())))))
+        {
+            int version = input.readInt();
+            if (version != SNAPSHOT_VERSION) {
+                throw new IOException(String.format("Unsupported snapshot version [%s]", version));
+            }
+            int linkCount = input.readInt();
+            for (int i = 0; i < linkCount; i++) {
+                String linkReference = readString(input);
+                int contentCount = input.readInt();
+                for (int j = 0; j < contentCount; j++) {
+                    String contentReference = readString(input);
+                    LinkState state = new LinkState(input.readInt(), input.readLong());
+                    if (!isExpired(state, now, timeToLive)) {
+                        this.linkStates.computeIfAbsent(linkReference, key -> new ConcurrentHashMap<>())
+                            .put(contentReference, state);
+                    }
+                }
+            }
+        }
+
+        this.logger.debug("Loaded the states of [{}] links from [{}]", this.linkStates.size(), snapshotFile);
+    }
+
+    private void saveSnapshot(File snapshotFile)
+    {
+        // Copy the states first since they can be modified concurrently and we need the counts upfront. The file is
+        // written outside of the eviction lock so that the link checker thread is not blocked meanwhile.
+        List<Map.Entry<String, List<Map.Entry<String, LinkState>>>> links;
+        synchronized (this) {
+            removeExpired();
+            this.modified = false;
+
+            links = new ArrayList<>(this.linkStates.size());
+            for (Map.Entry<String, Map<String, LinkState>> entry : this.linkStates.entrySet()) {
+                List<Map.Entry<String, LinkState>> contentReferences = new ArrayList<>(entry.getValue().entrySet());
+                links.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), contentReferences));
+            }
+        }
+
+        synchronized (this.snapshotLock) {
+            writeSnapshot(snapshotFile, links);
+        }
+    }
+
+    private void writeSnapshot(File snapshotFile, List<Map.Entry<String, List<Map.Entry<String, LinkState>>>> links)
+    {
+        // Write in a temporary file first so that a crash while saving doesn't corrupt the previous snapshot.
+        File temporaryFile = new File(snapshotFile.getPath() + ".tmp");
+        try {
+            File directory = snapshotFile.getAbsoluteFile().getParentFile();
+            if (directory != null) {
+                Files.createDirectories(directory.toPath());
+            }
+            try (DataOutputStream output = new DataOutputStream(
+                new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile.toPath())))))
+            {
+                output.writeInt(SNAPSHOT_VERSION);
+                output.writeInt(links.size());
+                for (Map.Entry<String, List<Map.Entry<String, LinkState>>> link : links) {
+                    writeString(output, link.getKey());
+                    output.writeInt(link.getValue().size());
+                    for (Map.Entry<String, LinkState> content : link.getValue()) {
+                        writeString(output, content.getKey());
+                        output.writeInt(content.getValue().getResponseCode());
+                        output.writeLong(content.getValue().getLastCheckedTime());
+                    }
+                }
+            }
+            Files.move(temporaryFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            this.modified = true;
+            this.logger.warn("Failed to save the link states in [{}]. Root cause: [{}]", snapshotFile,
+                e.getMessage());
+        }
+    }
+
+    private String readString(DataInputStream input) throws IOException
+    {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void writeString(DataOutputStream output, String value) throws IOException
+    {
+        // Note: we don't use writeUTF() since it's limited to 65535 bytes.
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
 }
@@ -19,6 +19,12 @@
  */
 package org.xwiki.rendering.internal.transformation.linkchecker;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
 import org.xwiki.component.annotation.Role;
 
 /**
@@ -36,4 +42,22 @@
      *         happened in the transport or if the passed URL is invalid
      */
     int check(String url);
+
+    /**
+     * Check several URLs at once. Implementations are free to perform the checks concurrently, the default
+     * implementation checks them one after the other in the calling thread.
+     *
+     * @param urls the URLs to check (duplicates are checked only once)
+     * @return the pending HTTP response codes (see {@link #check(String)}), indexed by URL and in the order of the
+     *         passed collection
+     * @since 15.0RC1
+     */
+    default Map<String, Future<Integer>> checkAll(Collection<String> urls)
+    {
+        Map<String, Future<Integer>> results = new LinkedHashMap<>();
+        for (String url : urls) {
+            results.computeIfAbsent(url, key -> CompletableFuture.completedFuture(check(key)));
+        }
+        return results;
+    }
 }
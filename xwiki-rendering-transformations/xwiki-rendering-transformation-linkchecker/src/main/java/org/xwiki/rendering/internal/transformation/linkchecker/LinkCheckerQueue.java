@@ -0,0 +1,165 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.transformation.linkchecker;
+
+import java.util.AbstractQueue;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.xwiki.rendering.transformation.linkchecker.LinkState;
+
+/**
+ * Bounded and thread safe queue of links to check, which ignores links that are already pending for the same content
+ * reference. This means that a page rendered several times (or containing the same link several times) cannot fill
+ * the queue and prevent the links of other pages to be checked.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+public class LinkCheckerQueue extends AbstractQueue<LinkQueueItem>
+{
+    private final Queue<LinkQueueItem> items = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The (link reference, content reference) pairs currently in the queue.
+     */
+    private final Set<Pair<String, String>> pendingKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Maintained separately since {@link ConcurrentLinkedQueue#size()} is not a constant time operation.
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final int capacity;
+
+    /**
+     * @param capacity the maximum number of links in the queue
+     */
+    public LinkCheckerQueue(int capacity)
+    {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Links checked recently are neither queued nor checked again.
+     *
+     * @param state the state of the link for a given content, or {@code null} if it has not been checked
+     * @param now the current time (in ms)
+     * @param checkTimeout the amount of time (in ms) after which a link should be checked again
+     * @return {@code true} if the link has been checked less than the check timeout ago
+     */
+    public static boolean isRecentlyChecked(LinkState state, long now, long checkTimeout)
+    {
+        return state != null && now - state.getLastCheckedTime() <= checkTimeout;
+    }
+
+    /**
+     * @return {@code true} if no more link can be added to the queue
+     */
+    public boolean isFull()
+    {
+        return this.size.get() >= this.capacity;
+    }
+
+    /**
+     * @param linkReference the reference of the link
+     * @param contentReference the reference of the content containing the link
+     * @return {@code true} if the link is already waiting in the queue to be checked for the passed content
+     */
+    public boolean isPending(String linkReference, String contentReference)
+    {
+        return this.pendingKeys.contains(Pair.of(linkReference, contentReference));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return {@code false} if the queue is full or if the same link is already pending for the same content reference
+     */
+    @Override
+    public boolean offer(LinkQueueItem item)
+    {
+        if (isFull() || !this.pendingKeys.add(getKey(item))) {
+            return false;
+        }
+
+        if (this.size.incrementAndGet() > this.capacity) {
+            // Another thread filled the queue concurrently.
+            this.size.decrementAndGet();
+            this.pendingKeys.remove(getKey(item));
+            return false;
+        }
+
+        this.items.offer(item);
+
+        return true;
+    }
+
+    @Override
+    public LinkQueueItem poll()
+    {
+        LinkQueueItem item = this.items.poll();
+        if (item != null) {
+            this.size.decrementAndGet();
+            this.pendingKeys.remove(getKey(item));
+        }
+        return item;
+    }
+
+    @Override
+    public LinkQueueItem peek()
+    {
+        return this.items.peek();
+    }
+
+    @Override
+    public int size()
+    {
+        return this.size.get();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return this.items.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The returned iterator doesn't support removal.
+     */
+    @Override
+    public Iterator<LinkQueueItem> iterator()
+    {
+        return Collections.unmodifiableCollection(this.items).iterator();
+    }
+
+    private Pair<String, String> getKey(LinkQueueItem item)
+    {
+        return Pair.of(item.getLinkReference(), item.getContentReference());
+    }
+}
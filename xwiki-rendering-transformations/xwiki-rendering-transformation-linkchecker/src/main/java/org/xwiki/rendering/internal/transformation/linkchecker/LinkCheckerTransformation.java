@@ -19,31 +19,40 @@
  */
 package org.xwiki.rendering.internal.transformation.linkchecker;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Set;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
 import org.xwiki.rendering.block.Block;
 import org.xwiki.rendering.block.LinkBlock;
 import org.xwiki.rendering.block.MetaDataBlock;
-import org.xwiki.rendering.block.match.ClassBlockMatcher;
 import org.xwiki.rendering.block.match.MetadataBlockMatcher;
+import org.xwiki.rendering.internal.transformation.TransformationTraversal;
 import org.xwiki.rendering.listener.MetaData;
 import org.xwiki.rendering.listener.reference.ResourceType;
 import org.xwiki.rendering.transformation.AbstractTransformation;
 import org.xwiki.rendering.transformation.TransformationContext;
 import org.xwiki.rendering.transformation.TransformationException;
+import org.xwiki.rendering.transformation.TransformationVisitor;
+import org.xwiki.rendering.transformation.VisitorTransformation;
+import org.xwiki.rendering.transformation.linkchecker.LinkCheckerTransformationConfiguration;
 import org.xwiki.rendering.transformation.linkchecker.LinkContextDataProvider;
+import org.xwiki.rendering.transformation.linkchecker.LinkState;
+import org.xwiki.rendering.transformation.linkchecker.LinkStateManager;
 
 /**
  * Looks for external URLs in links and verify their status (ok, broken, etc). In order to get good performances this is
@@ -55,7 +64,7 @@
 @Component
 @Named("linkchecker")
 @Singleton
-public class LinkCheckerTransformation extends AbstractTransformation implements Initializable
+public class LinkCheckerTransformation extends AbstractTransformation implements VisitorTransformation, Initializable
 {
     /**
      * Anti-flood mechanism. We only allow adding links to check in the queue if it currently has less than
@@ -64,9 +73,83 @@ public class LinkCheckerTransformation extends AbstractTransformation implements
      *   grow more which would slowly use up all the memory...
      * - we don't swamp the system with links to check (for ex if lots of users go to pages with links the queue can
      *   quickly grow large)
-     * In any case, the links will be checked again later when the pages are rendered again.
+     * Note that the same link is queued only once for a given content reference and that links checked recently are
+     * not queued, so that frequently rendered pages don't fill the queue. In any case, the links that don't make it to
+     * the queue will be checked later when the pages are rendered again.
      */
-    static final int MAX_LINKS_IN_QUEUE = 10;
+    static final int MAX_LINKS_IN_QUEUE = 1000;
+
+    /**
+     * The content reference to use when the links are not located in some content having a source metadata.
+     */
+    private static final String DEFAULT_CONTENT_REFERENCE = "default";
+
+    /**
+     * Collect the URL links of the visited blocks and add them to the queue once the whole tree has been visited. The
+     * content reference is computed while going down the tree to avoid looking for it in the ancestors of each link.
+     */
+    private final class LinkVisitor implements TransformationVisitor
+    {
+        private final String defaultContentReference;
+
+        /**
+         * The visited blocks holding a source metadata, the closest one being first.
+         */
+        private final Deque<MetaDataBlock> sources = new ArrayDeque<>();
+
+        /**
+         * The (link reference, content reference) pairs found so far, without duplicates.
+         */
+        private final Set<Pair<String, String>> links = new LinkedHashSet<>();
+
+        private Block root;
+
+        LinkVisitor(String defaultContentReference)
+        {
+            this.defaultContentReference = defaultContentReference;
+        }
+
+        @Override
+        public boolean beginBlock(Block block)
+        {
+            if (this.root == null) {
+                this.root = block;
+            }
+
+            if (block instanceof LinkBlock) {
+                LinkBlock linkBlock = (LinkBlock) block;
+                if (linkBlock.getReference().getType().equals(ResourceType.URL)) {
+                    // This is a link pointing to an external URL, it will be added to the queue for processing (i.e.
+                    // checking) once all the links are known.
+                    this.links.add(Pair.of(linkBlock.getReference().getReference(), getContentReference()));
+                }
+            } else if (block instanceof MetaDataBlock
+                && ((MetaDataBlock) block).getMetaData().getMetaData(MetaData.SOURCE) != null)
+            {
+                this.sources.push((MetaDataBlock) block);
+            }
+
+            return true;
+        }
+
+        @Override
+        public void endBlock(Block block)
+        {
+            if (!this.sources.isEmpty() && this.sources.peek() == block) {
+                this.sources.pop();
+            }
+
+            if (block == this.root) {
+                addLinks(this.links);
+            }
+        }
+
+        private String getContentReference()
+        {
+            return this.sources.isEmpty() ? this.defaultContentReference
+                : (String) this.sources.peek().getMetaData().getMetaData(MetaData.SOURCE);
+        }
+    }
 
     @Inject
     private LinkCheckerThread checkerThread;
@@ -74,11 +157,17 @@ public class LinkCheckerTransformation extends AbstractTransformation implements
     @Inject
     private Provider<List<LinkContextDataProvider>> linkContextDataProvidersProvider;
 
+    @Inject
+    private LinkStateManager linkStateManager;
+
+    @Inject
+    private LinkCheckerTransformationConfiguration configuration;
+
     /**
      * The link queue that the checker thread will use to check links. We use a separate checker thread and a queue
      * in order to have good performance so that this transformation doesn't slow down the rendering of content.
      */
-    private Queue<LinkQueueItem> linkQueue = new ConcurrentLinkedQueue<>();
+    private LinkCheckerQueue linkQueue = new LinkCheckerQueue(MAX_LINKS_IN_QUEUE);
 
     /**
      * Start a Thread in charge of reading links to check from the Checking queue and checking them.
@@ -93,35 +182,63 @@ public void initialize() throws InitializationException
     }
 
     @Override
-    public void transform(Block source, TransformationContext context) throws TransformationException
+    public void transform(Block block, TransformationContext context) throws TransformationException
+    {
+        TransformationTraversal.transform(this, block, context);
+    }
+
+    @Override
+    public TransformationVisitor createVisitor(Block block, TransformationContext context)
     {
         // Note that we don't check for pages to excludes here because this transformation is running in the main
         // thread and is executed for each page view and thus needs to be as fast as possible. The exclusion handling
         // is thus done in the Link Checker Thread.
 
-        // Anti-flood mechanism, only add items in the queue if there are less than MAX_LINKS_IN_QUEUE. This means that
-        // if the queue has MAX_LINKS_IN_QUEUE or more elements already the links from the current page being rendered
-        // will not be verified. They'll get their chance the next time the page is visited again...
-        if (getLinkQueue().size() < MAX_LINKS_IN_QUEUE) {
-            for (LinkBlock linkBlock : source.<LinkBlock>getBlocks(
-                new ClassBlockMatcher(LinkBlock.class), Block.Axes.DESCENDANT))
-            {
-                if (linkBlock.getReference().getType().equals(ResourceType.URL)) {
-                    // This is a link pointing to an external URL, add it to the queue for processing (i.e. checking).
-                    String linkReference = linkBlock.getReference().getReference();
-                    String contentReference = extractSourceContentReference(linkBlock);
-                    // If there's no content reference then use a default name of "default"
-                    if (contentReference == null) {
-                        contentReference = "default";
-                    }
-                    // Add Link Context Data
-                    Map<String, Object> linkContextData = createLinkContextData(linkReference, contentReference);
-                    this.linkQueue.add(new LinkQueueItem(linkReference, contentReference, linkContextData));
-                }
+        // Anti-flood mechanism, only add items in the queue if it's not full. This means that if the queue is full
+        // already the links from the current page being rendered will not be verified. They'll get their chance the
+        // next time the page is visited again...
+        if (this.linkQueue.isFull()) {
+            return null;
+        }
+
+        String contentReference = extractSourceContentReference(block);
+        return new LinkVisitor(contentReference != null ? contentReference : DEFAULT_CONTENT_REFERENCE);
+    }
+
+    private void addLinks(Set<Pair<String, String>> links)
+    {
+        if (links.isEmpty()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long checkTimeout = this.configuration.getCheckTimeout();
+        for (Pair<String, String> link : links) {
+            // No need to look at the remaining links if the queue is full
+            if (this.linkQueue.isFull()) {
+                return;
             }
+            addLink(link.getLeft(), link.getRight(), now, checkTimeout);
         }
     }
 
+    private void addLink(String linkReference, String contentReference, long now, long checkTimeout)
+    {
+        // Don't queue the same link several times and don't queue links which have been checked recently since the
+        // Link Checker Thread would skip them anyway.
+        if (this.linkQueue.isPending(linkReference, contentReference)) {
+            return;
+        }
+        LinkState state = this.linkStateManager.getLinkState(linkReference, contentReference);
+        if (LinkCheckerQueue.isRecentlyChecked(state, now, checkTimeout)) {
+            return;
+        }
+
+        // Add Link Context Data
+        Map<String, Object> linkContextData = createLinkContextData(linkReference, contentReference);
+        this.linkQueue.offer(new LinkQueueItem(linkReference, contentReference, linkContextData));
+    }
+
     /**
      * Stops the checking thread. Should be called when the application is stopped for a clean shutdown.
      *
@@ -166,8 +283,8 @@ private Map<String, Object> createLinkContextData(String linkReference, String c
     }
 
     /**
-     * @param source the blocks from where to try to extract the source content
-     * @return the source content reference or null if none is found
+     * @param source the block from where to try to extract the source content
+     * @return the source content reference of the ancestors of the passed block or null if none is found
      */
     private String extractSourceContentReference(Block source)
     {
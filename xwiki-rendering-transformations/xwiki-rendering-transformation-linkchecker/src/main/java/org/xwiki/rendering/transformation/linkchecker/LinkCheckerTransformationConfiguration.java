@@ -19,10 +19,12 @@
  */
 package org.xwiki.rendering.transformation.linkchecker;
 
+import java.io.File;
 import java.util.List;
 import java.util.regex.Pattern;
 
 import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
 
 /**
  * Configuration options for the Link Checker Transformation.
@@ -33,6 +35,30 @@
 @Role
 public interface LinkCheckerTransformationConfiguration
 {
+    /**
+     * The default maximum number of link references for which states are kept.
+     *
+     * @since 15.0RC1
+     */
+    @Unstable
+    int DEFAULT_MAX_LINK_STATES = 10000;
+
+    /**
+     * The default amount of time (in ms) after which a link state is discarded: 1 day.
+     *
+     * @since 15.0RC1
+     */
+    @Unstable
+    long DEFAULT_LINK_STATE_TIME_TO_LIVE = 86400000L;
+
+    /**
+     * The default minimum amount of time (in ms) between two saves of the link states: 5 minutes.
+     *
+     * @since 15.0RC1
+     */
+    @Unstable
+    long DEFAULT_LINK_STATE_SNAPSHOT_INTERVAL = 300000L;
+
     /**
      * @return the amount of time (in ms) after which a link should be rechecked for validity
      */
@@ -48,4 +74,47 @@
      *         ensure that the page listing all link statuses is itself excluded ;))
      */
     List<Pattern> getExcludedReferencePatterns();
+
+    /**
+     * @return the maximum number of link references for which states are kept in memory, the states of the least
+     *         recently checked links being discarded first
+     * @since 15.0RC1
+     */
+    @Unstable
+    default int getMaxLinkStates()
+    {
+        return DEFAULT_MAX_LINK_STATES;
+    }
+
+    /**
+     * @return the amount of time (in ms) after which a link state is discarded if the link hasn't been checked again
+     * @since 15.0RC1
+     */
+    @Unstable
+    default long getLinkStateTimeToLive()
+    {
+        return DEFAULT_LINK_STATE_TIME_TO_LIVE;
+    }
+
+    /**
+     * @return the file where the link states are regularly saved and from which they are loaded at startup, so that
+     *         links don't all need to be checked again after a restart, or {@code null} if link states should not be
+     *         persisted
+     * @since 15.0RC1
+     */
+    @Unstable
+    default File getLinkStateSnapshotFile()
+    {
+        return null;
+    }
+
+    /**
+     * @return the minimum amount of time (in ms) between two saves of the link states in the snapshot file
+     * @since 15.0RC1
+     */
+    @Unstable
+    default long getLinkStateSnapshotInterval()
+    {
+        return DEFAULT_LINK_STATE_SNAPSHOT_INTERVAL;
+    }
 }
@@ -20,8 +20,10 @@
 package org.xwiki.rendering.transformation.linkchecker;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
 
 /**
  * Provides the states of all checked links (ie all links that have been visited in the wiki).
@@ -37,4 +39,37 @@
      *         key is the content reference
      */
     Map<String, Map<String, LinkState>> getLinkStates();
+
+    /**
+     * @param linkReference the reference of the checked link
+     * @param contentReference the reference of the content containing the link
+     * @return the state of the link for the passed content, or {@code null} if the link hasn't been checked for that
+     *         content (or if its state has expired)
+     * @since 15.0RC1
+     */
+    @Unstable
+    default LinkState getLinkState(String linkReference, String contentReference)
+    {
+        Map<String, LinkState> contentReferences = getLinkStates().get(linkReference);
+        return contentReferences != null ? contentReferences.get(contentReference) : null;
+    }
+
+    /**
+     * Atomically record the state of a link for a given content, without losing the states recorded concurrently for
+     * the same link and other contents.
+     *
+     * @param linkReference the reference of the checked link
+     * @param contentReference the reference of the content containing the link
+     * @param state the new state of the link
+     * @since 15.0RC1
+     */
+    @Unstable
+    default void setLinkState(String linkReference, String contentReference, LinkState state)
+    {
+        getLinkStates().compute(linkReference, (key, contentReferences) -> {
+            Map<String, LinkState> result = contentReferences != null ? contentReferences : new ConcurrentHashMap<>();
+            result.put(contentReference, state);
+            return result;
+        });
+    }
 }
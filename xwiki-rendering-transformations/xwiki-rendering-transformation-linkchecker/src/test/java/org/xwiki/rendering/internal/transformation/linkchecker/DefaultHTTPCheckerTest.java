@@ -19,14 +19,28 @@
  */
 package org.xwiki.rendering.internal.transformation.linkchecker;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Rule;
 import org.junit.Test;
 import org.xwiki.test.mockito.MockitoComponentMockingRule;
 
+import com.github.tomakehurst.wiremock.client.RequestPatternBuilder;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
 import com.github.tomakehurst.wiremock.junit.WireMockRule;
 
 import static com.github.tomakehurst.wiremock.client.RequestPatternBuilder.allRequests;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.findAll;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.head;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
 import static org.junit.Assert.*;
 
 /**
@@ -59,4 +73,64 @@ public void testProxy() throws Exception
         assertEquals(404, this.mocker.getComponentUnderTest().check("http://unknownhostforxwikitest"));
         assertFalse("The HTTP server was called by the link checker", findAll(allRequests()).isEmpty());
     }
+
+    @Test
+    public void checkUsesHeadRequest() throws Exception
+    {
+        stubFor(head(urlEqualTo("/head")).willReturn(aResponse().withStatus(200)));
+        stubFor(get(urlEqualTo("/head")).willReturn(aResponse().withStatus(200).withBody("content")));
+
+        assertEquals(200, this.mocker.getComponentUnderTest().check("http://localhost:8888/head"));
+
+        verify(1, headRequestedFor("/head"));
+        // Since the HEAD request succeeded, no GET request (and thus no content download) should have been done.
+        verify(0, getRequestedFor(urlEqualTo("/head")));
+    }
+
+    @Test
+    public void checkFallsBackToGetWhenHeadIsNotAllowed() throws Exception
+    {
+        stubFor(head(urlEqualTo("/nohead")).willReturn(aResponse().withStatus(405)));
+        stubFor(get(urlEqualTo("/nohead")).willReturn(aResponse().withStatus(200).withBody("content")));
+
+        assertEquals(200, this.mocker.getComponentUnderTest().check("http://localhost:8888/nohead"));
+
+        verify(1, headRequestedFor("/nohead"));
+        verify(1, getRequestedFor(urlEqualTo("/nohead")));
+    }
+
+    @Test
+    public void checkDoesntFallBackToGetWhenNotFound() throws Exception
+    {
+        stubFor(head(urlEqualTo("/missing")).willReturn(aResponse().withStatus(404)));
+
+        assertEquals(404, this.mocker.getComponentUnderTest().check("http://localhost:8888/missing"));
+
+        verify(0, getRequestedFor(urlEqualTo("/missing")));
+    }
+
+    @Test
+    public void checkAll() throws Exception
+    {
+        stubFor(head(urlEqualTo("/ok")).willReturn(aResponse().withStatus(200)));
+        stubFor(head(urlEqualTo("/notfound")).willReturn(aResponse().withStatus(404)));
+
+        Map<String, Future<Integer>> results = this.mocker.getComponentUnderTest().checkAll(
+            Arrays.asList("http://localhost:8888/ok", "http://localhost:8888/notfound", "http://localhost:8888/ok",
+                "invalid"));
+
+        assertEquals(Arrays.asList("http://localhost:8888/ok", "http://localhost:8888/notfound", "invalid"),
+            Arrays.asList(results.keySet().toArray()));
+        assertEquals(200, results.get("http://localhost:8888/ok").get(10, TimeUnit.SECONDS).intValue());
+        assertEquals(404, results.get("http://localhost:8888/notfound").get(10, TimeUnit.SECONDS).intValue());
+        assertEquals(0, results.get("invalid").get(10, TimeUnit.SECONDS).intValue());
+
+        // Duplicate URLs are checked only once.
+        verify(1, headRequestedFor("/ok"));
+    }
+
+    private RequestPatternBuilder headRequestedFor(String url)
+    {
+        return new RequestPatternBuilder(RequestMethod.HEAD, urlEqualTo(url));
+    }
 }
@@ -0,0 +1,163 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.transformation.linkchecker;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.xwiki.component.util.ReflectionUtils;
+import org.xwiki.rendering.transformation.linkchecker.LinkCheckerTransformationConfiguration;
+import org.xwiki.rendering.transformation.linkchecker.LinkState;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.mockito.MockitoComponentMockingRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DefaultLinkStateManager}.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+public class DefaultLinkStateManagerTest
+{
+    private static final File SNAPSHOT_FILE = new File("target/linkstates/snapshot.bin");
+
+    @Rule
+    public MockitoComponentMockingRule<DefaultLinkStateManager> mocker =
+        new MockitoComponentMockingRule<>(DefaultLinkStateManager.class);
+
+    private LinkCheckerTransformationConfiguration configuration;
+
+    @BeforeComponent
+    public void setUpComponents() throws Exception
+    {
+        SNAPSHOT_FILE.delete();
+
+        this.configuration = this.mocker.registerMockComponent(LinkCheckerTransformationConfiguration.class);
+        when(this.configuration.getMaxLinkStates()).thenReturn(3);
+        when(this.configuration.getLinkStateTimeToLive()).thenReturn(3600000L);
+        when(this.configuration.getLinkStateSnapshotFile()).thenReturn(SNAPSHOT_FILE);
+        when(this.configuration.getLinkStateSnapshotInterval()).thenReturn(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void setAndGetLinkState() throws Exception
+    {
+        DefaultLinkStateManager manager = this.mocker.getComponentUnderTest();
+        long now = System.currentTimeMillis();
+
+        manager.setLinkState("url", "page1", new LinkState(200, now));
+        manager.setLinkState("url", "page2", new LinkState(404, now));
+
+        assertEquals(200, manager.getLinkState("url", "page1").getResponseCode());
+        assertEquals(404, manager.getLinkState("url", "page2").getResponseCode());
+        assertEquals(2, manager.getLinkStates().get("url").size());
+        assertNull(manager.getLinkState("url", "page3"));
+        assertNull(manager.getLinkState("otherurl", "page1"));
+    }
+
+    @Test
+    public void getLinkStateWhenExpired() throws Exception
+    {
+        DefaultLinkStateManager manager = this.mocker.getComponentUnderTest();
+
+        // Expire the link states now so that the next calls don't.
+        manager.getLinkStates();
+
+        manager.setLinkState("url", "page", new LinkState(200, System.currentTimeMillis() - 3600001L));
+        manager.setLinkState("url2", "page", new LinkState(200, System.currentTimeMillis() - 3600001L));
+
+        assertNull(manager.getLinkState("url", "page"));
+
+        // The accessed expired state is removed while the other ones are kept until the next periodic expiration.
+        assertFalse(manager.getLinkStates().containsKey("url"));
+        assertTrue(manager.getLinkStates().containsKey("url2"));
+    }
+
+    @Test
+    public void getLinkStatesWhenExpired() throws Exception
+    {
+        DefaultLinkStateManager manager = this.mocker.getComponentUnderTest();
+        long now = System.currentTimeMillis();
+
+        manager.setLinkState("url1", "page1", new LinkState(200, now - 3600001L));
+        manager.setLinkState("url1", "page2", new LinkState(200, now));
+        manager.setLinkState("url2", "page1", new LinkState(200, now - 3600001L));
+
+        assertEquals(1, manager.getLinkStates().size());
+        assertEquals(1, manager.getLinkStates().get("url1").size());
+        assertTrue(manager.getLinkStates().get("url1").containsKey("page2"));
+    }
+
+    @Test
+    public void setLinkStateEvictsLeastRecentlyCheckedLinks() throws Exception
+    {
+        DefaultLinkStateManager manager = this.mocker.getComponentUnderTest();
+        long now = System.currentTimeMillis();
+
+        manager.setLinkState("url1", "page", new LinkState(200, now - 4));
+        manager.setLinkState("url2", "page", new LinkState(200, now - 3));
+        manager.setLinkState("url3", "page", new LinkState(200, now - 2));
+        manager.setLinkState("url4", "page", new LinkState(200, now - 1));
+
+        assertTrue(manager.getLinkStates().size() <= 3);
+        assertFalse(manager.getLinkStates().containsKey("url1"));
+        assertTrue(manager.getLinkStates().containsKey("url4"));
+    }
+
+    @Test
+    public void saveAndLoadSnapshot() throws Exception
+    {
+        DefaultLinkStateManager manager = this.mocker.getComponentUnderTest();
+        long now = System.currentTimeMillis();
+
+        manager.setLinkState("url1", "page1", new LinkState(200, now));
+        manager.setLinkState("url1", "page2", new LinkState(404, now));
+        manager.setLinkState("url2", "page1", new LinkState(0, now));
+        // Expired states are not saved
+        manager.setLinkState("url3", "page1", new LinkState(200, now - 3600001L));
+
+        manager.dispose();
+        assertTrue(SNAPSHOT_FILE.isFile());
+
+        DefaultLinkStateManager newManager = new DefaultLinkStateManager();
+        ReflectionUtils.setFieldValue(newManager, "configuration", this.configuration);
+        ReflectionUtils.setFieldValue(newManager, "logger", mock(Logger.class));
+        newManager.initialize();
+
+        assertEquals(2, newManager.getLinkStates().size());
+        LinkState state = newManager.getLinkState("url1", "page2");
+        assertNotNull(state);
+        assertEquals(404, state.getResponseCode());
+        assertEquals(now, state.getLastCheckedTime());
+        assertEquals(200, newManager.getLinkState("url1", "page1").getResponseCode());
+        assertEquals(0, newManager.getLinkState("url2", "page1").getResponseCode());
+        assertNull(newManager.getLinkStates().get("url3"));
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.transformation.linkchecker;
+
+import org.junit.Test;
+import org.xwiki.rendering.transformation.linkchecker.LinkState;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link LinkCheckerQueue}.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+public class LinkCheckerQueueTest
+{
+    @Test
+    public void offerWhenPendingOrFull()
+    {
+        LinkCheckerQueue queue = new LinkCheckerQueue(2);
+
+        assertTrue(queue.offer(new LinkQueueItem("url1", "page", null)));
+        assertFalse(queue.offer(new LinkQueueItem("url1", "page", null)));
+        assertTrue(queue.isPending("url1", "page"));
+        assertTrue(queue.offer(new LinkQueueItem("url1", "otherpage", null)));
+        assertTrue(queue.isFull());
+        assertFalse(queue.offer(new LinkQueueItem("url2", "page", null)));
+        assertEquals(2, queue.size());
+
+        assertEquals("page", queue.poll().getContentReference());
+        assertFalse(queue.isPending("url1", "page"));
+        assertTrue(queue.offer(new LinkQueueItem("url2", "page", null)));
+    }
+
+    @Test
+    public void isRecentlyChecked()
+    {
+        assertFalse(LinkCheckerQueue.isRecentlyChecked(null, 1000L, 100L));
+        assertTrue(LinkCheckerQueue.isRecentlyChecked(new LinkState(200, 950L), 1000L, 100L));
+        // The queue and the checker thread must agree on the boundary
+        assertTrue(LinkCheckerQueue.isRecentlyChecked(new LinkState(200, 900L), 1000L, 100L));
+        assertFalse(LinkCheckerQueue.isRecentlyChecked(new LinkState(200, 899L), 1000L, 100L));
+    }
+}
@@ -291,15 +291,68 @@ public void transformWithAntiFloodKickingIn() throws Exception
             input.append("[[url:").append(url).append("]]");
         }
 
-        // Render a first page with MAX_LINKS_IN_QUEUE + 1 links in it so that they're all added to the Check Queue
+        // Render a first page with MAX_LINKS_IN_QUEUE + 1 links in it and verify that only MAX_LINKS_IN_QUEUE links
+        // are added to the Check Queue
         Parser xwiki20Parser = this.componentManager.getInstance(Parser.class, "xwiki/2.0");
         XDOM xdom = xwiki20Parser.parse(new StringReader(input.toString()));
         transformation.transform(xdom, new TransformationContext());
-        assertEquals(LinkCheckerTransformation.MAX_LINKS_IN_QUEUE + 1, transformation.getLinkQueue().size());
+        assertEquals(LinkCheckerTransformation.MAX_LINKS_IN_QUEUE, transformation.getLinkQueue().size());
 
         // Now render a second page and verify no new links are added to the queue since it's already full!
+        xdom = xwiki20Parser.parse(new StringReader("[[url:otherurl]]"));
         transformation.transform(xdom, new TransformationContext());
-        assertEquals(LinkCheckerTransformation.MAX_LINKS_IN_QUEUE + 1, transformation.getLinkQueue().size());
+        assertEquals(LinkCheckerTransformation.MAX_LINKS_IN_QUEUE, transformation.getLinkQueue().size());
+    }
+
+    /**
+     * Verify that the same link is queued only once for a given content reference.
+     */
+    @Test
+    public void transformWithDuplicateLinks() throws Exception
+    {
+        // Replace the Link checker Thread with a mock so that it doesn't remove any link item from the queue
+        this.componentManager.registerMockComponent(LinkCheckerThread.class);
+
+        LinkCheckerTransformation transformation =
+            this.componentManager.getInstance(Transformation.class, "linkchecker");
+
+        Parser xwiki20Parser = this.componentManager.getInstance(Parser.class, "xwiki/2.0");
+        XDOM xdom = xwiki20Parser.parse(new StringReader("[[url:url1]] [[url:url2]] [[url:url1]]"));
+        transformation.transform(xdom, new TransformationContext());
+        assertEquals(2, transformation.getLinkQueue().size());
+
+        // Render the same page again
+        transformation.transform(xdom, new TransformationContext());
+        assertEquals(2, transformation.getLinkQueue().size());
+
+        // The same link found in another content is queued
+        MetaData metaData = new MetaData();
+        metaData.addMetaData(MetaData.SOURCE, "source");
+        transformation.transform(new XDOM(xdom.getChildren(), metaData), new TransformationContext());
+        assertEquals(4, transformation.getLinkQueue().size());
+    }
+
+    /**
+     * Verify that links checked recently are not queued again.
+     */
+    @Test
+    public void transformWhenLinkCheckedRecently() throws Exception
+    {
+        // Replace the Link checker Thread with a mock so that it doesn't remove any link item from the queue
+        this.componentManager.registerMockComponent(LinkCheckerThread.class);
+
+        LinkCheckerTransformation transformation =
+            this.componentManager.getInstance(Transformation.class, "linkchecker");
+
+        LinkStateManager linkStateManager = this.componentManager.getInstance(LinkStateManager.class);
+        linkStateManager.setLinkState("http://ok", "default", new LinkState(200, System.currentTimeMillis()));
+
+        Parser xwiki20Parser = this.componentManager.getInstance(Parser.class, "xwiki/2.0");
+        XDOM xdom = xwiki20Parser.parse(new StringReader("[[http://ok]] [[http://new]]"));
+        transformation.transform(xdom, new TransformationContext());
+
+        assertEquals(1, transformation.getLinkQueue().size());
+        assertEquals("http://new", transformation.getLinkQueue().peek().getLinkReference());
     }
 
     private void transformAndWait(String input, LinkStateManager linkStateManager, int numberOfItemsToWaitFor)
@@ -0,0 +1,52 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.converter;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Receives the output of the deferred macros during a {@link ProgressiveConverter} conversion.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public interface DeferredMacroCallback
+{
+    /**
+     * Called once the document has been rendered in the printer, with a placeholder in place of each deferred macro
+     * and before any deferred macro is executed. It's typically the right time to flush the printer to the client.
+     */
+    default void onDocumentRendered()
+    {
+        // Nothing to do by default
+    }
+
+    /**
+     * Called each time a deferred macro has been executed. It's called once for each placeholder, with an empty
+     * fragment when the placeholder has been removed from the document by a transformation (the deferred macro is not
+     * executed in this case).
+     *
+     * @param key the identifier of the placeholder which has been rendered in place of the macro (the {@code id}
+     *            parameter of the placeholder group or format block)
+     * @param fragment the output of the macro, rendered in the target syntax
+     */
+    void onFragment(String key, String fragment);
+}
@@ -0,0 +1,57 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.converter;
+
+import java.io.Reader;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Converts content from a Syntax to another like {@link Converter} but without waiting for the slow macros (see
+ * {@link org.xwiki.rendering.macro.descriptor.MacroDescriptor#isDeferrable()}) to render the document. Each deferred
+ * macro is rendered as an empty placeholder (a group block, or a format block for inline macros, with an {@code id}
+ * parameter) and its output is sent later to a {@link DeferredMacroCallback} along with the placeholder identifier, so
+ * that the caller can send the document right away and the macro outputs as they come (progressive rendering).
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Role
+@Unstable
+public interface ProgressiveConverter
+{
+    /**
+     * Converts content from a Syntax to another and execute all registered Transformations on the parsed content, the
+     * deferrable macros being executed once the document has been rendered.
+     *
+     * @param source the content to be converted
+     * @param sourceSyntax the Syntax in which the content is represented
+     * @param targetSyntax the Syntax to which to convert to
+     * @param printer the printer that will receive the result of the conversion, with placeholders for the deferred
+     *            macros
+     * @param callback the callback receiving the output of the deferred macros
+     * @throws ConversionException in case of a conversion error (invalid Syntax, etc)
+     */
+    void convert(Reader source, Syntax sourceSyntax, Syntax targetSyntax, WikiPrinter printer,
+        DeferredMacroCallback callback) throws ConversionException;
+}
@@ -0,0 +1,202 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.converter;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.FormatBlock;
+import org.xwiki.rendering.block.GroupBlock;
+import org.xwiki.rendering.block.MacroBlock;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.block.match.ClassBlockMatcher;
+import org.xwiki.rendering.converter.ConversionException;
+import org.xwiki.rendering.converter.DeferredMacroCallback;
+import org.xwiki.rendering.converter.ProgressiveConverter;
+import org.xwiki.rendering.internal.syntax.SyntaxRuntimeManager;
+import org.xwiki.rendering.listener.Format;
+import org.xwiki.rendering.macro.MacroId;
+import org.xwiki.rendering.macro.MacroLookupException;
+import org.xwiki.rendering.macro.MacroManager;
+import org.xwiki.rendering.parser.ParseException;
+import org.xwiki.rendering.renderer.BlockRenderer;
+import org.xwiki.rendering.renderer.printer.DefaultWikiPrinter;
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.transformation.TransformationContext;
+import org.xwiki.rendering.transformation.TransformationException;
+import org.xwiki.rendering.transformation.TransformationManager;
+
+/**
+ * Default implementation for {@link ProgressiveConverter}. The deferrable macros found in the parsed content are
+ * replaced by placeholders before the transformations are executed and the document is rendered. Each deferred macro
+ * is then put back in its placeholder, transformed in the context of the whole document and its output rendered and
+ * sent to the callback.
+ * <p>
+ * The placeholder identifiers start with a prefix unique to each conversion so that they don't collide with the
+ * placeholders of another conversion displayed in the same page or with identifiers used in the content.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Component
+@Singleton
+public class DefaultProgressiveConverter implements ProgressiveConverter
+{
+    private static final String PLACEHOLDER_PREFIX = "xwiki-deferred-";
+
+    private static final String PLACEHOLDER_ID = "id";
+
+    /**
+     * Used to lookup parser and renderer.
+     */
+    @Inject
+    private SyntaxRuntimeManager syntaxRuntimeManager;
+
+    /**
+     * Used to execute transformations.
+     */
+    @Inject
+    private TransformationManager transformationManager;
+
+    /**
+     * Used to find which macros can be deferred.
+     */
+    @Inject
+    private MacroManager macroManager;
+
+    @Override
+    public void convert(Reader source, Syntax sourceSyntax, Syntax targetSyntax, WikiPrinter printer,
+        DeferredMacroCallback callback) throws ConversionException
+    {
+        // Step 1: Find the parser and generate a XDOM
+        XDOM xdom;
+        try {
+            xdom = this.syntaxRuntimeManager.getRuntime(sourceSyntax).getParser().parse(source);
+        } catch (ComponentLookupException e) {
+            throw new ConversionException("Failed to locate Parser for syntax [" + sourceSyntax + "]", e);
+        } catch (ParseException e) {
+            throw new ConversionException("Failed to parse input source", e);
+        }
+
+        // Step 2: Locate the Renderer
+        BlockRenderer renderer;
+        try {
+            renderer = this.syntaxRuntimeManager.getRuntime(targetSyntax).getBlockRenderer();
+        } catch (ComponentLookupException e) {
+            throw new ConversionException("Failed to locate Renderer for syntax [" + targetSyntax + "]", e);
+        }
+
+        // Step 3: Replace the deferrable macros by placeholders
+        String placeholderPrefix = PLACEHOLDER_PREFIX + UUID.randomUUID() + '-';
+        Map<String, MacroBlock> deferredMacros = deferMacros(xdom, sourceSyntax, placeholderPrefix);
+
+        // Step 4: Run transformations and render the document
+        TransformationContext context = new TransformationContext(xdom, sourceSyntax);
+        context.setTargetSyntax(targetSyntax);
+        transform(xdom, context);
+        renderer.render(xdom, printer);
+        callback.onDocumentRendered();
+
+        // Step 5: Execute and render each deferred macro in its placeholder
+        Map<String, Block> placeholders = getPlaceholders(xdom, deferredMacros);
+        for (Map.Entry<String, MacroBlock> entry : deferredMacros.entrySet()) {
+            Block placeholder = placeholders.get(entry.getKey());
+            WikiPrinter fragmentPrinter = new DefaultWikiPrinter();
+            // A transformation may have removed the placeholder, in which case the client still needs to know that
+            // it won't get any content for it.
+            if (placeholder != null) {
+                placeholder.addChild(entry.getValue());
+                transform(placeholder, context);
+                renderer.render(placeholder.getChildren(), fragmentPrinter);
+            }
+            callback.onFragment(entry.getKey(), fragmentPrinter.toString());
+        }
+    }
+
+    private Map<String, MacroBlock> deferMacros(XDOM xdom, Syntax syntax, String placeholderPrefix)
+    {
+        Map<String, MacroBlock> deferredMacros = new LinkedHashMap<>();
+
+        List<MacroBlock> macroBlocks =
+            xdom.getBlocks(new ClassBlockMatcher(MacroBlock.class), Block.Axes.DESCENDANT);
+        for (MacroBlock macroBlock : macroBlocks) {
+            if (isDeferrable(macroBlock, syntax)) {
+                String key = placeholderPrefix + (deferredMacros.size() + 1);
+                Map<String, String> parameters = Collections.singletonMap(PLACEHOLDER_ID, key);
+                Block placeholder;
+                if (macroBlock.isInline()) {
+                    placeholder = new FormatBlock(new ArrayList<>(), Format.NONE, parameters);
+                } else {
+                    placeholder = new GroupBlock(parameters);
+                }
+                macroBlock.getParent().replaceChild(placeholder, macroBlock);
+                deferredMacros.put(key, macroBlock);
+            }
+        }
+
+        return deferredMacros;
+    }
+
+    private boolean isDeferrable(MacroBlock macroBlock, Syntax syntax)
+    {
+        try {
+            return this.macroManager.getMacro(new MacroId(macroBlock.getId(), syntax)).getDescriptor()
+                .isDeferrable();
+        } catch (MacroLookupException e) {
+            // Let the macro transformation generate the error
+            return false;
+        }
+    }
+
+    private Map<String, Block> getPlaceholders(XDOM xdom, Map<String, MacroBlock> deferredMacros)
+    {
+        // The transformations may have moved the placeholders (e.g. a macro wrapping its content) so find them again
+        Map<String, Block> placeholders = new LinkedHashMap<>();
+        if (!deferredMacros.isEmpty()) {
+            List<Block> blocks = xdom.getBlocks(block -> (block instanceof GroupBlock || block instanceof FormatBlock)
+                && deferredMacros.containsKey(block.getParameter(PLACEHOLDER_ID)), Block.Axes.DESCENDANT);
+            for (Block block : blocks) {
+                placeholders.putIfAbsent(block.getParameter(PLACEHOLDER_ID), block);
+            }
+        }
+        return placeholders;
+    }
+
+    private void transform(Block block, TransformationContext context) throws ConversionException
+    {
+        try {
+            this.transformationManager.performTransformations(block, context);
+        } catch (TransformationException e) {
+            throw new ConversionException("Failed to execute some transformations", e);
+        }
+    }
+}
@@ -19,7 +19,6 @@
  */
 package org.xwiki.rendering.internal.macro;
 
-import java.io.StringReader;
 import java.util.Collections;
 
 import javax.inject.Inject;
@@ -28,13 +27,13 @@
 import org.apache.commons.lang3.StringUtils;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.manager.ComponentLookupException;
-import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.rendering.block.Block;
 import org.xwiki.rendering.block.Block.Axes;
 import org.xwiki.rendering.block.MacroBlock;
 import org.xwiki.rendering.block.MetaDataBlock;
 import org.xwiki.rendering.block.XDOM;
 import org.xwiki.rendering.block.match.MetadataBlockMatcher;
+import org.xwiki.rendering.internal.syntax.SyntaxRuntimeManager;
 import org.xwiki.rendering.internal.transformation.MutableRenderingContext;
 import org.xwiki.rendering.listener.MetaData;
 import org.xwiki.rendering.macro.MacroContentParser;
@@ -45,6 +44,7 @@
 import org.xwiki.rendering.transformation.RenderingContext;
 import org.xwiki.rendering.transformation.Transformation;
 import org.xwiki.rendering.transformation.TransformationContext;
+import org.xwiki.rendering.util.CharSequenceReader;
 import org.xwiki.rendering.util.ParserUtils;
 
 /**
@@ -58,10 +58,10 @@
 public class DefaultMacroContentParser implements MacroContentParser
 {
     /**
-     * Used to look up the syntax parser to use for parsing the content.
+     * Used to get the syntax parser to use for parsing the content without looking it up for each call.
      */
     @Inject
-    private ComponentManager componentManager;
+    private SyntaxRuntimeManager syntaxRuntimeManager;
 
     /**
      * Used to update rendering context during content transformation.
@@ -110,10 +110,10 @@ private XDOM createXDOM(String content, MacroTransformationContext macroContext,
             XDOM result;
 
             if (macroContext.getXDOM() != null && macroContext.getXDOM().getIdGenerator() != null) {
-                result = getSyntaxParser(syntax).parse(new StringReader(content),
+                result = getSyntaxParser(syntax).parse(new CharSequenceReader(content),
                     macroContext.getXDOM().getIdGenerator());
             } else {
-                result = getSyntaxParser(syntax).parse(new StringReader(content));
+                result = getSyntaxParser(syntax).parse(new CharSequenceReader(content));
             }
 
             // Inject metadata
@@ -179,7 +179,7 @@ private XDOM convertToInline(XDOM xdom)
     private Parser getSyntaxParser(Syntax syntax) throws MacroExecutionException
     {
         try {
-            return this.componentManager.getInstance(Parser.class, syntax.toIdString());
+            return this.syntaxRuntimeManager.getRuntime(syntax).getParser();
         } catch (ComponentLookupException e) {
             throw new MacroExecutionException("Failed to find source parser for syntax [" + syntax + "]", e);
         }
@@ -19,8 +19,10 @@
  */
 package org.xwiki.rendering.internal.transformation.macro;
 
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.inject.Singleton;
 
@@ -45,6 +47,14 @@ public class DefaultMacroTransformationConfiguration implements MacroTransformat
 
     private Set<String> hiddenCategories = Set.of();
 
+    private final Map<String, Long> macroExecutionTimeouts = new ConcurrentHashMap<>();
+
+    private long macroExecutionTimeout;
+
+    private long documentExecutionTimeout;
+
+    private int macroOutputCacheSize = MacroTransformationConfiguration.super.getMacroOutputCacheSize();
+
     @Override
     public Properties getCategories()
     {
@@ -81,4 +91,65 @@ public void setHiddenCategories(Set<String> hiddenCategories)
     {
         this.hiddenCategories = hiddenCategories;
     }
+
+    @Override
+    public long getMacroExecutionTimeout(String macroId)
+    {
+        return this.macroExecutionTimeouts.getOrDefault(macroId, this.macroExecutionTimeout);
+    }
+
+    /**
+     * Set the execution time budget of all the macros which don't have a specific one.
+     *
+     * @param timeout the maximum wall time in milliseconds of a single macro execution, 0 or less meaning no limit
+     * @since 15.0RC1
+     */
+    public void setMacroExecutionTimeout(long timeout)
+    {
+        this.macroExecutionTimeout = timeout;
+    }
+
+    /**
+     * Set the execution time budget of a specific macro.
+     *
+     * @param macroId the identifier of the macro
+     * @param timeout the maximum wall time in milliseconds of a single execution of the macro, 0 or less meaning no
+     *            limit
+     * @since 15.0RC1
+     */
+    public void setMacroExecutionTimeout(String macroId, long timeout)
+    {
+        this.macroExecutionTimeouts.put(macroId, timeout);
+    }
+
+    @Override
+    public long getDocumentExecutionTimeout()
+    {
+        return this.documentExecutionTimeout;
+    }
+
+    /**
+     * @param timeout the maximum wall time in milliseconds of the execution of all the macros of a document, 0 or less
+     *            meaning no limit
+     * @since 15.0RC1
+     */
+    public void setDocumentExecutionTimeout(long timeout)
+    {
+        this.documentExecutionTimeout = timeout;
+    }
+
+    @Override
+    public int getMacroOutputCacheSize()
+    {
+        return this.macroOutputCacheSize;
+    }
+
+    /**
+     * @param macroOutputCacheSize the maximum number of cached macro outputs, 0 or less disabling the cache
+     * @since 15.0RC1
+     */
+    public void setMacroOutputCacheSize(int macroOutputCacheSize)
+    {
+        this.macroOutputCacheSize = macroOutputCacheSize;
+    }
 }
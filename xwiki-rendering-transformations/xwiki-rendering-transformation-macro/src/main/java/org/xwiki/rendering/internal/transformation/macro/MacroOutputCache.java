@@ -0,0 +1,251 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.transformation.macro;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.macro.Macro;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.transformation.macro.MacroTransformationConfiguration;
+
+/**
+ * Bounded (least recently used) cache of the output of the macros declared as cacheable, see
+ * {@link org.xwiki.rendering.macro.descriptor.MacroDescriptor#isCacheable()}. The cache owns its blocks: they are
+ * cloned when stored and when returned so that the transformations executed on the returned blocks don't alter the
+ * cached ones.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Component(roles = MacroOutputCache.class)
+@Singleton
+public class MacroOutputCache
+{
+    /**
+     * The inputs of a macro execution.
+     *
+     * @version $Id$
+     */
+    public static final class Key
+    {
+        private final Macro<?> macro;
+
+        private final String id;
+
+        private final Map<String, String> parameters;
+
+        private final String content;
+
+        private final Syntax syntax;
+
+        private final Syntax targetSyntax;
+
+        private final boolean inline;
+
+        private final boolean restricted;
+
+        private final int hashCode;
+
+        /**
+         * @param macro the macro instance, so that a macro registered again with the same identifier doesn't reuse
+         *            the output of the previous implementation
+         * @param id the identifier of the macro
+         * @param parameters the parameters of the macro
+         * @param content the content of the macro
+         * @param syntax the syntax of the content
+         * @param targetSyntax the syntax in which the document will be rendered
+         * @param inline {@code true} if the macro is executed in inline mode
+         * @param restricted {@code true} if the transformation is executed in restricted mode
+         */
+        public Key(Macro<?> macro, String id, Map<String, String> parameters, String content, Syntax syntax,
+            Syntax targetSyntax, boolean inline, boolean restricted)
+        {
+            this.macro = macro;
+            this.id = id;
+            // Copy the parameters since they belong to a mutable block
+            this.parameters = new LinkedHashMap<>(parameters);
+            this.content = content;
+            this.syntax = syntax;
+            this.targetSyntax = targetSyntax;
+            this.inline = inline;
+            this.restricted = restricted;
+            this.hashCode = Objects.hash(System.identityHashCode(macro), id, this.parameters, content, syntax,
+                targetSyntax, inline, restricted);
+        }
+
+        @Override
+        public boolean equals(Object object)
+        {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) object;
+            return this.macro == other.macro && this.inline == other.inline && this.restricted == other.restricted
+                && this.id.equals(other.id) && this.parameters.equals(other.parameters)
+                && Objects.equals(this.content, other.content) && Objects.equals(this.syntax, other.syntax)
+                && Objects.equals(this.targetSyntax, other.targetSyntax);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.hashCode;
+        }
+    }
+
+    @Inject
+    private MacroTransformationConfiguration configuration;
+
+    private final Map<Key, List<Block>> entries = new LinkedHashMap<>(16, 0.75F, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, List<Block>> eldest)
+        {
+            boolean remove = size() > getMaxSize();
+            if (remove) {
+                MacroOutputCache.this.evictions.increment();
+            }
+            return remove;
+        }
+    };
+
+    private final Map<String, LongAdder> hits = new ConcurrentHashMap<>();
+
+    private final Map<String, LongAdder> misses = new ConcurrentHashMap<>();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @return {@code true} if the cache can store entries
+     */
+    public boolean isEnabled()
+    {
+        return getMaxSize() > 0;
+    }
+
+    private int getMaxSize()
+    {
+        return this.configuration.getMacroOutputCacheSize();
+    }
+
+    /**
+     * @param key the inputs of the macro execution
+     * @return a copy of the cached output or {@code null} if the output isn't cached
+     */
+    public List<Block> get(Key key)
+    {
+        List<Block> blocks;
+        synchronized (this.entries) {
+            blocks = this.entries.get(key);
+        }
+
+        if (blocks == null) {
+            this.misses.computeIfAbsent(key.id, k -> new LongAdder()).increment();
+            return null;
+        }
+
+        this.hits.computeIfAbsent(key.id, k -> new LongAdder()).increment();
+        return cloneBlocks(blocks);
+    }
+
+    /**
+     * @param key the inputs of the macro execution
+     * @param blocks the output of the macro execution, copied before being stored
+     */
+    public void put(Key key, List<Block> blocks)
+    {
+        List<Block> copy = cloneBlocks(blocks);
+        synchronized (this.entries) {
+            this.entries.put(key, copy);
+        }
+    }
+
+    /**
+     * Remove all the cached outputs.
+     */
+    public void clear()
+    {
+        synchronized (this.entries) {
+            this.entries.clear();
+        }
+    }
+
+    /**
+     * @param macroId the identifier of a macro
+     * @return the number of executions of the passed macro which were served from the cache
+     */
+    public long getHitCount(String macroId)
+    {
+        LongAdder counter = this.hits.get(macroId);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    /**
+     * @param macroId the identifier of a macro
+     * @return the number of executions of the passed macro which were not found in the cache
+     */
+    public long getMissCount(String macroId)
+    {
+        LongAdder counter = this.misses.get(macroId);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    /**
+     * @return the number of entries removed from the cache to respect its maximum size
+     */
+    public long getEvictionCount()
+    {
+        return this.evictions.sum();
+    }
+
+    /**
+     * @return the current number of entries in the cache
+     */
+    public int size()
+    {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    private static List<Block> cloneBlocks(List<Block> blocks)
+    {
+        List<Block> clones = new ArrayList<>(blocks.size());
+        for (Block block : blocks) {
+            clones.add(block.clone());
+        }
+        return clones;
+    }
+}
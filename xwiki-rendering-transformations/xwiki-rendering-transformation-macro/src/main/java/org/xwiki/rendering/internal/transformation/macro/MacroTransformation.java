@@ -34,21 +34,31 @@
 import org.xwiki.component.phase.InitializationException;
 import org.xwiki.properties.BeanManager;
 import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.HeaderBlock;
+import org.xwiki.rendering.block.ImageBlock;
 import org.xwiki.rendering.block.MacroBlock;
 import org.xwiki.rendering.block.MacroMarkerBlock;
+import org.xwiki.rendering.block.MetaDataBlock;
 import org.xwiki.rendering.block.match.BlockMatcher;
+import org.xwiki.rendering.block.match.MetadataBlockMatcher;
 import org.xwiki.rendering.internal.transformation.MutableRenderingContext;
+import org.xwiki.rendering.listener.MetaData;
 import org.xwiki.rendering.macro.Macro;
 import org.xwiki.rendering.macro.MacroId;
 import org.xwiki.rendering.macro.MacroLookupException;
 import org.xwiki.rendering.macro.MacroManager;
 import org.xwiki.rendering.macro.MacroNotFoundException;
+import org.xwiki.rendering.metrics.RenderingMetrics;
+import org.xwiki.rendering.metrics.RenderingPhase;
+import org.xwiki.rendering.metrics.RenderingTimer;
 import org.xwiki.rendering.syntax.Syntax;
 import org.xwiki.rendering.transformation.AbstractTransformation;
 import org.xwiki.rendering.transformation.MacroTransformationContext;
 import org.xwiki.rendering.transformation.RenderingContext;
 import org.xwiki.rendering.transformation.TransformationContext;
 import org.xwiki.rendering.transformation.TransformationException;
+import org.xwiki.rendering.transformation.macro.MacroCancellationToken;
+import org.xwiki.rendering.transformation.macro.MacroTransformationConfiguration;
 import org.xwiki.rendering.util.ErrorBlockGenerator;
 
 /**
@@ -77,6 +87,17 @@ public class MacroTransformation extends AbstractTransformation implements Initi
 
     private static final String TM_INVALIDMACROPARAMETER = "rendering.macro.error.invalidParameter";
 
+    private static final String TM_TIMEOUTMACRO = "rendering.macro.error.timeout";
+
+    private static final String TM_BUDGETEXHAUSTED = "rendering.macro.error.budgetExhausted";
+
+    /**
+     * Match the blocks holding an id generated from the {@link org.xwiki.rendering.util.IdGenerator} of the document.
+     */
+    private static final BlockMatcher GENERATED_ID_MATCHER =
+        block -> (block instanceof HeaderBlock && ((HeaderBlock) block).getId() != null)
+            || (block instanceof ImageBlock && ((ImageBlock) block).getId() != null);
+
     private static class MacroLookupExceptionElement
     {
         private MacroBlock macroBlock;
@@ -204,6 +225,31 @@ public boolean match(Block block)
     @Inject
     private ErrorBlockGenerator errorBlockGenerator;
 
+    /**
+     * Used to measure the execution of each macro.
+     */
+    @Inject
+    private RenderingMetrics renderingMetrics;
+
+    /**
+     * Used to get the execution time budgets of the macros and of the document.
+     */
+    @Inject
+    private MacroTransformationConfiguration configuration;
+
+    /**
+     * The token of the execution in progress in the current thread, used as parent of the tokens of the macros
+     * executed by nested transformations (e.g. when a macro transforms its content) so that they share the same
+     * budget.
+     */
+    private final ThreadLocal<MacroCancellationToken> currentToken = new ThreadLocal<>();
+
+    /**
+     * Used to reuse the output of the macros declared as cacheable.
+     */
+    @Inject
+    private MacroOutputCache macroOutputCache;
+
     /**
      * Used to generate Macro error blocks when a Macro fails to execute.
      */
@@ -225,6 +271,24 @@ public int getPriority()
 
     @Override
     public void transform(Block rootBlock, TransformationContext context) throws TransformationException
+    {
+        MacroCancellationToken parentToken = this.currentToken.get();
+        if (parentToken != null) {
+            // Nested transformation: it's part of the execution of the enclosing macro
+            transform(rootBlock, context, parentToken);
+        } else {
+            MacroCancellationToken documentToken =
+                new MacroCancellationToken(null, this.configuration.getDocumentExecutionTimeout());
+            this.currentToken.set(documentToken);
+            try {
+                transform(rootBlock, context, documentToken);
+            } finally {
+                this.currentToken.remove();
+            }
+        }
+    }
+
+    private void transform(Block rootBlock, TransformationContext context, MacroCancellationToken documentToken)
     {
         // Create a macro execution context with all the information required for macros.
         MacroTransformationContext macroContext = new MacroTransformationContext(context);
@@ -264,6 +328,21 @@ public void transform(Block rootBlock, TransformationContext context) throws Tra
 
             boolean incrementRecursions = macroBlock.getParent() instanceof MacroMarkerBlock;
 
+            // Don't execute any other macro once the budget of the document is exhausted so that it's still displayed
+            if (documentToken.isCancelled()) {
+                this.macroErrorManager.generateError(macroBlock, TM_BUDGETEXHAUSTED,
+                    "The [{}] macro was not executed because the execution time budget is exhausted.", null,
+                    macroBlock.getId());
+
+                continue;
+            }
+
+            MacroCancellationToken macroToken = new MacroCancellationToken(documentToken,
+                this.configuration.getMacroExecutionTimeout(macroBlock.getId()));
+
+            // Measure everything from the parameters binding to the error generation
+            RenderingTimer timer = this.renderingMetrics.start(RenderingPhase.MACRO, macroBlock.getId());
+
             List<Block> newBlocks;
             try {
                 // 3) Verify if we're in macro inline mode and if the macro supports it. If not, send an error.
@@ -273,6 +352,7 @@ public void transform(Block rootBlock, TransformationContext context) throws Tra
                         // The macro doesn't support inline mode, raise a warning but continue.
                         // The macro will not be executed and we generate an error message instead of the macro
                         // execution result.
+                        timer.setFailed();
                         this.macroErrorManager.generateError(macroBlock, TM_STANDALONEMACRO,
                             "The [{}] macro is a standalone macro and it cannot be used inline",
                             "This macro generates standalone content. As a consequence you need to make sure to use a "
@@ -289,35 +369,57 @@ public void transform(Block rootBlock, TransformationContext context) throws Tra
 
                 // 4) Execute the highest priority macro
                 macroContext.setCurrentMacroBlock(macroBlock);
+                macroContext.setCancellationToken(macroToken);
+                this.currentToken.set(macroToken);
                 ((MutableRenderingContext) this.renderingContext).setCurrentBlock(macroBlock);
 
-                // Populate and validate macro parameters.
-                Object macroParameters =
-                    macro.getDescriptor().getParametersBeanClass().getDeclaredConstructor().newInstance();
-                try {
-                    this.beanManager.populate(macroParameters, macroBlock.getParameters());
-                } catch (Throwable e) {
-                    // One macro parameter was invalid.
-                    // The macro will not be executed and we generate an error message instead of the macro
-                    // execution result.
-                    this.macroErrorManager.generateError(macroBlock, TM_INVALIDMACROPARAMETER,
-                        "Invalid macro parameters used for the [{}] macro.", null, macroBlock.getId(), e);
-
-                    continue;
-                }
+                // Reuse the output of a previous execution of a cacheable macro with the same inputs
+                MacroOutputCache.Key cacheKey = getCacheKey(macro, macroBlock, context);
+                newBlocks = cacheKey != null ? this.macroOutputCache.get(cacheKey) : null;
+
+                if (newBlocks == null) {
+                    // Populate and validate macro parameters.
+                    Object macroParameters =
+                        macro.getDescriptor().getParametersBeanClass().getDeclaredConstructor().newInstance();
+                    try {
+                        this.beanManager.populate(macroParameters, macroBlock.getParameters());
+                    } catch (Throwable e) {
+                        // One macro parameter was invalid.
+                        // The macro will not be executed and we generate an error message instead of the macro
+                        // execution result.
+                        timer.setFailed();
+                        this.macroErrorManager.generateError(macroBlock, TM_INVALIDMACROPARAMETER,
+                            "Invalid macro parameters used for the [{}] macro.", null, macroBlock.getId(), e);
 
-                newBlocks = ((Macro) macro).execute(macroParameters, macroBlock.getContent(), macroContext);
+                        continue;
+                    }
+
+                    newBlocks = ((Macro) macro).execute(macroParameters, macroBlock.getContent(), macroContext);
+
+                    if (cacheKey != null && !hasGeneratedIds(newBlocks)) {
+                        this.macroOutputCache.put(cacheKey, newBlocks);
+                    }
+                }
+                timer.setBlocks(newBlocks);
             } catch (Throwable e) {
                 // The Macro failed to execute.
                 // The macro will not be executed and we generate an error message instead of the macro
                 // execution result.
                 // Note: We catch any Exception because we want to never break the whole rendering.
-                this.macroErrorManager.generateError(macroBlock, TM_FAILEDMACRO, "Failed to execute the [{}] macro.",
-                    null, macroBlock.getId(), e);
+                timer.setFailed();
+                if (macroToken.isCancelled()) {
+                    this.macroErrorManager.generateError(macroBlock, TM_TIMEOUTMACRO,
+                        "The [{}] macro exceeded its execution time budget.", null, macroBlock.getId(), e);
+                } else {
+                    this.macroErrorManager.generateError(macroBlock, TM_FAILEDMACRO,
+                        "Failed to execute the [{}] macro.", null, macroBlock.getId(), e);
+                }
 
                 continue;
             } finally {
+                this.currentToken.set(documentToken);
                 ((MutableRenderingContext) this.renderingContext).setCurrentBlock(null);
+                timer.stop();
             }
 
             // We wrap the blocks generated by the macro execution with MacroMarker blocks so that listeners/renderers
@@ -334,6 +436,43 @@ public void transform(Block rootBlock, TransformationContext context) throws Tra
         }
     }
 
+    private MacroOutputCache.Key getCacheKey(Macro<?> macro, MacroBlock macroBlock, TransformationContext context)
+    {
+        if (!macro.getDescriptor().isCacheable() || !this.macroOutputCache.isEnabled()) {
+            return null;
+        }
+
+        // The content of the macro is written in the syntax of the closest syntax metadata (e.g. for included content)
+        Syntax syntax = context.getSyntax();
+        MetaDataBlock metaDataBlock =
+            macroBlock.getFirstBlock(new MetadataBlockMatcher(MetaData.SYNTAX), Block.Axes.ANCESTOR);
+        if (metaDataBlock != null) {
+            syntax = (Syntax) metaDataBlock.getMetaData().getMetaData(MetaData.SYNTAX);
+        }
+
+        return new MacroOutputCache.Key(macro, macroBlock.getId(), macroBlock.getParameters(),
+            macroBlock.getContent(), syntax, context.getTargetSyntax(), macroBlock.isInline(), context.isRestricted());
+    }
+
+    /**
+     * The ids of headers and images are generated from the state of the document {@link
+     * org.xwiki.rendering.util.IdGenerator} which is not part of the cache key, so an output containing them cannot be
+     * reused.
+     *
+     * @param blocks the output of a macro
+     * @return {@code true} if the output contains blocks with a generated id
+     */
+    private boolean hasGeneratedIds(List<Block> blocks)
+    {
+        for (Block block : blocks) {
+            if (block.getFirstBlock(GENERATED_ID_MATCHER, Block.Axes.DESCENDANT_OR_SELF) != null) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     /**
      * Wrap the output of a macro block with a {@link MacroMarkerBlock}.
      *
@@ -130,6 +130,16 @@
      */
     private Set<String> defaultCategories;
 
+    /**
+     * @see MacroDescriptor#isCacheable()
+     */
+    private boolean cacheable;
+
+    /**
+     * @see MacroDescriptor#isDeferrable()
+     */
+    private boolean deferrable;
+
     /**
      * Creates a new {@link Macro} instance.
      *
@@ -206,6 +216,8 @@ public void initialize() throws InitializationException
             this.contentDescriptor, this.beanManager.getBeanDescriptor(this.parametersBeanClass));
         descriptor.setDefaultCategories(this.defaultCategories);
         descriptor.setSupportsInlineMode(this.supportsInlineMode());
+        descriptor.setCacheable(this.cacheable);
+        descriptor.setDeferrable(this.deferrable);
         setDescriptor(descriptor);
     }
 
@@ -266,6 +278,42 @@ protected void setDefaultCategories(Set<String> defaultCategories)
         }
     }
 
+    /**
+     * Allows sub-classes to indicate that their output only depends on the macro inputs and can thus be cached (see
+     * {@link MacroDescriptor#isCacheable()}). This method only has an effect of the internal {@link MacroDescriptor}
+     * is of type {@link AbstractMacroDescriptor}.
+     *
+     * @param cacheable {@code true} if the output of the macro can be cached, {@code false} otherwise
+     * @since 15.0RC1
+     */
+    @Unstable
+    protected void setCacheable(boolean cacheable)
+    {
+        this.cacheable = cacheable;
+
+        if (getDescriptor() instanceof AbstractMacroDescriptor) {
+            ((AbstractMacroDescriptor) getDescriptor()).setCacheable(cacheable);
+        }
+    }
+
+    /**
+     * Allows sub-classes to indicate that they are slow and can be executed after the rest of the document has been
+     * rendered (see {@link MacroDescriptor#isDeferrable()}). This method only has an effect of the internal
+     * {@link MacroDescriptor} is of type {@link AbstractMacroDescriptor}.
+     *
+     * @param deferrable {@code true} if the execution of the macro can be deferred, {@code false} otherwise
+     * @since 15.0RC1
+     */
+    @Unstable
+    protected void setDeferrable(boolean deferrable)
+    {
+        this.deferrable = deferrable;
+
+        if (getDescriptor() instanceof AbstractMacroDescriptor) {
+            ((AbstractMacroDescriptor) getDescriptor()).setDeferrable(deferrable);
+        }
+    }
+
     /**
      * Helper to get the proper metadata for non generated content (i.e. content that has not gone through a
      * Transformation). This content can be used for inline editing.
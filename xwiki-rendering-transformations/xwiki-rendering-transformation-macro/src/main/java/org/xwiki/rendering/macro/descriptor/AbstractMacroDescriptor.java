@@ -72,6 +72,16 @@ public abstract class AbstractMacroDescriptor implements MacroDescriptor
      */
     private boolean supportsInlineMode;
 
+    /**
+     * @see #isCacheable()
+     */
+    private boolean cacheable;
+
+    /**
+     * @see #isDeferrable()
+     */
+    private boolean deferrable;
+
     /**
      * A map containing the {@link ParameterDescriptor} for each parameters supported for this macro.
      * <p>
@@ -192,4 +202,38 @@ public void setSupportsInlineMode(boolean supportsInlineMode)
     {
         this.supportsInlineMode = supportsInlineMode;
     }
+
+    @Override
+    public boolean isCacheable()
+    {
+        return this.cacheable;
+    }
+
+    /**
+     * @param cacheable {@code true} if the output of the macro can be cached, {@code false} otherwise
+     * @see #isCacheable()
+     * @since 15.0RC1
+     */
+    @Unstable
+    public void setCacheable(boolean cacheable)
+    {
+        this.cacheable = cacheable;
+    }
+
+    @Override
+    public boolean isDeferrable()
+    {
+        return this.deferrable;
+    }
+
+    /**
+     * @param deferrable {@code true} if the execution of the macro can be deferred, {@code false} otherwise
+     * @see #isDeferrable()
+     * @since 15.0RC1
+     */
+    @Unstable
+    public void setDeferrable(boolean deferrable)
+    {
+        this.deferrable = deferrable;
+    }
 }
@@ -23,6 +23,7 @@
 import java.util.Set;
 
 import org.xwiki.rendering.macro.MacroId;
+import org.xwiki.stability.Unstable;
 
 /**
  * Describe a Macro (macro description and macro parameters description).
@@ -96,4 +97,36 @@ default boolean supportsInlineMode()
     {
         return false;
     }
+
+    /**
+     * Indicate if the macro is a pure function of its identifier, parameters, content, syntax, target syntax, inline
+     * mode and restricted flag, i.e. if it doesn't depend on anything else (the current document, the current user,
+     * the rest of the XDOM, the time, etc) and has no side effect. The output of such a macro can be reused by the
+     * Macro Transformation instead of executing the macro again. Note that the macros generated by a cacheable macro
+     * are still executed and that an output containing header or image ids generated for the current document is never
+     * reused.
+     *
+     * @return {@code true} if the output of the macro can be cached, {@code false} by default
+     * @since 15.0RC1
+     */
+    @Unstable
+    default boolean isCacheable()
+    {
+        return false;
+    }
+
+    /**
+     * Indicate if the macro is slow (e.g. it fetches external data) and can be executed after the rest of the document
+     * has been rendered and sent, when the document is converted with a
+     * {@link org.xwiki.rendering.converter.ProgressiveConverter}. A deferrable macro must not modify the rest of the
+     * document.
+     *
+     * @return {@code true} if the execution of the macro can be deferred, {@code false} by default
+     * @since 15.0RC1
+     */
+    @Unstable
+    default boolean isDeferrable()
+    {
+        return false;
+    }
 }
@@ -22,6 +22,8 @@
 import org.xwiki.rendering.block.MacroBlock;
 import org.xwiki.rendering.block.XDOM;
 import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.transformation.macro.MacroCancellationToken;
+import org.xwiki.stability.Unstable;
 
 /**
  * The context of the macro transformation process. Contains information such as the current XWiki DOM for the parsed
@@ -51,6 +53,11 @@ public class MacroTransformationContext implements Cloneable
      */
     private Transformation transformation;
 
+    /**
+     * See {@link #getCancellationToken()}.
+     */
+    private MacroCancellationToken cancellationToken;
+
     /**
      * Constructor.
      */
@@ -182,6 +189,31 @@ public void setId(String id)
         this.transformationContext.setId(id);
     }
 
+    /**
+     * @return the token indicating when the execution of the current macro should stop because its time budget (or
+     *         the one of the document) has been exhausted, never {@code null}
+     * @since 15.0RC1
+     */
+    @Unstable
+    public MacroCancellationToken getCancellationToken()
+    {
+        if (this.cancellationToken == null) {
+            this.cancellationToken = new MacroCancellationToken();
+        }
+
+        return this.cancellationToken;
+    }
+
+    /**
+     * @param cancellationToken see {@link #getCancellationToken()}
+     * @since 15.0RC1
+     */
+    @Unstable
+    public void setCancellationToken(MacroCancellationToken cancellationToken)
+    {
+        this.cancellationToken = cancellationToken;
+    }
+
     @Override
     public MacroTransformationContext clone()
     {
@@ -0,0 +1,122 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.transformation.macro;
+
+import java.util.concurrent.TimeUnit;
+
+import org.xwiki.rendering.macro.MacroExecutionException;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Cooperative cancellation of macro executions. The Macro Transformation gives each executed macro a token bound to
+ * the execution time budget of the macro and of the whole document (see
+ * {@link MacroTransformationConfiguration#getMacroExecutionTimeout(String)} and
+ * {@link MacroTransformationConfiguration#getDocumentExecutionTimeout()}). Long running macros (loops, remote calls,
+ * etc) are expected to regularly call {@link #checkCancelled()} or {@link #isCancelled()} and stop as soon as the
+ * token is cancelled, since the transformation cannot interrupt them.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public class MacroCancellationToken
+{
+    private final MacroCancellationToken parent;
+
+    private final boolean limited;
+
+    private final long deadline;
+
+    private volatile boolean cancelled;
+
+    /**
+     * Create a token which is only cancelled by calling {@link #cancel()}.
+     */
+    public MacroCancellationToken()
+    {
+        this(null, 0);
+    }
+
+    /**
+     * @param parent the token of the enclosing execution (e.g. the document), this token being cancelled when the
+     *            parent is cancelled, can be {@code null}
+     * @param timeout the time budget in milliseconds, starting now, 0 or less meaning no time limit
+     */
+    public MacroCancellationToken(MacroCancellationToken parent, long timeout)
+    {
+        this.parent = parent;
+        this.limited = timeout > 0;
+        this.deadline = this.limited ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+    }
+
+    /**
+     * Cancel the execution explicitly, independently from the time budget.
+     */
+    public void cancel()
+    {
+        this.cancelled = true;
+    }
+
+    /**
+     * @return {@code true} if the execution was cancelled or its time budget (or the one of the parent token) is
+     *         exhausted
+     */
+    public boolean isCancelled()
+    {
+        if (!this.cancelled && this.limited && this.deadline - System.nanoTime() <= 0) {
+            this.cancelled = true;
+        }
+
+        return this.cancelled || (this.parent != null && this.parent.isCancelled());
+    }
+
+    /**
+     * @return the remaining time in milliseconds before the token is cancelled, taking into account the parent
+     *         token, or {@link Long#MAX_VALUE} if there's no time limit
+     */
+    public long getRemainingTime()
+    {
+        if (isCancelled()) {
+            return 0;
+        }
+
+        long remaining = Long.MAX_VALUE;
+        if (this.limited) {
+            remaining = Math.max(0, TimeUnit.NANOSECONDS.toMillis(this.deadline - System.nanoTime()));
+        }
+        if (this.parent != null) {
+            remaining = Math.min(remaining, this.parent.getRemainingTime());
+        }
+
+        return remaining;
+    }
+
+    /**
+     * Helper for macros to stop their execution when the token is cancelled.
+     *
+     * @throws MacroExecutionException if the token is cancelled
+     */
+    public void checkCancelled() throws MacroExecutionException
+    {
+        if (isCancelled()) {
+            throw new MacroExecutionException("The macro execution time budget has been exhausted");
+        }
+    }
+}
@@ -57,4 +57,41 @@ default Set<String> getHiddenCategories()
     {
         return Set.of();
     }
+
+    /**
+     * @param macroId the identifier of the macro
+     * @return the maximum wall time in milliseconds that a single execution of the passed macro may take, 0 or less
+     *         meaning no limit. Macros are notified through
+     *         {@link org.xwiki.rendering.transformation.MacroTransformationContext#getCancellationToken()}.
+     * @since 15.0RC1
+     */
+    @Unstable
+    default long getMacroExecutionTimeout(String macroId)
+    {
+        return 0;
+    }
+
+    /**
+     * @return the maximum wall time in milliseconds that the execution of all the macros of a document may take, 0 or
+     *         less meaning no limit. Once exhausted, the macros which haven't been executed yet are replaced by error
+     *         blocks so that the document is still displayed.
+     * @since 15.0RC1
+     */
+    @Unstable
+    default long getDocumentExecutionTimeout()
+    {
+        return 0;
+    }
+
+    /**
+     * @return the maximum number of macro outputs kept in memory for the macros declared as cacheable (see
+     *         {@link org.xwiki.rendering.macro.descriptor.MacroDescriptor#isCacheable()}), 0 or less disabling the
+     *         cache
+     * @since 15.0RC1
+     */
+    @Unstable
+    default int getMacroOutputCacheSize()
+    {
+        return 1000;
+    }
 }
@@ -0,0 +1,226 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.converter;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.MacroBlock;
+import org.xwiki.rendering.block.ParagraphBlock;
+import org.xwiki.rendering.block.WordBlock;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.block.match.ClassBlockMatcher;
+import org.xwiki.rendering.converter.DeferredMacroCallback;
+import org.xwiki.rendering.internal.syntax.SyntaxRuntime;
+import org.xwiki.rendering.internal.syntax.SyntaxRuntimeManager;
+import org.xwiki.rendering.macro.Macro;
+import org.xwiki.rendering.macro.MacroId;
+import org.xwiki.rendering.macro.MacroManager;
+import org.xwiki.rendering.macro.descriptor.MacroDescriptor;
+import org.xwiki.rendering.parser.Parser;
+import org.xwiki.rendering.renderer.BlockRenderer;
+import org.xwiki.rendering.renderer.printer.DefaultWikiPrinter;
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.transformation.TransformationContext;
+import org.xwiki.rendering.transformation.TransformationManager;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DefaultProgressiveConverter}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class DefaultProgressiveConverterTest
+{
+    @InjectMockComponents
+    private DefaultProgressiveConverter converter;
+
+    @MockComponent
+    private SyntaxRuntimeManager syntaxRuntimeManager;
+
+    @MockComponent
+    private TransformationManager transformationManager;
+
+    @MockComponent
+    private MacroManager macroManager;
+
+    private final Parser parser = mock(Parser.class);
+
+    private final BlockRenderer renderer = mock(BlockRenderer.class);
+
+    @BeforeEach
+    void setUp() throws Exception
+    {
+        SyntaxRuntime sourceRuntime = mock(SyntaxRuntime.class);
+        when(this.syntaxRuntimeManager.getRuntime(Syntax.XWIKI_2_1)).thenReturn(sourceRuntime);
+        when(sourceRuntime.getParser()).thenReturn(this.parser);
+        SyntaxRuntime targetRuntime = mock(SyntaxRuntime.class);
+        when(this.syntaxRuntimeManager.getRuntime(Syntax.XHTML_1_0)).thenReturn(targetRuntime);
+        when(targetRuntime.getBlockRenderer()).thenReturn(this.renderer);
+
+        mockMacro("slow", true);
+        mockMacro("fast", false);
+
+        // Replace each macro by its output
+        doAnswer(invocation -> {
+            Block block = invocation.getArgument(0);
+            for (MacroBlock macroBlock : block.<MacroBlock>getBlocks(new ClassBlockMatcher(MacroBlock.class),
+                Block.Axes.DESCENDANT_OR_SELF))
+            {
+                macroBlock.getParent().replaceChild(new WordBlock(macroBlock.getId() + "-output"), macroBlock);
+            }
+            return null;
+        }).when(this.transformationManager).performTransformations(any(Block.class),
+            any(TransformationContext.class));
+
+        doAnswer(invocation -> {
+            print(Collections.singletonList(invocation.getArgument(0)), invocation.getArgument(1));
+            return null;
+        }).when(this.renderer).render(any(Block.class), any(WikiPrinter.class));
+        doAnswer(invocation -> {
+            print(invocation.getArgument(0), invocation.getArgument(1));
+            return null;
+        }).when(this.renderer).render(any(Collection.class), any(WikiPrinter.class));
+    }
+
+    private void mockMacro(String id, boolean deferrable) throws Exception
+    {
+        Macro macro = mock(Macro.class);
+        MacroDescriptor descriptor = mock(MacroDescriptor.class);
+        when(macro.getDescriptor()).thenReturn(descriptor);
+        when(descriptor.isDeferrable()).thenReturn(deferrable);
+        when(this.macroManager.getMacro(new MacroId(id, Syntax.XWIKI_2_1))).thenReturn(macro);
+    }
+
+    private void print(Collection<Block> blocks, WikiPrinter printer)
+    {
+        for (Block block : blocks) {
+            if (block instanceof WordBlock) {
+                printer.print("(" + ((WordBlock) block).getWord() + ")");
+            } else if (block.getParameter("id") != null) {
+                printer.print("[" + block.getParameter("id") + "]");
+            } else {
+                print(block.getChildren(), printer);
+            }
+        }
+    }
+
+    @Test
+    void convertWithDeferredMacro() throws Exception
+    {
+        XDOM xdom = new XDOM(List.of(
+            new ParagraphBlock(List.of(new WordBlock("before"), new MacroBlock("slow", Collections.emptyMap(), true))),
+            new MacroBlock("fast", Collections.emptyMap(), false)));
+        when(this.parser.parse(any())).thenReturn(xdom);
+
+        List<String> keys = new ArrayList<>();
+        List<String> fragments = new ArrayList<>();
+        DeferredMacroCallback callback = mock(DeferredMacroCallback.class);
+        doAnswer(invocation -> keys.add(invocation.getArgument(0)) && fragments.add(invocation.getArgument(1)))
+            .when(callback).onFragment(any(), any());
+
+        WikiPrinter printer = new DefaultWikiPrinter();
+        this.converter.convert(new StringReader(""), Syntax.XWIKI_2_1, Syntax.XHTML_1_0, printer, callback);
+
+        assertEquals(1, keys.size());
+        assertTrue(keys.get(0).startsWith("xwiki-deferred-"));
+        assertEquals("(before)[" + keys.get(0) + "](fast-output)", printer.toString());
+        assertEquals(List.of("(slow-output)"), fragments);
+
+        InOrder order = inOrder(callback);
+        order.verify(callback).onDocumentRendered();
+        order.verify(callback).onFragment(any(), any());
+    }
+
+    @Test
+    void convertTwiceUsesDifferentPlaceholders() throws Exception
+    {
+        when(this.parser.parse(any())).then(invocation -> new XDOM(
+            List.of(new MacroBlock("slow", Collections.emptyMap(), false))));
+
+        List<String> keys = new ArrayList<>();
+        this.converter.convert(new StringReader(""), Syntax.XWIKI_2_1, Syntax.XHTML_1_0, new DefaultWikiPrinter(),
+            (key, fragment) -> keys.add(key));
+        this.converter.convert(new StringReader(""), Syntax.XWIKI_2_1, Syntax.XHTML_1_0, new DefaultWikiPrinter(),
+            (key, fragment) -> keys.add(key));
+
+        assertEquals(2, keys.size());
+        assertNotEquals(keys.get(0), keys.get(1));
+    }
+
+    @Test
+    void convertWhenPlaceholderIsRemoved() throws Exception
+    {
+        XDOM xdom = new XDOM(List.of(new ParagraphBlock(List.of(new MacroBlock("slow", Collections.emptyMap(), true))),
+            new MacroBlock("fast", Collections.emptyMap(), false)));
+        when(this.parser.parse(any())).thenReturn(xdom);
+
+        // A transformation removing the content containing the placeholder
+        doAnswer(invocation -> {
+            xdom.setChildren(List.of(new WordBlock("fast-output")));
+            return null;
+        }).when(this.transformationManager).performTransformations(any(Block.class),
+            any(TransformationContext.class));
+
+        List<String> fragments = new ArrayList<>();
+        WikiPrinter printer = new DefaultWikiPrinter();
+        this.converter.convert(new StringReader(""), Syntax.XWIKI_2_1, Syntax.XHTML_1_0, printer,
+            (key, fragment) -> fragments.add(fragment));
+
+        assertEquals("(fast-output)", printer.toString());
+        // The callback is still notified, with an empty fragment
+        assertEquals(List.of(""), fragments);
+    }
+
+    @Test
+    void convertWithoutDeferredMacro() throws Exception
+    {
+        XDOM xdom = new XDOM(List.of(new MacroBlock("fast", Collections.emptyMap(), false)));
+        when(this.parser.parse(any())).thenReturn(xdom);
+
+        List<String> fragments = new ArrayList<>();
+        WikiPrinter printer = new DefaultWikiPrinter();
+        this.converter.convert(new StringReader(""), Syntax.XWIKI_2_1, Syntax.XHTML_1_0, printer,
+            (key, fragment) -> fragments.add(key));
+
+        assertEquals("(fast-output)", printer.toString());
+        assertEquals(List.of(), fragments);
+    }
+}
@@ -23,8 +23,6 @@
 import java.util.Arrays;
 import java.util.Collections;
 
-import javax.inject.Named;
-
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.xwiki.rendering.block.Block;
@@ -32,6 +30,8 @@
 import org.xwiki.rendering.block.ParagraphBlock;
 import org.xwiki.rendering.block.WordBlock;
 import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.internal.syntax.SyntaxRuntime;
+import org.xwiki.rendering.internal.syntax.SyntaxRuntimeManager;
 import org.xwiki.rendering.internal.transformation.MutableRenderingContext;
 import org.xwiki.rendering.parser.Parser;
 import org.xwiki.rendering.syntax.Syntax;
@@ -61,7 +61,8 @@
     private RenderingContext renderingContext;
 
     @MockComponent
-    @Named("test/1.0")
+    private SyntaxRuntimeManager syntaxRuntimeManager;
+
     private Parser mockParser;
 
     @InjectMockComponents
@@ -76,6 +77,11 @@ public void beforeEach() throws Exception
 
         this.macroContext = new MacroTransformationContext();
         this.macroContext.setSyntax(testSyntax);
+
+        this.mockParser = mock(Parser.class);
+        SyntaxRuntime syntaxRuntime = mock(SyntaxRuntime.class);
+        when(this.syntaxRuntimeManager.getRuntime(testSyntax)).thenReturn(syntaxRuntime);
+        when(syntaxRuntime.getParser()).thenReturn(this.mockParser);
     }
 
     // Tests
@@ -224,7 +224,9 @@ void getMacroIds() throws Exception
             new MacroId("testnestedmacro"),
             new MacroId("testcontentmacro"),
             new MacroId("testsimpleinlinemacro"),
-            new MacroId("testfailingmacro")            
+            new MacroId("testfailingmacro"),
+            new MacroId("testslowmacro"),
+            new MacroId("testcacheablemacro")
         ), this.macroManager.getMacroIds());
     }
 }
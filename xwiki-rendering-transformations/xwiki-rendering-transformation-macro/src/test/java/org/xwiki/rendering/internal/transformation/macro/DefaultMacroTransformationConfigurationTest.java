@@ -60,4 +60,22 @@ void getHiddenCategories()
         this.configuration.setHiddenCategories(Set.of("C1", "C2"));
         assertEquals(Set.of("C1", "C2"), this.configuration.getHiddenCategories());
     }
+
+    @Test
+    void getMacroExecutionTimeout()
+    {
+        assertEquals(0, this.configuration.getMacroExecutionTimeout("test"));
+        this.configuration.setMacroExecutionTimeout(100);
+        this.configuration.setMacroExecutionTimeout("test", 10);
+        assertEquals(10, this.configuration.getMacroExecutionTimeout("test"));
+        assertEquals(100, this.configuration.getMacroExecutionTimeout("other"));
+    }
+
+    @Test
+    void getDocumentExecutionTimeout()
+    {
+        assertEquals(0, this.configuration.getDocumentExecutionTimeout());
+        this.configuration.setDocumentExecutionTimeout(1000);
+        assertEquals(1000, this.configuration.getDocumentExecutionTimeout());
+    }
 }
@@ -0,0 +1,116 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.transformation.macro;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.WordBlock;
+import org.xwiki.rendering.macro.Macro;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.transformation.macro.MacroTransformationConfiguration;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link MacroOutputCache}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class MacroOutputCacheTest
+{
+    @InjectMockComponents
+    private MacroOutputCache cache;
+
+    @MockComponent
+    private MacroTransformationConfiguration configuration;
+
+    private final Macro<?> macro = mock(Macro.class);
+
+    @BeforeEach
+    void setUp()
+    {
+        when(this.configuration.getMacroOutputCacheSize()).thenReturn(2);
+    }
+
+    private MacroOutputCache.Key key(String content)
+    {
+        return new MacroOutputCache.Key(this.macro, "macro", Map.of("param", "value"), content, Syntax.XWIKI_2_1,
+            Syntax.XHTML_1_0, false, false);
+    }
+
+    @Test
+    void getAndPut()
+    {
+        assertTrue(this.cache.isEnabled());
+        assertNull(this.cache.get(key("content")));
+
+        WordBlock word = new WordBlock("word");
+        this.cache.put(key("content"), List.of(word));
+
+        List<Block> blocks = this.cache.get(key("content"));
+        assertEquals(List.of(word), blocks);
+        // The cache always returns copies
+        assertNotSame(word, blocks.get(0));
+        assertNotSame(blocks.get(0), this.cache.get(key("content")).get(0));
+
+        assertEquals(2, this.cache.getHitCount("macro"));
+        assertEquals(1, this.cache.getMissCount("macro"));
+    }
+
+    @Test
+    void keyDependsOnInputs()
+    {
+        this.cache.put(key("content"), List.of(new WordBlock("word")));
+
+        assertNull(this.cache.get(key("other")));
+        assertNull(this.cache.get(new MacroOutputCache.Key(this.macro, "macro", Map.of("param", "value"), "content",
+            Syntax.XWIKI_2_1, Syntax.XHTML_1_0, false, true)));
+        assertNull(this.cache.get(new MacroOutputCache.Key(mock(Macro.class), "macro", Map.of("param", "value"),
+            "content", Syntax.XWIKI_2_1, Syntax.XHTML_1_0, false, false)));
+    }
+
+    @Test
+    void evictLeastRecentlyUsed()
+    {
+        this.cache.put(key("1"), List.of(new WordBlock("1")));
+        this.cache.put(key("2"), List.of(new WordBlock("2")));
+        // Use the first entry so that the second one is evicted
+        this.cache.get(key("1"));
+        this.cache.put(key("3"), List.of(new WordBlock("3")));
+
+        assertEquals(2, this.cache.size());
+        assertEquals(1, this.cache.getEvictionCount());
+        assertNull(this.cache.get(key("2")));
+        assertEquals(List.of(new WordBlock("1")), this.cache.get(key("1")));
+    }
+}
@@ -38,6 +38,7 @@
 import org.xwiki.rendering.syntax.Syntax;
 import org.xwiki.rendering.transformation.Transformation;
 import org.xwiki.rendering.transformation.TransformationContext;
+import org.xwiki.rendering.transformation.macro.MacroTransformationConfiguration;
 import org.xwiki.test.ComponentManagerRule;
 import org.xwiki.test.annotation.AllComponents;
 
@@ -296,4 +297,78 @@ public void transformNotExistingMacro() throws Exception
         eventBlockRenderer.render(dom, printer);
         Assert.assertEquals(expected, printer.toString());
     }
+
+    @Test
+    public void transformWhenMacroExceedsItsTimeBudget() throws Exception
+    {
+        DefaultMacroTransformationConfiguration configuration =
+            this.componentManager.getInstance(MacroTransformationConfiguration.class);
+        configuration.setMacroExecutionTimeout("testslowmacro", 20);
+
+        XDOM dom = new XDOM(Arrays.<Block>asList(
+            new MacroBlock("testslowmacro", Collections.<String, String>emptyMap(), false),
+            new MacroBlock("testsimplemacro", Collections.<String, String>emptyMap(), false)));
+
+        this.transformation.transform(dom, new TransformationContext(dom, Syntax.XWIKI_2_0));
+
+        String result = render(dom);
+        Assert.assertTrue(result,
+            result.contains("onWord [The [testslowmacro] macro exceeded its execution time budget."));
+        // The other macros are still executed
+        Assert.assertTrue(result, result.contains("onWord [simplemacro0]"));
+    }
+
+    @Test
+    public void transformWhenDocumentExceedsItsTimeBudget() throws Exception
+    {
+        DefaultMacroTransformationConfiguration configuration =
+            this.componentManager.getInstance(MacroTransformationConfiguration.class);
+        configuration.setDocumentExecutionTimeout(20);
+
+        XDOM dom = new XDOM(Arrays.<Block>asList(
+            new MacroBlock("testslowmacro", Collections.<String, String>emptyMap(), false),
+            new MacroBlock("testsimplemacro", Collections.<String, String>emptyMap(), false)));
+
+        this.transformation.transform(dom, new TransformationContext(dom, Syntax.XWIKI_2_0));
+
+        String result = render(dom);
+        Assert.assertTrue(result,
+            result.contains("onWord [The [testslowmacro] macro exceeded its execution time budget."));
+        // The remaining macros are not executed
+        Assert.assertTrue(result, result.contains("onWord [The [testsimplemacro] macro was not executed because the "
+            + "execution time budget is exhausted."));
+        Assert.assertFalse(result, result.contains("simplemacro0"));
+    }
+
+    @Test
+    public void transformCacheableMacro() throws Exception
+    {
+        XDOM dom = new XDOM(Arrays.<Block>asList(
+            new MacroBlock("testcacheablemacro", Collections.<String, String>emptyMap(), "content", false),
+            new MacroBlock("testcacheablemacro", Collections.<String, String>emptyMap(), "content", false),
+            new MacroBlock("testcacheablemacro", Collections.<String, String>emptyMap(), "other", false)));
+
+        this.transformation.transform(dom, new TransformationContext(dom, Syntax.XWIKI_2_0));
+
+        String result = render(dom);
+        // The second macro is not executed but gets the output of the first one
+        Assert.assertEquals(result, 2, StringUtils.countMatches(result, "onWord [content1]"));
+        Assert.assertTrue(result, result.contains("onWord [other2]"));
+        // The macros generated by the cached output are still executed
+        Assert.assertEquals(result, 3,
+            StringUtils.countMatches(result, "beginMacroMarkerInline [testsimpleinlinemacro] []"));
+
+        MacroOutputCache cache = this.componentManager.getInstance(MacroOutputCache.class);
+        Assert.assertEquals(1, cache.getHitCount("testcacheablemacro"));
+        Assert.assertEquals(2, cache.getMissCount("testcacheablemacro"));
+    }
+
+    private String render(XDOM dom) throws Exception
+    {
+        WikiPrinter printer = new DefaultWikiPrinter();
+        BlockRenderer eventBlockRenderer =
+            this.componentManager.getInstance(BlockRenderer.class, Syntax.EVENT_1_0.toIdString());
+        eventBlockRenderer.render(dom, printer);
+        return printer.toString();
+    }
 }
@@ -19,6 +19,7 @@
  */
 package org.xwiki.rendering.internal.transformation.wikiword;
 
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,11 +31,14 @@
 import org.xwiki.rendering.block.LinkBlock;
 import org.xwiki.rendering.block.WordBlock;
 import org.xwiki.rendering.internal.block.ProtectedBlockFilter;
+import org.xwiki.rendering.internal.transformation.TransformationTraversal;
 import org.xwiki.rendering.listener.reference.DocumentResourceReference;
 import org.xwiki.rendering.listener.reference.ResourceReference;
 import org.xwiki.rendering.transformation.AbstractTransformation;
 import org.xwiki.rendering.transformation.TransformationContext;
 import org.xwiki.rendering.transformation.TransformationException;
+import org.xwiki.rendering.transformation.TransformationVisitor;
+import org.xwiki.rendering.transformation.VisitorTransformation;
 
 /**
  * Automatically replace words representing Wiki Words with a link.
@@ -45,7 +49,7 @@
 @Component
 @Named("wikiword")
 @Singleton
-public class WikiWordTransformation extends AbstractTransformation
+public class WikiWordTransformation extends AbstractTransformation implements VisitorTransformation
 {
     /**
      * Regex Pattern to recognize a WikiWord.
@@ -58,17 +62,41 @@ public class WikiWordTransformation extends AbstractTransformation
      */
     private ProtectedBlockFilter filter = new ProtectedBlockFilter();
 
-    @Override
-    public void transform(Block block, TransformationContext transformationContext) throws TransformationException
-    {
-        // Find all Word blocks and for each of them check if they're a wiki word or not
-        for (WordBlock wordBlock : this.filter.getChildrenByType(block, WordBlock.class, true)) {
-            Matcher matcher = WIKIWORD_PATTERN.matcher(wordBlock.getWord());
-            if (matcher.matches()) {
-                ResourceReference linkReference = new DocumentResourceReference(wordBlock.getWord());
-                wordBlock.getParent().replaceChild(new LinkBlock(wordBlock.getChildren(), linkReference, false),
-                    wordBlock);
+    /**
+     * Stateless so a single instance is used for all the transformations performed.
+     */
+    private final TransformationVisitor visitor = block -> {
+        if (this.filter.isProtectedBlock(block)) {
+            return false;
+        }
+
+        // Check if the Word children are wiki words or not. Note that replacing a child doesn't change the position of
+        // the other children.
+        List<Block> children = block.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            Block child = children.get(i);
+            if (child instanceof WordBlock) {
+                WordBlock wordBlock = (WordBlock) child;
+                Matcher matcher = WIKIWORD_PATTERN.matcher(wordBlock.getWord());
+                if (matcher.matches()) {
+                    ResourceReference linkReference = new DocumentResourceReference(wordBlock.getWord());
+                    block.replaceChild(new LinkBlock(wordBlock.getChildren(), linkReference, false), wordBlock);
+                }
             }
         }
+
+        return true;
+    };
+
+    @Override
+    public void transform(Block block, TransformationContext context) throws TransformationException
+    {
+        TransformationTraversal.transform(this, block, context);
+    }
+
+    @Override
+    public TransformationVisitor createVisitor(Block block, TransformationContext context)
+    {
+        return this.visitor;
     }
 }
@@ -27,6 +27,7 @@
 import org.xwiki.rendering.wikimodel.impl.WikiScannerContext;
 import org.xwiki.rendering.wikimodel.internal.creole.javacc.CreoleWikiScanner;
 import org.xwiki.rendering.wikimodel.internal.creole.javacc.ParseException;
+import org.xwiki.rendering.wikimodel.internal.creole.javacc.ScannerCharStream;
 
 /**
  * @version $Id$
@@ -50,7 +51,7 @@ public void parse(Reader reader, IWemListener listener)
         throws WikiParserException
     {
         try {
-            CreoleWikiScanner scanner = new CreoleWikiScanner(reader);
+            CreoleWikiScanner scanner = new CreoleWikiScanner(new ScannerCharStream(reader));
             WikiScannerContext context = new WikiScannerContext(listener);
             scanner.parse(context);
         } catch (ParseException e) {
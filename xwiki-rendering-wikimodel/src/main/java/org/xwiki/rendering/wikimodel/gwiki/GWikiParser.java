@@ -27,6 +27,7 @@
 import org.xwiki.rendering.wikimodel.impl.WikiScannerContext;
 import org.xwiki.rendering.wikimodel.internal.gwiki.javacc.GWikiScanner;
 import org.xwiki.rendering.wikimodel.internal.gwiki.javacc.ParseException;
+import org.xwiki.rendering.wikimodel.internal.gwiki.javacc.ScannerCharStream;
 
 /**
  * @version $Id$
@@ -50,7 +51,7 @@ public void parse(Reader reader, IWemListener listener)
         throws WikiParserException
     {
         try {
-            GWikiScanner scanner = new GWikiScanner(reader);
+            GWikiScanner scanner = new GWikiScanner(new ScannerCharStream(reader));
             WikiScannerContext context = new WikiScannerContext(listener);
             scanner.parse(context);
         } catch (ParseException e) {
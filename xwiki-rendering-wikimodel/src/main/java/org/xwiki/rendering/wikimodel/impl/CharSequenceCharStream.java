@@ -0,0 +1,442 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.wikimodel.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import org.xwiki.rendering.util.CharSequenceReader;
+import org.xwiki.rendering.wikimodel.WikiParserException;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Base implementation of the JavaCC {@code CharStream} interface reading directly from an in-memory
+ * {@link CharSequence}. Contrary to the generated {@code SimpleCharStream} it doesn't copy the input into growing
+ * buffers and it doesn't track line and column numbers for each read character: those are only computed when asked
+ * for, which in practice means only when reporting errors.
+ * <p>
+ * Content which is not in memory (any {@link Reader} other than a {@link CharSequenceReader}) is read by chunks, the
+ * characters before the current token being dropped when reading the next chunk, so that parsing it uses a constant
+ * amount of memory like with {@code SimpleCharStream}.
+ * <p>
+ * Each scanner generated with {@code USER_CHAR_STREAM} has its own {@code CharStream} interface, so each scanner
+ * package contains a subclass implementing it.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public abstract class CharSequenceCharStream
+{
+    private static final int READ_BUFFER_SIZE = 4096;
+
+    /**
+     * The characters to read, or the characters read from {@link #reader} and not dropped yet.
+     */
+    private CharSequence sequence;
+
+    /**
+     * The reader to read the next chunks from, {@code null} when all the characters are in {@link #sequence}.
+     */
+    private Reader reader;
+
+    private char[] readBuffer;
+
+    /**
+     * The offset in the whole content of the first character of {@link #sequence}.
+     */
+    private int offset;
+
+    /**
+     * The offset in the whole content of the character following the last character of {@link #sequence}.
+     */
+    private int length;
+
+    private int position;
+
+    private int tokenBegin;
+
+    private int tabSize = 1;
+
+    private boolean trackLineColumn = true;
+
+    /**
+     * The number of lines before the line containing the first character of {@link #sequence}.
+     */
+    private int offsetLine;
+
+    /**
+     * The column of the character preceding the first character of {@link #sequence} on the same line, 0 if it starts
+     * a line.
+     */
+    private int offsetColumn;
+
+    /**
+     * The offsets of the first character of each line of {@link #sequence}, computed lazily. The first one is always
+     * the offset of the first character of {@link #sequence}.
+     */
+    private int[] lineStarts;
+
+    private int lineCount;
+
+    /**
+     * @param sequence the characters to read
+     */
+    protected CharSequenceCharStream(CharSequence sequence)
+    {
+        init(sequence);
+    }
+
+    /**
+     * @param reader the reader to read the characters from
+     * @throws WikiParserException when failing to read
+     */
+    protected CharSequenceCharStream(Reader reader) throws WikiParserException
+    {
+        init(reader);
+    }
+
+    /**
+     * Starts reading a new sequence of characters. Used when reinitializing a scanner.
+     *
+     * @param sequence the characters to read
+     */
+    public void init(CharSequence sequence)
+    {
+        this.sequence = sequence;
+        this.reader = null;
+        this.readBuffer = null;
+        this.offset = 0;
+        this.length = sequence.length();
+        this.position = 0;
+        this.tokenBegin = 0;
+        this.offsetLine = 0;
+        this.offsetColumn = 0;
+        this.lineStarts = null;
+        this.lineCount = 0;
+    }
+
+    /**
+     * Starts reading the characters of a new reader. Used when reinitializing a scanner. The characters of a
+     * {@link CharSequenceReader} are read directly, without copying them, while other readers are read by chunks.
+     *
+     * @param reader the reader to read the characters from
+     * @throws WikiParserException when failing to read
+     */
+    public void init(Reader reader) throws WikiParserException
+    {
+        if (reader instanceof CharSequenceReader) {
+            try {
+                init(((CharSequenceReader) reader).getRemaining());
+            } catch (IOException e) {
+                throw new WikiParserException("Failed to read the content to parse", e);
+            }
+        } else {
+            init(new StringBuilder());
+            this.reader = reader;
+            this.readBuffer = new char[READ_BUFFER_SIZE];
+        }
+    }
+
+    /**
+     * @return the next character
+     * @throws IOException at the end of the input, as expected by the generated token managers
+     */
+    public char readChar() throws IOException
+    {
+        if (this.position >= this.length && !readChunk()) {
+            throw new IOException("End of input");
+        }
+
+        return charAt(this.position++);
+    }
+
+    /**
+     * Read the next chunk of characters from the reader, dropping the characters which cannot be accessed anymore.
+     *
+     * @return {@code false} if there isn't any character left to read
+     * @throws IOException when failing to read
+     */
+    private boolean readChunk() throws IOException
+    {
+        if (this.reader == null) {
+            return false;
+        }
+
+        int count = this.reader.read(this.readBuffer);
+        if (count < 0) {
+            this.reader = null;
+            this.readBuffer = null;
+
+            return false;
+        }
+
+        StringBuilder builder = (StringBuilder) this.sequence;
+        if (this.tokenBegin - this.offset >= READ_BUFFER_SIZE) {
+            drop(builder, this.tokenBegin);
+        }
+        builder.append(this.readBuffer, 0, count);
+        this.length += count;
+        this.lineStarts = null;
+
+        return count > 0 || readChunk();
+    }
+
+    /**
+     * Drop the characters before the passed offset, remembering where they end in terms of lines and columns.
+     *
+     * @param builder the characters
+     * @param end the offset of the first character to keep
+     */
+    private void drop(StringBuilder builder, int end)
+    {
+        // Keep a final carriage return since it's not a new line if followed by a line feed
+        int dropEnd = end == this.length && end > this.offset && charAt(end - 1) == '\r' ? end - 1 : end;
+
+        int line = this.offsetLine;
+        int column = this.offsetColumn;
+        for (int i = this.offset; i < dropEnd; i++) {
+            char c = charAt(i);
+            if (c == '\n' || (c == '\r' && charAt(i + 1) != '\n')) {
+                line++;
+                column = 0;
+            } else {
+                column = nextColumn(column, c);
+            }
+        }
+
+        builder.delete(0, dropEnd - this.offset);
+        this.offset = dropEnd;
+        this.offsetLine = line;
+        this.offsetColumn = column;
+    }
+
+    private char charAt(int index)
+    {
+        return this.sequence.charAt(index - this.offset);
+    }
+
+    /**
+     * @return the first character of the next token
+     * @throws IOException at the end of the input, as expected by the generated token managers
+     */
+    public char BeginToken() throws IOException
+    {
+        this.tokenBegin = this.position;
+
+        return readChar();
+    }
+
+    /**
+     * @param amount the number of characters to unread
+     */
+    public void backup(int amount)
+    {
+        this.position -= amount;
+    }
+
+    /**
+     * @return the characters of the current token
+     */
+    public String GetImage()
+    {
+        return this.sequence.subSequence(this.tokenBegin - this.offset, this.position - this.offset).toString();
+    }
+
+    /**
+     * @param len the number of characters to return
+     * @return the last {@code len} characters of the current token
+     */
+    public char[] GetSuffix(int len)
+    {
+        char[] suffix = new char[len];
+        int start = this.position - len;
+        for (int i = 0; i < len; i++) {
+            suffix[i] = charAt(start + i);
+        }
+
+        return suffix;
+    }
+
+    /**
+     * Releases the input.
+     */
+    public void Done()
+    {
+        this.lineStarts = null;
+    }
+
+    /**
+     * @return the line of the last read character
+     * @deprecated use {@link #getEndLine()}
+     */
+    @Deprecated
+    public int getLine()
+    {
+        return getEndLine();
+    }
+
+    /**
+     * @return the column of the last read character
+     * @deprecated use {@link #getEndColumn()}
+     */
+    @Deprecated
+    public int getColumn()
+    {
+        return getEndColumn();
+    }
+
+    /**
+     * @return the line of the first character of the current token
+     */
+    public int getBeginLine()
+    {
+        return lineOf(this.tokenBegin);
+    }
+
+    /**
+     * @return the column of the first character of the current token
+     */
+    public int getBeginColumn()
+    {
+        return columnOf(this.tokenBegin);
+    }
+
+    /**
+     * @return the line of the last read character
+     */
+    public int getEndLine()
+    {
+        return lineOf(this.position - 1);
+    }
+
+    /**
+     * @return the column of the last read character
+     */
+    public int getEndColumn()
+    {
+        return columnOf(this.position - 1);
+    }
+
+    /**
+     * @param i the tab size used to compute columns
+     */
+    public void setTabSize(int i)
+    {
+        this.tabSize = i;
+    }
+
+    /**
+     * @return the tab size used to compute columns
+     */
+    public int getTabSize()
+    {
+        return this.tabSize;
+    }
+
+    /**
+     * @return {@code true} if the line and column numbers are computed
+     */
+    public boolean getTrackLineColumn()
+    {
+        return this.trackLineColumn;
+    }
+
+    /**
+     * @param trackLineColumn {@code true} if the line and column numbers should be computed
+     */
+    public void setTrackLineColumn(boolean trackLineColumn)
+    {
+        this.trackLineColumn = trackLineColumn;
+    }
+
+    private int lineOf(int index)
+    {
+        if (!this.trackLineColumn || index < 0) {
+            return 1;
+        }
+
+        return this.offsetLine + lineIndex(index) + 1;
+    }
+
+    private int columnOf(int index)
+    {
+        if (!this.trackLineColumn || index < 0) {
+            return 1;
+        }
+
+        int line = lineIndex(index);
+        int lineStart = this.lineStarts[line];
+        // The first line of the sequence might start before its first character
+        int column = line == 0 ? this.offsetColumn : 0;
+        if (this.tabSize <= 1) {
+            return column + index - lineStart + 1;
+        }
+
+        for (int i = lineStart; i <= index; i++) {
+            column = nextColumn(column, charAt(i));
+        }
+
+        return column;
+    }
+
+    private int nextColumn(int column, char c)
+    {
+        // Same computation as the generated SimpleCharStream.
+        int next = column + 1;
+        if (c == '\t' && this.tabSize > 1) {
+            next--;
+            next += this.tabSize - (next % this.tabSize);
+        }
+
+        return next;
+    }
+
+    private int lineIndex(int index)
+    {
+        if (this.lineStarts == null) {
+            computeLineStarts();
+        }
+
+        int line = Arrays.binarySearch(this.lineStarts, 0, this.lineCount, index);
+
+        return line >= 0 ? line : -line - 2;
+    }
+
+    private void computeLineStarts()
+    {
+        int[] starts = new int[16];
+        starts[0] = this.offset;
+        int count = 1;
+        for (int i = this.offset; i < this.length; i++) {
+            char c = charAt(i);
+            if (c == '\n' || (c == '\r' && (i + 1 >= this.length || charAt(i + 1) != '\n'))) {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                }
+                starts[count++] = i + 1;
+            }
+        }
+
+        this.lineStarts = starts;
+        this.lineCount = count;
+    }
+}
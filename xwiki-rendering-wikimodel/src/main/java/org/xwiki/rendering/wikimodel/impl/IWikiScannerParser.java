@@ -0,0 +1,43 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.wikimodel.impl;
+
+import java.io.Reader;
+
+import org.xwiki.rendering.wikimodel.WikiParserException;
+import org.xwiki.stability.Unstable;
+
+/**
+ * A parser giving access to the calls its scanner makes on the {@link IWikiScannerContext}, before they are turned
+ * into listener events.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public interface IWikiScannerParser
+{
+    /**
+     * @param reader the content to parse
+     * @param context receives the calls of the scanner
+     * @throws WikiParserException when failing to parse the content
+     */
+    void parse(Reader reader, IWikiScannerContext context) throws WikiParserException;
+}
@@ -0,0 +1,116 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.wikimodel.impl;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Records the calls made on a {@link IWikiScannerContext} to replay them later on another context. This allows
+ * running the scanner of several parts of a document concurrently while the (stateful) context producing the events
+ * receives all the calls in order, on a single thread.
+ * <p>
+ * All the methods of {@link IWikiScannerContext} return nothing and the scanners never depend on the state of the
+ * context, which is what makes recording possible.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+@Unstable
+public class WikiScannerContextRecorder
+{
+    private static final String BEGIN_DOCUMENT = "beginDocument";
+
+    private static final String END_DOCUMENT = "endDocument";
+
+    private final List<Method> methods = new ArrayList<>();
+
+    private final List<Object[]> arguments = new ArrayList<>();
+
+    private final IWikiScannerContext context =
+        (IWikiScannerContext) Proxy.newProxyInstance(IWikiScannerContext.class.getClassLoader(),
+            new Class<?>[] {IWikiScannerContext.class}, (proxy, method, args) -> {
+                if (method.getDeclaringClass() == Object.class) {
+                    return method.invoke(this, args);
+                }
+                this.methods.add(method);
+                this.arguments.add(args);
+
+                return null;
+            });
+
+    /**
+     * @return the context recording the calls made on it
+     */
+    public IWikiScannerContext getContext()
+    {
+        return this.context;
+    }
+
+    /**
+     * @return the number of recorded calls
+     */
+    public int size()
+    {
+        return this.methods.size();
+    }
+
+    /**
+     * Replays the recorded calls.
+     *
+     * @param target the context on which to replay the calls
+     * @param document {@code false} to skip the {@code beginDocument} and {@code endDocument} calls wrapping the
+     *            recorded calls, when the recorded content is only a part of a document
+     */
+    public void replay(IWikiScannerContext target, boolean document)
+    {
+        int start = 0;
+        int end = this.methods.size();
+        if (!document) {
+            if (end > 0 && this.methods.get(0).getName().equals(BEGIN_DOCUMENT)) {
+                start++;
+            }
+            if (end > start && this.methods.get(end - 1).getName().equals(END_DOCUMENT)) {
+                end--;
+            }
+        }
+
+        for (int i = start; i < end; i++) {
+            try {
+                this.methods.get(i).invoke(target, this.arguments.get(i));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Failed to replay a call to the wiki scanner context", e);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new IllegalStateException("Failed to replay a call to the wiki scanner context", e.getCause());
+            }
+        }
+    }
+}
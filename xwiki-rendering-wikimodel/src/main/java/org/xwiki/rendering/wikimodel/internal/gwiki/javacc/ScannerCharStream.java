@@ -0,0 +1,51 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.wikimodel.internal.gwiki.javacc;
+
+import java.io.Reader;
+
+import org.xwiki.rendering.wikimodel.WikiParserException;
+import org.xwiki.rendering.wikimodel.impl.CharSequenceCharStream;
+
+/**
+ * Reads the content to parse directly from a {@link CharSequence}, or by chunks from a {@link Reader}.
+ *
+ * @version $Id$
+ * @since 15.0RC1
+ */
+public final class ScannerCharStream extends CharSequenceCharStream implements CharStream
+{
+    /**
+     * @param sequence the characters to read
+     */
+    public ScannerCharStream(CharSequence sequence)
+    {
+        super(sequence);
+    }
+
+    /**
+     * @param reader the reader to read the characters from
+     * @throws WikiParserException when failing to read
+     */
+    public ScannerCharStream(Reader reader) throws WikiParserException
+    {
+        super(reader);
+    }
+}
@@ -27,6 +27,7 @@
 import org.xwiki.rendering.wikimodel.impl.WikiScannerContext;
 import org.xwiki.rendering.wikimodel.internal.jspwiki.javacc.JspWikiScanner;
 import org.xwiki.rendering.wikimodel.internal.jspwiki.javacc.ParseException;
+import org.xwiki.rendering.wikimodel.internal.jspwiki.javacc.ScannerCharStream;
 
 /**
  * @version $Id$
@@ -50,7 +51,7 @@ public void parse(Reader reader, IWemListener listener)
         throws WikiParserException
     {
         try {
-            JspWikiScanner scanner = new JspWikiScanner(reader);
+            JspWikiScanner scanner = new JspWikiScanner(new ScannerCharStream(reader));
             WikiScannerContext context = new WikiScannerContext(listener);
             scanner.parse(context);
         } catch (ParseException e) {
@@ -24,16 +24,25 @@
 import org.xwiki.rendering.wikimodel.IWemListener;
 import org.xwiki.rendering.wikimodel.IWikiParser;
 import org.xwiki.rendering.wikimodel.WikiParserException;
+import org.xwiki.rendering.wikimodel.impl.IWikiScannerContext;
+import org.xwiki.rendering.wikimodel.impl.IWikiScannerParser;
 import org.xwiki.rendering.wikimodel.impl.WikiScannerContext;
 import org.xwiki.rendering.wikimodel.internal.xwiki.xwiki20.javacc.ParseException;
+import org.xwiki.rendering.wikimodel.internal.xwiki.xwiki20.javacc.ScannerCharStream;
 import org.xwiki.rendering.wikimodel.internal.xwiki.xwiki20.javacc.XWikiScanner;
 
 /**
  * @version $Id$
  * @since 4.0M1
  */
-public class XWikiParser implements IWikiParser
+public class XWikiParser implements IWikiParser, IWikiScannerParser
 {
+    /**
+     * Creating a scanner is costly compared to parsing the small contents it's often used for (macro contents for
+     * example), so each thread reuses its own.
+     */
+    private static final ThreadLocal<XWikiScanner> SCANNER = new ThreadLocal<>();
+
     public XWikiParser()
     {
         super();
@@ -46,12 +55,31 @@ public XWikiParser()
     public void parse(Reader reader, IWemListener listener)
         throws WikiParserException
     {
+        parse(reader, new WikiScannerContext(listener));
+    }
+
+    @Override
+    public void parse(Reader reader, IWikiScannerContext context) throws WikiParserException
+    {
+        ScannerCharStream stream = new ScannerCharStream(reader);
+
+        XWikiScanner scanner = SCANNER.get();
+        if (scanner == null) {
+            scanner = new XWikiScanner(stream);
+        } else {
+            // Nested parsing (e.g. of an image label) on the same thread gets its own scanner
+            SCANNER.remove();
+            scanner.ReInit(stream);
+        }
+
         try {
-            XWikiScanner scanner = new XWikiScanner(reader);
-            WikiScannerContext context = new WikiScannerContext(listener);
             scanner.parse(context);
         } catch (ParseException e) {
             throw new WikiParserException(e);
+        } finally {
+            // Don't keep the parsed content alive through the reused scanner
+            scanner.ReInit(new ScannerCharStream(""));
+            SCANNER.set(scanner);
         }
     }
 }
@@ -0,0 +1,172 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.wikimodel.test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.apache.commons.lang3.StringUtils;
+import org.xwiki.rendering.util.CharSequenceReader;
+import org.xwiki.rendering.wikimodel.WikiParserException;
+import org.xwiki.rendering.wikimodel.impl.CharSequenceCharStream;
+
+import junit.framework.TestCase;
+
+/**
+ * @version $Id$
+ * @since 15.0RC1
+ */
+public class CharSequenceCharStreamTest extends TestCase
+{
+    private static class TestCharStream extends CharSequenceCharStream
+    {
+        TestCharStream(CharSequence sequence)
+        {
+            super(sequence);
+        }
+
+        TestCharStream(Reader reader) throws WikiParserException
+        {
+            super(reader);
+        }
+    }
+
+    public void testReadAndBackup() throws IOException
+    {
+        TestCharStream stream = new TestCharStream("ab\ncd");
+
+        assertEquals('a', stream.BeginToken());
+        assertEquals('b', stream.readChar());
+        assertEquals('\n', stream.readChar());
+        stream.backup(1);
+        assertEquals("ab", stream.GetImage());
+        assertEquals("b", new String(stream.GetSuffix(1)));
+
+        assertEquals('\n', stream.BeginToken());
+        assertEquals('c', stream.readChar());
+        assertEquals('d', stream.readChar());
+        assertEquals("\ncd", stream.GetImage());
+
+        try {
+            stream.readChar();
+            fail();
+        } catch (IOException expected) {
+            // The end of the input is signaled with an exception
+        }
+    }
+
+    public void testLinesAndColumns() throws IOException
+    {
+        TestCharStream stream = new TestCharStream("a\r\nbc\rd\n\te");
+
+        stream.BeginToken();
+        assertEquals(1, stream.getBeginLine());
+        assertEquals(1, stream.getBeginColumn());
+
+        // Move to "c"
+        for (int i = 0; i < 4; i++) {
+            stream.readChar();
+        }
+        assertEquals(2, stream.getEndLine());
+        assertEquals(2, stream.getEndColumn());
+
+        // Move to "d"
+        stream.BeginToken();
+        stream.readChar();
+        assertEquals(2, stream.getBeginLine());
+        assertEquals(3, stream.getBeginColumn());
+        assertEquals(3, stream.getEndLine());
+        assertEquals(1, stream.getEndColumn());
+
+        // Move to "e"
+        stream.readChar();
+        stream.readChar();
+        stream.readChar();
+        assertEquals(4, stream.getEndLine());
+        assertEquals(2, stream.getEndColumn());
+
+        stream.setTabSize(4);
+        assertEquals(5, stream.getEndColumn());
+    }
+
+    public void testCharSequenceReader() throws IOException, WikiParserException
+    {
+        CharSequenceReader reader = new CharSequenceReader("content");
+        reader.skip(3);
+        TestCharStream stream = new TestCharStream(reader);
+
+        stream.BeginToken();
+        for (int i = 0; i < 3; i++) {
+            stream.readChar();
+        }
+        assertEquals("tent", stream.GetImage());
+    }
+
+    public void testReaderIsReadByChunks() throws IOException, WikiParserException
+    {
+        // Put a new line across the first chunks boundary
+        StringBuilder content = new StringBuilder();
+        while (content.length() < 4095) {
+            content.append("\tline ").append(content.length()).append(content.length() % 3 == 0 ? "\r\n" : "\n");
+        }
+        content.setLength(4095);
+        content.append("\r\n");
+        for (int i = 0; content.length() < 20000; i++) {
+            content.append(i % 2 == 0 ? "\t" : "").append("word ").append(i).append(i % 5 == 0 ? "\r" : "\n");
+        }
+
+        TestCharStream expected = new TestCharStream(content);
+        expected.setTabSize(4);
+        TestCharStream stream = new TestCharStream(new StringReader(content.toString()));
+        stream.setTabSize(4);
+
+        // Each character is a token so that the previous ones can be dropped
+        for (int i = 0; i < content.length(); i++) {
+            assertEquals(expected.BeginToken(), stream.BeginToken());
+            assertEquals(expected.getBeginLine(), stream.getBeginLine());
+            assertEquals(expected.getBeginColumn(), stream.getBeginColumn());
+        }
+
+        try {
+            stream.readChar();
+            fail();
+        } catch (IOException e) {
+            // The end of the input is signaled with an exception
+        }
+    }
+
+    public void testReaderWithTokenLongerThanChunks() throws IOException, WikiParserException
+    {
+        String content = StringUtils.repeat("word\n", 3000);
+        TestCharStream stream = new TestCharStream(new StringReader(content));
+
+        stream.BeginToken();
+        for (int i = 1; i < content.length(); i++) {
+            stream.readChar();
+        }
+
+        assertEquals(content, stream.GetImage());
+        assertEquals(1, stream.getBeginLine());
+        assertEquals(1, stream.getBeginColumn());
+        assertEquals(3000, stream.getEndLine());
+        assertEquals(5, stream.getEndColumn());
+    }
+}
@@ -764,4 +764,22 @@ public void testEmptyLine() throws WikiParserException
         test("paragraph\n\n\n\n----", "<p>paragraph</p>\n<div style='height:2em;'></div>\n<hr />");
         test("paragraph\n\n\n\n\n----", "<p>paragraph</p>\n<div style='height:3em;'></div>\n<hr />");
     }
+
+    public void testScannerReuse() throws WikiParserException
+    {
+        String content = "(% class=\"a\" %)\n|a|b\n\n{{{verbatim}}}\n\n{{macro}}content{{/macro}}";
+        String expected = parse(content);
+
+        // Leave the reused scanner in the middle of a table, an embedded document, a macro and a verbatim block
+        parse("|a|(((\n{{macro}}\n{{{\n(% b %)");
+
+        assertEquals(expected, parse(content));
+    }
+
+    private String parse(String content) throws WikiParserException
+    {
+        StringBuffer buf = new StringBuffer();
+        newWikiParser().parse(new StringReader(content), newParserListener(buf));
+        return buf.toString();
+    }
 }